@@ -6,6 +6,7 @@ import exception.IncorrectCommandHistoryArgException;
 import exception.IncorrectContentTypeException;
 import exception.InvalidCommandException;
 import exception.InvalidCommandHistorySizeException;
+import exception.InvalidImageException;
 import exception.InvalidNameException;
 import exception.InvalidNumberOfArgument;
 import exception.InvalidPathException;
@@ -47,6 +48,7 @@ public class Command {
    * @throws EmptyDirectoryStackException
    * @throws InvalidCommandException
    * @throws NumberFormatException
+   * @throws InvalidImageException
    * 
    */
   public void executeCommand() throws HasSameContentNameException,
@@ -54,7 +56,7 @@ public class Command {
       InvalidNameException, InvalidCommandHistorySizeException,
       InvalidRegexException, MkdirMultiException, InvalidNumberOfArgument,
       IncorrectCommandHistoryArgException, EmptyDirectoryStackException,
-      NumberFormatException, InvalidCommandException {}
+      NumberFormatException, InvalidCommandException, InvalidImageException {}
 
   /**
    * Set the parameter for the command to be executed
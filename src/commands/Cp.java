@@ -17,7 +17,6 @@ import exception.InvalidPathException;
  */
 public class Cp extends Command {
   private FileSystem fileSys;
-  private String SLASH = "/";
 
   public Cp(FileSystem fs) {
     fileSys = fs;
@@ -53,12 +52,7 @@ public class Cp extends Command {
   protected void copyContent(Content target, Folder new_location)
       throws HasSameContentNameException {
     if (target != null && new_location != null) {
-      // make a copy of the content
-      Content copy = fileSys.createCopy(target);
-      // Set the path for the copy
-      copy.changePath(new_location.getPath() + SLASH + copy.getName());
-      // Add the copy to new location
-      new_location.addContent(copy);
+      fileSys.copyContent(target, new_location);
     }
   }
 }
@@ -1,13 +1,19 @@
 package commands;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import driver.File;
 import driver.FileSystem;
+import driver.Journal;
+import driver.Lookup;
+import driver.LookupStatus;
 import exception.HasSameContentNameException;
 import exception.IncorrectContentTypeException;
 import exception.InvalidNameException;
@@ -28,6 +34,16 @@ public class Curl extends Command {
    */
   private final String SLASH = "/";
 
+  /**
+   * the parameter of a content type that names its charset
+   */
+  private final String CHARSET = "charset=";
+
+  /**
+   * number of bytes read from the Internet at a time
+   */
+  private final int BUFFER_SIZE = 8192;
+
   /**
    * the FileSystem from the JShell
    */
@@ -39,9 +55,14 @@ public class Curl extends Command {
   private URL urlObj;
 
   /**
-   * a String to hold the contents of a file read from the Internet
+   * the bytes of a file read from the Internet, kept exactly as read
    */
-  private String fileContents;
+  private byte[] fileContents;
+
+  /**
+   * the charset the file read from the Internet is written in
+   */
+  private Charset fileCharset;
 
   /**
    * a String to hold the name of a file read from the Internet
@@ -49,9 +70,9 @@ public class Curl extends Command {
   private String fileName;
 
   /**
-   * BufferedReader for reading characters from an online file efficiently.
+   * InputStream for reading the bytes of an online file.
    */
-  private BufferedReader input;
+  private InputStream input;
 
 
   /**
@@ -78,7 +99,7 @@ public class Curl extends Command {
       InvalidPathException, HasSameContentNameException, InvalidNameException,
       IncorrectContentTypeException, InvalidNumberOfArgument {
     checkNumParam(1);
-    fileContents = "";
+    fileContents = null;
     fileName = "";
     // split in two methods. Retrieving URL, and local fileSystem work.
 
@@ -91,8 +112,8 @@ public class Curl extends Command {
 
   /**
    * Goes to the URL and opens an inputStream of the file to read from, then
-   * fills up a String with the file contents. Returns True if the file was
-   * successfully retrieved. False otherwise.
+   * copies the bytes of the file without decoding them, so line endings and
+   * binary data are kept as they are.
    * 
    * @throws InvalidURLException
    */
@@ -100,17 +121,13 @@ public class Curl extends Command {
     try {
       urlObj = new URL(parameter[0]);
       /*
-       * openStream() opens the actual connection to the Internet, and returns
-       * an inputStream from that URL.
-       * 
-       * InputStreamReader reads a byte stream and decodes them to a char
-       * stream (prevent issues with differences in encoding between online
-       * source and local system)
-       * 
-       * bufferedReader reads characters from an input stream, and buffers
-       * stream for efficiency
+       * openConnection() opens the actual connection to the Internet, the
+       * content type it reports names the charset of the file, which is only
+       * needed once the file is read as text
        */
-      input = new BufferedReader(new InputStreamReader(urlObj.openStream()));
+      URLConnection connection = urlObj.openConnection();
+      input = connection.getInputStream();
+      fileCharset = getCharset(connection.getContentType());
 
       // Get the name of the file (keep only characters to the right of the
       // right-most slash (not including the slash))
@@ -118,23 +135,16 @@ public class Curl extends Command {
       int lastSlashIndex = fileName.lastIndexOf(SLASH);
       fileName = fileName.substring(lastSlashIndex + 1);
 
-      // FILL A LOCAL STRING WITH THE CONTENTS OF THE FILE.
-
-      // var to hold the current line.
-      String curLine;
-
-      // keep reading lines and appending to local String until End Of File
-      while ((curLine = input.readLine()) != null) {
-        // add a newline character at the end of every line read.
-        fileContents += curLine + "\n";
+      // copy the bytes of the file until End Of File
+      ByteArrayOutputStream contents = new ByteArrayOutputStream();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = input.read(buffer)) != -1) {
+        contents.write(buffer, 0, count);
       }
       // no longer need to read the stream
       input.close();
-
-      // strip the extra newline character added at the end of the file
-      if (fileContents.length() > 0) {
-        fileContents = fileContents.substring(0, fileContents.length() - 1);
-      }
+      fileContents = contents.toByteArray();
     } catch (MalformedURLException e) {
       throw new InvalidURLException();
     } catch (IOException e) {
@@ -142,6 +152,29 @@ public class Curl extends Command {
     }
   }
 
+  /**
+   * Returns the charset named in a content type, or UTF-8 if it names none
+   * or one that is not supported
+   * 
+   * @param contentType the content type of the file, may be null
+   * @return the charset of the file
+   */
+  private Charset getCharset(String contentType) {
+    if (contentType != null) {
+      int index = contentType.toLowerCase().indexOf(CHARSET);
+      if (index >= 0) {
+        String name = contentType.substring(index + CHARSET.length());
+        name = name.split(";")[0].replace("\"", "").trim();
+        try {
+          return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+          // not a charset this system knows, fall back to UTF-8
+        }
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
   /**
    * Writes a new File to the FileSystem, using data retrieved from the URL
    * 
@@ -156,7 +189,6 @@ public class Curl extends Command {
     // generate the filePath, based on where we are in the fileSystem, and the
     // fileName from the Internet.
     String newFilePath;
-    boolean fileExists;
     File curFile;
 
     // if the fileSys is NOT in the root, we need to add a slash
@@ -167,16 +199,19 @@ public class Curl extends Command {
     }
 
     // check if there is an existing file with the same Path.
-    fileExists = fileSys.pathExist(newFilePath);
+    Lookup found = fileSys.lookupFile(newFilePath);
 
     // if the file does not exist, create it.
-    if (!fileExists) {
-      fileSys.makeFile(newFilePath);
+    if (found.getStatus() == LookupStatus.NOT_FOUND) {
+      curFile = fileSys.makeFile(newFilePath);
+    } else {
+      fileSys.raiseLookupError(found);
+      curFile = found.getFile();
     }
 
     // write the read Internet data to the file, overwrites data if the
     // file already exists
-    curFile = fileSys.getFile(newFilePath);
-    curFile.overwriteData(fileContents);
+    curFile.overwriteData(fileContents, fileCharset);
+    Journal.recordWrite(curFile);
   }
 }
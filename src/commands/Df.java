@@ -0,0 +1,115 @@
+package commands;
+
+import driver.BlobStore;
+import driver.FileArena;
+import driver.FileCompressor;
+import driver.FileSpiller;
+import driver.InodeTable;
+import driver.NameDictionary;
+import driver.PrintFormatter;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * A command that reports how much memory the data of files uses outside of
+ * the Java heap, how fragmented that memory is, how well the data of cold
+ * files is compressed, how much of it is spilled to disk, and how much is
+ * saved by keeping identical data once.
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class Df extends Command {
+
+  /**
+   * Print formatter object instance
+   */
+  private PrintFormatter format;
+
+  /**
+   * Default Constructor
+   * 
+   * @param pf PrintFormatter instance
+   */
+  public Df(PrintFormatter pf) {
+    format = pf;
+  }
+
+  /**
+   * Executes df command, setting the report as the output
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  public void executeCommand() throws InvalidNumberOfArgument {
+    // check the number of parameters
+    checkNumParam(0);
+    StringBuilder report = new StringBuilder();
+    FileArena arena = FileArena.getActive();
+    if (arena == null) {
+      report.append("Off-heap arena: off");
+    } else {
+      report.append("Off-heap arena: on\n");
+      report.append("Slabs: ").append(arena.getSlabCount()).append(" x ")
+          .append(arena.getSlabSize()).append(" bytes\n");
+      report.append("Reserved: ").append(arena.getReservedBytes())
+          .append(" bytes\n");
+      report.append("Used: ").append(arena.getUsedBytes())
+          .append(" bytes in ").append(arena.getBlockCount())
+          .append(" blocks\n");
+      report.append("Data: ").append(arena.getDataBytes()).append(" bytes\n");
+      report.append("Free: ").append(arena.getFreeBytes()).append(" bytes\n");
+      report.append(String.format("Internal fragmentation: %.1f%%\n",
+          arena.getInternalFragmentation()));
+      report.append(String.format("External fragmentation: %.1f%%",
+          arena.getExternalFragmentation()));
+    }
+    FileCompressor compressor = FileCompressor.getActive();
+    if (compressor == null) {
+      report.append("\nCompression: off");
+    } else {
+      report.append("\nCompression: on\n");
+      report.append("Compressed: ").append(compressor.getCompressedCount())
+          .append(" files, ").append(compressor.getOriginalBytes())
+          .append(" bytes in ").append(compressor.getCompressedBytes())
+          .append(" bytes\n");
+      report.append(
+          String.format("Compression ratio: %.1f%%\n", compressor.getRatio()));
+      report.append(String.format("Cache hits: %d of %d reads (%.1f%%)\n",
+          compressor.getCacheHits(), compressor.getReads(),
+          compressor.getHitRate()));
+      report.append("Time compressing: ")
+          .append(compressor.getCompressMillis()).append(" ms");
+    }
+    FileSpiller spiller = FileSpiller.getActive();
+    if (spiller == null) {
+      report.append("\nSpilling: off");
+    } else {
+      report.append("\nSpilling: on, to ").append(spiller.getDirectory())
+          .append("\n");
+      report.append("Memory: ").append(spiller.getMemoryBytes())
+          .append(" of ").append(spiller.getBudget()).append(" bytes, ")
+          .append(spiller.getPolicy().name().toLowerCase())
+          .append(" spilled first\n");
+      report.append("On disk: ").append(spiller.getDiskFiles())
+          .append(" files, ").append(spiller.getDiskBytes())
+          .append(" bytes\n");
+      report.append("Written: ").append(spiller.getWrittenBytes())
+          .append(" bytes, read back: ").append(spiller.getReadCount())
+          .append(" times, ").append(spiller.getReadBytes())
+          .append(" bytes, failed: ").append(spiller.getFailedCount());
+    }
+    BlobStore store = BlobStore.getStore();
+    report.append("\nDeduplication: ").append(store.getBlobCount())
+        .append(" blobs for ").append(store.getReferenceCount())
+        .append(" files, ").append(store.getSavedBytes())
+        .append(" bytes saved");
+    InodeTable table = InodeTable.getTable();
+    report.append("\nInodes: ").append(table.getLiveCount())
+        .append(" in use of ").append(table.getCapacity()).append(", ")
+        .append(table.getMemoryBytes()).append(" bytes, ")
+        .append(NameDictionary.getDictionary().getNameCount())
+        .append(" distinct names");
+    // set it as the output
+    format.setOutput(report.toString());
+  }
+
+}
@@ -1,6 +1,6 @@
 package commands;
 
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -33,10 +33,10 @@ public class Grep extends Command {
   private PrintFormatter format;
 
   /**
-   * A String to hold everything planned to print, to be sent to PrintFormatter
-   * at the end of processing
+   * A StringBuilder to hold everything planned to print, to be sent to
+   * PrintFormatter at the end of processing
    */
-  private String printBuffer;
+  private StringBuilder printBuffer;
 
   /**
    * A boolean for checking if we need to print method headers or not (are
@@ -44,6 +44,12 @@ public class Grep extends Command {
    */
   private boolean headerRequired;
 
+  /**
+   * A boolean for checking if the number of each matched line is printed
+   * before it (was the flag -n given)
+   */
+  private boolean lineNumbers;
+
   /**
    * Constructor for Grep, taking in FileSystem to search from, and a
    * PrintFormatter to print to
@@ -66,128 +72,130 @@ public class Grep extends Command {
    * grep RECURSIVELY traverses the directory and searches each file inside
    * according to the regular expression REGEX.
    * 
+   * Given the flag -n, grep prints the number of each matched line in its
+   * file before the line.
+   * 
    * @throws InvalidRegexException
    * @throws IncorrectContentTypeException
    * @throws InvalidPathException
    */
   public void executeCommand() throws InvalidRegexException,
       InvalidPathException, IncorrectContentTypeException {
-    printBuffer = "";
+    printBuffer = new StringBuilder();
     // if there are multiple files, or not immediately clear which file
     // we will find the regex in, we include a header with the fileName.
     headerRequired = false;
 
-    // if the first parameter is not -R only do a file Search
-    if (parameter[0].toUpperCase().equals("-R")) {
-      // 1 is the index of the regex
-      parameter[1] = removeOuterQuotes(parameter[1]);
+    // the flags -R and -n come before the regex, in any order
+    int first = 0;
+    boolean recursive = false;
+    lineNumbers = false;
+    while (first < parameter.length - 2) {
+      if (parameter[first].toUpperCase().equals("-R")) {
+        recursive = true;
+      } else if (parameter[first].equals("-n")) {
+        lineNumbers = true;
+      } else {
+        break;
+      }
+      first++;
+    }
 
-      // check if regex is valid before proceeding
-      checkRegex(parameter[1]);
+    // first is the index of the regex
+    parameter[first] = removeOuterQuotes(parameter[first]);
 
-      // if not stopped by an exception, reaches this point, check all paths
+    // check if regex is valid before proceeding
+    Pattern regex = compileRegex(parameter[first]);
 
-      for (int i = 2; i < parameter.length; i++) {
-        searchFolder(parameter[1], parameter[i]);
+    // if not stopped by an exception, reaches this point, check all paths
+    if (recursive) {
+      for (int i = first + 1; i < parameter.length; i++) {
+        Content content = fileSys.getPathContent(parameter[i]);
+        searchFolder(regex, content, content.getPath());
       }
     } else {
-      // 0 is the index of the regex
-      parameter[0] = removeOuterQuotes(parameter[0]);
-
-      // check if regex is valid before proceeding
-      checkRegex(parameter[0]);
-
-      // check all paths
-      if (parameter.length > 2) {
+      // if the first parameter is not -R only do a file Search
+      if (parameter.length > first + 2) {
         headerRequired = true;
       }
-      for (int i = 1; i < parameter.length; i++) {
-        searchFile(parameter[0], parameter[i]);
+      for (int i = first + 1; i < parameter.length; i++) {
+        File file = fileSys.getFile(parameter[i]);
+        searchFile(regex, file, file.getPath());
       }
     }
 
     // only print if something is found
     if (printBuffer.length() > 0) {
       // strip trailing newline from printBuffer if present
-      printBuffer = printBuffer.substring(0, printBuffer.length() - 1);
-      format.setOutput(printBuffer);
+      printBuffer.setLength(printBuffer.length() - 1);
+      format.setOutput(printBuffer.toString());
     }
   }
 
 
   /**
    * Helper method that searches an individual file, for a regex, given the
-   * regex and a File path.
+   * regex and a File.
    * 
    * @param regex A regular expression to search for within the file
-   * @param filePath The path in FileSystem of the file we want to search
-   * @throws IncorrectContentTypeException
-   * @throws InvalidPathException
+   * @param curFile The file we want to search
+   * @param path The path of the file, put in the header
    */
-  private void searchFile(String regex, String filePath)
-      throws InvalidPathException, IncorrectContentTypeException {
-    // current file we are working with
-    File curFile = fileSys.getFile(filePath);
-
-    // Will hold each line of the given file
-    String[] fileContents;
-
+  private void searchFile(Pattern regex, File curFile, String path) {
     // header of a fileName and colon to add to every line, if used in
     // recursive folder search
     String header = "";
     if (headerRequired) {
-      header = curFile.getPath() + ": ";
+      header = path + ": ";
     }
 
-    fileContents = curFile.getData().split("\n");
-    for (String currentLine : fileContents) {
+    // read the file one line at a time, not as one string split in lines
+    // lines are counted as they are read, so the file is read only once
+    Iterator<String> fileContents = curFile.lines();
+    long lineNumber = 0;
+    while (fileContents.hasNext()) {
+      String currentLine = fileContents.next();
+      lineNumber++;
       // if the regex matches the currentLine, it is printed
       // NOTE: header is blank if not in recursive search
-      if (Pattern.matches(regex, currentLine)) {
-        printBuffer += header + currentLine + "\n";
+      if (regex.matcher(currentLine).matches()) {
+        printBuffer.append(header);
+        if (lineNumbers) {
+          printBuffer.append(lineNumber).append(":");
+        }
+        printBuffer.append(currentLine).append("\n");
       }
     }
   }
 
   /**
    * Helper method that searches a Folder's files for a regex, given the regex
-   * and a File path.
+   * and a Content. The items of a folder are searched through the Content
+   * objects, so no path is looked up again. The path of each item is built
+   * on the way down, as the item may be read from the original of a copy.
    * 
    * @param regex A regular expression to search for within files
-   * @param contentPath The path in FileSystem of a Content Object we want to
-   *        search (determining if Folder or File)
-   * @throws InvalidPathException
-   * @throws IncorrectContentTypeException
+   * @param content The Content Object we want to search (determining if
+   *        Folder or File)
+   * @param path The path of the content
    */
-  private void searchFolder(String regex, String contentPath)
-      throws IncorrectContentTypeException, InvalidPathException {
-    // get the root folder to compare as an instance of a Folder object
-    Folder curFolder = fileSys.getFolder("/");
-
-    // check if contentPath specifies a folder or a file, if searching for
-    // a folder fails, it must be a file
-    if (fileSys.getPathContent(contentPath).getClass().isInstance(curFolder)) {
+  private void searchFolder(Pattern regex, Content content, String path) {
+    // check if content is a folder or a file
+    if (content instanceof Folder) {
 
-      // in a folder search each item
-      curFolder = fileSys.getFolder(contentPath);
       // if its a folder that has been specified, then we need headers to
       // know which files matched lines have come from.
       headerRequired = true;
 
-      // when getting each item, we need the paths of all the child items
-      ArrayList<String> childPaths = new ArrayList<String>();
-      for (Content eachItem : curFolder.getAllContents()) {
-        childPaths.add(eachItem.getPath());
-      }
-
-      // with each childPath, search through its Folder (recursion part)
-      for (String newPath : childPaths) {
-        searchFolder(regex, newPath);
+      // in a folder search each item (recursion part)
+      for (Content eachItem : ((Folder) content).getContents()) {
+        searchFolder(regex, eachItem, (path.endsWith("/") ? path
+            : path + "/") + eachItem.getName());
       }
 
     } else {
       // if the current item is not an instance of folder, it must be a file
-      searchFile(regex, contentPath);
+      searchFile(regex, (File) content, path);
     }
   }
 
@@ -195,11 +203,12 @@ public class Grep extends Command {
    * Checks if a regex is valid. If it is not, throws an InvalidRegexException
    * 
    * @param regex A regular expression
+   * @return The regex compiled, so it is compiled once for all lines
    * @throws InvalidRegexException
    */
-  private void checkRegex(String regex) throws InvalidRegexException {
+  private Pattern compileRegex(String regex) throws InvalidRegexException {
     try {
-      Pattern.compile(regex);
+      return Pattern.compile(regex);
     } catch (PatternSyntaxException e) {
       throw new InvalidRegexException();
     }
@@ -0,0 +1,93 @@
+package commands;
+
+import driver.FileSystem;
+import driver.LineIndex;
+import driver.PrintFormatter;
+import exception.IncorrectContentTypeException;
+import exception.InvalidNumberOfArgument;
+import exception.InvalidPathException;
+
+/**
+ * A command that prints the first lines of a file. Only the lines printed
+ * are read from the file, through the line index of the file.
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class Head extends Command {
+
+  /**
+   * Number of lines printed when no number is given
+   */
+  public static final long DEFAULT_COUNT = 10;
+
+  /**
+   * FileSystem instance
+   */
+  protected FileSystem fileSys;
+
+  /**
+   * Print formatter object instance
+   */
+  protected PrintFormatter format;
+
+  /**
+   * Default Constructor
+   * 
+   * @param fs A single working FileSystem
+   * @param pf PrintFormatter instance
+   */
+  public Head(FileSystem fs, PrintFormatter pf) {
+    fileSys = fs;
+    format = pf;
+  }
+
+  /**
+   * Executes the command, setting the lines of the file as the output
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   * @throws NumberFormatException
+   */
+  public void executeCommand() throws InvalidNumberOfArgument,
+      InvalidPathException, IncorrectContentTypeException {
+    long count = DEFAULT_COUNT;
+    int path = 0;
+    // the number of lines is given after "-n"
+    if (parameter.length == 3 && parameter[0].equals("-n")) {
+      count = parseNumber(parameter[1]);
+      path = 2;
+    } else {
+      checkNumParam(1);
+    }
+    LineIndex index = fileSys.getFile(parameter[path]).getLineIndex();
+    format.setOutput(selectLines(index, count));
+  }
+
+  /**
+   * Return the lines of the file printed by this command
+   * 
+   * @param index The line index of the file
+   * @param count Number of lines to print
+   * @return The lines
+   */
+  protected String selectLines(LineIndex index, long count) {
+    return index.getLines(0, count);
+  }
+
+  /**
+   * Return the number of lines given as an argument
+   * 
+   * @param number The argument
+   * @return The number
+   * @throws NumberFormatException If the argument is not a number
+   */
+  static long parseNumber(String number) {
+    if (!number.matches("[0-9]{1,18}")) {
+      throw new NumberFormatException(
+          "Error: " + number + " is not a valid number of lines");
+    }
+    return Long.parseLong(number);
+  }
+}
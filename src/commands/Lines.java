@@ -0,0 +1,59 @@
+package commands;
+
+import driver.FileSystem;
+import driver.PrintFormatter;
+import exception.IncorrectContentTypeException;
+import exception.InvalidNumberOfArgument;
+import exception.InvalidPathException;
+
+/**
+ * A command that prints a range of lines of a file, found through the line
+ * index of the file without reading the lines before them.
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class Lines extends Command {
+
+  /**
+   * FileSystem instance
+   */
+  private FileSystem fileSys;
+
+  /**
+   * Print formatter object instance
+   */
+  private PrintFormatter format;
+
+  /**
+   * Default Constructor
+   * 
+   * @param fs A single working FileSystem
+   * @param pf PrintFormatter instance
+   */
+  public Lines(FileSystem fs, PrintFormatter pf) {
+    fileSys = fs;
+    format = pf;
+  }
+
+  /**
+   * Executes the command, setting the lines FROM to TO of the file as the
+   * output, the first line being line 1
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   * @throws NumberFormatException
+   */
+  public void executeCommand() throws InvalidNumberOfArgument,
+      InvalidPathException, IncorrectContentTypeException {
+    checkNumParam(3);
+    long from = Head.parseNumber(parameter[0]);
+    long to = Head.parseNumber(parameter[1]);
+    if (from == 0) {
+      throw new NumberFormatException("Error: lines are counted from 1");
+    }
+    format.setOutput(
+        fileSys.getFile(parameter[2]).getLineIndex().getLines(from - 1, to));
+  }
+}
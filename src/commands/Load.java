@@ -0,0 +1,49 @@
+package commands;
+
+import java.io.IOException;
+
+import driver.FileSystem;
+import driver.FileSystemImage;
+import exception.InvalidImageException;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * A command that replaces the whole file system with the one in an image
+ * written by the save command
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class Load extends Command {
+
+  /**
+   * File system object instance
+   */
+  private FileSystem fileSys;
+
+  /**
+   * Default constructor
+   * 
+   * @param fs FileSystem instance
+   */
+  public Load(FileSystem fs) {
+    fileSys = fs;
+  }
+
+  /**
+   * Replace the file system with the image at the path on disk given, the
+   * file system is left as it is if the image cannot be read
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws InvalidImageException
+   */
+  public void executeCommand()
+      throws InvalidNumberOfArgument, InvalidImageException {
+    checkNumParam(1);
+    try {
+      FileSystemImage.load(fileSys, parameter[0]);
+    } catch (IOException e) {
+      throw new InvalidImageException(Save.message(e, "read", parameter[0]));
+    }
+  }
+}
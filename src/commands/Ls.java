@@ -67,7 +67,7 @@ public class Ls extends Command {
       // for one or more parameters passed in
       for (int i = 1; i < parameter.length; i++) {
         // recursively goes through a content's subdirectories
-        recLs(parameter[i]);
+        recLs(fileSys.getFolder(parameter[i]));
       }
       // remove the new line
       format.setOutput(
@@ -92,49 +92,35 @@ public class Ls extends Command {
       throws InvalidPathException, IncorrectContentTypeException {
     // goes through all parameters
     for (String path : parameter) {
-      // checks if it is a Folder instance
-      if (Folder.class.isInstance(fileSys.getPathContent(path))) {
-        // adds a Folder object
-        listContents.add(fileSys.getFolder(path));
-      }
-      // checks if it is a File instance
-      else {
-        // adds a File object
-        listContents.add(fileSys.getFile(path));
-      }
+      // adds the Folder or File object, it is looked up only once
+      listContents.add(fileSys.getPathContent(path));
     }
   }
 
 
   /**
-   * Recursively goes through all subdirectories of the directory of a given
-   * path.
+   * Recursively goes through all subdirectories of a given directory. The
+   * subdirectories are visited through the Folder objects, so no path is
+   * looked up again.
    * 
-   * @param path Path of a directory
-   * @throws InvalidPathException
-   * @throws IncorrectContentTypeException
+   * @param folder A directory
    */
-  private void recLs(String path)
-      throws InvalidPathException, IncorrectContentTypeException {
+  private void recLs(Folder folder) {
     // create a new list of Contents for printing
     ArrayList<Content> content = new ArrayList<Content>();
-    // create a new list of Contents
-    ArrayList<Content> listContents = new ArrayList<Content>();
 
-    // get all contents in a Folder
-    listContents = fileSys.getFolder(path).getAllContents();
-    // adds the directory path given as an argument
-    content.add(fileSys.getFolder(path));
+    // adds the directory given as an argument
+    content.add(folder);
 
     format.setRecLsContents(content);
 
     // Goes through all Contents from the given directory
-    for (Content c : listContents) {
+    for (Content c : folder.getContents()) {
       // Base case: If File or Content is empty then do nothing
 
-      // Recursive: If Folder then get path and perform recursive call
+      // Recursive: If Folder then perform recursive call
       if (Folder.class.isInstance(c)) {
-        recLs(c.getPath());
+        recLs((Folder) c);
       }
     }
   }
@@ -3,21 +3,32 @@ package commands;
 import driver.Content;
 import driver.FileSystem;
 import driver.Folder;
+import driver.Lookup;
+import driver.LookupStatus;
 import exception.HasSameContentNameException;
 import exception.IncorrectContentTypeException;
+import exception.InvalidNameException;
 import exception.InvalidNumberOfArgument;
 import exception.InvalidPathException;
 
+/**
+ * Move a content to another directory, or rename it. The content is taken
+ * out of its folder and put into the new one without being copied.
+ * 
+ * @author Sin
+ *
+ */
 public class Mv extends Command {
 
   /**
    * FileSystem instance
    */
   private FileSystem fileSys;
+
   /**
-   * Cp command for copying process
+   * The directory indicator
    */
-  private Cp copy;
+  private final String SLASH = "/";
 
   /**
    * Default Constructor
@@ -26,7 +37,6 @@ public class Mv extends Command {
    */
   public Mv(FileSystem fs) {
     fileSys = fs;
-    copy = new Cp(fileSys);
   }
 
   /**
@@ -46,31 +56,37 @@ public class Mv extends Command {
     checkNumParam(2);
     Content target_content = null;
     Folder moving_location = null;
-    // check if the first path is a parent of second path
-    int path_index = parameter[1].indexOf(parameter[0]);
-    // check if its moving into a sub directory
-    if (path_index == 0 && parameter[1].charAt(parameter[0].length()) == '/')
-      throw new InvalidPathException(
-          "Error: Cannot move directory into it sub directory");
+    Lookup found;
+    String new_name;
 
     target_content = fileSys.getPathContent(parameter[0]);
-    // get the Folder at the second path
-    try {
-      moving_location = fileSys.getFolder(parameter[1]);
-    } catch (InvalidPathException e) {
-    }
+    // get the Folder at the second path, if there is one
+    found = fileSys.lookupFolder(parameter[1]);
 
-    if (moving_location != null) {
-      // Perform the copy
-      copy.copyContent(target_content, moving_location);
-      // remove the old content from the old folder
-      fileSys.getParentFolder(target_content)
-          .removeContent(target_content.getName());
+    if (found.isFound()) {
+      // move into the folder, keeping the name
+      moving_location = found.getFolder();
+      new_name = target_content.getName();
+    } else if (found.getStatus() == LookupStatus.NOT_A_FOLDER) {
+      // a file cannot be moved onto another file
+      fileSys.raiseLookupError(found);
+      return;
     } else {
-      // rename the file
-      target_content.changePath(parameter[1]);
-      target_content.changeName(
-          parameter[1].substring(parameter[1].lastIndexOf("/") + 1));
+      // rename the content, it goes into the folder holding the second path
+      int last_slash = parameter[1].lastIndexOf(SLASH);
+      if (last_slash <= 0) {
+        moving_location = fileSys.getFolder(SLASH);
+      } else {
+        moving_location =
+            fileSys.getFolder(parameter[1].substring(0, last_slash));
+      }
+      new_name = parameter[1].substring(last_slash + 1);
+    }
+
+    try {
+      fileSys.moveContent(target_content, moving_location, new_name);
+    } catch (InvalidNameException e) {
+      throw new InvalidPathException(e.getMessage());
     }
   }
 }
@@ -0,0 +1,78 @@
+package commands;
+
+import java.io.IOException;
+
+import driver.FileSystem;
+import driver.FileSystemImage;
+import exception.InvalidImageException;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * A command that writes the whole file system to an image on disk, which
+ * the load command reads back. With the -m option the image is indexed, so
+ * load maps it and reads it in place instead of reading all of it.
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class Save extends Command {
+
+  /**
+   * The option that writes an indexed image
+   */
+  private final String MAPPED = "-m";
+
+  /**
+   * File system object instance
+   */
+  private FileSystem fileSys;
+
+  /**
+   * Default constructor
+   * 
+   * @param fs FileSystem instance
+   */
+  public Save(FileSystem fs) {
+    fileSys = fs;
+  }
+
+  /**
+   * Write the file system to the image at the path on disk given
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws InvalidImageException
+   */
+  public void executeCommand()
+      throws InvalidNumberOfArgument, InvalidImageException {
+    boolean mapped = parameter.length == 2 && parameter[0].equals(MAPPED);
+    if (!mapped) {
+      checkNumParam(1);
+    }
+    String path = parameter[parameter.length - 1];
+    try {
+      if (mapped) {
+        FileSystemImage.saveMapped(fileSys, path);
+      } else {
+        FileSystemImage.save(fileSys, path);
+      }
+    } catch (IOException e) {
+      throw new InvalidImageException(message(e, "write", path));
+    }
+  }
+
+  /**
+   * Return the message of the error raised when an image cannot be written
+   * or read
+   * 
+   * @param e The error
+   * @param action What was done with the image
+   * @param path The path of the image on disk
+   * @return The message
+   */
+  static String message(IOException e, String action, String path) {
+    if (e.getMessage() != null && e.getMessage().startsWith("Error:")) {
+      return e.getMessage();
+    }
+    return "Error: Cannot " + action + " the image " + path;
+  }
+}
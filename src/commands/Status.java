@@ -0,0 +1,93 @@
+package commands;
+
+import driver.Checkpointer;
+import driver.Journal;
+import driver.PrintFormatter;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * A command that reports the progress of the checkpoint being written in the
+ * background, how long the last checkpoint took and how fast it was written,
+ * and how much of the journal is kept.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class Status extends Command {
+
+  /**
+   * Print formatter object instance
+   */
+  private PrintFormatter format;
+
+  /**
+   * Default Constructor
+   *
+   * @param pf PrintFormatter instance
+   */
+  public Status(PrintFormatter pf) {
+    format = pf;
+  }
+
+  /**
+   * Executes status command, setting the report as the output
+   *
+   * @throws InvalidNumberOfArgument
+   */
+  public void executeCommand() throws InvalidNumberOfArgument {
+    // check the number of parameters
+    checkNumParam(0);
+    StringBuilder report = new StringBuilder();
+    Checkpointer checkpointer = Checkpointer.getActive();
+    if (checkpointer == null) {
+      report.append("Checkpointing: off");
+    } else {
+      report.append("Checkpointing: on, to ")
+          .append(checkpointer.getDirectory()).append(", every ")
+          .append(checkpointer.getInterval() / 1000).append(" s\n");
+      if (checkpointer.isWriting()) {
+        report.append("Writing: checkpoint ")
+            .append(checkpointer.getWritingNumber()).append(", ")
+            .append(checkpointer.getWrittenNodes()).append(" of ")
+            .append(checkpointer.getFrozenNodes()).append(" nodes, ")
+            .append(checkpointer.getWrittenBytes()).append(" bytes, ")
+            .append(checkpointer.getFrozenBytes())
+            .append(" bytes of files frozen, ")
+            .append(checkpointer.getWritingMillis()).append(" ms, ")
+            .append(String.format("%.1f MB/s\n",
+                checkpointer.getWritingThroughput() / 1e6));
+      } else {
+        report.append("Writing: none\n");
+      }
+      if (checkpointer.getCheckpointCount() == 0) {
+        report.append("Last checkpoint: none\n");
+      } else {
+        report.append("Last checkpoint: ")
+            .append(checkpointer.getLastNumber()).append(", ")
+            .append(checkpointer.getLastNodes()).append(" nodes, ")
+            .append(checkpointer.getLastBytes()).append(" bytes in ")
+            .append(checkpointer.getLastMillis()).append(" ms, ")
+            .append(String.format("%.1f MB/s",
+                checkpointer.getLastThroughput() / 1e6))
+            .append(", frozen in ")
+            .append(checkpointer.getLastFreezeMillis()).append(" ms\n");
+      }
+      report.append("Checkpoints: ")
+          .append(checkpointer.getCheckpointCount()).append(" written, ")
+          .append(checkpointer.getMergeCount()).append(" merges, ")
+          .append(checkpointer.getChainLength()).append(" to read back");
+    }
+    Journal journal = Journal.getActive();
+    if (journal == null) {
+      report.append("\nJournal: off");
+    } else {
+      report.append("\nJournal: on, ")
+          .append(journal.getDurability().name().toLowerCase()).append(", ")
+          .append(journal.getRecordCount()).append(" records made, ")
+          .append(journal.getJournalBytes()).append(" bytes kept");
+    }
+    // set it as the output
+    format.setOutput(report.toString());
+  }
+
+}
@@ -0,0 +1,36 @@
+package commands;
+
+import driver.FileSystem;
+import driver.LineIndex;
+import driver.PrintFormatter;
+
+/**
+ * A command that prints the last lines of a file. The lines are found from
+ * the end of the file, so the rest of the file is not read.
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class Tail extends Head {
+
+  /**
+   * Default Constructor
+   * 
+   * @param fs A single working FileSystem
+   * @param pf PrintFormatter instance
+   */
+  public Tail(FileSystem fs, PrintFormatter pf) {
+    super(fs, pf);
+  }
+
+  /**
+   * Return the last lines of the file
+   * 
+   * @param index The line index of the file
+   * @param count Number of lines to print
+   * @return The lines
+   */
+  protected String selectLines(LineIndex index, long count) {
+    return index.getLastLines(count);
+  }
+}
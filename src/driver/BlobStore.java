@@ -0,0 +1,232 @@
+package driver;
+
+import java.lang.ref.SoftReference;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Keeps the data of files by its content, so that files holding the same
+ * bytes share one copy of them, however the files were written. Each blob of
+ * bytes counts the files using it and is dropped once none do. A file that
+ * is written to stops using its blob, the blob itself is never changed.
+ *
+ * Data smaller than a blob is worth is not kept in the store.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class BlobStore {
+
+  /**
+   * Smallest number of bytes kept in the store
+   */
+  public static final int MIN_BLOB_SIZE = 64;
+
+  /**
+   * The store used by all files
+   */
+  private static final BlobStore store = new BlobStore();
+
+  /**
+   * The bytes of one content, shared by the files holding that content
+   */
+  static class Blob {
+    /**
+     * The bytes of the content, never changed
+     */
+    private final byte[] bytes;
+    /**
+     * Hash of the bytes
+     */
+    private final int hash;
+    /**
+     * Number of FileData using the blob
+     */
+    private int refs;
+    /**
+     * The bytes read as text, null if they were not read yet. It is held
+     * softly, so the heap does not hold the content twice once memory runs
+     * low.
+     */
+    private SoftReference<String> text;
+    /**
+     * The charset the text was read with
+     */
+    private Charset text_charset;
+
+    private Blob(byte[] bytes) {
+      this.bytes = bytes;
+      this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Return the bytes of the content, which must not be changed
+     *
+     * @return The bytes
+     */
+    byte[] bytes() {
+      return bytes;
+    }
+
+    /**
+     * Return the bytes read as text with the charset, the text is kept
+     * while memory allows so all files using the blob share it
+     *
+     * @param charset The charset that turns the bytes into text
+     * @return The text
+     */
+    String getText(Charset charset) {
+      String kept = text == null ? null : text.get();
+      if (kept == null || !charset.equals(text_charset)) {
+        kept = new String(bytes, charset);
+        setText(kept, charset);
+      }
+      return kept;
+    }
+
+    /**
+     * Keep the text the bytes were made from, so they are not read again
+     *
+     * @param text The bytes as text
+     * @param charset The charset that turns the bytes into text
+     */
+    void setText(String text, Charset charset) {
+      this.text = new SoftReference<String>(text);
+      this.text_charset = charset;
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+
+    public boolean equals(Object other) {
+      return other instanceof Blob && ((Blob) other).hash == hash
+          && Arrays.equals(((Blob) other).bytes, bytes);
+    }
+  }
+
+  /**
+   * The blobs in the store, each one found by its own content
+   */
+  private HashMap<Blob, Blob> blobs;
+
+  /**
+   * Number of bytes in all blobs
+   */
+  private long stored_bytes;
+
+  /**
+   * Number of bytes all FileData using a blob would take without the store
+   */
+  private long referenced_bytes;
+
+  /**
+   * Number of FileData using a blob
+   */
+  private long reference_count;
+
+  /**
+   * Default Constructor
+   */
+  private BlobStore() {
+    blobs = new HashMap<Blob, Blob>();
+  }
+
+  /**
+   * Return the store used by all files
+   *
+   * @return The store
+   */
+  public static BlobStore getStore() {
+    return store;
+  }
+
+  /**
+   * Return true iff some file data is kept in the store
+   *
+   * @return true if the store has a blob, false otherwise
+   */
+  public static boolean inUse() {
+    return !store.blobs.isEmpty();
+  }
+
+  /**
+   * Return the blob holding the bytes, adding one if the store has none
+   *
+   * @param bytes The bytes, owned by the store from now on
+   * @return The blob, used by one more FileData
+   */
+  Blob intern(byte[] bytes) {
+    Blob blob = new Blob(bytes);
+    Blob found = blobs.get(blob);
+    if (found == null) {
+      blobs.put(blob, blob);
+      stored_bytes += bytes.length;
+      found = blob;
+    }
+    retain(found);
+    return found;
+  }
+
+  /**
+   * Add a FileData using the blob
+   *
+   * @param blob The blob
+   */
+  void retain(Blob blob) {
+    blob.refs++;
+    reference_count++;
+    referenced_bytes += blob.bytes.length;
+  }
+
+  /**
+   * Remove a FileData using the blob, the blob is dropped once none use it
+   *
+   * @param blob The blob
+   */
+  void release(Blob blob) {
+    reference_count--;
+    referenced_bytes -= blob.bytes.length;
+    if (--blob.refs == 0) {
+      blobs.remove(blob);
+      stored_bytes -= blob.bytes.length;
+    }
+  }
+
+  /**
+   * Return the number of blobs in the store
+   *
+   * @return Number of blobs
+   */
+  public int getBlobCount() {
+    return blobs.size();
+  }
+
+  /**
+   * Return the number of file data using a blob
+   *
+   * @return Number of references to blobs
+   */
+  public long getReferenceCount() {
+    return reference_count;
+  }
+
+  /**
+   * Return the number of bytes in all blobs
+   *
+   * @return Number of bytes stored
+   */
+  public long getStoredBytes() {
+    return stored_bytes;
+  }
+
+  /**
+   * Return the number of bytes the store saves by keeping each content once
+   *
+   * @return Number of bytes saved
+   */
+  public long getSavedBytes() {
+    return referenced_bytes - stored_bytes;
+  }
+}
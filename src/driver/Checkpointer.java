@@ -0,0 +1,1727 @@
+package driver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes checkpoints of the file system to a directory on disk, so the
+ * file system is kept when JShell exits or crashes, and reads them back when
+ * it starts.
+ *
+ * The first checkpoint holds the whole tree. Each one after it holds only
+ * the nodes changed since the one before, found through the dirty nodes of
+ * the InodeTable: a folder holds the ids and names of its contents, a file
+ * its charset and its bytes. A node is known by its id, so a node moved or
+ * renamed is not written again, only the folders holding it are.
+ *
+ * Once there are enough checkpoints after the last full one, they are merged
+ * with it in the background into a new full checkpoint, which only holds
+ * the nodes still in the tree. Reading the checkpoints back, and merging
+ * them, so takes as long as the tree and the latest changes take to read,
+ * however long JShell has been running.
+ *
+ * JShell does not stop while a checkpoint is written. When a checkpoint
+ * starts, between two commands, the nodes it holds are frozen: the contents
+ * of each folder are copied, and the data of each file is shared copy on
+ * write, so a file changed afterwards stops sharing it. A thread of its own
+ * then writes the frozen nodes while commands keep running, and once it is
+ * done the checkpoint is added to the others after the next command. The
+ * changes made meanwhile are in the next checkpoint.
+ *
+ * Freezing only takes as long as the nodes changed. Nothing is copied or
+ * read back for it: a copy of a folder that still reads its contents from
+ * the original is written as such, and read back as such, a folder whose
+ * contents are still in a mapped image is written from the image by the
+ * thread writing the checkpoint, and data spilled to disk is read from its
+ * spill file, which is kept until the checkpoint is written. The first
+ * checkpoint holds every node, as every node is marked as changed when
+ * checkpointing is turned on without any checkpoint.
+ *
+ * A checkpoint records how much of the journal it holds, the records made
+ * before it was frozen, so those are cut from the journal once it is
+ * written and only the changes made after it are replayed, see Journal.
+ *
+ * Checkpointing is off unless it is turned on.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class Checkpointer {
+
+  /**
+   * The first four bytes of a checkpoint, "JSCK"
+   */
+  static final int MAGIC = 0x4A53434B;
+
+  /**
+   * The version of the format of a checkpoint
+   */
+  static final int VERSION = 2;
+
+  /**
+   * Kind of a folder that is a copy still reading the contents of its
+   * original, written as the contents it holds itself followed by the id of
+   * the original
+   */
+  static final byte COPY = 4;
+
+  /**
+   * The id of no node
+   */
+  private static final long NO_ID = -1;
+
+  /**
+   * Number of checkpoints after the last full one that are merged with it
+   */
+  public static final int MERGE_COUNT = 4;
+
+  /**
+   * Number of bytes read or written at a time
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Start and end of the name of a checkpoint, the number of the checkpoint
+   * is in between
+   */
+  private static final String PREFIX = "checkpoint-";
+  private static final String SUFFIX = ".jsck";
+
+  /**
+   * Message of the error raised for a checkpoint that cannot be read
+   */
+  private static final String DAMAGED = "Error: The checkpoint is damaged";
+
+  /**
+   * The table holding every node
+   */
+  private static final InodeTable table = InodeTable.getTable();
+
+  /**
+   * The checkpointer in use, null if checkpointing is off
+   */
+  private static Checkpointer active = null;
+
+  /**
+   * A node as the checkpoints read so far last wrote it
+   */
+  private static class Node {
+    /**
+     * The kind of the node
+     */
+    byte kind;
+
+    /**
+     * The ids of the contents of a folder
+     */
+    long[] children;
+
+    /**
+     * The names of the contents of a folder
+     */
+    String[] names;
+
+    /**
+     * The id of the original of a copy that still reads its contents, NO_ID
+     * if the folder holds all of its contents
+     */
+    long original = NO_ID;
+
+    /**
+     * The number of the checkpoint holding the bytes of a file
+     */
+    int source;
+
+    /**
+     * Position of the bytes of a file in its checkpoint
+     */
+    long data_at;
+
+    /**
+     * Number of bytes of a file
+     */
+    long length;
+
+    /**
+     * The charset of a file
+     */
+    String charset;
+  }
+
+  /**
+   * A node as it was when a checkpoint was frozen
+   */
+  private static class Frozen {
+    /**
+     * The inode of the node
+     */
+    int inode;
+
+    /**
+     * The kind of the node
+     */
+    byte kind;
+
+    /**
+     * The id of the node
+     */
+    long id;
+
+    /**
+     * The ids of the contents of a folder
+     */
+    long[] children;
+
+    /**
+     * The names of the contents of a folder
+     */
+    String[] names;
+
+    /**
+     * The id of the original of a copy that still reads its contents, NO_ID
+     * if the folder holds all of its contents
+     */
+    long original = NO_ID;
+
+    /**
+     * The image the contents of a folder are still in, null if they are in
+     * the inode table
+     */
+    MappedImage image;
+
+    /**
+     * The record of a folder in its image
+     */
+    int record;
+
+    /**
+     * The id kept for the first record of the image, the nodes below the
+     * folder get the ids after it
+     */
+    long image_ids;
+
+    /**
+     * The charset of a file
+     */
+    String charset;
+
+    /**
+     * The frozen copy of the data of a file
+     */
+    FileData data;
+  }
+
+  /**
+   * A checkpoint frozen when it started, written in the background
+   */
+  private static class Snapshot {
+    /**
+     * The number of the checkpoint
+     */
+    long number;
+
+    /**
+     * Whether it holds the whole tree
+     */
+    boolean full;
+
+    /**
+     * The id of the root
+     */
+    long root;
+
+    /**
+     * Id of the next node
+     */
+    long next_id;
+
+    /**
+     * The journal in use when it was frozen, null if there was none
+     */
+    Journal journal;
+
+    /**
+     * Number of the next record of the journal when it was frozen
+     */
+    long journal_position;
+
+    /**
+     * Position of that record in the journal
+     */
+    long journal_offset;
+
+    /**
+     * The nodes frozen
+     */
+    ArrayList<Frozen> nodes = new ArrayList<Frozen>();
+
+    /**
+     * The id kept for the first record of each mapped image a folder is
+     * frozen from
+     */
+    HashMap<MappedImage, Long> image_ids = new HashMap<MappedImage, Long>();
+
+    /**
+     * Number of bytes of the files frozen
+     */
+    long data_bytes;
+
+    /**
+     * Time it started, in nanoseconds
+     */
+    long start;
+
+    /**
+     * Number of nanoseconds freezing the nodes took
+     */
+    long freeze_nanos;
+
+    /**
+     * Number of nodes written so far
+     */
+    volatile long nodes_written;
+
+    /**
+     * Number of bytes written so far
+     */
+    volatile long bytes_written;
+
+    /**
+     * Number of bytes of the checkpoint, once it is written
+     */
+    long file_bytes;
+
+    /**
+     * Number of nanoseconds writing it took, once it is done
+     */
+    long write_nanos;
+
+    /**
+     * The error raised while writing it, null if it did not fail
+     */
+    IOException failure;
+
+    /**
+     * Whether the thread writing it is done
+     */
+    boolean done;
+  }
+
+  /**
+   * The nodes and the header of the last of a run of checkpoints
+   */
+  private static class Chain {
+    /**
+     * The channels of the checkpoints read
+     */
+    ArrayList<FileChannel> channels = new ArrayList<FileChannel>();
+
+    /**
+     * The nodes, by their id
+     */
+    HashMap<Long, Node> nodes = new HashMap<Long, Node>();
+
+    /**
+     * The id of the root
+     */
+    long root;
+
+    /**
+     * Number of the next record of the journal
+     */
+    long journal_position;
+
+    /**
+     * Id of the next node
+     */
+    long next_id;
+
+    /**
+     * Close the channels of the checkpoints read
+     */
+    void close() {
+      for (FileChannel channel : channels) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // only read from
+        }
+      }
+    }
+  }
+
+  /**
+   * The directory the checkpoints are written to
+   */
+  private final Path directory;
+
+  /**
+   * Number of milliseconds between two checkpoints
+   */
+  private final long interval;
+
+  /**
+   * The file system written
+   */
+  private final FileSystem fileSys;
+
+  /**
+   * The checkpoints to read back, the full one first
+   */
+  private final ArrayList<Path> files;
+
+  /**
+   * Number of the last checkpoint
+   */
+  private long sequence;
+
+  /**
+   * Number of the next record of the journal when the last checkpoint was
+   * written
+   */
+  private long journal_position;
+
+  /**
+   * Time the last checkpoint was written
+   */
+  private long last_time;
+
+  /**
+   * The checkpoint being written in the background, null if none is
+   */
+  private Snapshot writing;
+
+  /**
+   * The thread merging checkpoints, null if none is
+   */
+  private Thread merger;
+
+  /**
+   * The error raised by the last merge, null if it did not fail
+   */
+  private IOException merge_failure;
+
+  /**
+   * Number of checkpoints written
+   */
+  private long checkpoint_count;
+
+  /**
+   * Number of nodes in the last checkpoint
+   */
+  private long last_nodes;
+
+  /**
+   * Number of bytes of the last checkpoint
+   */
+  private long last_bytes;
+
+  /**
+   * Number of milliseconds the last checkpoint took
+   */
+  private long last_millis;
+
+  /**
+   * Number of nanoseconds the last checkpoint was written in
+   */
+  private long last_nanos;
+
+  /**
+   * Number of milliseconds JShell stopped to freeze the last checkpoint
+   */
+  private long last_freeze_millis;
+
+  /**
+   * Number of merges done
+   */
+  private long merge_count;
+
+  /**
+   * Number of nodes read back when checkpointing was turned on
+   */
+  private long recovered_nodes;
+
+  /**
+   * Default Constructor
+   *
+   * @param directory The directory the checkpoints are written to
+   * @param interval Number of milliseconds between two checkpoints
+   * @param fileSys The file system written
+   */
+  private Checkpointer(Path directory, long interval, FileSystem fileSys) {
+    this.directory = directory;
+    this.interval = interval;
+    this.fileSys = fileSys;
+    files = new ArrayList<Path>();
+    last_time = System.currentTimeMillis();
+  }
+
+  /**
+   * Turn checkpointing on. The tree of the file system is replaced with the
+   * tree in the checkpoints already in the directory, if there are any.
+   *
+   * @param directory The directory the checkpoints are written to, created
+   *        if it does not exist
+   * @param interval Number of milliseconds between two checkpoints
+   * @param fileSys The file system
+   * @return The checkpointer
+   * @throws IOException If the checkpoints cannot be read or are damaged
+   */
+  public static Checkpointer enable(Path directory, long interval,
+      FileSystem fileSys) throws IOException {
+    disable(false);
+    Checkpointer checkpointer =
+        new Checkpointer(Files.createDirectories(directory), interval, fileSys);
+    checkpointer.recover();
+    if (checkpointer.files.isEmpty()) {
+      // the first checkpoint holds the whole tree
+      table.markAllDirty();
+    }
+    active = checkpointer;
+    return checkpointer;
+  }
+
+  /**
+   * Turn checkpointing off, waiting for the checkpoint being written and a
+   * merge in progress to end
+   *
+   * @param last true to write a last checkpoint first
+   * @throws IOException If the last checkpoint cannot be written
+   */
+  public static void disable(boolean last) throws IOException {
+    Checkpointer checkpointer = active;
+    active = null;
+    if (checkpointer == null) {
+      return;
+    }
+    try {
+      if (last) {
+        checkpointer.checkpoint();
+      } else {
+        checkpointer.await();
+      }
+    } finally {
+      checkpointer.awaitMerge();
+    }
+  }
+
+  /**
+   * Return the checkpointer in use
+   *
+   * @return The checkpointer, null if checkpointing is off
+   */
+  public static Checkpointer getActive() {
+    return active;
+  }
+
+  /**
+   * Finish the checkpoint written in the background if it is done, and
+   * start a new one if the last one was written long enough ago, called
+   * after each command
+   *
+   * @throws IOException If the checkpoint cannot be written
+   */
+  public void tick() throws IOException {
+    if (writing != null && isDone(writing)) {
+      finish();
+    }
+    if (writing == null
+        && System.currentTimeMillis() - last_time >= interval) {
+      start();
+    }
+  }
+
+  /**
+   * Write the nodes changed since the last checkpoint to a new checkpoint,
+   * or the whole tree if there is none yet, and wait for it to be written.
+   * A checkpoint being written in the background is finished first, the
+   * nodes of one that failed are written by this one.
+   *
+   * @return Number of nodes written
+   * @throws IOException If the checkpoint cannot be written
+   */
+  public long checkpoint() throws IOException {
+    if (writing != null) {
+      awaitWriting(writing);
+      try {
+        finish();
+      } catch (IOException e) {
+        // its nodes are dirty again
+      }
+    }
+    start();
+    awaitWriting(writing);
+    return finish();
+  }
+
+  /**
+   * Wait for the checkpoint being written in the background to be written,
+   * and finish it
+   *
+   * @throws IOException If the checkpoint cannot be written
+   */
+  public void await() throws IOException {
+    if (writing != null) {
+      awaitWriting(writing);
+      finish();
+    }
+  }
+
+  /**
+   * Freeze the nodes changed since the last checkpoint, or the whole tree if
+   * there is none yet, and start writing them in the background
+   *
+   * @throws IOException If the last merge failed
+   */
+  private void start() throws IOException {
+    IOException failure;
+    synchronized (this) {
+      failure = merge_failure;
+      merge_failure = null;
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    final Snapshot snapshot = new Snapshot();
+    snapshot.start = System.nanoTime();
+    snapshot.number = sequence + 1;
+    synchronized (this) {
+      snapshot.full = files.isEmpty();
+    }
+    Journal journal = Journal.getActive();
+    snapshot.journal = journal;
+    snapshot.journal_position = journal_position;
+    if (journal != null) {
+      snapshot.journal_position = journal.getPosition();
+      snapshot.journal_offset = journal.getMadeBytes();
+    }
+    int root = fileSys.getRoot().getInode();
+    snapshot.root = table.getId(root);
+    freezeNodes(snapshot, root);
+    // ids are kept for the nodes read from mapped images
+    snapshot.next_id = table.getNextId();
+    snapshot.freeze_nanos = System.nanoTime() - snapshot.start;
+    writing = snapshot;
+    Thread writer = new Thread(new Runnable() {
+      public void run() {
+        IOException failure = null;
+        try {
+          write(snapshot);
+        } catch (IOException e) {
+          failure = e;
+        } catch (RuntimeException e) {
+          failure = new IOException("Error: Cannot write the checkpoint", e);
+        }
+        synchronized (Checkpointer.this) {
+          snapshot.write_nanos = System.nanoTime() - snapshot.start;
+          snapshot.failure = failure;
+          snapshot.done = true;
+          Checkpointer.this.notifyAll();
+        }
+      }
+    }, "checkpoint-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Finish the checkpoint written in the background once it is done: add
+   * it to the checkpoints read back and cut the records it holds from the
+   * journal. The frozen data is released here, as the data is used by
+   * commands.
+   *
+   * @return Number of nodes written
+   * @throws IOException If the checkpoint could not be written, its nodes
+   *         are written by the next one
+   */
+  private long finish() throws IOException {
+    Snapshot snapshot = writing;
+    writing = null;
+    for (Frozen node : snapshot.nodes) {
+      if (node.data != null) {
+        node.data.release();
+      }
+    }
+    last_time = System.currentTimeMillis();
+    if (snapshot.failure != null) {
+      for (Frozen node : snapshot.nodes) {
+        if (table.getKind(node.inode) != InodeTable.FREE) {
+          table.markDirty(node.inode);
+        }
+      }
+      throw snapshot.failure;
+    }
+    sequence = snapshot.number;
+    journal_position = snapshot.journal_position;
+    synchronized (this) {
+      files.add(directory.resolve(name(snapshot.number)));
+      if (files.size() > MERGE_COUNT && merger == null) {
+        startMerge(new ArrayList<Path>(files));
+      }
+    }
+    // the records made after the checkpoint was frozen are kept
+    if (snapshot.journal != null && snapshot.journal == Journal.getActive()) {
+      snapshot.journal.compact(snapshot.journal_position,
+          snapshot.journal_offset);
+    }
+    last_bytes = snapshot.file_bytes;
+    last_nanos = snapshot.write_nanos;
+    last_millis = last_nanos / 1000000;
+    last_freeze_millis = snapshot.freeze_nanos / 1000000;
+    last_nodes = snapshot.nodes.size();
+    checkpoint_count++;
+    return last_nodes;
+  }
+
+  /**
+   * Return true iff the thread writing a checkpoint is done
+   *
+   * @param snapshot The checkpoint
+   * @return true if it is done, false otherwise
+   */
+  private synchronized boolean isDone(Snapshot snapshot) {
+    return snapshot.done;
+  }
+
+  /**
+   * Wait for the thread writing a checkpoint to be done. It is waited for
+   * even if this thread is interrupted, as the data it reads is released
+   * once it is done.
+   *
+   * @param snapshot The checkpoint
+   */
+  private synchronized void awaitWriting(Snapshot snapshot) {
+    boolean interrupted = false;
+    while (!snapshot.done) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Freeze the nodes changed since the last checkpoint, every node of the
+   * tree for the first one. A node changed that is not in the tree is left
+   * dirty, it is written once it is added to the tree.
+   *
+   * @param snapshot The checkpoint the nodes are frozen for
+   * @param root The inode of the root
+   */
+  private static void freezeNodes(Snapshot snapshot, int root) {
+    ArrayList<Integer> loose = new ArrayList<Integer>();
+    for (int inode : table.takeDirty()) {
+      if (table.getKind(inode) == InodeTable.FREE) {
+        continue;
+      }
+      if (!inTree(inode, root, new BitSet())) {
+        loose.add(inode);
+        continue;
+      }
+      freezeNode(snapshot, inode);
+    }
+    for (int inode : loose) {
+      table.markDirty(inode);
+    }
+  }
+
+  /**
+   * Freeze a node. A folder whose contents are still in a mapped image is
+   * written from the image, a copy that still reads the contents of its
+   * original only holds its own, and a file shares its data with a frozen
+   * copy.
+   *
+   * @param snapshot The checkpoint the node is frozen for
+   * @param inode The inode of the node
+   */
+  private static void freezeNode(Snapshot snapshot, int inode) {
+    Frozen node = new Frozen();
+    node.inode = inode;
+    node.kind = table.getKind(inode);
+    node.id = table.getId(inode);
+    if (node.kind == InodeTable.FOLDER) {
+      int record = table.hasMapped() ? table.getMappedRecord(inode)
+          : InodeTable.NONE;
+      if (record != InodeTable.NONE) {
+        node.image = table.getMappedImage(inode);
+        node.record = record;
+        node.image_ids = imageIds(snapshot, node.image);
+        snapshot.nodes.add(node);
+        return;
+      }
+      int source = table.getCowSource(inode);
+      if (source != InodeTable.NONE) {
+        // the original is in this checkpoint or in one before, as it was
+        // when the copy was made
+        node.original = table.getId(source);
+      }
+      int count = table.getChildCount(inode);
+      node.children = new long[count];
+      node.names = new String[count];
+      int i = 0;
+      for (int child = table.getFirstChild(inode); child != InodeTable.NONE;
+          child = table.getNextSibling(child)) {
+        node.children[i] = table.getId(child);
+        node.names[i] = table.getName(child);
+        i++;
+      }
+    } else if (node.kind == InodeTable.FILE) {
+      node.data = table.getData(inode).freeze();
+      node.charset = node.data.getCharset().name();
+      snapshot.data_bytes += node.data.length();
+    }
+    snapshot.nodes.add(node);
+  }
+
+  /**
+   * Return the id kept for the first record of a mapped image, keeping ids
+   * for all of its records the first time a folder is frozen from it
+   *
+   * @param snapshot The checkpoint
+   * @param image The image
+   * @return The id of the first record
+   */
+  private static long imageIds(Snapshot snapshot, MappedImage image) {
+    Long first = snapshot.image_ids.get(image);
+    if (first == null) {
+      first = table.getNextId();
+      table.skipIds(first + image.getNodeCount());
+      snapshot.image_ids.put(image, first);
+    }
+    return first;
+  }
+
+  /**
+   * Write the frozen nodes of a checkpoint to disk, called by the thread
+   * writing it
+   *
+   * @param snapshot The checkpoint
+   * @throws IOException If the checkpoint cannot be written
+   */
+  private void write(final Snapshot snapshot) throws IOException {
+    Path target = directory.resolve(name(snapshot.number));
+    Path written = directory.resolve(name(snapshot.number) + ".tmp");
+    try (FileChannel channel = FileChannel.open(written,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      BufferedOutputStream buffered = new BufferedOutputStream(
+          Channels.newOutputStream(channel), BUFFER_SIZE);
+      CRC32 checksum = new CRC32();
+      // counts the bytes written, for the progress of the checkpoint
+      FilterOutputStream counted =
+          new FilterOutputStream(new CheckedOutputStream(buffered, checksum)) {
+            public void write(int b) throws IOException {
+              out.write(b);
+              snapshot.bytes_written++;
+            }
+
+            public void write(byte[] b, int off, int len)
+                throws IOException {
+              out.write(b, off, len);
+              snapshot.bytes_written += len;
+            }
+          };
+      DataOutputStream out = new DataOutputStream(counted);
+      writeHeader(out, snapshot.number, snapshot.full, snapshot.root,
+          snapshot.journal_position);
+      for (Frozen node : snapshot.nodes) {
+        if (node.image != null) {
+          writeMapped(out, snapshot, node);
+        } else {
+          writeNode(out, node);
+        }
+        snapshot.nodes_written++;
+      }
+      out.writeByte(InodeTable.FREE);
+      out.writeLong(snapshot.next_id);
+      out.flush();
+      new DataOutputStream(buffered).writeLong(checksum.getValue());
+      buffered.flush();
+      channel.force(true);
+      snapshot.file_bytes = channel.size();
+      Files.move(written, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(written);
+      throw e;
+    }
+  }
+
+  /**
+   * Write a frozen node
+   *
+   * @param out The checkpoint
+   * @param node The node
+   * @throws IOException If the checkpoint cannot be written
+   */
+  private static void writeNode(DataOutputStream out, Frozen node)
+      throws IOException {
+    out.writeByte(node.original == NO_ID ? node.kind : COPY);
+    out.writeLong(node.id);
+    if (node.kind == InodeTable.FOLDER) {
+      out.writeInt(node.children.length);
+      for (int i = 0; i < node.children.length; i++) {
+        out.writeLong(node.children[i]);
+        writeString(out, node.names[i]);
+      }
+      if (node.original != NO_ID) {
+        out.writeLong(node.original);
+      }
+    } else if (node.kind == InodeTable.FILE) {
+      writeString(out, node.charset);
+      out.writeLong(node.data.length());
+      node.data.writeTo(out);
+    }
+  }
+
+  /**
+   * Write a frozen folder whose contents are still in a mapped image, and
+   * every node below it, read from the image. The image is never changed,
+   * so it is read by the thread writing the checkpoint. The nodes below the
+   * folder get the ids kept for their records.
+   *
+   * @param out The checkpoint
+   * @param snapshot The checkpoint being written
+   * @param node The folder
+   * @throws IOException If the checkpoint cannot be written or the image is
+   *         damaged
+   */
+  private static void writeMapped(DataOutputStream out, Snapshot snapshot,
+      Frozen node) throws IOException {
+    MappedImage image = node.image;
+    ArrayList<Integer> records = new ArrayList<Integer>();
+    records.add(node.record);
+    for (int at = 0; at < records.size(); at++) {
+      int record = records.get(at);
+      byte kind = image.getKind(record);
+      out.writeByte(kind);
+      out.writeLong(at == 0 ? node.id : node.image_ids + record);
+      if (kind == InodeTable.FOLDER) {
+        int count = image.getChildCount(record);
+        int first = count == 0 ? 0 : image.getFirstChild(record);
+        out.writeInt(count);
+        for (int child = first; child < first + count; child++) {
+          out.writeLong(node.image_ids + child);
+          writeString(out, image.getName(child));
+          records.add(child);
+        }
+      } else if (kind == InodeTable.FILE) {
+        // read in place, away from the compressor and the spiller
+        FileData data = image.getData(record).freeze();
+        writeString(out, data.getCharset().name());
+        out.writeLong(data.length());
+        data.writeTo(out);
+      } else if (kind != InodeTable.CONTENT) {
+        throw new IOException("Error: The image is damaged");
+      }
+      if (at > 0) {
+        snapshot.nodes_written++;
+      }
+    }
+  }
+
+  /**
+   * Return true iff the node is below the root, or below a folder removed
+   * from the tree that a copy in the tree still reads its contents from
+   *
+   * @param inode The inode of the node
+   * @param root The inode of the root
+   * @param seen The folders removed from the tree already looked at
+   * @return true if the node is in the tree, false otherwise
+   */
+  private static boolean inTree(int inode, int root, BitSet seen) {
+    int at = inode;
+    while (at != root) {
+      int parent = table.getParent(at);
+      if (parent == InodeTable.NONE) {
+        if (seen.get(at)) {
+          return false;
+        }
+        seen.set(at);
+        for (int copy : table.getPendingCopies(at)) {
+          if (inTree(copy, root, seen)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      at = parent;
+    }
+    return true;
+  }
+
+  /**
+   * Merge the given checkpoints in the background into a full checkpoint
+   * that replaces the last of them
+   *
+   * @param merged The checkpoints, the full one first
+   */
+  private void startMerge(final ArrayList<Path> merged) {
+    merger = new Thread(new Runnable() {
+      public void run() {
+        IOException failure = null;
+        try {
+          merge(merged);
+        } catch (IOException e) {
+          failure = e;
+        }
+        synchronized (Checkpointer.this) {
+          if (failure == null) {
+            files.removeAll(merged.subList(0, merged.size() - 1));
+            merge_count++;
+          } else {
+            merge_failure = failure;
+          }
+          merger = null;
+          Checkpointer.this.notifyAll();
+        }
+      }
+    }, "checkpoint-merger");
+    merger.setDaemon(true);
+    merger.start();
+  }
+
+  /**
+   * Wait for a merge in progress to end
+   */
+  private synchronized void awaitMerge() {
+    while (merger != null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Write the nodes of the tree in the given checkpoints to a full
+   * checkpoint, move it over the last of them and delete the others. Only
+   * the checkpoints given are read, so new ones can be written meanwhile.
+   *
+   * @param merged The checkpoints, the full one first
+   * @throws IOException If the checkpoints cannot be read or written
+   */
+  private void merge(ArrayList<Path> merged) throws IOException {
+    Path target = merged.get(merged.size() - 1);
+    Path written = target.resolveSibling(target.getFileName() + ".tmp");
+    Chain chain = readChain(merged);
+    try (FileChannel channel = FileChannel.open(written,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      BufferedOutputStream buffered = new BufferedOutputStream(
+          Channels.newOutputStream(channel), BUFFER_SIZE);
+      CRC32 checksum = new CRC32();
+      DataOutputStream out =
+          new DataOutputStream(new CheckedOutputStream(buffered, checksum));
+      writeHeader(out, number(target), true, chain.root,
+          chain.journal_position);
+      ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+      // only the nodes still in the tree, and the originals copies still
+      // read from, are kept
+      ArrayList<Long> queue = new ArrayList<Long>();
+      HashSet<Long> queued = new HashSet<Long>();
+      queue.add(chain.root);
+      queued.add(chain.root);
+      for (int at = 0; at < queue.size(); at++) {
+        long id = queue.get(at);
+        Node node = chain.nodes.get(id);
+        if (node == null) {
+          throw new IOException(DAMAGED);
+        }
+        out.writeByte(node.original == NO_ID ? node.kind : COPY);
+        out.writeLong(id);
+        if (node.kind == InodeTable.FOLDER) {
+          out.writeInt(node.children.length);
+          for (int i = 0; i < node.children.length; i++) {
+            out.writeLong(node.children[i]);
+            writeString(out, node.names[i]);
+            if (queued.add(node.children[i])) {
+              queue.add(node.children[i]);
+            }
+          }
+          if (node.original != NO_ID) {
+            out.writeLong(node.original);
+            if (queued.add(node.original)) {
+              queue.add(node.original);
+            }
+          }
+        } else if (node.kind == InodeTable.FILE) {
+          writeString(out, node.charset);
+          out.writeLong(node.length);
+          FileChannel source = chain.channels.get(node.source);
+          for (long done = 0; done < node.length;) {
+            bytes.clear();
+            bytes.limit((int) Math.min(BUFFER_SIZE, node.length - done));
+            if (source.read(bytes, node.data_at + done) < 0) {
+              throw new IOException(DAMAGED);
+            }
+            out.write(bytes.array(), 0, bytes.position());
+            done += bytes.position();
+          }
+        }
+      }
+      out.writeByte(InodeTable.FREE);
+      out.writeLong(chain.next_id);
+      out.flush();
+      new DataOutputStream(buffered).writeLong(checksum.getValue());
+      buffered.flush();
+      channel.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(written);
+      throw e;
+    } finally {
+      chain.close();
+    }
+    Files.move(written, target, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    for (Path older : merged.subList(0, merged.size() - 1)) {
+      Files.deleteIfExists(older);
+    }
+  }
+
+  /**
+   * Replace the tree of the file system with the tree in the checkpoints in
+   * the directory, from the last full one on. Older checkpoints and
+   * checkpoints that were not finished are deleted.
+   *
+   * @throws IOException If the checkpoints cannot be read or are damaged
+   */
+  private void recover() throws IOException {
+    ArrayList<Path> found = new ArrayList<Path>();
+    try (DirectoryStream<Path> listed =
+        Files.newDirectoryStream(directory, PREFIX + "*")) {
+      for (Path next : listed) {
+        String name = next.getFileName().toString();
+        if (name.endsWith(SUFFIX + ".tmp")) {
+          Files.delete(next);
+        } else if (name.endsWith(SUFFIX)) {
+          found.add(next);
+        }
+      }
+    }
+    if (found.isEmpty()) {
+      return;
+    }
+    // the names sort in the order the checkpoints were written
+    Collections.sort(found);
+    int base = found.size() - 1;
+    while (base > 0 && !isFull(found.get(base))) {
+      base--;
+    }
+    for (Path older : found.subList(0, base)) {
+      Files.delete(older);
+    }
+    files.addAll(found.subList(base, found.size()));
+    sequence = number(files.get(files.size() - 1));
+    Chain chain = readChain(files);
+    Folder root = null;
+    // the inodes of the nodes made, by their id
+    HashMap<Long, Integer> made = new HashMap<Long, Integer>();
+    // the copies that still read from their original, with its id
+    ArrayList<Integer> copies = new ArrayList<Integer>();
+    ArrayList<Long> originals = new ArrayList<Long>();
+    // the originals removed from the tree that copies still read from
+    ArrayList<Content> removed = new ArrayList<Content>();
+    try {
+      root = new Folder("/", "/");
+      table.setId(root.getInode(), chain.root);
+      recovered_nodes = 1;
+      readTree(chain, root.getInode(), chain.root, made, copies, originals);
+      for (int at = 0; at < copies.size(); at++) {
+        long id = originals.get(at);
+        if (!made.containsKey(id)) {
+          Content original =
+              readNode(chain, id, table.getName(copies.get(at)));
+          removed.add(original);
+          recovered_nodes++;
+          if (!(original instanceof Folder)) {
+            throw new IOException(DAMAGED);
+          }
+          readTree(chain, original.getInode(), id, made, copies, originals);
+        }
+      }
+      for (int at = 0; at < copies.size(); at++) {
+        Folder.readFrom(copies.get(at), made.get(originals.get(at)));
+      }
+    } catch (IOException | RuntimeException e) {
+      if (root != null) {
+        root.release();
+      }
+      for (Content original : removed) {
+        original.release();
+      }
+      throw e;
+    } finally {
+      chain.close();
+    }
+    // freed once the copies no longer read from them, like a folder removed
+    for (Content original : removed) {
+      table.bury(original.getInode());
+    }
+    fileSys.replaceRoot(root);
+    table.skipIds(chain.next_id);
+    journal_position = chain.journal_position;
+    // the tree read is already in the checkpoints
+    table.takeDirty();
+  }
+
+  /**
+   * Make the nodes below a folder read from the checkpoints, and keep the
+   * copies among them that still read from their original
+   *
+   * @param chain The checkpoints read
+   * @param top The inode of the folder
+   * @param top_id The id of the folder
+   * @param made The inodes of the nodes made, by their id
+   * @param copies The copies that still read from their original
+   * @param originals The ids of their originals
+   * @throws IOException If the checkpoints cannot be read or are damaged
+   */
+  private void readTree(Chain chain, int top, long top_id,
+      HashMap<Long, Integer> made, ArrayList<Integer> copies,
+      ArrayList<Long> originals) throws IOException {
+    made.put(top_id, top);
+    // the folders whose contents are not made yet, with their ids
+    ArrayList<Integer> folders = new ArrayList<Integer>();
+    ArrayList<Long> ids = new ArrayList<Long>();
+    folders.add(top);
+    ids.add(top_id);
+    for (int at = 0; at < folders.size(); at++) {
+      Node node = chain.nodes.get(ids.get(at));
+      if (node == null || node.kind != InodeTable.FOLDER) {
+        throw new IOException(DAMAGED);
+      }
+      if (node.original != NO_ID) {
+        copies.add(folders.get(at));
+        originals.add(node.original);
+      }
+      for (int i = 0; i < node.children.length; i++) {
+        if (made.containsKey(node.children[i])) {
+          throw new IOException(DAMAGED);
+        }
+        Content child = readNode(chain, node.children[i], node.names[i]);
+        recovered_nodes++;
+        if (!table.addChild(folders.get(at), child.getInode())) {
+          child.release();
+          throw new IOException(DAMAGED);
+        }
+        made.put(node.children[i], child.getInode());
+        if (child instanceof Folder) {
+          folders.add(child.getInode());
+          ids.add(node.children[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Make a node of the tree read from the checkpoints
+   *
+   * @param chain The checkpoints read
+   * @param id The id of the node
+   * @param name The name of the node
+   * @return The node, not in any folder yet
+   * @throws IOException If the checkpoints cannot be read or are damaged
+   */
+  private static Content readNode(Chain chain, long id, String name)
+      throws IOException {
+    Node node = chain.nodes.get(id);
+    if (node == null) {
+      throw new IOException(DAMAGED);
+    }
+    Content content;
+    switch (node.kind) {
+      case InodeTable.FOLDER:
+        content = new Folder(null, name);
+        break;
+      case InodeTable.FILE:
+        if (node.length > Integer.MAX_VALUE - 8) {
+          throw new IOException(DAMAGED);
+        }
+        Charset charset;
+        try {
+          charset = Charset.forName(node.charset);
+        } catch (IllegalArgumentException e) {
+          throw new IOException(DAMAGED);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) node.length);
+        FileChannel source = chain.channels.get(node.source);
+        while (bytes.hasRemaining()) {
+          if (source.read(bytes, node.data_at + bytes.position()) < 0) {
+            throw new IOException(DAMAGED);
+          }
+        }
+        content = new File(null, name, new FileData(bytes.array(), charset));
+        break;
+      default:
+        content = new Content(null, name, InodeTable.CONTENT);
+        break;
+    }
+    table.setId(content.getInode(), id);
+    return content;
+  }
+
+  /**
+   * Read the nodes of the given checkpoints, a node written again by a later
+   * checkpoint replacing the one before. The bytes of files are not read,
+   * only where they are.
+   *
+   * @param paths The checkpoints, the full one first
+   * @return The nodes, and the header of the last checkpoint
+   * @throws IOException If a checkpoint cannot be read or is damaged
+   */
+  private static Chain readChain(ArrayList<Path> paths) throws IOException {
+    Chain chain = new Chain();
+    try {
+      for (Path path : paths) {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        chain.channels.add(channel);
+        check(channel);
+        readNodes(channel, chain.channels.size() - 1, chain);
+      }
+    } catch (EOFException e) {
+      chain.close();
+      throw new IOException(DAMAGED);
+    } catch (IOException | RuntimeException e) {
+      chain.close();
+      throw e;
+    }
+    return chain;
+  }
+
+  /**
+   * Read the header and the nodes of a checkpoint
+   *
+   * @param channel The channel of the checkpoint
+   * @param source The number of the checkpoint in the chain
+   * @param chain The nodes read so far
+   * @throws IOException If the checkpoint cannot be read or is damaged
+   */
+  private static void readNodes(FileChannel channel, int source, Chain chain)
+      throws IOException {
+    channel.position(0);
+    // the stream is not closed, it would close the channel
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Channels.newInputStream(channel), BUFFER_SIZE));
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Error: The file is not a JShell checkpoint");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Error: Unsupported checkpoint version "
+          + version);
+    }
+    in.readLong();
+    in.readByte();
+    chain.root = in.readLong();
+    chain.journal_position = in.readLong();
+    // the header is 4 + 4 + 8 + 1 + 8 + 8 bytes
+    long at = 33;
+    byte kind = in.readByte();
+    at++;
+    while (kind != InodeTable.FREE) {
+      Node node = new Node();
+      node.kind = kind;
+      long id = in.readLong();
+      at += 8;
+      if (kind == InodeTable.FOLDER || kind == COPY) {
+        node.kind = InodeTable.FOLDER;
+        int count = in.readInt();
+        at += 4;
+        if (count < 0) {
+          throw new IOException(DAMAGED);
+        }
+        node.children = new long[count];
+        node.names = new String[count];
+        for (int i = 0; i < count; i++) {
+          node.children[i] = in.readLong();
+          node.names[i] = readString(in);
+          at += 12 + node.names[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (kind == COPY) {
+          node.original = in.readLong();
+          at += 8;
+        }
+      } else if (kind == InodeTable.FILE) {
+        node.charset = readString(in);
+        node.length = in.readLong();
+        at += 12 + node.charset.getBytes(StandardCharsets.UTF_8).length;
+        if (node.length < 0) {
+          throw new IOException(DAMAGED);
+        }
+        node.source = source;
+        node.data_at = at;
+        in.skipNBytes(node.length);
+        at += node.length;
+      } else if (kind != InodeTable.CONTENT) {
+        throw new IOException(DAMAGED);
+      }
+      chain.nodes.put(id, node);
+      kind = in.readByte();
+      at++;
+    }
+    chain.next_id = in.readLong();
+  }
+
+  /**
+   * Check the checksum of a checkpoint, written in its last eight bytes
+   *
+   * @param channel The channel of the checkpoint
+   * @throws IOException If the checkpoint cannot be read or is damaged
+   */
+  private static void check(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size < 8) {
+      throw new IOException(DAMAGED);
+    }
+    CRC32 checksum = new CRC32();
+    ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    for (long at = 0; at < size - 8;) {
+      bytes.clear();
+      bytes.limit((int) Math.min(BUFFER_SIZE, size - 8 - at));
+      if (channel.read(bytes, at) < 0) {
+        throw new IOException(DAMAGED);
+      }
+      checksum.update(bytes.array(), 0, bytes.position());
+      at += bytes.position();
+    }
+    bytes.clear();
+    bytes.limit(8);
+    while (bytes.hasRemaining()) {
+      if (channel.read(bytes, size - 8 + bytes.position()) < 0) {
+        throw new IOException(DAMAGED);
+      }
+    }
+    if (bytes.getLong(0) != checksum.getValue()) {
+      throw new IOException("Error: The checksum of the checkpoint does not "
+          + "match, the checkpoint is damaged");
+    }
+  }
+
+  /**
+   * Return true iff the checkpoint holds the whole tree
+   *
+   * @param path The path of the checkpoint
+   * @return true if it is a full checkpoint, false otherwise
+   * @throws IOException If the checkpoint cannot be read
+   */
+  private static boolean isFull(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      ByteBuffer flag = ByteBuffer.allocate(1);
+      // the flag follows the magic number, the version and the number
+      return channel.read(flag, 16) == 1 && flag.get(0) == 1;
+    }
+  }
+
+  /**
+   * Write the header of a checkpoint
+   *
+   * @param out The checkpoint
+   * @param number The number of the checkpoint
+   * @param full true if it holds the whole tree
+   * @param root The id of the root
+   * @param position Number of the next record of the journal
+   * @throws IOException If the checkpoint cannot be written
+   */
+  private static void writeHeader(DataOutputStream out, long number,
+      boolean full, long root, long position) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeLong(number);
+    out.writeByte(full ? 1 : 0);
+    out.writeLong(root);
+    out.writeLong(position);
+  }
+
+  /**
+   * Write a string as its length and its UTF-8 bytes
+   *
+   * @param out The checkpoint
+   * @param text The string
+   * @throws IOException If the checkpoint cannot be written
+   */
+  private static void writeString(DataOutputStream out, String text)
+      throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Read a string written by writeString
+   *
+   * @param in The checkpoint
+   * @return The string
+   * @throws IOException If the checkpoint cannot be read or is damaged
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > BUFFER_SIZE) {
+      throw new IOException(DAMAGED);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Return the name of the checkpoint with the given number
+   *
+   * @param number The number of the checkpoint
+   * @return The name
+   */
+  private static String name(long number) {
+    return String.format("%s%016d%s", PREFIX, number, SUFFIX);
+  }
+
+  /**
+   * Return the number of a checkpoint
+   *
+   * @param path The path of the checkpoint
+   * @return The number
+   * @throws IOException If the name is not the name of a checkpoint
+   */
+  private static long number(Path path) throws IOException {
+    String name = path.getFileName().toString();
+    try {
+      return Long.parseLong(
+          name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+      throw new IOException(DAMAGED);
+    }
+  }
+
+  /**
+   * Return the number of the next record of the journal when the last
+   * checkpoint was written or read, the records before it are in the
+   * checkpoints
+   *
+   * @return Number of the next record of the journal
+   */
+  public long getJournalPosition() {
+    return journal_position;
+  }
+
+  /**
+   * Return the number of checkpoints written since checkpointing was turned
+   * on
+   *
+   * @return Number of checkpoints
+   */
+  public long getCheckpointCount() {
+    return checkpoint_count;
+  }
+
+  /**
+   * Return the number of nodes in the last checkpoint written
+   *
+   * @return Number of nodes
+   */
+  public long getLastNodes() {
+    return last_nodes;
+  }
+
+  /**
+   * Return the number of bytes of the last checkpoint written
+   *
+   * @return Number of bytes
+   */
+  public long getLastBytes() {
+    return last_bytes;
+  }
+
+  /**
+   * Return the number of milliseconds the last checkpoint took
+   *
+   * @return Number of milliseconds
+   */
+  public long getLastMillis() {
+    return last_millis;
+  }
+
+  /**
+   * Return the number of milliseconds JShell stopped to freeze the nodes of
+   * the last checkpoint written
+   *
+   * @return Number of milliseconds
+   */
+  public long getLastFreezeMillis() {
+    return last_freeze_millis;
+  }
+
+  /**
+   * Return the number of bytes per second the last checkpoint was written
+   * at
+   *
+   * @return Number of bytes per second
+   */
+  public double getLastThroughput() {
+    return last_bytes * 1e9 / Math.max(1, last_nanos);
+  }
+
+  /**
+   * Return the number of the last checkpoint written or read
+   *
+   * @return Number of the checkpoint, 0 if there is none
+   */
+  public long getLastNumber() {
+    return sequence;
+  }
+
+  /**
+   * Return true iff a checkpoint is being written in the background
+   *
+   * @return true if a checkpoint is being written, false otherwise
+   */
+  public boolean isWriting() {
+    return writing != null;
+  }
+
+  /**
+   * Return the number of the checkpoint being written
+   *
+   * @return Number of the checkpoint, 0 if none is being written
+   */
+  public long getWritingNumber() {
+    return writing == null ? 0 : writing.number;
+  }
+
+  /**
+   * Return the number of nodes frozen for the checkpoint being written
+   *
+   * @return Number of nodes, 0 if none is being written
+   */
+  public long getFrozenNodes() {
+    return writing == null ? 0 : writing.nodes.size();
+  }
+
+  /**
+   * Return the number of bytes of the files frozen for the checkpoint being
+   * written
+   *
+   * @return Number of bytes, 0 if none is being written
+   */
+  public long getFrozenBytes() {
+    return writing == null ? 0 : writing.data_bytes;
+  }
+
+  /**
+   * Return the number of nodes of the checkpoint being written written so
+   * far
+   *
+   * @return Number of nodes, 0 if none is being written
+   */
+  public long getWrittenNodes() {
+    return writing == null ? 0 : writing.nodes_written;
+  }
+
+  /**
+   * Return the number of bytes of the checkpoint being written written so
+   * far
+   *
+   * @return Number of bytes, 0 if none is being written
+   */
+  public long getWrittenBytes() {
+    return writing == null ? 0 : writing.bytes_written;
+  }
+
+  /**
+   * Return the number of milliseconds since the checkpoint being written
+   * started
+   *
+   * @return Number of milliseconds, 0 if none is being written
+   */
+  public long getWritingMillis() {
+    return writing == null ? 0
+        : (System.nanoTime() - writing.start) / 1000000;
+  }
+
+  /**
+   * Return the number of bytes per second the checkpoint being written is
+   * written at so far
+   *
+   * @return Number of bytes per second, 0 if none is being written
+   */
+  public double getWritingThroughput() {
+    if (writing == null) {
+      return 0;
+    }
+    return writing.bytes_written * 1e9
+        / Math.max(1, System.nanoTime() - writing.start);
+  }
+
+  /**
+   * Return the directory the checkpoints are written to
+   *
+   * @return The directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Return the number of milliseconds between two checkpoints
+   *
+   * @return Number of milliseconds
+   */
+  public long getInterval() {
+    return interval;
+  }
+
+  /**
+   * Return the number of merges done since checkpointing was turned on
+   *
+   * @return Number of merges
+   */
+  public synchronized long getMergeCount() {
+    return merge_count;
+  }
+
+  /**
+   * Return the number of checkpoints read back when the tree is read again,
+   * the full one included
+   *
+   * @return Number of checkpoints
+   */
+  public synchronized int getChainLength() {
+    return files.size();
+  }
+
+  /**
+   * Return the number of nodes read back when checkpointing was turned on
+   *
+   * @return Number of nodes
+   */
+  public long getRecoveredNodes() {
+    return recovered_nodes;
+  }
+}
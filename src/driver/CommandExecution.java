@@ -1,5 +1,6 @@
 package driver;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Hashtable;
 
@@ -8,8 +9,12 @@ import commands.Cd;
 import commands.Command;
 import commands.Cp;
 import commands.Curl;
+import commands.Df;
 import commands.Echo;
 import commands.Grep;
+import commands.Head;
+import commands.Lines;
+import commands.Load;
 import commands.Man;
 import commands.Mkdir;
 import commands.Mv;
@@ -17,12 +22,16 @@ import commands.Popd;
 import commands.Pushd;
 import commands.Pwd;
 import commands.Recall;
+import commands.Save;
+import commands.Status;
+import commands.Tail;
 import exception.EmptyDirectoryStackException;
 import exception.HasSameContentNameException;
 import exception.IncorrectCommandHistoryArgException;
 import exception.IncorrectContentTypeException;
 import exception.InvalidCommandException;
 import exception.InvalidCommandHistorySizeException;
+import exception.InvalidImageException;
 import exception.InvalidNameException;
 import exception.InvalidNumberOfArgument;
 import exception.InvalidPathException;
@@ -105,6 +114,7 @@ public class CommandExecution {
     history = ch;
     format = pf;
     stackDir = new DirectoryStack();
+    fileSys.setDirectoryStack(stackDir);
     content_edit = new ContentEditor();
     // All command objects being used
     Mkdir mkdir = new Mkdir(fileSys);
@@ -122,9 +132,17 @@ public class CommandExecution {
     Grep grep = new Grep(fileSys, format);
     Echo echo = new Echo(fileSys, format);
     Recall recall = new Recall(this, history, fileSys);
+    Df df = new Df(format);
+    Head head = new Head(fileSys, format);
+    Tail tail = new Tail(fileSys, format);
+    Lines lines = new Lines(fileSys, format);
+    Save save = new Save(fileSys);
+    Load load = new Load(fileSys);
+    Status status = new Status(format);
     // put all commands into an array
     Command[] commands = {mkdir, cd, pushd, popd, pwd, ls, man, hist, cat,
-        curl, recall, mv, cp, grep, echo};
+        curl, recall, mv, cp, grep, echo, df, head, tail, lines, save, load,
+        status};
 
     // add the commands to the hash table
     for (Command next_command : commands) {
@@ -165,6 +183,31 @@ public class CommandExecution {
     this.run(commandObject);
 
     output(redirection);
+    // the command returns once its changes are in the journal
+    try {
+      Journal.commit();
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
+    // write the changes to a checkpoint once in a while
+    Checkpointer checkpointer = Checkpointer.getActive();
+    if (checkpointer != null) {
+      try {
+        checkpointer.tick();
+      } catch (IOException e) {
+        System.out.println(e.getMessage());
+      }
+    }
+    // compress the data of files that became cold
+    FileCompressor compressor = FileCompressor.getActive();
+    if (compressor != null) {
+      compressor.sweep();
+    }
+    // write the data of files to disk if there is too much in memory
+    FileSpiller spiller = FileSpiller.getActive();
+    if (spiller != null) {
+      spiller.sweep();
+    }
   }
 
   /**
@@ -181,7 +224,8 @@ public class CommandExecution {
         | InvalidNameException | InvalidCommandHistorySizeException
         | InvalidRegexException | MkdirMultiException | InvalidNumberOfArgument
         | IncorrectCommandHistoryArgException | EmptyDirectoryStackException
-        | NumberFormatException | InvalidCommandException e) {
+        | NumberFormatException | InvalidCommandException
+        | InvalidImageException e) {
       System.out.println(e.getMessage());
     }
   }
@@ -226,17 +270,18 @@ public class CommandExecution {
   private void redirectOutput(String text, String symbol, String outfile)
       throws InvalidNameException, InvalidPathException,
       HasSameContentNameException, IncorrectContentTypeException {
-    boolean fileExists;
-    // Check if the file given in outfile path exist in FileSystem
-    fileExists = fileSys.pathExist(outfile);
+    // Get the file given in outfile path from FileSystem, if it exists
+    Lookup textFile = fileSys.lookupFile(outfile);
     // If it does not exist make a new file in FileSystem given the full path
     // and name from outfile
-    if (!fileExists
-        && (!text.equals(EMPTY_STRING) || command.equals("echo"))) {
-      fileSys.makeFile(outfile);
-      writeFile(text, symbol, outfile);
-    } else if (fileExists) {
-      writeFile(text, symbol, outfile);
+    if (textFile.getStatus() == LookupStatus.NOT_FOUND) {
+      if (!text.equals(EMPTY_STRING) || command.equals("echo")) {
+        writeFile(text, symbol, fileSys.makeFile(outfile));
+      }
+    } else {
+      // something other than a file may be at the path
+      fileSys.raiseLookupError(textFile);
+      writeFile(text, symbol, textFile.getFile());
     }
   }
 
@@ -245,15 +290,9 @@ public class CommandExecution {
    * 
    * @param text The data to be written to outfile
    * @param symbol The redirection symbol
-   * @param outfile The file to be written
-   * @throws InvalidPathException
-   * @throws IncorrectContentTypeException
+   * @param textFile The file to be written
    */
-  private void writeFile(String text, String symbol, String outfile)
-      throws InvalidPathException, IncorrectContentTypeException {
-    // Get the file from the FileSystem
-    File textFile = fileSys.getFile(outfile);
-
+  private void writeFile(String text, String symbol, File textFile) {
     // If the symbol matches with '>>' append contents in text to the file
     if (symbol.equals(REDIRECTION_APPEND)) {
       content_edit.appendContents(textFile, text);
@@ -261,6 +300,7 @@ public class CommandExecution {
     // Else if the symbol is '>' overwrite its contents instead
     else if (symbol.equals(REDIRECTION_OVERWRITE)) {
       textFile.overwriteData(text);
+      Journal.recordWrite(textFile);
     }
   }
 }
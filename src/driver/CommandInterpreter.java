@@ -8,47 +8,143 @@ package driver;
  *
  */
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Pattern;
 
-import exception.InvalidPathException;
 
 public class CommandInterpreter {
   /**
-   * String array where each element is a keyword in a user input
+   * Names of valid commands, the !number command is checked separately
    */
-  String[] parameters;
+  private static final String[] COMMAND_NAMES = {"mkdir", "cd", "ls", "pwd",
+      "curl", "mv", "cp", "cat", "pushd", "grep", "popd", "history", "echo",
+      "man", "df", "head", "tail", "lines", "save", "load", "status"};
 
   /**
-   * Instance of FileSystem
+   * Minimum length of parameters for each valid command, the last one is for
+   * the !number command
    */
-  private FileSystem operator;
+  private static final int[] MIN_PARAM_LENGTH =
+      {2, 2, 1, 1, 2, 3, 3, 2, 2, 3, 1, 1, 2, 2, 1, 2, 2, 4, 2, 2, 1, 1};
+
+  /**
+   * Index of the !number command
+   */
+  private static final int RECALL = COMMAND_NAMES.length;
+
+  /**
+   * Index of the grep command, whose first argument is not a path
+   */
+  private static final int GREP = Arrays.asList(COMMAND_NAMES).indexOf("grep");
+
+  /**
+   * Index of the lines command, whose first two arguments are not paths
+   */
+  private static final int LINES =
+      Arrays.asList(COMMAND_NAMES).indexOf("lines");
+
+  /**
+   * Valid commands that includes a path string as an argument
+   */
+  private static final String[] COMMAND_WITH_PATHS =
+      {"mkdir", "cd", "ls", "mv", "cp", "cat", "pushd", "grep", "head", "tail",
+          "lines"};
+
+  /**
+   * Valid commands that has additional recursive functionality
+   */
+  private static final String[] COMMAND_WITH_RECURSION = {"ls", "grep"};
+
+  /**
+   * Valid commands that take a number of lines after the flag -n
+   */
+  private static final String[] COMMAND_WITH_COUNT = {"head", "tail"};
+
+  /**
+   * Hash table of the indexes of the command names, -1 marks an empty slot
+   */
+  private static final int[] COMMAND_TABLE = new int[32];
+
+  /**
+   * Whether each command includes a path string as an argument
+   */
+  private static final boolean[] HAS_PATHS =
+      new boolean[COMMAND_NAMES.length + 1];
+
+  /**
+   * Whether each command has additional recursive functionality
+   */
+  private static final boolean[] HAS_RECURSION =
+      new boolean[COMMAND_NAMES.length + 1];
+
+  /**
+   * Whether each command takes a number of lines after the flag -n
+   */
+  private static final boolean[] HAS_COUNT =
+      new boolean[COMMAND_NAMES.length + 1];
+
+  /**
+   * Length of the longest command name
+   */
+  private static final int LONGEST_NAME;
+
+  static {
+    Arrays.fill(COMMAND_TABLE, -1);
+    int longest = 0;
+    for (int i = 0; i < COMMAND_NAMES.length; i++) {
+      String name = COMMAND_NAMES[i];
+      int slot = slot(hash(name, 0, name.length()));
+      while (COMMAND_TABLE[slot] >= 0) {
+        slot = (slot + 1) & (COMMAND_TABLE.length - 1);
+      }
+      COMMAND_TABLE[slot] = i;
+      longest = Math.max(longest, name.length());
+    }
+    LONGEST_NAME = longest;
+    for (String name : COMMAND_WITH_PATHS) {
+      HAS_PATHS[Arrays.asList(COMMAND_NAMES).indexOf(name)] = true;
+    }
+    for (String name : COMMAND_WITH_RECURSION) {
+      HAS_RECURSION[Arrays.asList(COMMAND_NAMES).indexOf(name)] = true;
+    }
+    for (String name : COMMAND_WITH_COUNT) {
+      HAS_COUNT[Arrays.asList(COMMAND_NAMES).indexOf(name)] = true;
+    }
+  }
+
+  /**
+   * The keyword for a command that is not valid
+   */
+  private static final String INVALID = "invalid";
+
+  /**
+   * The redirection symbol that appends to a file
+   */
+  private static final String APPEND = ">>";
+
+  /**
+   * The redirection symbol that overwrites a file
+   */
+  private static final String OVERWRITE = ">";
 
   /**
-   * List of names of valid commands
+   * Instance of FileSystem
    */
-  List<String> validCommands =
-      Arrays.asList("mkdir", "cd", "ls", "pwd", "curl", "(!.[0-9]*)", "mv",
-          "cp", "cat", "pushd", "grep", "popd", "history", "echo", "man");
+  private FileSystem operator;
 
   /**
-   * List of minimum length of parameters for each valid command
+   * Turns the paths in a command into full paths
    */
-  List<Integer> minParamLength =
-      Arrays.asList(2, 2, 1, 1, 2, 1, 3, 3, 2, 2, 3, 1, 1, 2, 2);
+  private PathNormalizer normalizer;
 
   /**
-   * List of valid commands that includes a path string as an argument
+   * Splits user input into keywords
    */
-  List<String> commandWithPaths =
-      Arrays.asList("mkdir", "cd", "ls", "mv", "cp", "cat", "pushd", "grep");
+  private CommandTokenizer tokenizer;
 
   /**
-   * List of valid commands that has additional recursive functionality
+   * The keywords of the last user input, reused for every input
    */
-  List<String> commandWithRecursion = Arrays.asList("ls", "grep");
+  private ParsedCommand parsed;
 
 
 
@@ -60,6 +156,9 @@ public class CommandInterpreter {
   public CommandInterpreter(FileSystem fileSys) {
     // Set an instance of FileSystem
     operator = fileSys;
+    normalizer = new PathNormalizer(fileSys);
+    tokenizer = new CommandTokenizer();
+    parsed = new ParsedCommand();
   }
 
 
@@ -72,324 +171,205 @@ public class CommandInterpreter {
    */
   public String[][] interpretCommand(String input) {
 
-    // Store each keyword in the input to a string array
-    parameters = formatParameters(input);
-
-    // Format any strings in parameters that denote paths into a full path
-    parameters = convertToPath(parameters);
-
-    // Check if the given command is valid and meets minimum parameter length
-    boolean isValid = isCommandValid(parameters);
-
-    // If the command is not one of the valid commands, turn it invalid
-    if (!isValid) {
-      parameters = new String[] {"invalid"};
+    // Store the position of each keyword in the input
+    int command = -1;
+    if (tokenizer.tokenize(input, parsed)) {
+      command = findCommand(parsed);
     }
 
-    // Create a new array to store strings dealing with redirection in input
-    String[] redirection = new String[2];
+    // Check if the given command is valid and meets minimum parameter length,
+    // if the command is not one of the valid commands, turn it invalid
+    if (!isCommandValid(parsed, command)) {
+      return new String[][] {{INVALID}, {"", ""}};
+    }
 
     // Split the arguments into two separate arrays one stores formatted
     // arguments for a valid command the other for redirection
-    if ((parameters.length > 2)
-        && (parameters[parameters.length - 2].equals(">>")
-            || parameters[parameters.length - 2].equals(">"))) {
-
-      redirection[0] = parameters[parameters.length - 2];
-      redirection[1] = parameters[parameters.length - 1];
-      parameters = Arrays.copyOfRange(parameters, 0, parameters.length - 2);
+    int length = parsed.size();
+    String[] redirection = new String[2];
+    if (length > 2 && hasRedirect(parsed, length - 2)) {
+      redirection[0] = parsed.matches(length - 2, APPEND) ? APPEND : OVERWRITE;
+      redirection[1] = formatPath(parsed, length - 1);
+      length -= 2;
     } else {
       redirection[0] = "";
       redirection[1] = redirection[0];
     }
+
+    // Format any keywords that denote paths into a full path
+    String[] parameters = new String[length];
+    parameters[0] = command == RECALL ? parsed.get(0) : COMMAND_NAMES[command];
+    int startPath = firstPath(parsed, command);
+    for (int i = 1; i < length; i++) {
+      if (i >= startPath) {
+        parameters[i] = formatPath(parsed, i);
+      } else {
+        parameters[i] = parsed.get(i);
+      }
+    }
     String[][] formattedInput = {parameters, redirection};
 
     return formattedInput;
   }
 
 
-
   /**
-   * Formats a raw input string into a list of string containing keywords
+   * Return the index of the command named by the first keyword, found without
+   * creating a string for the keyword
    * 
-   * @param input The string representing user's input into the JShell
-   * @return A list of strings with each element denoting to a possible keyword
-   *         found in a command
+   * @param parsed The keywords of a user input
+   * @return The index of the command, RECALL for the !number command or -1 if
+   *         the command is not valid
    */
-  private String[] formatParameters(String input) {
-
-    // String array used to store each keyword in an input
-    String[] parameters;
-
-    // Remove white spaces at beginning and end of the input
-    input = input.trim();
-
-    // If the input to be formatted includes the command echo, then call a
-    // specific method that formats input with echo commands
-    if (input.startsWith("echo ")) {
-      parameters = formatEchoParams(input);
-    } else {
-      // Simplify excess of white space characters into 1 white space character
-      while (input.contains("  ")) {
-        input = input.replaceAll("  ", " ");
+  private int findCommand(ParsedCommand parsed) {
+    if (parsed.size() == 0) {
+      return -1;
+    }
+    String input = parsed.getInput();
+    int start = parsed.getStart(0);
+    int end = parsed.getEnd(0);
+    // !number is '!' followed by any character and then only digits
+    if (input.charAt(start) == '!' && end - start >= 2) {
+      for (int i = start + 2; i < end; i++) {
+        if (!Character.isDigit(input.charAt(i))) {
+          return -1;
+        }
       }
-      // Split the input into an array using white space character as delimiter
-      parameters = input.split(" ");
+      return RECALL;
+    }
+    if (end - start > LONGEST_NAME) {
+      return -1;
     }
-    return parameters;
+    int slot = slot(hash(input, start, end));
+    while (COMMAND_TABLE[slot] >= 0) {
+      if (parsed.matches(0, COMMAND_NAMES[COMMAND_TABLE[slot]])) {
+        return COMMAND_TABLE[slot];
+      }
+      slot = (slot + 1) & (COMMAND_TABLE.length - 1);
+    }
+    return -1;
   }
 
 
   /**
-   * Formats a raw input string into a list of string containing keywords
+   * Check if the command is valid and the input has enough keywords for it,
+   * and print an error if it does not
    * 
-   * @param parameters String array containing command keywords
+   * @param parsed The keywords of a user input
+   * @param command The index of the command, -1 if it is not valid
    * @return A boolean that denotes whether the command is valid
    */
-  private boolean isCommandValid(String[] parameters) {
-    boolean isValid = false;
-    boolean isRightSize = true;
-
-    // Check if a given command matches one in the list of valid commands
-    for (String command : validCommands)
-      if (Pattern.matches(command, parameters[0])) {
-        isValid = true;
-        // Check if argument length meets the minimum length for the command
-        int commandIndex = validCommands.indexOf(command);
-        if (!(minParamLength.get(commandIndex) <= parameters.length)) {
-          isRightSize = false;
-        }
-      }
+  private boolean isCommandValid(ParsedCommand parsed, int command) {
     // print appropriate errors if either command not found or is
     // missing operands
-    if (!isValid) {
+    if (command < 0) {
       System.out.println("Error: Command Not Valid");
-    } else if (!isRightSize) {
+      return false;
+    }
+    if (MIN_PARAM_LENGTH[command] > parsed.size()) {
       System.out
-          .println("Error: Missing operands for command " + parameters[0]);
+          .println("Error: Missing operands for command " + parsed.get(0));
+      return false;
     }
     // If both conditions above are satisfied then the command is valid
-    return isValid && isRightSize;
+    return true;
   }
 
 
   /**
-   * Formats a raw input string that starts with "echo " into a list of string
-   * containing keywords
+   * Return the index of the first keyword that denotes a path
    * 
-   * @param input The string representing user's input into the JShell
-   * @return A list of strings with each element denoting to a possible keyword
-   *         found in an echo command
+   * @param parsed The keywords of a user input
+   * @param command The index of the command
+   * @return The index of the first path, or the number of keywords if the
+   *         command has no paths
    */
-  private String[] formatEchoParams(String input) {
-
-    ArrayList<String> paramList = new ArrayList<String>();
-
-    // Identify the text keyword in the path and store it in a string
-    int stringBegin = input.indexOf('"');
-    int stringEnd = input.lastIndexOf('"');
-
-    // Check if there's at least two double quote characters in input
-    if (stringBegin == stringEnd) {
-      return new String[] {"invalid"};
+  private int firstPath(ParsedCommand parsed, int command) {
+    if (!HAS_PATHS[command]) {
+      return parsed.size();
     }
-    String stringText = input.substring(stringBegin + 1, stringEnd);
-
-    // Formats left and right side of the text keyword into string arrays
-    String[] leftOfText = formatParameters(input.substring(0, stringBegin));
-    String[] rightOfText =
-        formatParameters(input.substring(stringEnd + 1, input.length()));
-
-    // Merge keywords on left side, string text and right side together
-    for (String keyword : leftOfText) {
-      if (!keyword.equals("")) {
-        paramList.add(keyword);
-      }
-    }
-    paramList.add(stringText);
-    for (String keyword : rightOfText) {
-      if (!keyword.equals("")) {
-        paramList.add(keyword);
-      }
-    }
-    // Convert the array list that stores command keywords into a string array
-    String[] parameters = new String[paramList.size()];
-    return paramList.toArray(parameters);
-  }
-
-
-  /**
-   * Formats each string in a command's arguments that denotes to a path to a
-   * full path
-   * 
-   * @param parameters String array containing a command's argument with each
-   *        element being a keyword in a command call
-   * @return String array with formatted parameter with full paths
-   */
-  private String[] convertToPath(String[] parameters) {
-    // Index where the first/last path is found in a command call
+    // Index where the first path is found in a command call
     int startPath = 1;
-    int endPath;
-    endPath = parameters.length;
-    if (parameters[0].equals("grep")) {
-      startPath += 1;
-    }
-    // Format path for redirection part of the command call
-    try {
-      if (hasRedirect(parameters[parameters.length - 2])) {
-        endPath = parameters.length - 2;
-        parameters[parameters.length - 1] =
-            formatPath(parameters[parameters.length - 1]);
+    if (command == GREP) {
+      // Skip the flags '-R' and '-n' before the regex, in any order
+      while (startPath < parsed.size() && (parsed.matches(startPath, "-n")
+          || parsed.matches(startPath, "-r")
+          || parsed.matches(startPath, "-R"))) {
+        startPath += 1;
       }
-    } catch (IndexOutOfBoundsException e) {
+      startPath += 1;
+    } else if (command == LINES) {
+      startPath += 2;
+    } else if (HAS_COUNT[command] && parsed.size() > 1
+        && parsed.matches(1, "-n")) {
+      // Skip the flag '-n' and the number of lines after it
+      startPath += 2;
     }
-    if (commandWithPaths.contains(parameters[0])) {
-      try {
-        // Change index of first path if command is recursive and has '-R'
-        if ((parameters[1].equals("-r") || parameters[1].equals("-R"))
-            && commandWithRecursion.contains(parameters[0])) {
-          startPath += 1;
-        }
-      } catch (IndexOutOfBoundsException e) {
-      }
-      // Format the path keywords into a full path
-      for (int i = startPath; i < endPath; i++) {
-        parameters[i] = formatPath(parameters[i]);
-      }
+    // Change index of first path if command is recursive and has '-R'
+    if (HAS_RECURSION[command] && command != GREP && parsed.size() > 1
+        && (parsed.matches(1, "-r") || parsed.matches(1, "-R"))) {
+      startPath += 1;
     }
-    return parameters;
+    return startPath;
   }
 
 
   /**
-   * Return if the parameter is any of redirection symbol
+   * Return if the keyword is any of redirection symbol
    * 
-   * @param parm The parameter being checked
-   * @return True if parm is a redirection symbol
+   * @param parsed The keywords of a user input
+   * @param position The position of the keyword being checked
+   * @return True if the keyword is a redirection symbol
    */
-  private boolean hasRedirect(String parm) {
-    return parm.equals(">") || parm.equals(">>");
+  private boolean hasRedirect(ParsedCommand parsed, int position) {
+    return !parsed.isQuoted(position)
+        && (parsed.matches(position, OVERWRITE)
+            || parsed.matches(position, APPEND));
   }
 
 
   /**
-   * Formats a string input into a string representing an absolute path and
+   * Formats a keyword into a string representing an absolute path and
    * formats '.' and '..' in a path
    * 
-   * @param path The string representing an unformatted path
-   * @return A string formatted absolute path
-   */
-  private String formatPath(String path) {
-    // Check if the path is a full path if not turn it into a full path
-    path = toFullPath(path);
-
-    // Remove all instances of the '.' character, since in unix it is a special
-    // character denoting to current directory. Thus /dir1/./. == /dir is true
-    path = replaceSingleDots(path);
-
-    // Replace all instances of the '..' character, since in unix it is a
-    // special character denoting to parent directory.
-    // Thus /../dir1/../.. == / is true
-    path = replaceDoubleDots(path);
-
-    // Remove the last slash character from the path (if it is a directory)
-    try {
-      if (!(path.equals("/")) && path.endsWith("/") && operator.getPathContent(
-          path.substring(0, path.length() - 1)) instanceof Folder) {
-        path = path.substring(0, path.length() - 1);
-      }
-    } catch (InvalidPathException e) {
-    }
-
-    // If the path is empty, add '/' which denotes the root
-    if (path.equals("")) {
-      path = "/";
-    }
-
-    return path;
-  }
-
-  /**
-   * Converts a given path to a full path without taking to account '.' and '..'
-   * symbols in a path
-   * 
-   * @param path The string representing an unformatted path
+   * @param parsed The keywords of a user input
+   * @param position The position of the keyword denoting an unformatted path
    * @return A string formatted absolute path
    */
-  private String toFullPath(String path) {
-    // Get the path of the current working directory
-    String currDir = operator.getCurrPath();
-
-    // Check if the path is a full path if not turn it into a full path
-    if (path.startsWith("/") == false) {
-      if (currDir.equals("/")) {
-        path = currDir + path;
-      } else {
-        path = currDir + "/" + path;
-      }
-    }
-    return path;
+  private String formatPath(ParsedCommand parsed, int position) {
+    // Resolve the path against the current working directory in one pass,
+    // since in unix '.' denotes the current directory and '..' the parent
+    // directory. Thus /dir1/./. == /dir1 and /../dir1/../.. == / are true
+    return normalizer.normalize(parsed.getInput(), parsed.getStart(position),
+        parsed.getEnd(position), operator.getCurrPath());
   }
 
 
   /**
-   * Formats instances of '.' string inside with an equivalent path
+   * Return the hash of the characters between start and end of the text
    * 
-   * @param path The string representing an unformatted path
-   * @return A string formatted path
+   * @param text The string holding the characters
+   * @param start Index of the first character
+   * @param end Index after the last character
+   * @return The hash of the characters
    */
-  private String replaceSingleDots(String path) {
-    // Remove all instances of the '.' character, since in unix it is a special
-    // character denoting to current directory. Thus /dir1/./. == /dir is true
-    while (path.contains("/./")) {
-      path = path.replace("/./", "/");
-    }
-    // Remove the '.' character found at the end of a path
-    if (path.endsWith("/.")) {
-      path = path.substring(0, path.length() - 2);
+  private static int hash(String text, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + text.charAt(i);
     }
-    return path;
+    return hash;
   }
 
 
   /**
-   * Formats instances of '..' string inside with an equivalent path
+   * Return the slot of the command table a hash starts at
    * 
-   * @param path The string representing an unformatted path
-   * @return A string formatted path
+   * @param hash The hash of a command name
+   * @return The slot in the command table
    */
-  private String replaceDoubleDots(String path) {
-    // A subpath in path
-    String subpath;
-    // A boolean representing whether a path exists in the file system
-    boolean pathValid = true;
-    // startIndex and endIndex denotes the indexes of directory before a '..'
-    int endIndex;
-    int startIndex;
-
-    // Format the '..' special character with the parent of current subpath
-    while (path.contains("/..") == true && pathValid) {
-
-      // If the path begins with "/.." simplify it to ""
-      if (path.startsWith("/..")) {
-        path = path.replaceFirst("/..", "");
-      } else {
-        // Let the subpath be the path up to the first instance of '/..'
-        endIndex = path.indexOf("/..");
-        subpath = path.substring(0, endIndex);
-        startIndex = subpath.lastIndexOf("/");
-        pathValid = operator.pathExist(subpath);
-        // If the subpath is a valid one remove the directory before the '..'
-        if (pathValid) {
-          path = path.substring(0, startIndex) + path.substring(endIndex + 3);
-        }
-      }
-      // If the subpath is not a valid one, make the path invalid also
-      if (pathValid == false) {
-        path = "Invalid path";
-      }
-    }
-    return path;
+  private static int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & (COMMAND_TABLE.length - 1);
   }
 
 }
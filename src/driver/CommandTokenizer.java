@@ -0,0 +1,114 @@
+package driver;
+
+/**
+ * Splits a user input into keywords in one pass over the input. Keywords are
+ * separated by white space. For an echo command the text between the first
+ * and the last double quotation is a single keyword, kept exactly as typed.
+ *
+ * @author Haosen Xu
+ *
+ */
+public class CommandTokenizer {
+
+  /**
+   * The character that separates keywords
+   */
+  private static final char SPACE = ' ';
+
+  /**
+   * The character that surrounds the text of an echo command
+   */
+  private static final char QUOTE = '"';
+
+  /**
+   * The start of an input for an echo command
+   */
+  private static final String ECHO = "echo ";
+
+  /**
+   * Split the input into keywords and store them in the given ParsedCommand
+   *
+   * @param input The string representing user's input into the JShell
+   * @param parsed Where the keywords are stored, any old keywords are removed
+   * @return false if the input is an echo command without a text surrounded
+   *         by double quotations, true otherwise
+   */
+  public boolean tokenize(String input, ParsedCommand parsed) {
+    parsed.reset(input);
+    // ignore white space at the beginning and end of the input
+    int begin = skipBlank(input, 0, input.length());
+    int end = trimBlank(input, begin, input.length());
+
+    if (end - begin >= ECHO.length() && input.startsWith(ECHO, begin)) {
+      int stringBegin = input.indexOf(QUOTE, begin);
+      int stringEnd = input.lastIndexOf(QUOTE, end - 1);
+      // check if there's at least two double quote characters in input
+      if (stringBegin == stringEnd) {
+        return false;
+      }
+      split(input, begin, stringBegin, parsed);
+      parsed.add(stringBegin + 1, stringEnd, true);
+      split(input, stringEnd + 1, end, parsed);
+    } else {
+      split(input, begin, end, parsed);
+    }
+    return true;
+  }
+
+  /**
+   * Add the keywords between start and end of the input, white space at both
+   * ends is ignored and repeated spaces count as one
+   *
+   * @param input The user input
+   * @param start Index where the keywords start
+   * @param end Index after the end of the keywords
+   * @param parsed Where the keywords are stored
+   */
+  private void split(String input, int start, int end, ParsedCommand parsed) {
+    int i = skipBlank(input, start, end);
+    end = trimBlank(input, i, end);
+    while (i < end) {
+      int keyword_end = i;
+      while (keyword_end < end && input.charAt(keyword_end) != SPACE) {
+        keyword_end++;
+      }
+      parsed.add(i, keyword_end, false);
+      i = keyword_end;
+      while (i < end && input.charAt(i) == SPACE) {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Return the index of the first character from start that is not white
+   * space
+   *
+   * @param input The user input
+   * @param start Index to start from
+   * @param end Index to stop at
+   * @return Index of the first non white space character, or end
+   */
+  private int skipBlank(String input, int start, int end) {
+    while (start < end && input.charAt(start) <= SPACE) {
+      start++;
+    }
+    return start;
+  }
+
+  /**
+   * Return the index after the last character before end that is not white
+   * space
+   *
+   * @param input The user input
+   * @param start Index to stop at
+   * @param end Index to start from
+   * @return Index after the last non white space character, or start
+   */
+  private int trimBlank(String input, int start, int end) {
+    while (end > start && input.charAt(end - 1) <= SPACE) {
+      end--;
+    }
+    return end;
+  }
+}
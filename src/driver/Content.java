@@ -1,22 +1,30 @@
 package driver;
 
 /**
- * Represent a content in a file system.
- * 
+ * Represent a content in a file system. The content is a view of a node kept
+ * in the InodeTable, it only holds the inode number of the node. The table
+ * hands out the same view of a node while it is used, and a node removed
+ * from the file system stays usable through it.
+ *
  * @author Sin Chi Chiu
  *
  */
 public class Content implements Comparable<Content> {
 
   /**
-   * name of the content
+   * The table holding every node
    */
-  private String name;
+  static final InodeTable table = InodeTable.getTable();
 
   /**
-   * The full path of this content
+   * The inode of the node this content is a view of
    */
-  protected String path;
+  private final int inode;
+
+  /**
+   * The generation of the inode when this view was made
+   */
+  private final int generation;
 
 
 
@@ -24,8 +32,31 @@ public class Content implements Comparable<Content> {
    * Default Constructor.
    */
   public Content(String path, String name) {
-    this.name = name;
-    this.path = path;
+    this(path, name, InodeTable.CONTENT);
+  }
+
+  /**
+   * Create a new node of the given kind that is not in a folder
+   *
+   * @param path The full path of the node
+   * @param name The name of the node
+   * @param kind The kind of the node
+   */
+  Content(String path, String name, byte kind) {
+    this.inode = table.allocate(kind, name, path);
+    this.generation = table.getGeneration(inode);
+    table.register(inode, this);
+  }
+
+  /**
+   * Create a view of a node already in the table
+   *
+   * @param inode The inode of the node
+   * @param generation The generation of the inode
+   */
+  Content(int inode, int generation) {
+    this.inode = inode;
+    this.generation = generation;
   }
 
   public String toString() {
@@ -35,51 +66,116 @@ public class Content implements Comparable<Content> {
 
   /**
    * Change the name of this content
-   * 
+   *
    * @param new_name
    */
   public void changeName(String new_name) {
-    this.name = new_name;
+    Folder parent = getParent();
+    if (parent != null) {
+      // the folder holding it finds its contents by name
+      parent.renameContent(this, new_name);
+    } else {
+      setName(new_name);
+    }
+  }
+
+  /**
+   * Set the name of this content, the folder holding it finds it by the new
+   * name
+   *
+   * @param new_name
+   */
+  void setName(String new_name) {
+    table.rename(getInode(), new_name);
   }
 
   /**
    * Return the name of this content
-   * 
+   *
    * @return Name of content
    */
   public String getName() {
-    return name;
+    return table.getName(getInode());
   }
 
   /**
-   * Changes the path of this object
-   * 
+   * Changes the path of this object. A content in a folder takes its path
+   * from the folder and its name, so only contents that are not in a folder
+   * keep the given path.
+   *
    * @param new_path New path for this content
    */
   public void changePath(String new_path) {
-    this.path = new_path;
+    if (table.getParent(getInode()) == InodeTable.NONE) {
+      table.setLoosePath(inode, new_path);
+    }
   }
 
   /**
-   * Return the path of this object
-   * 
-   * @param new_path New path for this content
+   * Return the path of this object, worked out from the folders above it
+   *
    * @return The path of this content
    */
   public String getPath() {
-    return path;
+    return table.getPath(getInode());
   }
 
   /**
-   * Check if the two content has the same name, return true if so, false
-   * otherwise
-   * 
-   * @param other The other content to be compared
-   * @return Whether or not the two contents has the same name
+   * Return the folder holding this content
+   *
+   * @return The parent folder, null if it is not in a folder
    */
-  public boolean equals(Content other) {
+  public Folder getParent() {
+    int parent = table.getParent(getInode());
+    return parent == InodeTable.NONE ? null : (Folder) table.view(parent);
+  }
+
+  /**
+   * Return the inode of the node this content is a view of
+   *
+   * @return The inode number
+   * @throws IllegalStateException If the view was made only to release the
+   *         node, and is used after the node was freed
+   */
+  int getInode() {
+    if (!table.isLive(inode, generation)) {
+      throw new IllegalStateException("The content was removed");
+    }
+    return inode;
+  }
+
+  /**
+   * Return true iff the node this content is a view of was not removed for
+   * good
+   *
+   * @return true if the content can be used, false otherwise
+   */
+  boolean isLive() {
+    return table.isLive(inode, generation);
+  }
+
+  /**
+   * Stop using the data held by this content, called once the content is
+   * removed from the file system for good. The inode is freed once no view
+   * of the node is used.
+   */
+  void release() {
+    table.free(getInode());
+  }
+
+  /**
+   * Return true iff the other object is a view of the same node
+   *
+   * @param other The other object
+   * @return Whether or not both are views of the same node
+   */
+  public boolean equals(Object other) {
+    return other instanceof Content && ((Content) other).inode == inode
+        && ((Content) other).generation == generation;
+  }
 
-    return this.getName().equals(other.getName());
+  public int hashCode() {
+    return inode;
   }
 
   public Content clone(){
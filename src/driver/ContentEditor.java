@@ -1,6 +1,7 @@
 package driver;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Writer;
 
 import exception.InvalidPathException;
 
@@ -33,11 +34,8 @@ public class ContentEditor {
    */
   public void deleteAllContents(Folder curFolder) throws InvalidPathException {
     // access a method from Folder to delete its contents.
-    ArrayList<Content> allContents = curFolder.getAllContents();
-    for (Content eachItem : allContents) {
-      String contentName = eachItem.getName();
-      curFolder.removeContent(contentName);
-    }
+    curFolder.removeAllContents();
+    Journal.recordClear(curFolder);
   }
 
   /**
@@ -47,6 +45,7 @@ public class ContentEditor {
    */
   public void deleteAllContents(File curFile) {
     curFile.overwriteData("");
+    Journal.recordWrite(curFile);
   }
 
   /**
@@ -56,11 +55,18 @@ public class ContentEditor {
    * @param appended A String to append to the File object.
    */
   public void appendContents(File curFile, String appended) {
-    String newData = curFile.getData();
-    if (!newData.equals(""))
-      newData = newData + NEW_LINE;
-    newData = newData + appended;
-    curFile.overwriteData(newData);
+    boolean new_line = curFile.getLength() > 0;
+    // only the appended string is copied, not the data already in the file,
+    // and it is added a window at a time
+    try (Writer writer = curFile.openWriter()) {
+      if (new_line)
+        writer.write(NEW_LINE);
+      writer.write(appended);
+    } catch (IOException e) {
+      // the writer is only closed once it is done
+      throw new IllegalStateException(e);
+    }
+    Journal.recordAppend(curFile, new_line ? NEW_LINE + appended : appended);
   }
 
   /**
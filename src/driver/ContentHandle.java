@@ -0,0 +1,216 @@
+package driver;
+
+import java.util.List;
+
+import exception.IncorrectContentTypeException;
+import exception.InvalidPathException;
+
+/**
+ * A handle to a content that was found once by its path. Like a file
+ * descriptor, the handle keeps pointing at the same content when it is
+ * renamed or moved, so it can be read, listed and appended to again and again
+ * without looking its path up. The handle stops being valid once the content
+ * is removed from the file system.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class ContentHandle {
+
+  /**
+   * The content this handle points at
+   */
+  private Content content;
+
+  /**
+   * The file system the content belongs to
+   */
+  private FileSystem fileSys;
+
+  /**
+   * Exceptions used in this class, they are thrown again and again so they
+   * do not record a stack trace
+   */
+  private static final InvalidPathException NOT_FOUND_EXCEPTION =
+      new InvalidPathException("Error: Invalid path entered", null, false,
+          false);
+  private static final InvalidPathException CLOSED_EXCEPTION =
+      new InvalidPathException("Error: The content was removed", null, false,
+          false);
+  private static final IncorrectContentTypeException TYPE_EXCEPTION =
+      new IncorrectContentTypeException(
+          "Invalid operation on this content type", null, false, false);
+
+  /**
+   * Default Constructor
+   *
+   * @param fs The file system the content belongs to
+   * @param content The content this handle points at
+   */
+  ContentHandle(FileSystem fs, Content content) {
+    this.fileSys = fs;
+    this.content = content;
+  }
+
+  /**
+   * Return true iff the content is still in the file system
+   *
+   * @return true if the handle can be used, false otherwise
+   */
+  public boolean isValid() {
+    return fileSys.contains(content);
+  }
+
+  /**
+   * Return the content this handle points at
+   *
+   * @return The content
+   * @throws InvalidPathException
+   */
+  public Content getContent() throws InvalidPathException {
+    checkValid();
+    return content;
+  }
+
+  /**
+   * Return the current full path of the content
+   *
+   * @return The full path of the content
+   * @throws InvalidPathException
+   */
+  public String getPath() throws InvalidPathException {
+    checkValid();
+    return content.getPath();
+  }
+
+  /**
+   * Return true iff the content is a File
+   *
+   * @return true if the content is a File, false otherwise
+   */
+  public boolean isFile() {
+    return content instanceof File;
+  }
+
+  /**
+   * Return true iff the content is a Folder
+   *
+   * @return true if the content is a Folder, false otherwise
+   */
+  public boolean isFolder() {
+    return content instanceof Folder;
+  }
+
+  /**
+   * Return the data of the file
+   *
+   * @return The data of the file
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  public String read()
+      throws InvalidPathException, IncorrectContentTypeException {
+    return getFile().getData();
+  }
+
+  /**
+   * Add the text to the end of the file's data
+   *
+   * @param text The text to be added
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  public void append(String text)
+      throws InvalidPathException, IncorrectContentTypeException {
+    File file = getFile();
+    file.appendData(text);
+    Journal.recordAppend(file, text);
+  }
+
+  /**
+   * Overwrite the data of the file with the text
+   *
+   * @param text The new data of the file
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  public void write(String text)
+      throws InvalidPathException, IncorrectContentTypeException {
+    File file = getFile();
+    file.overwriteData(text);
+    Journal.recordWrite(file);
+  }
+
+  /**
+   * Return a read only view of the contents of the folder
+   *
+   * @return The contents of the folder in alphabetical order
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  public List<Content> list()
+      throws InvalidPathException, IncorrectContentTypeException {
+    return getFolder().getContents();
+  }
+
+  /**
+   * Return a handle to the content with the given name in the folder, found
+   * without looking up a path
+   *
+   * @param name The name of the content in the folder
+   * @return A handle to the content
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  public ContentHandle open(String name)
+      throws InvalidPathException, IncorrectContentTypeException {
+    Content child = getFolder().getContent(name);
+    if (child == null) {
+      throw NOT_FOUND_EXCEPTION;
+    }
+    return new ContentHandle(fileSys, child);
+  }
+
+  /**
+   * Return the content as a File
+   *
+   * @return The File
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  private File getFile()
+      throws InvalidPathException, IncorrectContentTypeException {
+    checkValid();
+    if (!(content instanceof File)) {
+      throw TYPE_EXCEPTION;
+    }
+    return (File) content;
+  }
+
+  /**
+   * Return the content as a Folder
+   *
+   * @return The Folder
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  private Folder getFolder()
+      throws InvalidPathException, IncorrectContentTypeException {
+    checkValid();
+    if (!(content instanceof Folder)) {
+      throw TYPE_EXCEPTION;
+    }
+    return (Folder) content;
+  }
+
+  /**
+   * Throw an exception if the content was removed from the file system
+   *
+   * @throws InvalidPathException
+   */
+  private void checkValid() throws InvalidPathException {
+    if (!isValid()) {
+      throw CLOSED_EXCEPTION;
+    }
+  }
+}
@@ -87,6 +87,14 @@ public class DirectoryStack {
     return stackFolder;
   }
 
+  /**
+   * Removes every Folder from the DirectoryStack, used when the tree they
+   * were in is replaced
+   */
+  public void clear() {
+    curStack.clear();
+  }
+
   /**
    * Returns the number of Folders (old working directories) currently sitting
    * in the DirectoryStack.
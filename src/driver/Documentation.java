@@ -158,7 +158,7 @@ public class Documentation {
       + "EXAMPLE:\n"
       + "!3    <-- will execute the third entry stored in history.";
   private static final String GREP_MAN =
-      "" + "Usage: grep [-R] REGEX PATH [PATH2 ...]\n\n"
+      "" + "Usage: grep [-R] [-n] REGEX PATH [PATH2 ...]\n\n"
           + "Takes in two required arguments REGEX and PATH and UNLIMITED\n"
           + "optional arguments PATH2, PATH3, and so on.\n"
           + "In the above, REGEX is a regular expression, and PATH is the\n"
@@ -177,15 +177,88 @@ public class Documentation {
           + "directory.\n"
           + "With the \"-R\" flag, the directory PATH will be recursively\n"
           + "traversed, and for every file under the PATH directory, grep\n"
-          + "will print out the lines containing the string REGEX.";
+          + "will print out the lines containing the string REGEX.\n\n"
+          + "If the \"-n\" flag is supplied, the number of each line in its\n"
+          + "file is printed before the line, followed by a colon.";
   private static final String MAN_MAN = "Usage: man CMD\n\n"
       + "Prints out the documentation for a command CMD.\n\n"
       + "To get documentation for any command,\n"
       + "type man CMD, where CMD is the name of a command.";
+  private static final String HEAD_MAN = "Usage: head [-n NUM] FILE\n\n"
+      + "Takes one required argument FILE, the path of a file, and an\n"
+      + "optional flag \"-n\" followed by a number NUM.\n\n"
+      + "Prints the first NUM lines of FILE, or the first 10 lines if no\n"
+      + "number is given. Only the lines printed are read from the file.";
+  private static final String TAIL_MAN = "Usage: tail [-n NUM] FILE\n\n"
+      + "Takes one required argument FILE, the path of a file, and an\n"
+      + "optional flag \"-n\" followed by a number NUM.\n\n"
+      + "Prints the last NUM lines of FILE, or the last 10 lines if no\n"
+      + "number is given. The lines are found from the end of the file,\n"
+      + "so the rest of the file is not read.";
+  private static final String LINES_MAN = "Usage: lines FROM TO FILE\n\n"
+      + "Takes three required arguments, the numbers FROM and TO and FILE,\n"
+      + "the path of a file.\n\n"
+      + "Prints the lines FROM to TO of FILE, both included, where the\n"
+      + "first line of the file is line 1. Lines past the end of the file\n"
+      + "are left out.";
+  private static final String SAVE_MAN = "Usage: save [-m] PATH\n\n"
+      + "Takes one required argument, PATH, a path of a file on the disk\n"
+      + "of the computer, not in the JShell file system.\n\n"
+      + "Writes the whole file system, its folders, their names and the\n"
+      + "data of its files, to an image at PATH, replacing the file there\n"
+      + "if there is one. The image can be read back with load.\n\n"
+      + "With -m, the image is indexed, so that load maps it into memory\n"
+      + "and reads each folder from it only when the folder is first used,\n"
+      + "and the data of each file only when it is read. Loading it takes\n"
+      + "about as long whatever the size of the file system, and several\n"
+      + "JShells loading the same image share it in memory.";
+  private static final String LOAD_MAN = "Usage: load PATH\n\n"
+      + "Takes one required argument, PATH, a path of a file on the disk\n"
+      + "of the computer, written by save.\n\n"
+      + "Replaces the whole file system with the one in the image at PATH,\n"
+      + "and changes the working directory to the root. The image is\n"
+      + "checked against the checksum written with it, and the file system\n"
+      + "is left as it is if the image is damaged or cannot be read.\n\n"
+      + "An image written with save -m is not read whole but mapped into\n"
+      + "memory, only its folders and names are checked against the\n"
+      + "checksum. Changes made to the file system afterwards are kept in\n"
+      + "memory, the image itself is never changed.";
+  private static final String DF_MAN = "Usage: df\n\n"
+      + "Takes no arguments.\n\n"
+      + "Prints how much memory outside of the Java heap is used for the\n"
+      + "data of files: the slabs reserved, the bytes used and free, and\n"
+      + "how fragmented the memory is. Then prints how many files are\n"
+      + "compressed, how much smaller they are, how often reading them\n"
+      + "found them already decompressed, and the time spent compressing.\n"
+      + "Then prints how much data is kept in memory against the budget,\n"
+      + "and how much is spilled to disk and read back.\n"
+      + "Last prints how many bytes are saved by keeping the data of files\n"
+      + "that hold the same bytes only once, how many inodes of the inode\n"
+      + "table are in use and the memory the table takes, and how many\n"
+      + "distinct names the nodes have.\n\n"
+      + "File data is only kept outside of the heap if JShell is started\n"
+      + "with the --offheap option, and only compressed if it is started\n"
+      + "with the --compress IDLE_SECONDS SIZE_BYTES option, and only\n"
+      + "spilled if it is started with the\n"
+      + "--spill DIR BUDGET_BYTES [lru|largest] option.";
+  private static final String STATUS_MAN = "Usage: status\n\n"
+      + "Takes no arguments.\n\n"
+      + "Prints whether a checkpoint is being written in the background,\n"
+      + "and if one is, how many of its nodes and bytes are written so\n"
+      + "far, how long it has taken and how fast it is written. Then\n"
+      + "prints the size of the last checkpoint written, how long it took,\n"
+      + "how fast it was written and how long JShell stopped to freeze its\n"
+      + "nodes, how many checkpoints were written and merged, and how many\n"
+      + "are read back when JShell starts. Last prints how many changes\n"
+      + "were recorded in the journal and how many bytes of it are kept.\n\n"
+      + "Checkpoints are only written if JShell is started with the\n"
+      + "--checkpoint DIR SECONDS option, and changes only recorded if it\n"
+      + "is started with the --journal PATH [async|group|sync] option.";
   private static final String COM_LIST =
       "List of commands:\n" + "!\n" + "cat\n" + "cd\n" + "cp\n" + "curl\n"
-          + "echo\n" + "exit\n" + "grep\n" + "history\n" + "ls\n" + "man\n"
-          + "mkdir\n" + "mv\n" + "popd\n" + "pushd\n" + "pwd";
+          + "df\n" + "echo\n" + "exit\n" + "grep\n" + "head\n" + "history\n"
+          + "lines\n" + "load\n" + "ls\n" + "man\n" + "mkdir\n" + "mv\n"
+          + "popd\n" + "pushd\n" + "pwd\n" + "save\n" + "status\n" + "tail";
 
   /**
    * Given a command 'command', getManPage() returns the MANual Page describing
@@ -242,6 +315,27 @@ public class Documentation {
       case "grep":
         message = Documentation.GREP_MAN;
         break;
+      case "head":
+        message = Documentation.HEAD_MAN;
+        break;
+      case "tail":
+        message = Documentation.TAIL_MAN;
+        break;
+      case "lines":
+        message = Documentation.LINES_MAN;
+        break;
+      case "save":
+        message = Documentation.SAVE_MAN;
+        break;
+      case "load":
+        message = Documentation.LOAD_MAN;
+        break;
+      case "df":
+        message = Documentation.DF_MAN;
+        break;
+      case "status":
+        message = Documentation.STATUS_MAN;
+        break;
       case "man":
         message = Documentation.MAN_MAN + "\n----\n" + Documentation.COM_LIST;
         break;
@@ -1,7 +1,14 @@
 package driver;
 
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
 /**
- * Represents a file content. It holds text(string) data
+ * Represents a file content. It holds bytes, which are read as text when a
+ * command needs text
  * 
  * @author Sin
  *
@@ -9,20 +16,36 @@ package driver;
 public class File extends Content {
 
   /**
-   * The string data in this file object
+   * Default constructor
+   * 
+   * @param path The full path of this File
+   * @param name The name of this File
+   * @param data The data of this file
    */
-  private String data;
+  public File(String path, String name, String data) {
+    this(path, name, new FileData(data));
+  }
 
   /**
-   * Default constructor
+   * Create a file holding the given data
    * 
    * @param path The full path of this File
    * @param name The name of this File
    * @param data The data of this file
    */
-  public File(String path, String name, String data) {
-    super(path, name);
-    this.data = data;
+  File(String path, String name, FileData data) {
+    super(path, name, InodeTable.FILE);
+    table.setData(getInode(), data);
+  }
+
+  /**
+   * Create a view of a file already in the inode table
+   * 
+   * @param inode The inode of the file
+   * @param generation The generation of the inode
+   */
+  File(int inode, int generation) {
+    super(inode, generation);
   }
 
   /**
@@ -31,24 +54,147 @@ public class File extends Content {
    * @param new_data
    */
   public void overwriteData(String new_data) {
-    data = new_data;
+    // copies of the folders above must not see the new data
+    Folder.prepareWrite(this);
+    FileData old_data = data();
+    table.setData(getInode(), new FileData(new_data));
+    // the old data is freed if no copy of this file uses it
+    old_data.release();
+  }
+
+  /**
+   * Overwrite the file's data with the bytes, kept exactly as they are
+   * 
+   * @param new_data The bytes, owned by this file from now on
+   * @param charset The charset that turns the bytes into text
+   */
+  public void overwriteData(byte[] new_data, Charset charset) {
+    // copies of the folders above must not see the new data
+    Folder.prepareWrite(this);
+    FileData old_data = data();
+    table.setData(getInode(), new FileData(new_data, charset));
+    // the old data is freed if no copy of this file uses it
+    old_data.release();
   }
 
   /**
-   * Return the data stored in this file
+   * Add the new_data to the end of the file's data. Only the new_data is
+   * copied, not the data already in the file.
+   * 
+   * @param new_data
+   */
+  public void appendData(String new_data) {
+    // copies of the folders above must not see the new data
+    Folder.prepareWrite(this);
+    data().append(new_data);
+    table.markDirty(getInode());
+  }
+
+  /**
+   * Return the data stored in this file as text, read with its charset
    * 
    * @return The data of this file
    */
   public String getData() {
-    return data;
+    return data().toString();
+  }
+
+  /**
+   * Return a view of the data stored in this file as text. Data in Latin-1
+   * is read from the file as it is needed, other data is read whole.
+   * 
+   * @return The data of this file
+   */
+  public CharSequence getText() {
+    FileData data = data();
+    if (data.getCharset().equals(StandardCharsets.ISO_8859_1)) {
+      return new FileText(data, 0, data.length());
+    }
+    return data.toString();
   }
 
   /**
-   * Create a copy of this file
+   * Return a reader of the data stored in this file as text, which reads the
+   * data a window at a time
+   * 
+   * @return The reader
+   */
+  public Reader openReader() {
+    return new FileDataReader(data());
+  }
+
+  /**
+   * Return an iterator over the lines of this file, the same lines as
+   * getData().split("\n") without reading the whole data as one string
+   * 
+   * @return The iterator
+   */
+  public Iterator<String> lines() {
+    return new LineIterator(data());
+  }
+
+  /**
+   * Return the index of the lines of this file, which finds a line without
+   * reading the data before it
+   *
+   * @return The line index
+   */
+  public LineIndex getLineIndex() {
+    return data().getLineIndex();
+  }
+
+  /**
+   * Return a writer that appends text to the end of this file
+   * 
+   * @return The writer
+   */
+  public Writer openWriter() {
+    return new FileDataWriter(this);
+  }
+
+  /**
+   * Return the bytes stored in this file
+   * 
+   * @return A copy of the bytes of this file
+   */
+  public byte[] getBytes() {
+    FileData data = data();
+    return data.getBytes(0, data.length());
+  }
+
+  /**
+   * Return the charset that turns the bytes of this file into text
+   * 
+   * @return The charset of this file
+   */
+  public Charset getCharset() {
+    return data().getCharset();
+  }
+
+  /**
+   * Return the number of bytes in this file
+   * 
+   * @return The length of the data of this file
+   */
+  public long getLength() {
+    return data().length();
+  }
+
+  /**
+   * Create a copy of this file, the data is shared with this file
    */
   public File clone() {
-    File clone = new File(this.getPath(), this.getName(), this.getData());
+    File clone = new File(this.getPath(), this.getName(), data().share());
     return clone;
   }
 
+  /**
+   * Return the data of this file, kept in the inode table
+   * 
+   * @return The data
+   */
+  private FileData data() {
+    return table.getData(getInode());
+  }
+
 }
@@ -0,0 +1,587 @@
+package driver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps the data of files outside of the Java heap. Memory is reserved from
+ * the operating system in large slabs, and handed out to files in blocks
+ * whose sizes are powers of two. A block starts at a multiple of its size, so
+ * each block has a buddy of the same size next to it. A freed block is merged
+ * with its buddy when the buddy is free too, and kept in a free list for its
+ * size. A block is handed out from its free list, or split from a larger
+ * free block, before the slab grows. Data larger than a slab gets a buffer
+ * of its own.
+ *
+ * The arena is off unless it is turned on, then the data of files written
+ * after that is kept in the arena.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileArena {
+
+  /**
+   * Default number of bytes in a slab
+   */
+  public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+  /**
+   * Number of bytes in the smallest block
+   */
+  private static final int MIN_BLOCK_SIZE = 64;
+
+  /**
+   * The arena new file data is written to, null if the arena is off
+   */
+  private static FileArena active = null;
+
+  /**
+   * Number of blocks in use in all arenas
+   */
+  private static long live_blocks = 0;
+
+  /**
+   * A part of a slab, or a buffer of its own, holding the data of a file
+   */
+  static class Block {
+    /**
+     * The arena the block belongs to
+     */
+    private final FileArena arena;
+    /**
+     * The slab holding the block
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Index of the slab in the arena, -1 for a buffer of its own
+     */
+    private final int slab;
+    /**
+     * Index of the first byte of the block in the slab
+     */
+    private final int offset;
+    /**
+     * Number of bytes in the block
+     */
+    private final int capacity;
+    /**
+     * Number of FileData using the block
+     */
+    private int refs;
+    /**
+     * Number of bytes of data written to the block
+     */
+    private int used;
+    /**
+     * True iff the block is in a free list. A block merged with its buddy
+     * is no longer free, and is skipped when its list is read.
+     */
+    private boolean free;
+
+    private Block(FileArena arena, ByteBuffer buffer, int slab, int offset,
+        int capacity) {
+      this.arena = arena;
+      this.buffer = buffer;
+      this.slab = slab;
+      this.offset = offset;
+      this.capacity = capacity;
+    }
+
+    /**
+     * Return the arena the block belongs to
+     *
+     * @return The arena
+     */
+    FileArena arena() {
+      return arena;
+    }
+
+    /**
+     * Return the number of bytes in the block
+     *
+     * @return Number of bytes
+     */
+    int capacity() {
+      return capacity;
+    }
+
+    /**
+     * Return true iff more than one FileData uses this block
+     *
+     * @return true if the block is shared, false otherwise
+     */
+    boolean isShared() {
+      return refs > 1;
+    }
+
+    /**
+     * Add a FileData using this block
+     */
+    void retain() {
+      refs++;
+    }
+
+    /**
+     * Remove a FileData using this block, the block is freed once none use
+     * it
+     */
+    void release() {
+      if (--refs == 0) {
+        arena.free(this);
+      }
+    }
+
+    /**
+     * Record the number of bytes of data written to the block
+     *
+     * @param used Number of bytes of data
+     */
+    void setUsed(int used) {
+      arena.data_bytes += used - this.used;
+      this.used = used;
+    }
+
+    /**
+     * Write bytes into the block, starting at the given index
+     *
+     * @param index Index in the block of the first byte written
+     * @param src The bytes to write
+     * @param src_offset Index in src of the first byte written
+     * @param count Number of bytes to write
+     */
+    void put(int index, byte[] src, int src_offset, int count) {
+      ByteBuffer to = buffer.duplicate();
+      to.position(offset + index);
+      to.put(src, src_offset, count);
+    }
+
+    /**
+     * Read bytes from the block, starting at the given index
+     *
+     * @param index Index in the block of the first byte read
+     * @param dst Where the bytes are read to
+     * @param dst_offset Index in dst of the first byte read
+     * @param count Number of bytes to read
+     */
+    void get(int index, byte[] dst, int dst_offset, int count) {
+      ByteBuffer from = buffer.duplicate();
+      from.position(offset + index);
+      from.get(dst, dst_offset, count);
+    }
+
+    /**
+     * Read the byte at the given index of the block
+     *
+     * @param index Index of the byte
+     * @return The byte
+     */
+    byte getByte(int index) {
+      return buffer.get(offset + index);
+    }
+
+    /**
+     * Copy bytes from the start of another block into the start of this one
+     *
+     * @param other The block copied from
+     * @param count Number of bytes to copy
+     */
+    void copyFrom(Block other, int count) {
+      ByteBuffer from = other.buffer.duplicate();
+      from.limit(other.offset + count).position(other.offset);
+      ByteBuffer to = buffer.duplicate();
+      to.position(offset);
+      to.put(from);
+    }
+  }
+
+  /**
+   * Number of bytes in a slab
+   */
+  private final int slab_size;
+
+  /**
+   * The slabs reserved so far
+   */
+  private ArrayList<ByteBuffer> slabs;
+
+  /**
+   * Index of the first byte of the last slab that is not handed out
+   */
+  private int slab_top;
+
+  /**
+   * Free blocks, one list for each power of two size
+   */
+  private List<ArrayDeque<Block>> free_lists;
+
+  /**
+   * Free blocks in the slabs, by the index of the slab and their first byte,
+   * so a freed block finds its buddy
+   */
+  private HashMap<Long, Block> free_blocks;
+
+  /**
+   * Number of bytes in blocks handed out
+   */
+  private long used_bytes;
+
+  /**
+   * Number of bytes of file data held in the blocks handed out
+   */
+  private long data_bytes;
+
+  /**
+   * Number of bytes in the free lists
+   */
+  private long free_bytes;
+
+  /**
+   * Number of bytes in buffers of their own
+   */
+  private long large_bytes;
+
+  /**
+   * Number of blocks handed out
+   */
+  private long block_count;
+
+  /**
+   * Default Constructor
+   *
+   * @param slab_size Number of bytes in a slab, a power of two
+   */
+  public FileArena(int slab_size) {
+    this.slab_size = Integer.highestOneBit(Math.max(slab_size,
+        MIN_BLOCK_SIZE));
+    slabs = new ArrayList<ByteBuffer>();
+    slab_top = this.slab_size;
+    free_lists = new ArrayList<ArrayDeque<Block>>();
+    for (int size_class = 0; size_class <= sizeClass(this.slab_size);
+        size_class++) {
+      free_lists.add(new ArrayDeque<Block>());
+    }
+    free_blocks = new HashMap<Long, Block>();
+  }
+
+  /**
+   * Turn the arena on, the data of files written from now on is kept in it
+   *
+   * @param slab_size Number of bytes in a slab
+   */
+  public static void enable(int slab_size) {
+    active = new FileArena(slab_size);
+  }
+
+  /**
+   * Turn the arena off, the data already in it stays there
+   */
+  public static void disable() {
+    active = null;
+  }
+
+  /**
+   * Return the arena new file data is written to
+   *
+   * @return The arena, null if it is off
+   */
+  public static FileArena getActive() {
+    return active;
+  }
+
+  /**
+   * Return true iff some file data is kept in an arena
+   *
+   * @return true if any block is in use, false otherwise
+   */
+  public static boolean inUse() {
+    return live_blocks > 0;
+  }
+
+  /**
+   * Hand out a block that can hold at least the given number of bytes
+   *
+   * @param size Number of bytes needed
+   * @return The block, used by one FileData
+   */
+  Block allocate(int size) {
+    Block block;
+    if (size > slab_size) {
+      // too large for a slab, it gets a buffer of its own
+      block =
+          new Block(this, ByteBuffer.allocateDirect(size), -1, 0, size);
+      large_bytes += size;
+    } else {
+      int size_class = sizeClass(size);
+      block = takeFree(size_class);
+      if (block == null) {
+        block = split(size_class);
+      }
+      if (block == null) {
+        block = carve(1 << size_class);
+      }
+    }
+    block.refs = 1;
+    block.used = 0;
+    used_bytes += block.capacity;
+    block_count++;
+    live_blocks++;
+    return block;
+  }
+
+  /**
+   * Take a block from the free list of a size
+   *
+   * @param size_class The power of two of the size of the block
+   * @return The block, null if none of the size is free
+   */
+  private Block takeFree(int size_class) {
+    ArrayDeque<Block> free_list = free_lists.get(size_class);
+    while (!free_list.isEmpty()) {
+      Block block = free_list.pop();
+      // a block merged with its buddy is left in the list until now
+      if (block.free) {
+        removeFree(block);
+        return block;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Take the smallest free block larger than the size and split it in
+   * halves down to the size, the halves not handed out are freed
+   *
+   * @param size_class The power of two of the size of the block
+   * @return The block, null if no larger block is free
+   */
+  private Block split(int size_class) {
+    for (int larger = size_class + 1; larger < free_lists.size(); larger++) {
+      Block block = takeFree(larger);
+      if (block != null) {
+        while (block.capacity > 1 << size_class) {
+          int half = block.capacity / 2;
+          addFree(new Block(this, block.buffer, block.slab,
+              block.offset + half, half));
+          block = new Block(this, block.buffer, block.slab, block.offset,
+              half);
+        }
+        return block;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Take a new block from the top of the last slab, at the next multiple of
+   * its size, reserving a new slab if it has no room left. The room skipped
+   * or left in the old slab is freed.
+   *
+   * @param size Number of bytes in the block, a power of two
+   * @return The new block
+   */
+  private Block carve(int size) {
+    int start = (slab_top + size - 1) & -size;
+    if (slab_size - start < size) {
+      freeRange(slab_top, slab_size);
+      slabs.add(ByteBuffer.allocateDirect(slab_size));
+      slab_top = 0;
+      start = 0;
+    } else {
+      freeRange(slab_top, start);
+    }
+    Block block = new Block(this, slabs.get(slabs.size() - 1),
+        slabs.size() - 1, start, size);
+    slab_top = start + size;
+    return block;
+  }
+
+  /**
+   * Free the bytes of the last slab in the given range, in blocks as large
+   * as they can be while starting at a multiple of their size
+   *
+   * @param from Index of the first byte
+   * @param to Index after the last byte
+   */
+  private void freeRange(int from, int to) {
+    int slab = slabs.size() - 1;
+    while (slab >= 0 && to - from >= MIN_BLOCK_SIZE) {
+      int size = Integer.highestOneBit(to - from);
+      if (from > 0) {
+        size = Math.min(size, Integer.lowestOneBit(from));
+      }
+      merge(new Block(this, slabs.get(slab), slab, from, size));
+      from += size;
+    }
+  }
+
+  /**
+   * Take a block back once no FileData uses it
+   *
+   * @param block The block freed
+   */
+  private void free(Block block) {
+    used_bytes -= block.capacity;
+    data_bytes -= block.used;
+    block.used = 0;
+    block_count--;
+    live_blocks--;
+    if (block.capacity > slab_size) {
+      // the buffer of its own is given back when it is garbage collected
+      large_bytes -= block.capacity;
+    } else {
+      merge(block);
+    }
+  }
+
+  /**
+   * Merge a freed block with its buddy while the buddy is free too, and put
+   * the merged block into the free list of its size
+   *
+   * @param block The freed block
+   */
+  private void merge(Block block) {
+    while (block.capacity < slab_size) {
+      int buddy_offset = block.offset ^ block.capacity;
+      Block buddy = free_blocks.get(key(block.slab, buddy_offset));
+      if (buddy == null || buddy.capacity != block.capacity) {
+        break;
+      }
+      removeFree(buddy);
+      block = new Block(this, block.buffer, block.slab,
+          Math.min(block.offset, buddy_offset), block.capacity * 2);
+    }
+    addFree(block);
+  }
+
+  /**
+   * Put a block into the free list of its size
+   *
+   * @param block The free block
+   */
+  private void addFree(Block block) {
+    block.free = true;
+    free_lists.get(sizeClass(block.capacity)).push(block);
+    free_blocks.put(key(block.slab, block.offset), block);
+    free_bytes += block.capacity;
+  }
+
+  /**
+   * Mark a block as no longer free. It is taken out of the free list of its
+   * size only when the list reaches it.
+   *
+   * @param block The free block
+   */
+  private void removeFree(Block block) {
+    block.free = false;
+    free_blocks.remove(key(block.slab, block.offset));
+    free_bytes -= block.capacity;
+  }
+
+  /**
+   * Return the key of a free block
+   *
+   * @param slab Index of the slab holding the block
+   * @param offset Index of the first byte of the block in the slab
+   * @return The key
+   */
+  private static long key(int slab, int offset) {
+    return (long) slab << 32 | offset;
+  }
+
+  /**
+   * Return the power of two of the smallest block that holds the size
+   *
+   * @param size Number of bytes needed
+   * @return The power of two
+   */
+  private static int sizeClass(int size) {
+    int block_size = Math.max(MIN_BLOCK_SIZE, size);
+    return 32 - Integer.numberOfLeadingZeros(block_size - 1);
+  }
+
+  /**
+   * Return the number of bytes in a slab
+   *
+   * @return Number of bytes in a slab
+   */
+  public int getSlabSize() {
+    return slab_size;
+  }
+
+  /**
+   * Return the number of slabs reserved
+   *
+   * @return Number of slabs
+   */
+  public int getSlabCount() {
+    return slabs.size();
+  }
+
+  /**
+   * Return the number of bytes reserved from the operating system
+   *
+   * @return Number of bytes reserved
+   */
+  public long getReservedBytes() {
+    return (long) slabs.size() * slab_size + large_bytes;
+  }
+
+  /**
+   * Return the number of bytes in blocks handed out
+   *
+   * @return Number of bytes used
+   */
+  public long getUsedBytes() {
+    return used_bytes;
+  }
+
+  /**
+   * Return the number of bytes of file data held in the arena
+   *
+   * @return Number of bytes of data
+   */
+  public long getDataBytes() {
+    return data_bytes;
+  }
+
+  /**
+   * Return the number of bytes in free blocks
+   *
+   * @return Number of bytes free
+   */
+  public long getFreeBytes() {
+    return free_bytes;
+  }
+
+  /**
+   * Return the number of blocks handed out
+   *
+   * @return Number of blocks
+   */
+  public long getBlockCount() {
+    return block_count;
+  }
+
+  /**
+   * Return the share of the blocks handed out that holds no data, in percent
+   *
+   * @return Internal fragmentation in percent
+   */
+  public double getInternalFragmentation() {
+    return used_bytes == 0 ? 0 : 100.0 * (used_bytes - data_bytes) / used_bytes;
+  }
+
+  /**
+   * Return the share of the slabs that is in free blocks, in percent
+   *
+   * @return External fragmentation in percent
+   */
+  public double getExternalFragmentation() {
+    long reserved = (long) slabs.size() * slab_size;
+    return reserved == 0 ? 0 : 100.0 * free_bytes / reserved;
+  }
+}
@@ -0,0 +1,360 @@
+package driver;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the data of files that are cold, so that more files fit in the
+ * same memory. Data is cold once it was not read or written for a while, or
+ * as soon as it is larger than a given size. Compressed data is decompressed
+ * when it is read, and the files decompressed last are kept in a small cache
+ * so reading them again does not decompress them again.
+ *
+ * Compression is off unless it is turned on, then the data of files written
+ * or read from then on is compressed once it is cold. Cold data is looked for
+ * after each command.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileCompressor {
+
+  /**
+   * Default number of files kept decompressed in the cache
+   */
+  public static final int DEFAULT_CACHE_SIZE = 8;
+
+  /**
+   * Number of bytes compressed or decompressed at a time
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * The compressor in use, null if compression is off
+   */
+  private static FileCompressor active = null;
+
+  /**
+   * Number of milliseconds data has to be left alone before it is cold
+   */
+  private final long idle_millis;
+
+  /**
+   * Number of bytes from which data is cold as soon as it is written
+   */
+  private final long size_threshold;
+
+  /**
+   * Data that is not compressed, with the time it was last used, the data
+   * used the longest time ago first
+   */
+  private LinkedHashMap<FileData, Long> last_used;
+
+  /**
+   * Data that is larger than the size threshold, compressed at the next
+   * sweep
+   */
+  private LinkedHashSet<FileData> large;
+
+  /**
+   * The bytes of the data decompressed last, the data read the longest time
+   * ago first
+   */
+  private LinkedHashMap<FileData, byte[]> cache;
+
+  /**
+   * Number of bytes the compressed data holds once decompressed
+   */
+  private long original_bytes;
+
+  /**
+   * Number of bytes the compressed data takes
+   */
+  private long compressed_bytes;
+
+  /**
+   * Number of files whose data is compressed
+   */
+  private long compressed_count;
+
+  /**
+   * Number of reads of compressed data found in the cache
+   */
+  private long cache_hits;
+
+  /**
+   * Number of reads of compressed data that had to decompress it
+   */
+  private long cache_misses;
+
+  /**
+   * Number of nanoseconds spent compressing
+   */
+  private long compress_nanos;
+
+  /**
+   * Default Constructor
+   *
+   * @param idle_millis Number of milliseconds data has to be left alone
+   *        before it is compressed
+   * @param size_threshold Number of bytes from which data is compressed as
+   *        soon as it is written
+   * @param cache_size Number of files kept decompressed
+   */
+  public FileCompressor(long idle_millis, long size_threshold,
+      final int cache_size) {
+    this.idle_millis = idle_millis;
+    this.size_threshold = size_threshold;
+    last_used = new LinkedHashMap<FileData, Long>(16, 0.75f, true);
+    large = new LinkedHashSet<FileData>();
+    cache = new LinkedHashMap<FileData, byte[]>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      protected boolean removeEldestEntry(Map.Entry<FileData, byte[]> e) {
+        return size() > cache_size;
+      }
+    };
+  }
+
+  /**
+   * Turn compression on
+   *
+   * @param idle_millis Number of milliseconds data has to be left alone
+   *        before it is compressed
+   * @param size_threshold Number of bytes from which data is compressed as
+   *        soon as it is written
+   */
+  public static void enable(long idle_millis, long size_threshold) {
+    active = new FileCompressor(idle_millis, size_threshold,
+        DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Turn compression off, data already compressed stays compressed until it
+   * is written to
+   */
+  public static void disable() {
+    active = null;
+  }
+
+  /**
+   * Return the compressor in use
+   *
+   * @return The compressor, null if compression is off
+   */
+  public static FileCompressor getActive() {
+    return active;
+  }
+
+  /**
+   * Record that the data was written or read
+   *
+   * @param data The data used, which is not compressed
+   */
+  void used(FileData data) {
+    last_used.put(data, System.currentTimeMillis());
+    if (data.length() >= size_threshold) {
+      large.add(data);
+    }
+  }
+
+  /**
+   * Stop keeping track of the data, once it is released or decompressed for
+   * good
+   *
+   * @param data The data
+   * @param packed_size Number of bytes the data takes compressed, or -1 if
+   *        it is not compressed
+   */
+  void forget(FileData data, long packed_size) {
+    last_used.remove(data);
+    large.remove(data);
+    cache.remove(data);
+    if (packed_size >= 0) {
+      original_bytes -= data.length();
+      compressed_bytes -= packed_size;
+      compressed_count--;
+    }
+  }
+
+  /**
+   * Compress the data that is cold now
+   */
+  public void sweep() {
+    sweep(System.currentTimeMillis());
+  }
+
+  /**
+   * Compress the data that is cold at the given time
+   *
+   * @param now The time in milliseconds
+   */
+  void sweep(long now) {
+    ArrayList<FileData> cold = new ArrayList<FileData>(large);
+    Iterator<Map.Entry<FileData, Long>> oldest =
+        last_used.entrySet().iterator();
+    // the data used the longest time ago comes first
+    while (oldest.hasNext()) {
+      Map.Entry<FileData, Long> entry = oldest.next();
+      if (now - entry.getValue() < idle_millis) {
+        break;
+      }
+      cold.add(entry.getKey());
+    }
+    for (FileData data : cold) {
+      last_used.remove(data);
+      large.remove(data);
+      data.compress(this);
+    }
+  }
+
+  /**
+   * Return the bytes compressed, or null if they do not get smaller
+   *
+   * @param raw The bytes to compress
+   * @return The compressed bytes
+   */
+  byte[] deflate(byte[] raw) {
+    long start = System.nanoTime();
+    Deflater deflater = new Deflater();
+    deflater.setInput(raw);
+    deflater.finish();
+    ByteArrayOutputStream packed = new ByteArrayOutputStream();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    while (!deflater.finished() && packed.size() < raw.length) {
+      int count = deflater.deflate(buffer);
+      packed.write(buffer, 0, count);
+    }
+    deflater.end();
+    compress_nanos += System.nanoTime() - start;
+    if (packed.size() >= raw.length) {
+      return null;
+    }
+    original_bytes += raw.length;
+    compressed_bytes += packed.size();
+    compressed_count++;
+    return packed.toByteArray();
+  }
+
+  /**
+   * Return the bytes of compressed data, from the cache of the compressor
+   * in use if they are in it
+   *
+   * @param data The compressed data, null to read it without the cache, as
+   *        another thread does
+   * @param packed The compressed bytes
+   * @param length Number of bytes once decompressed
+   * @return The decompressed bytes, which must not be changed
+   */
+  static byte[] inflate(FileData data, byte[] packed, long length) {
+    FileCompressor compressor = data == null ? null : active;
+    if (compressor != null) {
+      byte[] cached = compressor.cache.get(data);
+      if (cached != null) {
+        compressor.cache_hits++;
+        return cached;
+      }
+      compressor.cache_misses++;
+    }
+    byte[] raw = new byte[(int) length];
+    Inflater inflater = new Inflater();
+    inflater.setInput(packed);
+    try {
+      int count = 0;
+      while (count < raw.length && !inflater.finished()) {
+        count += inflater.inflate(raw, count, raw.length - count);
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("The data of the file is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+    if (compressor != null) {
+      compressor.cache.put(data, raw);
+    }
+    return raw;
+  }
+
+  /**
+   * Return the number of files whose data is compressed
+   *
+   * @return Number of files
+   */
+  public long getCompressedCount() {
+    return compressed_count;
+  }
+
+  /**
+   * Return the number of bytes the compressed data holds once decompressed
+   *
+   * @return Number of bytes
+   */
+  public long getOriginalBytes() {
+    return original_bytes;
+  }
+
+  /**
+   * Return the number of bytes the compressed data takes
+   *
+   * @return Number of bytes
+   */
+  public long getCompressedBytes() {
+    return compressed_bytes;
+  }
+
+  /**
+   * Return the size of the compressed data against its size decompressed,
+   * in percent
+   *
+   * @return Compression ratio in percent
+   */
+  public double getRatio() {
+    return original_bytes == 0 ? 0
+        : 100.0 * compressed_bytes / original_bytes;
+  }
+
+  /**
+   * Return the number of reads of compressed data found in the cache
+   *
+   * @return Number of cache hits
+   */
+  public long getCacheHits() {
+    return cache_hits;
+  }
+
+  /**
+   * Return the number of reads of compressed data
+   *
+   * @return Number of reads
+   */
+  public long getReads() {
+    return cache_hits + cache_misses;
+  }
+
+  /**
+   * Return the share of the reads of compressed data found in the cache, in
+   * percent
+   *
+   * @return Hit rate in percent
+   */
+  public double getHitRate() {
+    long reads = getReads();
+    return reads == 0 ? 0 : 100.0 * cache_hits / reads;
+  }
+
+  /**
+   * Return the number of milliseconds spent compressing
+   *
+   * @return Time spent compressing in milliseconds
+   */
+  public long getCompressMillis() {
+    return compress_nanos / 1000000;
+  }
+}
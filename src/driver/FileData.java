@@ -0,0 +1,930 @@
+package driver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The data of a File, kept as bytes together with the charset that turns
+ * them into text. Text written by commands is kept in Latin-1, one byte per
+ * character, unless it holds characters Latin-1 does not have, then the data
+ * is kept in UTF-8. Bytes read from elsewhere are kept exactly as they were
+ * read, and are only turned into text when a command needs text.
+ *
+ * Data that is only written whole is kept as one array of bytes. Once
+ * something is appended, the data is kept as a list of chunks of bytes, so
+ * appending only copies the appended bytes and a file can hold more bytes
+ * than one array can.
+ *
+ * Full chunks are never changed again, so copies of a file share them and
+ * only the last chunk is copied when a shared copy is appended to.
+ *
+ * When the FileArena is on, the bytes are kept outside of the Java heap in a
+ * block of the arena instead. The block grows by doubling when it is
+ * appended to, and is given back to the arena once no copy of the data uses
+ * it.
+ *
+ * Data written whole is kept in the BlobStore, so files holding the same
+ * bytes share them. Appending stops using the blob and copies the bytes into
+ * chunks first.
+ *
+ * When the FileCompressor is on, cold data is kept compressed instead. It is
+ * decompressed through the cache of the compressor when it is read, and for
+ * good when it is appended to.
+ *
+ * When the FileSpiller is on and the data kept in memory is over its budget,
+ * the data may be written to a spill file, and only the name of that file is
+ * kept. The data is read back the next time it is used.
+ *
+ * Data read from a MappedImage stays in the mapped image and is read from
+ * there in place, until it is changed, then it is copied into memory first.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileData {
+
+  /**
+   * Number of bytes in a full chunk
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  /**
+   * Number of bytes the last chunk starts with
+   */
+  private static final int FIRST_CHUNK_SIZE = 16;
+
+  /**
+   * Largest number of bytes kept in one block of the arena
+   */
+  private static final long MAX_BLOCK_BYTES = Integer.MAX_VALUE / 2;
+
+  /**
+   * The whole data, null once it is kept in chunks or in the arena
+   */
+  private byte[] bytes;
+
+  /**
+   * The blob of the BlobStore holding the whole data, null if it is not kept
+   * in the store
+   */
+  private BlobStore.Blob blob;
+
+  /**
+   * The chunks holding the data, null while the data is one array. All
+   * chunks but the last one are full.
+   */
+  private byte[][] chunks;
+
+  /**
+   * Number of chunks used
+   */
+  private int chunk_count;
+
+  /**
+   * Number of bytes in the data
+   */
+  private long length;
+
+  /**
+   * The charset that turns the bytes into text
+   */
+  private Charset charset;
+
+  /**
+   * The data as text, null if it has not been built since the last change.
+   * It is held softly, so the heap does not hold the data twice once memory
+   * runs low.
+   */
+  private SoftReference<String> text;
+
+  /**
+   * Whether the chunks may also be used by another FileData
+   */
+  private boolean shared;
+
+  /**
+   * The block of the arena holding the data, null if the data is on the heap
+   */
+  private FileArena.Block block;
+
+  /**
+   * Whether the data was released and cannot be read anymore
+   */
+  private boolean released;
+
+  /**
+   * The compressed bytes of the data, null if the data is not compressed
+   */
+  private byte[] compressed;
+
+  /**
+   * The compressor that compressed the data, null if it is not compressed or
+   * is a copy of compressed data
+   */
+  private FileCompressor compressor;
+
+  /**
+   * The file the data is spilled to, null if the data is in memory
+   */
+  private Path spill_file;
+
+  /**
+   * The spiller that wrote the spill file, null if the data is in memory
+   */
+  private FileSpiller spiller;
+
+  /**
+   * The bytes of the data in a mapped image, null if the data is not read
+   * from an image
+   */
+  private ByteBuffer mapped;
+
+  /**
+   * The index of the lines of the data, null if no line was asked for yet
+   */
+  private LineIndex line_index;
+
+  /**
+   * Whether the data is a frozen copy read by another thread, which the
+   * compressor and the spiller do not keep track of
+   */
+  private boolean frozen;
+
+  /**
+   * Default Constructor
+   *
+   * @param text The data
+   */
+  public FileData(String text) {
+    if (isLatin1(text)) {
+      charset = StandardCharsets.ISO_8859_1;
+    } else {
+      charset = StandardCharsets.UTF_8;
+    }
+    store(text.getBytes(charset));
+    if (blob != null) {
+      // files holding the same bytes share the text as well
+      blob.setText(text, charset);
+    } else if (block == null) {
+      this.text = new SoftReference<String>(text);
+    }
+  }
+
+  /**
+   * Create data holding the given bytes, kept exactly as they are
+   *
+   * @param bytes The data, owned by this FileData from now on
+   * @param charset The charset that turns the bytes into text
+   */
+  public FileData(byte[] bytes, Charset charset) {
+    this.charset = charset;
+    store(bytes);
+  }
+
+  /**
+   * Create data read in place from the bytes of a mapped image
+   *
+   * @param mapped The bytes, which are never changed
+   * @param charset The charset that turns the bytes into text
+   */
+  FileData(ByteBuffer mapped, Charset charset) {
+    this.charset = charset;
+    this.mapped = mapped;
+    length = mapped.remaining();
+  }
+
+  /**
+   * Create empty data holding no bytes yet, for a copy
+   *
+   * @param charset The charset that turns the bytes into text
+   */
+  private FileData(Charset charset) {
+    this.charset = charset;
+  }
+
+  /**
+   * Return the number of bytes in the data
+   *
+   * @return Number of bytes
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Return the charset that turns the bytes into text
+   *
+   * @return The charset of the data
+   */
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * Return the byte at the given index
+   *
+   * @param index Index of the byte
+   * @return The byte
+   */
+  public byte byteAt(long index) {
+    checkReleased();
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index: " + index);
+    }
+    load();
+    if (compressed != null) {
+      return inflated()[(int) index];
+    }
+    if (bytes != null) {
+      return bytes[(int) index];
+    }
+    if (mapped != null) {
+      return mapped.get((int) index);
+    }
+    if (block != null) {
+      return block.getByte((int) index);
+    }
+    return chunks[(int) (index / CHUNK_SIZE)][(int) (index % CHUNK_SIZE)];
+  }
+
+  /**
+   * Return a copy of the bytes from start to end
+   *
+   * @param start Index of the first byte
+   * @param end Index after the last byte
+   * @return The bytes between start and end
+   */
+  public byte[] getBytes(long start, long end) {
+    checkReleased();
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException(
+          "Start: " + start + ", End: " + end);
+    }
+    load();
+    used();
+    return readBytes(start, end);
+  }
+
+  /**
+   * Return a copy of the bytes from start to end, without recording that
+   * the data was read
+   *
+   * @param start Index of the first byte
+   * @param end Index after the last byte
+   * @return The bytes between start and end
+   */
+  private byte[] readBytes(long start, long end) {
+    if (compressed != null) {
+      return Arrays.copyOfRange(inflated(), (int) start, (int) end);
+    }
+    if (bytes != null) {
+      return Arrays.copyOfRange(bytes, (int) start, (int) end);
+    }
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Data is too large for one array");
+    }
+    byte[] wanted = new byte[(int) (end - start)];
+    if (mapped != null) {
+      ByteBuffer view = mapped.duplicate();
+      view.position((int) start);
+      view.get(wanted);
+      return wanted;
+    }
+    if (block != null) {
+      block.get((int) start, wanted, 0, wanted.length);
+      return wanted;
+    }
+    int copied = 0;
+    while (start + copied < end) {
+      long next = start + copied;
+      int offset = (int) (next % CHUNK_SIZE);
+      int count = (int) Math.min(CHUNK_SIZE - offset, end - next);
+      System.arraycopy(chunks[(int) (next / CHUNK_SIZE)], offset, wanted,
+          copied, count);
+      copied += count;
+    }
+    return wanted;
+  }
+
+  /**
+   * Write the whole data to a stream, compressed data is decompressed once
+   * and chunks are written as they are
+   *
+   * @param out The stream
+   * @throws IOException If the stream cannot be written
+   */
+  void writeTo(OutputStream out) throws IOException {
+    checkReleased();
+    if (frozen && spill_file != null) {
+      FileSpiller.transferTo(spill_file, length, out);
+      return;
+    }
+    load();
+    used();
+    if (compressed != null) {
+      out.write(inflated(), 0, (int) length);
+    } else if (bytes != null) {
+      out.write(bytes, 0, (int) length);
+    } else if (chunks != null) {
+      for (int i = 0; i < chunk_count; i++) {
+        long left = length - (long) i * CHUNK_SIZE;
+        out.write(chunks[i], 0, (int) Math.min(CHUNK_SIZE, left));
+      }
+    } else {
+      for (long at = 0; at < length; at += CHUNK_SIZE) {
+        out.write(readBytes(at, Math.min(length, at + CHUNK_SIZE)));
+      }
+    }
+  }
+
+  /**
+   * Add the text to the end of the data. If the charset of the data cannot
+   * hold the text, the data is turned into UTF-8 first.
+   *
+   * @param added The text to be added
+   */
+  public void append(String added) {
+    checkReleased();
+    if (added.isEmpty()) {
+      return;
+    }
+    expand();
+    byte[] encoded = encode(added);
+    if (encoded == null) {
+      // the charset cannot hold the text, keep all of the data in UTF-8
+      String old_text = toString();
+      drop();
+      charset = StandardCharsets.UTF_8;
+      store(old_text.getBytes(charset));
+      encoded = added.getBytes(charset);
+      // the bytes of each line moved, index them again when asked
+      line_index = null;
+    }
+    append(encoded);
+  }
+
+  /**
+   * Add the bytes to the end of the data
+   *
+   * @param added The bytes to be added
+   */
+  public void append(byte[] added) {
+    checkReleased();
+    if (added.length == 0) {
+      return;
+    }
+    expand();
+    text = null;
+    if (line_index != null) {
+      line_index.appended(added, length);
+    }
+    long needed = length + added.length;
+    FileArena arena = FileArena.getActive();
+    if (block == null && chunks == null && arena != null
+        && needed <= MAX_BLOCK_BYTES) {
+      toBlock(arena, needed);
+    }
+    if (block != null && needed > MAX_BLOCK_BYTES) {
+      // too large for a block of the arena, it goes back on the heap
+      bytes = getBytes(0, length);
+      releaseBlock();
+    }
+    if (block != null) {
+      appendToBlock(added, needed);
+      used();
+      return;
+    }
+    if (chunks == null) {
+      toChunks();
+    } else if (shared) {
+      detach();
+    }
+    int i = 0;
+    while (i < added.length) {
+      if (length == (long) chunk_count * CHUNK_SIZE) {
+        addChunk(added.length - i);
+      }
+      int offset = (int) (length - (long) (chunk_count - 1) * CHUNK_SIZE);
+      int count = Math.min(CHUNK_SIZE - offset, added.length - i);
+      byte[] last = growLast(offset + count);
+      System.arraycopy(added, i, last, offset, count);
+      i += count;
+      length += count;
+    }
+    used();
+  }
+
+  /**
+   * Return the index of the lines of the data, which is kept up to date as
+   * the data is appended to
+   *
+   * @return The line index
+   */
+  public LineIndex getLineIndex() {
+    checkReleased();
+    if (line_index == null) {
+      line_index = new LineIndex(this);
+    }
+    return line_index;
+  }
+
+  /**
+   * Return a copy of this data. Nothing is copied until one of them is
+   * appended to.
+   *
+   * @return A copy of this data
+   */
+  public FileData share() {
+    FileData copy = copy();
+    copy.used();
+    return copy;
+  }
+
+  /**
+   * Return a copy of this data that another thread can read while this data
+   * keeps changing, such as a checkpoint written in the background. Like
+   * share, nothing is copied. The copy is never compressed or spilled, and
+   * it does not read through the cache of the compressor, so nothing changes
+   * it while it is read. Spilled data is not read back, the copy reads the
+   * spill file, which is kept until the copy is released. It is released on
+   * the thread that froze it.
+   *
+   * @return A frozen copy of this data
+   */
+  FileData freeze() {
+    checkReleased();
+    if (spill_file != null) {
+      FileData copy = new FileData(charset);
+      copy.spill_file = spill_file;
+      copy.spiller = spiller;
+      copy.length = length;
+      copy.frozen = true;
+      spiller.pin(spill_file);
+      return copy;
+    }
+    FileData copy = copy();
+    copy.frozen = true;
+    return copy;
+  }
+
+  /**
+   * Return a copy of this data sharing its bytes, that the compressor and
+   * the spiller do not keep track of yet
+   *
+   * @return A copy of this data
+   */
+  private FileData copy() {
+    checkReleased();
+    load();
+    FileData copy = new FileData(charset);
+    copy.bytes = bytes;
+    copy.blob = blob;
+    if (blob != null) {
+      BlobStore.getStore().retain(blob);
+    }
+    copy.compressed = compressed;
+    copy.mapped = mapped;
+    copy.text = text;
+    copy.length = length;
+    if (block != null) {
+      copy.block = block;
+      block.retain();
+    } else if (chunks != null) {
+      copy.chunks = chunks;
+      copy.chunk_count = chunk_count;
+      copy.shared = true;
+      shared = true;
+    }
+    return copy;
+  }
+
+  /**
+   * Return the whole data as text, read with the charset of the data
+   *
+   * @return The data
+   */
+  public String toString() {
+    checkReleased();
+    load();
+    String kept = text == null ? null : text.get();
+    if (kept != null) {
+      used();
+      return kept;
+    }
+    if (blob != null) {
+      used();
+      return blob.getText(charset);
+    }
+    String decoded = new String(getBytes(0, length), charset);
+    if (block == null && compressed == null && mapped == null) {
+      // data in the arena, compressed or mapped is not kept on the heap as
+      // well
+      text = new SoftReference<String>(decoded);
+    }
+    return decoded;
+  }
+
+  /**
+   * Return true iff the data is kept in a block of the arena
+   *
+   * @return true if the data is off the heap, false otherwise
+   */
+  public boolean isInArena() {
+    return block != null;
+  }
+
+  /**
+   * Return true iff the data is read in place from a mapped image
+   *
+   * @return true if the data is mapped, false otherwise
+   */
+  public boolean isMapped() {
+    return mapped != null;
+  }
+
+  /**
+   * Return true iff the data is kept compressed
+   *
+   * @return true if the data is compressed, false otherwise
+   */
+  public boolean isCompressed() {
+    return compressed != null;
+  }
+
+  /**
+   * Compress the data, unless it is empty, already compressed or does not
+   * get smaller
+   *
+   * @param by The compressor compressing the data
+   */
+  void compress(FileCompressor by) {
+    if (released || compressed != null || spill_file != null || length == 0
+        || length > MAX_BLOCK_BYTES || mapped != null) {
+      return;
+    }
+    byte[] packed = by.deflate(readBytes(0, length));
+    if (packed != null) {
+      long kept = length;
+      drop();
+      length = kept;
+      compressed = packed;
+      compressor = by;
+      FileSpiller active = FileSpiller.getActive();
+      if (active != null) {
+        active.resized(this);
+      }
+    }
+  }
+
+  /**
+   * Return true iff the data is spilled to disk
+   *
+   * @return true if the data is in a spill file, false otherwise
+   */
+  public boolean isSpilled() {
+    return spill_file != null;
+  }
+
+  /**
+   * Return the number of bytes the data takes in the Java heap
+   *
+   * @return Number of bytes in memory
+   */
+  long memorySize() {
+    if (spill_file != null || block != null || mapped != null) {
+      return 0;
+    }
+    return compressed != null ? compressed.length : length;
+  }
+
+  /**
+   * Write the data to a spill file and stop keeping it in memory
+   *
+   * @param by The spiller the file is written by
+   * @return true if the data was spilled, false if it cannot be
+   */
+  boolean spill(FileSpiller by) {
+    if (released || spill_file != null || length == 0
+        || length > MAX_BLOCK_BYTES || mapped != null) {
+      return false;
+    }
+    Path file = by.write(readBytes(0, length));
+    if (file == null) {
+      return false;
+    }
+    long kept = length;
+    forget();
+    compressed = null;
+    drop();
+    length = kept;
+    spill_file = file;
+    spiller = by;
+    return true;
+  }
+
+  /**
+   * Stop using the data, its block is given back to the arena once no copy
+   * uses it. Data in the arena cannot be read after it is released.
+   */
+  public void release() {
+    forget();
+    line_index = null;
+    if (spill_file != null) {
+      // the data is not needed anymore, delete its spill file once no
+      // frozen copy reads it
+      if (frozen) {
+        spiller.unpin(spill_file);
+      } else {
+        spiller.delete(spill_file, length);
+      }
+      spill_file = null;
+      spiller = null;
+      released = true;
+      length = 0;
+    }
+    // the bytes can still be read, but are no longer counted in the store
+    releaseBlob();
+    if (block != null) {
+      releaseBlock();
+      released = true;
+      text = null;
+      length = 0;
+    }
+  }
+
+  /**
+   * Keep the bytes as the whole data, in the arena if it is on
+   *
+   * @param data The bytes of the data
+   */
+  private void store(byte[] data) {
+    bytes = data;
+    length = data.length;
+    FileArena arena = FileArena.getActive();
+    if (arena != null && length > 0 && length <= MAX_BLOCK_BYTES) {
+      toBlock(arena, length);
+    } else if (length >= BlobStore.MIN_BLOB_SIZE) {
+      blob = BlobStore.getStore().intern(data);
+      bytes = blob.bytes();
+    }
+    used();
+  }
+
+  /**
+   * Stop using the blob holding the data, the bytes are kept until the data
+   * is changed
+   */
+  private void releaseBlob() {
+    if (blob != null) {
+      BlobStore.getStore().release(blob);
+      blob = null;
+    }
+  }
+
+  /**
+   * Return the bytes of the compressed data, which must not be changed
+   *
+   * @return The decompressed bytes
+   */
+  private byte[] inflated() {
+    // a frozen copy is read by another thread, away from the cache
+    return FileCompressor.inflate(frozen ? null : this, compressed, length);
+  }
+
+  /**
+   * Decompress the data for good, before it is changed
+   */
+  private void expand() {
+    load();
+    if (mapped != null) {
+      // the image is never changed, copy the data into memory
+      byte[] raw = readBytes(0, length);
+      mapped = null;
+      text = null;
+      store(raw);
+    }
+    if (compressed != null) {
+      byte[] raw = inflated();
+      forget();
+      compressed = null;
+      store(raw);
+    }
+  }
+
+  /**
+   * Read the data back from its spill file, if it is spilled
+   */
+  private void load() {
+    if (spill_file != null) {
+      byte[] raw = spiller.read(spill_file, length);
+      spill_file = null;
+      spiller = null;
+      store(raw);
+    }
+  }
+
+  /**
+   * Record that the data was written or read, so the compressor and the
+   * spiller in use know when it is cold
+   */
+  private void used() {
+    if (frozen) {
+      return;
+    }
+    FileCompressor active = FileCompressor.getActive();
+    if (active != null && compressed == null) {
+      active.used(this);
+    }
+    FileSpiller active_spiller = FileSpiller.getActive();
+    if (active_spiller != null && spill_file == null) {
+      active_spiller.used(this);
+    }
+  }
+
+  /**
+   * Make the compressors stop keeping track of the data
+   */
+  private void forget() {
+    FileCompressor active = FileCompressor.getActive();
+    if (compressor != null) {
+      compressor.forget(this, compressed.length);
+      compressor = null;
+    }
+    if (active != null) {
+      active.forget(this, -1);
+    }
+    FileSpiller active_spiller = FileSpiller.getActive();
+    if (active_spiller != null) {
+      active_spiller.forget(this);
+    }
+  }
+
+  /**
+   * Stop holding the bytes of the data, without changing any copy
+   */
+  private void drop() {
+    if (block != null) {
+      releaseBlock();
+    }
+    releaseBlob();
+    bytes = null;
+    mapped = null;
+    chunks = null;
+    chunk_count = 0;
+    shared = false;
+    text = null;
+    length = 0;
+  }
+
+  /**
+   * Return the text as bytes in the charset of the data
+   *
+   * @param added The text
+   * @return The bytes, null if the charset cannot hold the text
+   */
+  private byte[] encode(String added) {
+    if (charset.equals(StandardCharsets.ISO_8859_1)) {
+      return isLatin1(added) ? added.getBytes(charset) : null;
+    }
+    if (charset.equals(StandardCharsets.UTF_8)
+        || charset.newEncoder().canEncode(added)) {
+      return added.getBytes(charset);
+    }
+    return null;
+  }
+
+  /**
+   * Return true iff all characters of the text are in Latin-1
+   *
+   * @param text The text
+   * @return true if each character fits in one byte, false otherwise
+   */
+  private static boolean isLatin1(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) > 0xFF) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Move the data into a new block of the arena
+   *
+   * @param arena The arena the block is taken from
+   * @param capacity Number of bytes the block must hold
+   */
+  private void toBlock(FileArena arena, long capacity) {
+    int count = bytes == null ? 0 : bytes.length;
+    block = arena.allocate((int) capacity);
+    if (count > 0) {
+      block.put(0, bytes, 0, count);
+    }
+    block.setUsed(count);
+    releaseBlob();
+    bytes = null;
+  }
+
+  /**
+   * Add the bytes to the end of the data in the block, moving the data into
+   * a larger block if they do not fit or if the block is shared
+   *
+   * @param added The bytes to be added
+   * @param needed Number of bytes once they are added
+   */
+  private void appendToBlock(byte[] added, long needed) {
+    if (block.isShared() || needed > block.capacity()) {
+      // double the number of bytes the block holds
+      long capacity =
+          Math.min(MAX_BLOCK_BYTES, Math.max(needed, block.capacity() * 2L));
+      FileArena.Block larger = block.arena().allocate((int) capacity);
+      larger.copyFrom(block, (int) length);
+      larger.setUsed((int) length);
+      block.release();
+      block = larger;
+    }
+    block.put((int) length, added, 0, added.length);
+    length = needed;
+    block.setUsed((int) length);
+  }
+
+  /**
+   * Give the block back to the arena, if no copy uses it
+   */
+  private void releaseBlock() {
+    block.release();
+    block = null;
+  }
+
+  /**
+   * Throw an exception if the data was released
+   */
+  private void checkReleased() {
+    if (released) {
+      throw new IllegalStateException("The data of the file was released");
+    }
+  }
+
+  /**
+   * Turn the array holding the data into chunks
+   */
+  private void toChunks() {
+    chunks = new byte[Math.max(4, (int) (length / CHUNK_SIZE) + 1)][];
+    chunk_count = 0;
+    for (long start = 0; start < length; start += CHUNK_SIZE) {
+      int end = (int) Math.min(start + CHUNK_SIZE, length);
+      chunks[chunk_count++] = Arrays.copyOfRange(bytes, (int) start, end);
+    }
+    releaseBlob();
+    bytes = null;
+  }
+
+  /**
+   * Stop sharing the chunks, the full chunks are still shared since they do
+   * not change, but the last chunk is copied
+   */
+  private void detach() {
+    chunks = Arrays.copyOf(chunks, Math.max(chunks.length, 4));
+    if (chunk_count > 0) {
+      byte[] last = chunks[chunk_count - 1];
+      chunks[chunk_count - 1] = Arrays.copyOf(last, last.length);
+    }
+    shared = false;
+  }
+
+  /**
+   * Add a new empty chunk at the end
+   *
+   * @param needed Number of bytes that will be put into it
+   */
+  private void addChunk(int needed) {
+    if (chunk_count == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunk_count * 2);
+    }
+    chunks[chunk_count++] =
+        new byte[Math.min(CHUNK_SIZE, Math.max(FIRST_CHUNK_SIZE, needed))];
+  }
+
+  /**
+   * Return the last chunk, grown so that it can hold the given number of
+   * bytes
+   *
+   * @param needed Number of bytes the last chunk has to hold
+   * @return The last chunk
+   */
+  private byte[] growLast(int needed) {
+    byte[] last = chunks[chunk_count - 1];
+    if (last.length < needed) {
+      int size = Math.min(CHUNK_SIZE, Math.max(needed, last.length * 2));
+      last = Arrays.copyOf(last, size);
+      chunks[chunk_count - 1] = last;
+    }
+    return last;
+  }
+}
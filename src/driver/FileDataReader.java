@@ -0,0 +1,143 @@
+package driver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads the data of a file as text, a window of bytes at a time, so the
+ * whole data is never turned into one String. Bytes that are not valid in
+ * the charset of the data are read as a replacement character, as getData
+ * does.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileDataReader extends Reader {
+
+  /**
+   * Number of bytes read from the data at a time
+   */
+  static final int WINDOW_SIZE = 8192;
+
+  /**
+   * The data read
+   */
+  private FileData data;
+
+  /**
+   * Turns the bytes of the data into characters
+   */
+  private CharsetDecoder decoder;
+
+  /**
+   * Bytes read from the data that are not decoded yet
+   */
+  private ByteBuffer bytes;
+
+  /**
+   * Characters decoded that are not read yet
+   */
+  private CharBuffer chars;
+
+  /**
+   * Index in the data of the next byte to read from it
+   */
+  private long position;
+
+  /**
+   * Whether all of the data was decoded
+   */
+  private boolean finished;
+
+  /**
+   * Default Constructor
+   *
+   * @param data The data to read
+   */
+  public FileDataReader(FileData data) {
+    this.data = data;
+    decoder = data.getCharset().newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    bytes = ByteBuffer.allocate(0);
+    chars = CharBuffer.allocate(WINDOW_SIZE);
+    chars.flip();
+  }
+
+  /**
+   * Read characters into a part of an array
+   *
+   * @param cbuf The array the characters are read to
+   * @param off Index in cbuf of the first character read
+   * @param len Largest number of characters to read
+   * @return Number of characters read, or -1 at the end of the data
+   * @throws IOException If the reader is closed
+   */
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (data == null) {
+      throw new IOException("The reader is closed");
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!chars.hasRemaining() && !fill()) {
+      return -1;
+    }
+    int count = Math.min(len, chars.remaining());
+    chars.get(cbuf, off, count);
+    return count;
+  }
+
+  /**
+   * Stop reading the data
+   */
+  public void close() {
+    data = null;
+  }
+
+  /**
+   * Decode more characters from the data
+   *
+   * @return false if there is nothing left to decode, true otherwise
+   */
+  private boolean fill() {
+    chars.clear();
+    while (chars.position() == 0 && !finished) {
+      boolean end = position >= data.length();
+      CoderResult result = decoder.decode(bytes, chars, end);
+      if (result.isUnderflow()) {
+        if (end) {
+          decoder.flush(chars);
+          finished = true;
+        } else {
+          readWindow();
+        }
+      }
+    }
+    chars.flip();
+    return chars.hasRemaining();
+  }
+
+  /**
+   * Read the next window of bytes from the data, after the bytes of a
+   * character cut by the last window
+   */
+  private void readWindow() {
+    long end = Math.min(position + WINDOW_SIZE, data.length());
+    byte[] window = data.getBytes(position, end);
+    position = end;
+    if (bytes.hasRemaining()) {
+      ByteBuffer joined = ByteBuffer.allocate(bytes.remaining() + window.length);
+      joined.put(bytes).put(window);
+      joined.flip();
+      bytes = joined;
+    } else {
+      bytes = ByteBuffer.wrap(window);
+    }
+  }
+}
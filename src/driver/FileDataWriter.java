@@ -0,0 +1,128 @@
+package driver;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Appends text to the end of a file, a window of characters at a time, so
+ * the text written is never held whole in the file's charset.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileDataWriter extends Writer {
+
+  /**
+   * The file written to, null once the writer is closed
+   */
+  private File file;
+
+  /**
+   * Characters written that are not added to the file yet
+   */
+  private char[] buffer;
+
+  /**
+   * Number of characters in the buffer
+   */
+  private int count;
+
+  /**
+   * Default Constructor
+   *
+   * @param file The file written to
+   */
+  public FileDataWriter(File file) {
+    this.file = file;
+    buffer = new char[FileDataReader.WINDOW_SIZE];
+  }
+
+  /**
+   * Write a part of an array of characters
+   *
+   * @param cbuf The characters
+   * @param off Index in cbuf of the first character written
+   * @param len Number of characters written
+   * @throws IOException If the writer is closed
+   */
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    checkOpen();
+    while (len > 0) {
+      if (count == buffer.length) {
+        addBuffer();
+      }
+      int copied = Math.min(len, buffer.length - count);
+      System.arraycopy(cbuf, off, buffer, count, copied);
+      count += copied;
+      off += copied;
+      len -= copied;
+    }
+  }
+
+  /**
+   * Write a part of a String
+   *
+   * @param str The String
+   * @param off Index in str of the first character written
+   * @param len Number of characters written
+   * @throws IOException If the writer is closed
+   */
+  public void write(String str, int off, int len) throws IOException {
+    checkOpen();
+    while (len > 0) {
+      if (count == buffer.length) {
+        addBuffer();
+      }
+      int copied = Math.min(len, buffer.length - count);
+      str.getChars(off, off + copied, buffer, count);
+      count += copied;
+      off += copied;
+      len -= copied;
+    }
+  }
+
+  /**
+   * Add the characters written so far to the file
+   *
+   * @throws IOException If the writer is closed
+   */
+  public void flush() throws IOException {
+    checkOpen();
+    file.appendData(new String(buffer, 0, count));
+    count = 0;
+  }
+
+  /**
+   * Add the characters written so far to the file, and stop writing
+   *
+   * @throws IOException If the writer is closed
+   */
+  public void close() throws IOException {
+    if (file != null) {
+      flush();
+      file = null;
+    }
+  }
+
+  /**
+   * Add the full buffer to the file. A character made of two chars is kept
+   * whole, so it is never added in two parts.
+   */
+  private void addBuffer() {
+    int kept = Character.isHighSurrogate(buffer[count - 1]) ? 1 : 0;
+    file.appendData(new String(buffer, 0, count - kept));
+    buffer[0] = buffer[count - 1];
+    count = kept;
+  }
+
+  /**
+   * Throw an exception if the writer is closed
+   *
+   * @throws IOException If the writer is closed
+   */
+  private void checkOpen() throws IOException {
+    if (file == null) {
+      throw new IOException("The writer is closed");
+    }
+  }
+}
@@ -0,0 +1,482 @@
+package driver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the memory used by the data of files under a budget. Once the data
+ * kept in memory is larger than the budget, the data chosen by the policy is
+ * written to a file of its own in a spill directory, and only the name of
+ * that file is kept in memory. The data is read back into memory the next
+ * time it is used.
+ *
+ * Spilling is off unless it is turned on. Data over the budget is spilled
+ * after each command.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileSpiller {
+
+  /**
+   * The ways to choose the data spilled first
+   */
+  public enum Policy {
+    /**
+     * The data used the longest time ago is spilled first
+     */
+    LRU,
+    /**
+     * The largest data is spilled first
+     */
+    LARGEST
+  }
+
+  /**
+   * The spiller in use, null if spilling is off
+   */
+  private static FileSpiller active = null;
+
+  /**
+   * Number of files whose data is spilled by any spiller
+   */
+  private static long spilled_files = 0;
+
+  /**
+   * The directory the data is spilled to
+   */
+  private final Path directory;
+
+  /**
+   * Number of bytes of data kept in memory before data is spilled
+   */
+  private final long budget;
+
+  /**
+   * How the data spilled first is chosen
+   */
+  private final Policy policy;
+
+  /**
+   * Data kept in memory, the data used the longest time ago first
+   */
+  private LinkedHashMap<FileData, Boolean> in_memory;
+
+  /**
+   * Number of bytes each data kept in memory takes
+   */
+  private HashMap<FileData, Long> sizes;
+
+  /**
+   * Number of bytes of data kept in memory
+   */
+  private long memory_bytes;
+
+  /**
+   * Number of frozen copies still reading each spill file, see FileData
+   */
+  private HashMap<Path, Integer> pins;
+
+  /**
+   * Spill files no longer needed while frozen copies still read them, with
+   * their number of bytes, deleted once the last copy is released
+   */
+  private HashMap<Path, Long> unneeded;
+
+  /**
+   * Number of the next spill file
+   */
+  private long next_file;
+
+  /**
+   * Number of files spilled by this spiller that are still on disk
+   */
+  private long disk_files;
+
+  /**
+   * Number of bytes in the spill files still on disk
+   */
+  private long disk_bytes;
+
+  /**
+   * Number of bytes written to spill files
+   */
+  private long written_bytes;
+
+  /**
+   * Number of times data was read back from a spill file
+   */
+  private long read_count;
+
+  /**
+   * Number of bytes read back from spill files
+   */
+  private long read_bytes;
+
+  /**
+   * Number of times data could not be written to a spill file
+   */
+  private long failed_count;
+
+  /**
+   * Default Constructor
+   *
+   * @param directory The directory the data is spilled to
+   * @param budget Number of bytes of data kept in memory
+   * @param policy How the data spilled first is chosen
+   * @throws IOException If the directory cannot be created
+   */
+  public FileSpiller(Path directory, long budget, Policy policy)
+      throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.budget = budget;
+    this.policy = policy;
+    in_memory = new LinkedHashMap<FileData, Boolean>(16, 0.75f, true);
+    sizes = new HashMap<FileData, Long>();
+    pins = new HashMap<Path, Integer>();
+    unneeded = new HashMap<Path, Long>();
+  }
+
+  /**
+   * Turn spilling on
+   *
+   * @param directory The directory the data is spilled to
+   * @param budget Number of bytes of data kept in memory
+   * @param policy How the data spilled first is chosen
+   * @throws IOException If the directory cannot be created
+   */
+  public static void enable(Path directory, long budget, Policy policy)
+      throws IOException {
+    active = new FileSpiller(directory, budget, policy);
+  }
+
+  /**
+   * Turn spilling off, data already spilled stays on disk until it is used
+   */
+  public static void disable() {
+    active = null;
+  }
+
+  /**
+   * Return the spiller in use
+   *
+   * @return The spiller, null if spilling is off
+   */
+  public static FileSpiller getActive() {
+    return active;
+  }
+
+  /**
+   * Return true iff the data of some file is spilled
+   *
+   * @return true if any spill file is in use, false otherwise
+   */
+  public static boolean inUse() {
+    return spilled_files > 0;
+  }
+
+  /**
+   * Record that the data kept in memory was written or read
+   *
+   * @param data The data used
+   */
+  void used(FileData data) {
+    in_memory.put(data, Boolean.TRUE);
+    resized(data);
+  }
+
+  /**
+   * Record the number of bytes the data takes in memory now
+   *
+   * @param data The data kept in memory
+   */
+  void resized(FileData data) {
+    if (in_memory.containsKey(data)) {
+      long size = data.memorySize();
+      Long old_size = sizes.put(data, size);
+      memory_bytes += size - (old_size == null ? 0 : old_size);
+    }
+  }
+
+  /**
+   * Stop keeping track of the data, once it is released or spilled
+   *
+   * @param data The data
+   */
+  void forget(FileData data) {
+    in_memory.remove(data);
+    Long size = sizes.remove(data);
+    if (size != null) {
+      memory_bytes -= size;
+    }
+  }
+
+  /**
+   * Spill data chosen by the policy until the data kept in memory fits in
+   * the budget
+   */
+  public void sweep() {
+    while (memory_bytes > budget && !in_memory.isEmpty()) {
+      FileData victim = choose();
+      if (!victim.spill(this)) {
+        // it cannot be spilled, keep it in memory without counting it
+        forget(victim);
+      }
+    }
+  }
+
+  /**
+   * Return the data the policy spills first
+   *
+   * @return The data to spill
+   */
+  private FileData choose() {
+    if (policy == Policy.LRU) {
+      return in_memory.keySet().iterator().next();
+    }
+    FileData largest = null;
+    long largest_size = -1;
+    for (Map.Entry<FileData, Long> entry : sizes.entrySet()) {
+      if (entry.getValue() > largest_size) {
+        largest = entry.getKey();
+        largest_size = entry.getValue();
+      }
+    }
+    return largest;
+  }
+
+  /**
+   * Write the bytes to a new spill file
+   *
+   * @param bytes The bytes to write
+   * @return The spill file, null if it could not be written
+   */
+  Path write(byte[] bytes) {
+    Path file = directory.resolve("spill-" + next_file++ + ".bin");
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      failed_count++;
+      delete(file, -1);
+      return null;
+    }
+    written_bytes += bytes.length;
+    disk_bytes += bytes.length;
+    disk_files++;
+    spilled_files++;
+    return file;
+  }
+
+  /**
+   * Read the bytes of a spill file back, and delete the file
+   *
+   * @param file The spill file
+   * @param length Number of bytes in the file
+   * @return The bytes
+   */
+  byte[] read(Path file, long length) {
+    ByteBuffer buffer = ByteBuffer.allocate((int) length);
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ)) {
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "The data of the file could not be read back", e);
+    }
+    if (buffer.hasRemaining()) {
+      throw new IllegalStateException("The spill file " + file + " is cut");
+    }
+    read_count++;
+    read_bytes += length;
+    delete(file, length);
+    return buffer.array();
+  }
+
+  /**
+   * Keep a spill file until a frozen copy reading it is released, even if
+   * the data is read back or released meanwhile
+   *
+   * @param file The spill file
+   */
+  void pin(Path file) {
+    Integer count = pins.get(file);
+    pins.put(file, count == null ? 1 : count + 1);
+  }
+
+  /**
+   * Stop keeping a spill file for a frozen copy, the file is deleted if it
+   * is no longer needed and no other copy reads it
+   *
+   * @param file The spill file
+   */
+  void unpin(Path file) {
+    int count = pins.get(file) - 1;
+    if (count > 0) {
+      pins.put(file, count);
+      return;
+    }
+    pins.remove(file);
+    Long length = unneeded.remove(file);
+    if (length != null) {
+      delete(file, length);
+    }
+  }
+
+  /**
+   * Write the bytes of a spill file to a stream, without reading them back
+   * into memory. Nothing is counted, so it can be called by another thread
+   * while the file is pinned.
+   *
+   * @param file The spill file
+   * @param length Number of bytes in the file
+   * @param out The stream
+   * @throws IOException If the file cannot be read or is cut
+   */
+  static void transferTo(Path file, long length, OutputStream out)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, 1 << 16));
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ)) {
+      for (long done = 0; done < length;) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), length - done));
+        if (channel.read(buffer) < 0) {
+          throw new IOException("The spill file " + file + " is cut");
+        }
+        out.write(buffer.array(), 0, buffer.position());
+        done += buffer.position();
+      }
+    }
+  }
+
+  /**
+   * Delete a spill file once its data is not needed anymore, or once the
+   * frozen copies reading it are released
+   *
+   * @param file The spill file
+   * @param length Number of bytes in the file, or -1 if it was not written
+   */
+  void delete(Path file, long length) {
+    if (pins.containsKey(file)) {
+      unneeded.put(file, length);
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // the file is left behind in the spill directory
+    }
+    if (length >= 0) {
+      disk_bytes -= length;
+      disk_files--;
+      spilled_files--;
+    }
+  }
+
+  /**
+   * Return the directory the data is spilled to
+   *
+   * @return The spill directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Return the number of bytes of data kept in memory before data is
+   * spilled
+   *
+   * @return The budget in bytes
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * Return how the data spilled first is chosen
+   *
+   * @return The policy
+   */
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Return the number of bytes of data kept in memory
+   *
+   * @return Number of bytes in memory
+   */
+  public long getMemoryBytes() {
+    return memory_bytes;
+  }
+
+  /**
+   * Return the number of files whose data is on disk
+   *
+   * @return Number of spill files
+   */
+  public long getDiskFiles() {
+    return disk_files;
+  }
+
+  /**
+   * Return the number of bytes of data on disk
+   *
+   * @return Number of bytes on disk
+   */
+  public long getDiskBytes() {
+    return disk_bytes;
+  }
+
+  /**
+   * Return the number of bytes written to spill files
+   *
+   * @return Number of bytes written
+   */
+  public long getWrittenBytes() {
+    return written_bytes;
+  }
+
+  /**
+   * Return the number of times data was read back from disk
+   *
+   * @return Number of reads
+   */
+  public long getReadCount() {
+    return read_count;
+  }
+
+  /**
+   * Return the number of bytes read back from disk
+   *
+   * @return Number of bytes read
+   */
+  public long getReadBytes() {
+    return read_bytes;
+  }
+
+  /**
+   * Return the number of times data could not be written to disk
+   *
+   * @return Number of failed spills
+   */
+  public long getFailedCount() {
+    return failed_count;
+  }
+}
@@ -31,15 +31,18 @@ public class FileSystem {
   private Folder currFolder;
 
   /**
-   * Exceptions used in this class
+   * Exceptions used in this class, they are thrown again and again so they
+   * do not record a stack trace
    */
   private IncorrectContentTypeException incorrect_content_type_exception =
-      new IncorrectContentTypeException();
+      new IncorrectContentTypeException(
+          "Invalid operation on this content type", null, false, false);
   private InvalidPathException invalid_path_exception =
-      new InvalidPathException("Error: Invalid path entered");
+      new InvalidPathException("Error: Invalid path entered", null, false,
+          false);
   private InvalidNameException invalid_name_exception =
       new InvalidNameException("Error: Name of a file contains invalid "
-          + "characters: !@$&*()?:[]\"<>'`|={}\\/,;");
+          + "characters: !@$&*()?:[]\"<>'`|={}\\/,;", null, false, false);
 
   /**
    * The root Folder object
@@ -52,9 +55,19 @@ public class FileSystem {
   private final String SLASH = "/";
 
   /**
-   * The string of all invalid characters
+   * Maximum number of paths kept in the path cache
    */
-  private final String INVALID_CHAR = "/!@$&*()?:[]\"<>'`|={}\\,;";
+  private final int PATH_CACHE_SIZE = 4096;
+
+  /**
+   * Cache of the contents found at recently resolved paths
+   */
+  private PathCache pathCache;
+
+  /**
+   * The stack of directories of the shell, emptied when the tree is replaced
+   */
+  private DirectoryStack dirStack;
 
   /**
    * Default Constructor
@@ -65,6 +78,7 @@ public class FileSystem {
     currFolder = root;
     // Current path is the root directory
     currPath = SLASH;
+    pathCache = new PathCache(PATH_CACHE_SIZE);
   }
   
   /**
@@ -91,6 +105,10 @@ public class FileSystem {
   public void makeDirectory(String path) throws InvalidNameException,
       InvalidPathException, HasSameContentNameException {
 
+    // a path that could not be normalized has no parent folder
+    if (!path.startsWith(SLASH)) {
+      throw invalid_path_exception;
+    }
     // create a new folder
     Folder new_folder = null;
     // create a target location for the new folder
@@ -110,6 +128,7 @@ public class FileSystem {
     if (isValidName(new_folder.getName())) {
       // Add the file if the name contains no invalid characters
       adding_location.addContent(new_folder);
+      Journal.recordMakeDirectory(new_folder.getPath());
     } else {
       throw invalid_name_exception;
     }
@@ -119,12 +138,17 @@ public class FileSystem {
    * Create a file at the current directory with the name of file_name
    * 
    * @param path The full path of where the file will be created
+   * @return The new file
    * @throws InvalidPathException
    * @throws HasSameContentNameException
    * @throws InvalidNameException
    */
-  public void makeFile(String path) throws InvalidPathException,
+  public File makeFile(String path) throws InvalidPathException,
       HasSameContentNameException, InvalidNameException {
+    // a path that could not be normalized has no parent folder
+    if (!path.startsWith(SLASH)) {
+      throw invalid_path_exception;
+    }
     boolean is_valid = isValidName(path.substring(path.lastIndexOf("/") + 1));
     if (!is_valid) {
       throw invalid_name_exception;
@@ -139,6 +163,8 @@ public class FileSystem {
 
     // add the file to the folder
     parent.addContent(new_file);
+    Journal.recordMakeFile(new_file.getPath());
+    return new_file;
   }
 
   /**
@@ -171,18 +197,7 @@ public class FileSystem {
    * @throws InvalidPathException
    */
   public Content getPathContent(String path) throws InvalidPathException {
-    String parent_path = path.substring(0, path.lastIndexOf(SLASH));
-    String file_name = path.substring(path.lastIndexOf(SLASH) + 1);
-    Folder parent = getDirectory(parent_path);
-    Content wanted;
-    // if the parent is at root and there is nothing else to search
-    if (parent.equals(getRoot()) && file_name.equals("")) {
-      // set wanted to parent
-      wanted = parent;
-    } else {
-      // else get the content in the parent folder
-      wanted = parent.getContent(file_name);
-    }
+    Content wanted = resolve(path);
     // if nothing is found, throw an invalid path exception
     if (wanted == null) {
       throw invalid_path_exception;
@@ -198,63 +213,198 @@ public class FileSystem {
    * @throws InvalidPathException
    */
   private Folder getDirectory(String path) throws InvalidPathException {
-    Folder final_dir = getRoot();
+    // the empty path is the parent of the directories at root
+    if (path.equals("")) {
+      return getRoot();
+    }
+    Content wanted = resolve(path);
+    // if the content is not found or is not a folder object
+    if (!(wanted instanceof Folder)) {
+      throw invalid_path_exception;
+    }
+    return (Folder) wanted;
+  }
 
-    // if it is a relative path
-    if (path.length() > currPath.length()
-        && path.equals(path.substring(0, currPath.length()))) {
+  /**
+   * Return the result of looking up the content at the given path, without
+   * throwing an exception if there is none
+   * 
+   * @param path The full path of the content wanted
+   * @return The content at the given path and the status of the lookup
+   */
+  public Lookup lookup(String path) {
+    Content wanted = resolve(path);
+    return wanted == null ? Lookup.NOT_FOUND : Lookup.found(wanted);
+  }
 
-      int path_mod = 1;
-      if (currPath.equals(SLASH)) {
-        path_mod = 0;
-      }
-      // get the path after the current path
-      String sub_path = path.substring(currPath.length() + path_mod);
-      String[] directories = sub_path.split(SLASH);
+  /**
+   * Return the result of looking up the File at the given path, without
+   * throwing an exception if there is none
+   * 
+   * @param path The full path of the file wanted
+   * @return The file at the given path and the status of the lookup
+   */
+  public Lookup lookupFile(String path) {
+    Content wanted = resolve(path);
+    if (wanted == null) {
+      return Lookup.NOT_FOUND;
+    }
+    return wanted instanceof File ? Lookup.found(wanted) : Lookup.NOT_A_FILE;
+  }
 
-      if (directories.length == 1) {
-        final_dir = (Folder) currFolder.getContent(sub_path);
-      }
-      // If it moves into directories
-      else {
-        final_dir = getSubDirectory(currFolder, directories, 0);
-      }
+  /**
+   * Return the result of looking up the Folder at the given path, without
+   * throwing an exception if there is none
+   * 
+   * @param path The full path of the folder wanted
+   * @return The folder at the given path and the status of the lookup
+   */
+  public Lookup lookupFolder(String path) {
+    Content wanted = resolve(path);
+    if (wanted == null) {
+      return Lookup.NOT_FOUND;
     }
-    // If it is a full path
-    else if (!path.equals("")) {
-      String[] directories = path.substring(1).split(SLASH);
-      final_dir = getSubDirectory(root, directories, 0);
+    return wanted instanceof Folder ? Lookup.found(wanted)
+        : Lookup.NOT_A_FOLDER;
+  }
+
+  /**
+   * Throw the exception for the status of the given lookup, nothing is thrown
+   * if the lookup found what it wanted. It lets a command report a failed
+   * lookup the same way the get methods do.
+   * 
+   * @param lookup The result of the lookup
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  public void raiseLookupError(Lookup lookup)
+      throws InvalidPathException, IncorrectContentTypeException {
+    if (lookup.getStatus() == LookupStatus.NOT_FOUND) {
+      throw invalid_path_exception;
+    }
+    if (!lookup.isFound()) {
+      throw incorrect_content_type_exception;
     }
-    return final_dir;
   }
 
   /**
-   * Return the folder object with a given path starting at current directory.
+   * Return a handle to the content at the given path. The handle keeps
+   * pointing at the content when it is renamed or moved, so it can be used
+   * again without looking up the path.
    * 
-   * @param curr the current working folder
-   * @param path the path to change to
-   * @param mod 1 if current directory is at root, 0 other wise
-   * @return
+   * @param path The full path of the content wanted
+   * @return A handle to the content at the given path
    * @throws InvalidPathException
    */
-  private Folder getSubDirectory(Folder curr, String[] path, int mod)
-      throws InvalidPathException {
-    Folder destination = curr;
-    for (int i = 0; i < path.length - mod; i++) {
+  public ContentHandle open(String path) throws InvalidPathException {
+    return new ContentHandle(this, getPathContent(path));
+  }
 
-      try {
-        destination = (Folder) destination.getContent(path[i]);
+  /**
+   * Return true iff the content is in this file system, that is, its
+   * folders lead up to the root
+   * 
+   * @param content The content to be checked
+   * @return true if the content is in the file system, false otherwise
+   */
+  public boolean contains(Content content) {
+    if (!content.isLive()) {
+      // the content was removed for good
+      return false;
+    }
+    Content top = content;
+    while (top.getParent() != null) {
+      top = top.getParent();
+    }
+    return top.getInode() == getRoot().getInode();
+  }
+
+  /**
+   * Return the content at the given full path, using the path cache for the
+   * path and the closest of its parent paths that is cached.
+   * 
+   * @param path The full path of the content wanted
+   * @return Content at the given path, null if there is none
+   */
+  Content resolve(String path) {
+    if (path.equals(SLASH)) {
+      return getRoot();
+    }
+    if (!path.startsWith(SLASH)) {
+      return null;
+    }
+    Content cached = pathCache.get(path);
+    // only a path with no content needs a second look to tell a hit
+    if (cached != null || pathCache.contains(path)) {
+      return cached;
+    }
+    // find the closest parent path that is cached
+    Content found = getRoot();
+    int end = path.lastIndexOf(SLASH);
+    while (end > 0) {
+      String parent = path.substring(0, end);
+      cached = pathCache.peek(parent);
+      if (cached != null || pathCache.contains(parent)) {
+        found = cached;
+        break;
       }
-      // if the content is not a folder object
-      catch (ClassCastException e) {
-        throw invalid_path_exception;
+      end = path.lastIndexOf(SLASH, end - 1);
+    }
+    // walk down from there, caching every path on the way
+    while (end < path.length()) {
+      int next = path.indexOf(SLASH, end + 1);
+      if (next < 0) {
+        next = path.length();
       }
-      // if there is no folder object found
-      if (destination == null) {
-        throw invalid_path_exception;
+      if (found instanceof Folder) {
+        found = ((Folder) found).getContent(path.substring(end + 1, next));
+      } else {
+        found = null;
       }
+      pathCache.put(path.substring(0, next), found);
+      end = next;
+    }
+    return found;
+  }
+
+  /**
+   * Remove the given path and every path below it from the path cache. It
+   * must be called whenever a content is added, removed or renamed.
+   * 
+   * @param path Full path whose content has changed
+   */
+  public void invalidatePath(String path) {
+    pathCache.invalidate(path);
+  }
+
+  /**
+   * Remove the given path from the path cache of the file system in use, if
+   * there is one.
+   * 
+   * @param path Full path whose content has changed
+   */
+  static void invalidateCachedPath(String path) {
+    if (referencedSystem != null) {
+      referencedSystem.invalidatePath(path);
     }
-    return destination;
+  }
+
+  /**
+   * Return the number of path lookups answered by the path cache
+   * 
+   * @return Number of path cache hits
+   */
+  public long getPathCacheHits() {
+    return pathCache.getHits();
+  }
+
+  /**
+   * Return the number of path lookups that had to walk the folders
+   * 
+   * @return Number of path cache misses
+   */
+  public long getPathCacheMisses() {
+    return pathCache.getMisses();
   }
 
   /**
@@ -266,14 +416,10 @@ public class FileSystem {
    */
   public File getFile(String path)
       throws InvalidPathException, IncorrectContentTypeException {
-    Content wanted = getPathContent(path);
-
-    // Check if the content received is a File object
-    if (!(wanted instanceof File)) {
-      throw incorrect_content_type_exception;
-    }
-
-    return (File) wanted;
+    Lookup wanted = lookupFile(path);
+    // Check if a File object was found
+    raiseLookupError(wanted);
+    return wanted.getFile();
   }
 
   /**
@@ -286,12 +432,10 @@ public class FileSystem {
    */
   public Folder getFolder(String path)
       throws IncorrectContentTypeException, InvalidPathException {
-    Content wanted = getPathContent(path);
-    // Check if the content received is a Folder object
-    if (!(wanted instanceof Folder)) {
-      throw incorrect_content_type_exception;
-    }
-    return (Folder) wanted;
+    Lookup wanted = lookupFolder(path);
+    // Check if a Folder object was found
+    raiseLookupError(wanted);
+    return wanted.getFolder();
   }
 
   /**
@@ -304,25 +448,82 @@ public class FileSystem {
    */
   public Folder getParentFolder(Content content)
       throws IncorrectContentTypeException, InvalidPathException {
-    
-    String path = content.getPath();
-    String name = content.getName();
-    int index = path.indexOf(name);
-    path = path.substring(0, index - 1);
-    Folder wanted;
-    
-    // if the path is not empty, get the folder at path
-    if (!path.equals("")) {
-      wanted = this.getFolder(path);
-    }
-    // Otherwise return the root
-    else {
-      wanted = this.getRoot();
+    Folder wanted = content.getParent();
+    // the root and contents not in a folder have no parent
+    if (wanted == null) {
+      throw invalid_path_exception;
     }
-
     return wanted;
   }
 
+  /**
+   * Move a content into a folder under a new name. The content is taken out
+   * of its folder and added to the new one, so nothing is copied and the
+   * paths of everything inside it follow.
+   * 
+   * @param content The content to be moved
+   * @param new_parent The folder to move the content into
+   * @param new_name The name of the content once it is moved
+   * @throws InvalidPathException
+   * @throws HasSameContentNameException
+   * @throws InvalidNameException
+   */
+  public void moveContent(Content content, Folder new_parent, String new_name)
+      throws InvalidPathException, HasSameContentNameException,
+      InvalidNameException {
+    Folder old_parent = content.getParent();
+    // the root and contents not in a folder cannot be moved
+    if (old_parent == null) {
+      throw invalid_path_exception;
+    }
+    // a folder cannot be moved into itself or a folder inside it
+    for (Content next = new_parent; next != null; next = next.getParent()) {
+      if (next.getInode() == content.getInode()) {
+        throw new InvalidPathException(
+            "Error: Cannot move directory into it sub directory");
+      }
+    }
+    if (!isValidName(new_name)) {
+      throw invalid_name_exception;
+    }
+    Content existing = new_parent.getContent(new_name);
+    if (existing != null && existing.getInode() == content.getInode()) {
+      return;
+    }
+    if (existing != null) {
+      throw new HasSameContentNameException("Error: Cannot move content, "
+          + "another content with the same name already exist");
+    }
+    String old_path = content.getPath();
+    // relink the content under its new parent
+    old_parent.unlinkContent(content.getName());
+    if (!content.getName().equals(new_name)) {
+      content.setName(new_name);
+    }
+    new_parent.addContent(content);
+    Journal.recordMove(old_path, new_parent.getPath(), new_name);
+    // the working directory may have been inside the moved content
+    setCurrPath(currFolder.getPath());
+  }
+
+  /**
+   * Add a copy of the content to a folder, under the same name
+   * 
+   * @param original The content to be copied
+   * @param new_location The folder the copy is added to
+   * @throws HasSameContentNameException
+   */
+  public void copyContent(Content original, Folder new_location)
+      throws HasSameContentNameException {
+    // make a copy of the content
+    Content copy = createCopy(original);
+    // Set the path for the copy
+    copy.changePath(new_location.getPath() + SLASH + copy.getName());
+    // Add the copy to new location
+    new_location.addContent(copy);
+    Journal.recordCopy(original.getPath(), new_location.getPath());
+  }
+
   /**
    * Create a copy of the content.
    * 
@@ -342,26 +543,7 @@ public class FileSystem {
    * @return True iff path exists, otherwise false
    */
   public boolean pathExist(String path) {
-    // if the path is at root, return true
-    if (path.equals(SLASH)) {
-      return true;
-    }
-    // get the root folder
-    Folder root = getRoot();
-    Content object = null;
-    String[] paths = path.split(SLASH);
-    int i = 1;
-    // keep looking for the next Folder, and check if it is a folder object
-    while (root instanceof Folder && i < paths.length - 1) {
-      root = (Folder) root.getContent(paths[i]);
-      i++;
-    }
-    // check if an content is found
-    if(paths.length != 1){
-    object = root.getContent(paths[i]);
-    }
-    
-    return object != null;
+    return resolve(path) != null;
   }
 
   /**
@@ -371,25 +553,7 @@ public class FileSystem {
    * @return true if the name is valid, false otherwise
    */
   private boolean isValidName(String name) {
-    // if the name contain noting
-    if (name.length() != 1) {
-      name = name.substring(1);
-    }
-
-    boolean is_valid = true;
-    int i = 0;
-    // keep checking for each character in the name
-    while (i < name.length() && is_valid) {
-      for (int j = 0; j < INVALID_CHAR.length(); j++) {
-        is_valid = !name.contains(INVALID_CHAR.substring(j, j + 1));
-        // if at any point the name has an invalid character, break the loop
-        if (!is_valid) {
-          break;
-        }
-      }
-      i++;
-    }
-    return is_valid && i != 0;
+    return PathNormalizer.isValidName(name);
   }
 
   /**
@@ -428,21 +592,59 @@ public class FileSystem {
     return this.currFolder;
   }
   
+  /**
+   * Set the stack of directories of the shell, it is emptied when the tree is
+   * reset or replaced
+   * 
+   * @param ds The DirectoryStack
+   */
+  public void setDirectoryStack(DirectoryStack ds) {
+    this.dirStack = ds;
+  }
+
   /**
    * Reset the fileSystem to contain nothing 
    */
   public void reset(){
+    // the data of every file is freed
+    root.release();
     root = new Folder(SLASH, SLASH);
+    pathCache.clear();
+    clearDirectoryStack();
+    setCurrFolder(root);
+    setCurrPath(root.getPath());
+  }
+
+  /**
+   * Replace the whole tree with the tree below the given root, the data of
+   * every file of the old tree is freed
+   * 
+   * @param new_root The root of the new tree, not in any folder
+   */
+  void replaceRoot(Folder new_root) {
+    root.release();
+    root = new_root;
+    pathCache.clear();
+    clearDirectoryStack();
     setCurrFolder(root);
     setCurrPath(root.getPath());
   }
 
+  /**
+   * Empty the stack of directories, none of them is in the new tree
+   */
+  private void clearDirectoryStack() {
+    if (dirStack != null) {
+      dirStack.clear();
+    }
+  }
+
   /**
    * Return the root folder object
    * 
    * @return ROOT
    */
-  private Folder getRoot() {
+  Folder getRoot() {
     return root;
   }
 
@@ -0,0 +1,814 @@
+package driver;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the whole tree of a file system, its folders, names and the data of
+ * its files, to a binary image on disk, and reads it back.
+ *
+ * The image starts with a magic number and the version of its format. The
+ * nodes follow from the root down, each folder followed by its contents: a
+ * node is its kind and its name, a folder adds its number of contents and a
+ * file adds its charset and its bytes. A name is written the first time it
+ * is used and referred to by its number after that. The image ends with a
+ * CRC32 checksum of everything before it.
+ *
+ * Both ways go through a buffer and a FileChannel, a buffer at a time, so
+ * the data of files is neither read nor written as one large string. A tree
+ * read from an image only replaces the tree of the file system once the
+ * whole image is read and its checksum matches.
+ *
+ * The tree can also be written as an indexed image, which is not read into
+ * memory but mapped, see MappedImage. Loading an image tells the two apart
+ * by their version.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileSystemImage {
+
+  /**
+   * The first four bytes of an image, "JSHI"
+   */
+  static final int MAGIC = 0x4A534849;
+
+  /**
+   * The version of the format written
+   */
+  static final int VERSION = 1;
+
+  /**
+   * Number of bytes read or written at a time
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Message of the error raised for an image that cannot be read
+   */
+  private static final String DAMAGED = "Error: The image is damaged";
+
+  /**
+   * The table holding every node
+   */
+  private static final InodeTable table = InodeTable.getTable();
+
+  /**
+   * The channel the image is read from or written to
+   */
+  private final FileChannel channel;
+
+  /**
+   * The bytes read from or waiting to be written to the channel
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * The checksum of the bytes read or written so far
+   */
+  private final CRC32 checksum;
+
+  /**
+   * Index in the buffer of the first byte read not added to the checksum yet
+   */
+  private int unchecked;
+
+  /**
+   * Number of nodes read or written
+   */
+  private long node_count;
+
+  /**
+   * Create an image over an open channel
+   *
+   * @param channel The channel
+   */
+  private FileSystemImage(FileChannel channel) {
+    this.channel = channel;
+    buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    checksum = new CRC32();
+  }
+
+  /**
+   * Write the whole tree of the file system to an image at the given path,
+   * replacing any file already there
+   *
+   * @param fileSys The file system
+   * @param path The path of the image on disk
+   * @return Number of nodes written
+   * @throws IOException If the image cannot be written
+   */
+  public static long save(FileSystem fileSys, String path) throws IOException {
+    return write(fileSys, path, false);
+  }
+
+  /**
+   * Write the whole tree of the file system to an indexed image at the given
+   * path, replacing any file already there. The image is read back in place
+   * by mapping it, see MappedImage.
+   *
+   * @param fileSys The file system
+   * @param path The path of the image on disk
+   * @return Number of nodes written
+   * @throws IOException If the image cannot be written
+   */
+  public static long saveMapped(FileSystem fileSys, String path)
+      throws IOException {
+    return write(fileSys, path, true);
+  }
+
+  /**
+   * Write the whole tree to a new file next to the given path, then move it
+   * over the file at the path, so an image mapped by this or another process
+   * is never changed while it is read
+   *
+   * @param fileSys The file system
+   * @param path The path of the image on disk
+   * @param indexed Whether to write an indexed image
+   * @return Number of nodes written
+   * @throws IOException If the image cannot be written
+   */
+  private static long write(FileSystem fileSys, String path, boolean indexed)
+      throws IOException {
+    Path target = Paths.get(path);
+    Path written = target.resolveSibling(target.getFileName() + ".tmp");
+    long count;
+    try (FileChannel channel = FileChannel.open(written,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      FileSystemImage image = new FileSystemImage(channel);
+      if (indexed) {
+        image.writeIndexedTree(fileSys.getRoot().getInode());
+      } else {
+        image.writeTree(fileSys.getRoot().getInode());
+      }
+      count = image.node_count;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(written);
+      throw e;
+    }
+    Files.move(written, target, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /**
+   * Replace the whole tree of the file system with the tree in the image at
+   * the given path. The tree of the file system is left as it is if the
+   * image cannot be read. An indexed image is mapped, and its folders are
+   * read from it when they are first used.
+   *
+   * @param fileSys The file system
+   * @param path The path of the image on disk
+   * @return Number of nodes in the image
+   * @throws IOException If the image cannot be read or is damaged
+   */
+  public static long load(FileSystem fileSys, String path) throws IOException {
+    Path source = Paths.get(path);
+    Folder root;
+    long count;
+    FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+    boolean mapped = false;
+    try {
+      FileSystemImage image = new FileSystemImage(channel);
+      // nothing is read yet
+      image.buffer.limit(0);
+      if (image.readInt() != MAGIC) {
+        throw new IOException("Error: The file is not a JShell image");
+      }
+      if (image.readInt() == MappedImage.VERSION) {
+        MappedImage indexed = new MappedImage(channel);
+        if (indexed.getKind(0) != InodeTable.FOLDER) {
+          throw new IOException(DAMAGED);
+        }
+        root = (Folder) Folder.mapNode(indexed, 0);
+        table.setLoosePath(root.getInode(), "/");
+        count = indexed.getNodeCount();
+        // the channel maps data that is split over two segments
+        mapped = true;
+      } else {
+        channel.position(0);
+        image = new FileSystemImage(channel);
+        image.buffer.limit(0);
+        root = image.readTree();
+        count = image.node_count;
+      }
+    } finally {
+      if (!mapped) {
+        channel.close();
+      }
+    }
+    // the journal records which image was loaded, it is read when replayed
+    long size = 0;
+    long sum = 0;
+    if (Journal.getActive() != null) {
+      size = Files.size(source);
+      sum = Journal.imageChecksum(source);
+    }
+    fileSys.replaceRoot(root);
+    Journal.recordLoad(source, size, sum);
+    return count;
+  }
+
+  /**
+   * Write the header, every node below the root, and the checksum
+   *
+   * @param root The inode of the root
+   * @throws IOException If the image cannot be written
+   */
+  private void writeTree(int root) throws IOException {
+    writeInt(MAGIC);
+    writeInt(VERSION);
+    HashMap<String, Integer> names = new HashMap<String, Integer>();
+    // the nodes left to write, a folder's contents come right after it
+    int[] stack = new int[64];
+    int depth = 0;
+    stack[depth++] = root;
+    while (depth > 0) {
+      int inode = stack[--depth];
+      byte kind = table.getKind(inode);
+      writeByte(kind);
+      writeName(table.getName(inode), names);
+      node_count++;
+      if (kind == InodeTable.FOLDER) {
+        // a copy that has not copied its contents reads the original's
+        int folder = Folder.contentsOf(inode);
+        writeInt(table.getChildCount(folder));
+        for (int child = table.getFirstChild(folder);
+            child != InodeTable.NONE; child = table.getNextSibling(child)) {
+          if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+          }
+          stack[depth++] = child;
+        }
+      } else if (kind == InodeTable.FILE) {
+        writeData(table.getData(inode), names);
+      }
+    }
+    flush();
+    // the checksum covers every byte before it
+    buffer.putLong(checksum.getValue());
+    flush();
+  }
+
+  /**
+   * Write the header, a record for every node below the root in breadth
+   * first order, the names, and the data of the files
+   *
+   * @param root The inode of the root
+   * @throws IOException If the image cannot be written
+   */
+  private void writeIndexedTree(int root) throws IOException {
+    // the nodes in the order of their records, and the first content of
+    // each folder
+    int[] order = new int[64];
+    int[] first_children = new int[64];
+    int count = 1;
+    order[0] = root;
+    HashMap<String, Integer> numbers = new HashMap<String, Integer>();
+    ArrayList<String> names = new ArrayList<String>();
+    for (int record = 0; record < count; record++) {
+      int inode = order[record];
+      number(table.getName(inode), numbers, names);
+      if (table.getKind(inode) == InodeTable.FOLDER) {
+        int[] children = sortedContents(Folder.contentsOf(inode));
+        if (count + children.length > order.length) {
+          int capacity = Math.max(order.length * 2, count + children.length);
+          order = Arrays.copyOf(order, capacity);
+          first_children = Arrays.copyOf(first_children, capacity);
+        }
+        first_children[record] = count;
+        System.arraycopy(children, 0, order, count, children.length);
+        count += children.length;
+      } else if (table.getKind(inode) == InodeTable.FILE) {
+        number(table.getData(inode).getCharset().name(), numbers, names);
+      }
+    }
+    node_count = count;
+    // where each part of the image starts
+    byte[][] encoded = new byte[names.size()][];
+    long name_bytes = 0;
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+      name_bytes += encoded[i].length;
+    }
+    long names_at =
+        MappedImage.HEADER_SIZE + (long) count * MappedImage.RECORD_SIZE;
+    long names_end = names_at + 4L * (names.size() + 1) + name_bytes;
+    if (name_bytes > 0xffffffffL) {
+      throw new IOException("Error: The names are too long for an image");
+    }
+    long data_at = (names_end + 7) & ~7L;
+    long[] starts = new long[count];
+    long end = data_at;
+    for (int record = 0; record < count; record++) {
+      if (table.getKind(order[record]) == InodeTable.FILE) {
+        long length = table.getData(order[record]).length();
+        long segment = MappedImage.SEGMENT_SIZE;
+        if (length > 0 && length <= segment
+            && end / segment != (end + length - 1) / segment) {
+          // data that fits in a segment is not split over two
+          end = (end / segment + 1) * segment;
+        }
+        starts[record] = end;
+        end += length;
+      }
+    }
+    // the header is written last, once the checksum is known
+    writeZeros(MappedImage.HEADER_SIZE);
+    flush();
+    checksum.reset();
+    for (int record = 0; record < count; record++) {
+      int inode = order[record];
+      byte kind = table.getKind(inode);
+      writeByte(kind);
+      writeZeros(3);
+      writeInt(numbers.get(table.getName(inode)));
+      if (kind == InodeTable.FOLDER) {
+        writeInt(table.getChildCount(Folder.contentsOf(inode)));
+        writeInt(first_children[record]);
+        writeLong(0);
+        writeLong(0);
+      } else if (kind == InodeTable.FILE) {
+        FileData data = table.getData(inode);
+        writeInt(numbers.get(data.getCharset().name()));
+        writeInt(0);
+        writeLong(starts[record]);
+        writeLong(data.length());
+      } else {
+        writeZeros(MappedImage.RECORD_SIZE - 8);
+      }
+    }
+    int offset = 0;
+    writeInt(offset);
+    for (byte[] name : encoded) {
+      offset += name.length;
+      writeInt(offset);
+    }
+    for (byte[] name : encoded) {
+      writeBytes(name);
+    }
+    writeZeros(data_at - names_end);
+    flush();
+    long index_checksum = checksum.getValue();
+    long at = data_at;
+    for (int record = 0; record < count; record++) {
+      if (table.getKind(order[record]) == InodeTable.FILE) {
+        writeZeros(starts[record] - at);
+        FileData data = table.getData(order[record]);
+        writeData(data);
+        at = starts[record] + data.length();
+      }
+    }
+    flush();
+    ByteBuffer header = ByteBuffer.allocate(MappedImage.HEADER_SIZE);
+    header.putInt(MAGIC).putInt(MappedImage.VERSION).putInt(count)
+        .putInt(names.size()).putLong(names_at).putLong(data_at)
+        .putLong(index_checksum).putLong(end);
+    header.clear();
+    while (header.hasRemaining()) {
+      channel.write(header, header.position());
+    }
+  }
+
+  /**
+   * Return the contents of the folder in alphabetical order
+   *
+   * @param folder The inode of the folder
+   * @return The inodes of the contents
+   */
+  private static int[] sortedContents(int folder) {
+    Integer[] children = new Integer[table.getChildCount(folder)];
+    int count = 0;
+    for (int child = table.getFirstChild(folder); child != InodeTable.NONE;
+        child = table.getNextSibling(child)) {
+      children[count++] = child;
+    }
+    Arrays.sort(children, new Comparator<Integer>() {
+      public int compare(Integer a, Integer b) {
+        return table.getName(a).compareTo(table.getName(b));
+      }
+    });
+    int[] inodes = new int[count];
+    for (int i = 0; i < count; i++) {
+      inodes[i] = children[i];
+    }
+    return inodes;
+  }
+
+  /**
+   * Give the name a number, if it has none yet
+   *
+   * @param name The name
+   * @param numbers The number of each name
+   * @param names The names by their number
+   */
+  private static void number(String name, HashMap<String, Integer> numbers,
+      ArrayList<String> names) {
+    if (!numbers.containsKey(name)) {
+      numbers.put(name, names.size());
+      names.add(name);
+    }
+  }
+
+  /**
+   * Write the given number of zero bytes
+   *
+   * @param count Number of bytes
+   * @throws IOException If the image cannot be written
+   */
+  private void writeZeros(long count) throws IOException {
+    while (count > 0) {
+      reserve(1);
+      int zeros = (int) Math.min(count, buffer.remaining());
+      int at = buffer.position();
+      Arrays.fill(buffer.array(), at, at + zeros, (byte) 0);
+      buffer.position(at + zeros);
+      count -= zeros;
+    }
+  }
+
+  /**
+   * Write the bytes, a buffer at a time
+   *
+   * @param bytes The bytes
+   * @throws IOException If the image cannot be written
+   */
+  private void writeBytes(byte[] bytes) throws IOException {
+    int at = 0;
+    while (at < bytes.length) {
+      reserve(1);
+      int count = Math.min(bytes.length - at, buffer.remaining());
+      buffer.put(bytes, at, count);
+      at += count;
+    }
+  }
+
+  /**
+   * Write the bytes of the data of a file, a window at a time
+   *
+   * @param data The data
+   * @throws IOException If the image cannot be written
+   */
+  private void writeData(FileData data) throws IOException {
+    long length = data.length();
+    for (long at = 0; at < length; at += FileDataReader.WINDOW_SIZE) {
+      writeBytes(data.getBytes(at,
+          Math.min(length, at + FileDataReader.WINDOW_SIZE)));
+    }
+  }
+
+  /**
+   * Write the charset and the bytes of the data of a file, a window at a
+   * time
+   *
+   * @param data The data
+   * @param names The number of each name written so far
+   * @throws IOException If the image cannot be written
+   */
+  private void writeData(FileData data, HashMap<String, Integer> names)
+      throws IOException {
+    writeName(data.getCharset().name(), names);
+    writeLong(data.length());
+    writeData(data);
+  }
+
+  /**
+   * Write the number of a name, followed by the name itself the first time
+   * it is written
+   *
+   * @param name The name
+   * @param names The number of each name written so far
+   * @throws IOException If the image cannot be written
+   */
+  private void writeName(String name, HashMap<String, Integer> names)
+      throws IOException {
+    Integer number = names.get(name);
+    if (number != null) {
+      writeInt(number);
+      return;
+    }
+    writeInt(names.size());
+    names.put(name, names.size());
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > BUFFER_SIZE) {
+      throw new IOException("Error: The name " + name + " is too long");
+    }
+    writeInt(bytes.length);
+    reserve(bytes.length);
+    buffer.put(bytes);
+  }
+
+  /**
+   * Make room for the given number of bytes in the buffer
+   *
+   * @param count Number of bytes
+   * @throws IOException If the image cannot be written
+   */
+  private void reserve(int count) throws IOException {
+    if (buffer.remaining() < count) {
+      flush();
+    }
+  }
+
+  /**
+   * Write a byte
+   *
+   * @param value The byte
+   * @throws IOException If the image cannot be written
+   */
+  private void writeByte(byte value) throws IOException {
+    reserve(1);
+    buffer.put(value);
+  }
+
+  /**
+   * Write an int
+   *
+   * @param value The int
+   * @throws IOException If the image cannot be written
+   */
+  private void writeInt(int value) throws IOException {
+    reserve(4);
+    buffer.putInt(value);
+  }
+
+  /**
+   * Write a long
+   *
+   * @param value The long
+   * @throws IOException If the image cannot be written
+   */
+  private void writeLong(long value) throws IOException {
+    reserve(8);
+    buffer.putLong(value);
+  }
+
+  /**
+   * Add the bytes in the buffer to the checksum and write them to the
+   * channel
+   *
+   * @throws IOException If the image cannot be written
+   */
+  private void flush() throws IOException {
+    checksum.update(buffer.array(), 0, buffer.position());
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Read the header, every node below the root, and check the checksum. The
+   * nodes read are freed again if the image cannot be read.
+   *
+   * @return The root of the tree read
+   * @throws IOException If the image cannot be read or is damaged
+   */
+  private Folder readTree() throws IOException {
+    if (readInt() != MAGIC) {
+      throw new IOException("Error: The file is not a JShell image");
+    }
+    int version = readInt();
+    if (version != VERSION) {
+      throw new IOException("Error: Unsupported image version " + version);
+    }
+    ArrayList<String> names = new ArrayList<String>();
+    Folder root = null;
+    try {
+      if (readByte() != InodeTable.FOLDER) {
+        throw new IOException(DAMAGED);
+      }
+      root = new Folder("/", readName(names));
+      node_count++;
+      // the folders still missing contents, with how many they miss
+      int[] folders = new int[64];
+      int[] missing = new int[64];
+      int depth = 0;
+      int count = readCount();
+      if (count > 0) {
+        folders[depth] = root.getInode();
+        missing[depth++] = count;
+      }
+      while (depth > 0) {
+        Content node = readNode(names);
+        node_count++;
+        if (!table.addChild(folders[depth - 1], node.getInode())) {
+          node.release();
+          throw new IOException(DAMAGED);
+        }
+        if (--missing[depth - 1] == 0) {
+          depth--;
+        }
+        if (node instanceof Folder) {
+          count = readCount();
+          if (count > 0) {
+            if (depth == folders.length) {
+              folders = Arrays.copyOf(folders, depth * 2);
+              missing = Arrays.copyOf(missing, depth * 2);
+            }
+            folders[depth] = node.getInode();
+            missing[depth++] = count;
+          }
+        }
+      }
+      // the checksum covers every byte before it
+      check();
+      if (readLong() != checksum.getValue()) {
+        throw new IOException("Error: The checksum of the image does not "
+            + "match, the image is damaged");
+      }
+      buffer.compact();
+      if (buffer.position() > 0 || channel.read(buffer) > 0) {
+        // more bytes follow the checksum
+        throw new IOException(DAMAGED);
+      }
+      return root;
+    } catch (IOException | RuntimeException e) {
+      if (root != null) {
+        root.release();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Read a node other than the root
+   *
+   * @param names The names read so far
+   * @return The node, not in any folder yet
+   * @throws IOException If the image cannot be read or is damaged
+   */
+  private Content readNode(ArrayList<String> names) throws IOException {
+    byte kind = readByte();
+    String name = readName(names);
+    switch (kind) {
+      case InodeTable.FOLDER:
+        return new Folder(null, name);
+      case InodeTable.FILE:
+        return new File(null, name, readData(names));
+      case InodeTable.CONTENT:
+        return new Content(null, name, InodeTable.CONTENT);
+      default:
+        throw new IOException(DAMAGED);
+    }
+  }
+
+  /**
+   * Read the charset and the bytes of the data of a file
+   *
+   * @param names The names read so far
+   * @return The data
+   * @throws IOException If the image cannot be read or is damaged
+   */
+  private FileData readData(ArrayList<String> names) throws IOException {
+    Charset charset;
+    try {
+      charset = Charset.forName(readName(names));
+    } catch (IllegalArgumentException e) {
+      throw new IOException(DAMAGED);
+    }
+    long length = readLong();
+    if (length < 0 || length > Integer.MAX_VALUE - 8) {
+      throw new IOException(DAMAGED);
+    }
+    return new FileData(readBytes((int) length), charset);
+  }
+
+  /**
+   * Read a name, by its number or as it is the first time it is read
+   *
+   * @param names The names read so far
+   * @return The name
+   * @throws IOException If the image cannot be read or is damaged
+   */
+  private String readName(ArrayList<String> names) throws IOException {
+    int number = readInt();
+    if (number >= 0 && number < names.size()) {
+      return names.get(number);
+    }
+    if (number != names.size()) {
+      throw new IOException(DAMAGED);
+    }
+    int length = readInt();
+    if (length < 0 || length > BUFFER_SIZE) {
+      throw new IOException(DAMAGED);
+    }
+    String name = new String(readBytes(length), StandardCharsets.UTF_8);
+    names.add(name);
+    return name;
+  }
+
+  /**
+   * Read the number of contents of a folder
+   *
+   * @return Number of contents
+   * @throws IOException If the image cannot be read or is damaged
+   */
+  private int readCount() throws IOException {
+    int count = readInt();
+    if (count < 0) {
+      throw new IOException(DAMAGED);
+    }
+    return count;
+  }
+
+  /**
+   * Read the given number of bytes
+   *
+   * @param length Number of bytes
+   * @return The bytes
+   * @throws IOException If the image cannot be read
+   */
+  private byte[] readBytes(int length) throws IOException {
+    byte[] bytes = new byte[length];
+    int at = 0;
+    while (at < length) {
+      if (!buffer.hasRemaining()) {
+        fill(1);
+      }
+      int count = Math.min(length - at, buffer.remaining());
+      buffer.get(bytes, at, count);
+      at += count;
+    }
+    return bytes;
+  }
+
+  /**
+   * Read a byte
+   *
+   * @return The byte
+   * @throws IOException If the image cannot be read
+   */
+  private byte readByte() throws IOException {
+    fill(1);
+    return buffer.get();
+  }
+
+  /**
+   * Read an int
+   *
+   * @return The int
+   * @throws IOException If the image cannot be read
+   */
+  private int readInt() throws IOException {
+    fill(4);
+    return buffer.getInt();
+  }
+
+  /**
+   * Read a long
+   *
+   * @return The long
+   * @throws IOException If the image cannot be read
+   */
+  private long readLong() throws IOException {
+    fill(8);
+    return buffer.getLong();
+  }
+
+  /**
+   * Read from the channel until the buffer holds at least the given number
+   * of bytes not read yet
+   *
+   * @param count Number of bytes
+   * @throws IOException If the image ends first
+   */
+  private void fill(int count) throws IOException {
+    if (buffer.remaining() >= count) {
+      return;
+    }
+    check();
+    buffer.compact();
+    while (buffer.position() < count) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Error: The image ends too early");
+      }
+    }
+    buffer.flip();
+    unchecked = 0;
+  }
+
+  /**
+   * Add the bytes read from the buffer so far to the checksum
+   */
+  private void check() {
+    checksum.update(buffer.array(), unchecked, buffer.position() - unchecked);
+    unchecked = buffer.position();
+  }
+}
@@ -0,0 +1,110 @@
+package driver;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A view of the data of a file in Latin-1 as a sequence of characters, where
+ * each byte is one character. Characters are read from a window of bytes
+ * that moves along the data, so no String of the whole data is made.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileText implements CharSequence {
+
+  /**
+   * The data viewed
+   */
+  private FileData data;
+
+  /**
+   * Index in the data of the first character of the view
+   */
+  private long start;
+
+  /**
+   * Number of characters in the view
+   */
+  private int length;
+
+  /**
+   * The bytes around the last character read
+   */
+  private byte[] window;
+
+  /**
+   * Index in the data of the first byte of the window
+   */
+  private long window_start;
+
+  /**
+   * Default Constructor
+   *
+   * @param data The data viewed, in Latin-1
+   * @param start Index in the data of the first character of the view
+   * @param end Index in the data after the last character of the view
+   */
+  public FileText(FileData data, long start, long end) {
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Data is too large for one view");
+    }
+    this.data = data;
+    this.start = start;
+    this.length = (int) (end - start);
+    this.window = new byte[0];
+  }
+
+  /**
+   * Return the number of characters in the view
+   *
+   * @return Number of characters
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Return the character at the given index of the view
+   *
+   * @param index Index of the character
+   * @return The character
+   */
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index: " + index);
+    }
+    long at = start + index;
+    if (at < window_start || at >= window_start + window.length) {
+      // move the window so the character is in it
+      window_start = Math.max(start, at - FileDataReader.WINDOW_SIZE / 2);
+      window = data.getBytes(window_start, Math.min(start + length,
+          window_start + FileDataReader.WINDOW_SIZE));
+    }
+    return (char) (window[(int) (at - window_start)] & 0xFF);
+  }
+
+  /**
+   * Return a view of a part of this view
+   *
+   * @param begin Index of the first character of the part
+   * @param end Index after the last character of the part
+   * @return The view of the part
+   */
+  public CharSequence subSequence(int begin, int end) {
+    if (begin < 0 || end > length || begin > end) {
+      throw new IndexOutOfBoundsException(
+          "Start: " + begin + ", End: " + end);
+    }
+    return new FileText(data, start + begin, start + end);
+  }
+
+  /**
+   * Return the characters of the view as a String
+   *
+   * @return The characters
+   */
+  public String toString() {
+    return new String(data.getBytes(start, start + length),
+        StandardCharsets.ISO_8859_1);
+  }
+}
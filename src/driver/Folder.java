@@ -1,159 +1,470 @@
 package driver;
 
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
 import exception.HasSameContentNameException;
 import exception.InvalidPathException;
 
 /**
- * Represents a folder content. It holds a list of other content objects.
- * 
+ * Represents a folder content. It is a view of a folder node in the
+ * InodeTable, whose children are linked to it in the table.
+ *
+ * A copy of a folder does not copy anything at first. Its contents are read
+ * from the original, and a content looked up by name is copied alone. The
+ * rest of a level is copied only before the copy or anything below it is
+ * changed. Before the original or anything below it is changed, the copies
+ * waiting on the folders above the change are made, so a copy only ever
+ * sees the contents as they were when it was made.
+ *
+ * A folder read from a MappedImage reads its contents from the image the
+ * first time they are used, one level at a time as well.
+ *
  * @author Sin Chi Chiu
  */
 public class Folder extends Content {
+
   /**
-   * The list of contents in this Folder object
+   * Number of copies in all folders that have not copied their contents yet
    */
-  private ArrayList<Content> list_contents;
+  private static int pending_count = 0;
 
   /**
    * Default Constructor.
-   * 
+   *
    * @param path The full path of the folder
    * @param name The name of the folder
    * @param parent The parent folder of this folder
    */
   public Folder(String path, String name) {
-    super(path, name);
-    list_contents = new ArrayList<Content>();
+    super(path, name, InodeTable.FOLDER);
   }
 
   /**
-   * Return a list of all contents(Files and Folders) stored in this object
-   * 
+   * Create a view of a folder already in the inode table
+   *
+   * @param inode The inode of the folder
+   * @param generation The generation of the inode
+   */
+  Folder(int inode, int generation) {
+    super(inode, generation);
+  }
+
+  /**
+   * Return a new list of all contents(Files and Folders) stored in this
+   * object. Use getContents to read the contents without copying them.
+   *
    * @return An ArrayList of all contents in this folder object
    */
   public ArrayList<Content> getAllContents() {
-    ArrayList<Content> list = new ArrayList<Content>();
-    for (Content next : list_contents) {
-      // add the content that is being cloned
-      list.add(next.clone());
-    }
-    return list_contents;
+    return new ArrayList<Content>(getContents());
+  }
+
+  /**
+   * Return a read only view of all contents(Files and Folders) stored in this
+   * object, in alphabetical order. Nothing is copied, the view follows later
+   * changes to this folder. The contents of a copy that has not copied them
+   * yet are those of the original, so they are only read through the view.
+   * A content to be changed is looked up with getContent.
+   *
+   * @return A read only List of all contents in this folder object
+   */
+  public List<Content> getContents() {
+    final int folder = getInode();
+    return new AbstractList<Content>() {
+      public Content get(int position) {
+        int source = contentsOf(folder);
+        int child = table.getSortedChild(source, position);
+        if (source != folder) {
+          // a content already copied is read from the copy
+          int own = table.findSameName(folder, child);
+          child = own == InodeTable.NONE ? child : own;
+        }
+        return table.view(child);
+      }
+
+      public int size() {
+        return table.getChildCount(contentsOf(folder));
+      }
+    };
   }
 
   /**
-   * Return a specific content(File or Folder) in this object
-   * 
+   * Return the number of contents stored in this object
+   *
+   * @return The number of contents in this folder object
+   */
+  public int getContentCount() {
+    return table.getChildCount(contentsOf(getInode()));
+  }
+
+  /**
+   * Return a specific content(File or Folder) in this object. In a copy that
+   * has not copied its contents yet, only the content returned is copied.
+   *
    * @param content_name The name of the content to return
-   * 
+   *
    * @return A content object with the given name
    */
   public Content getContent(String content_name) {
-    Content desired = null;
-    // loop through the list and find the content
-    for (Content next_content : list_contents) {
-      // remove it from the list when it's found
-      if (next_content.getName().equals(content_name)) {
-        desired = next_content;
-        break;
+    int folder = getInode();
+    int source = contentsOf(folder);
+    int child = table.findChild(folder, content_name);
+    if (child == InodeTable.NONE && source != folder) {
+      int original = table.findChild(source, content_name);
+      if (original != InodeTable.NONE) {
+        // the content may be changed through the view, so it is the copy's
+        child = table.transientView(original).clone().getInode();
+        table.addChild(folder, child);
       }
     }
-    return desired;
+    return child == InodeTable.NONE ? null : table.view(child);
   }
 
   /**
    * Add a new content to this folder object, new content will not be added if
    * there exist another content with the same name.
-   * 
+   *
    * @param new_content The new content to be added
    * @throws HasSameContentNameException
    */
   public void addContent(Content new_content)
       throws HasSameContentNameException {
-    // check if the list already has a content with the same name
-    boolean has_same_name = false;
-    for (Content next : list_contents) {
-      has_same_name = next.getName().equals(new_content.getName());
-      if(has_same_name)
-        break;
-    }
-    if (has_same_name) {
+    prepareWrite(this);
+    // Link the new content to this folder, it is found by its name
+    if (!table.addChild(contentsOf(getInode()), new_content.getInode())) {
       // raise an error for another content already has the same name
       throw new HasSameContentNameException("Error: Cannot create directory, "
           + "another content with the same name already exist");
-    } else {
-      // Add the new content to the list
-      list_contents.add(new_content);
     }
-    // sort the list in alphabetical order
-    Collections.sort(list_contents);
+    // the path now has a content, forget what was cached for it
+    FileSystem.invalidateCachedPath(new_content.getPath());
   }
 
   /**
    * Remove a content in this folder object
-   * 
+   *
    * @param content_name The name of the content to be removed
    * @throws InvalidPathException
    */
   public void removeContent(String content_name) throws InvalidPathException {
-    boolean is_removed = false;
-    // loop through the list and find the content
-    for (Content next_content : list_contents) {
-      // remove it from the list when it's found
-      if (next_content.getName().equals(content_name)) {
-        list_contents.remove(next_content);
-        is_removed = true;
-        break;
-      }
-    }
-    if (!is_removed) {
+    // the removed content is not used again, so its data can be freed
+    table.transientView(unlinkChild(content_name)).release();
+  }
+
+  /**
+   * Take a content out of this folder object without freeing its data, so
+   * that it can be added to another folder
+   *
+   * @param content_name The name of the content to be taken out
+   * @return The content taken out
+   * @throws InvalidPathException
+   */
+  Content unlinkContent(String content_name) throws InvalidPathException {
+    return table.view(unlinkChild(content_name));
+  }
+
+  /**
+   * Take a content out of this folder object without freeing its data
+   *
+   * @param content_name The name of the content to be taken out
+   * @return The inode of the content taken out
+   * @throws InvalidPathException
+   */
+  private int unlinkChild(String content_name) throws InvalidPathException {
+    prepareWrite(this);
+    int child = table.findChild(contentsOf(getInode()), content_name);
+    if (child == InodeTable.NONE) {
       // Throw an error of no content found if nothing has been removed
       throw new InvalidPathException();
     }
+    // forget the removed content and everything below it
+    FileSystem.invalidateCachedPath(table.getPath(child));
+    table.removeChild(child);
+    return child;
+  }
+
+  /**
+   * Remove all contents in this folder object
+   */
+  public void removeAllContents() {
+    for (Content next : unlinkAllContents()) {
+      next.release();
+    }
+  }
+
+  /**
+   * Take all contents out of this folder object without freeing their data
+   *
+   * @return The contents taken out
+   */
+  private ArrayList<Content> unlinkAllContents() {
+    prepareWrite(this);
+    int folder = contentsOf(getInode());
+    ArrayList<Content> removed = new ArrayList<Content>();
+    int child = table.getFirstChild(folder);
+    while (child != InodeTable.NONE) {
+      int next = table.getNextSibling(child);
+      removed.add(table.transientView(child));
+      table.removeChild(child);
+      child = next;
+    }
+    FileSystem.invalidateCachedPath(getPath());
+    return removed;
   }
 
   /**
    * Replace all content in this folder with new content
-   * 
+   *
    * @param new_data Contents to be replaced with
    */
   public void overwriteAllContents(ArrayList<Content> new_data) {
-    list_contents = new_data;
+    ArrayList<Content> removed = unlinkAllContents();
+    for (Content next : new_data) {
+      table.addChild(getInode(), next.getInode());
+    }
+    // free the old contents that were not added back
+    for (Content next : removed) {
+      if (table.getParent(next.getInode()) != getInode()) {
+        next.release();
+      }
+    }
+    FileSystem.invalidateCachedPath(getPath());
   }
 
   /**
-   * Change the path of this folder object, it will also change all its sub
-   * content's path
-   * 
-   * @param new_path The new path of this Folder
+   * Rename a content in this folder. The content keeps its old name if
+   * another content already has the new name.
+   *
+   * @param content The content to be renamed
+   * @param new_name The new name of the content
    */
-  public void changePath(String new_path) {
-    path = new_path;
-    for (Content next : list_contents) {
-      next.changePath(path + "/" + next.getName());
+  void renameContent(Content content, String new_name) {
+    prepareWrite(this);
+    if (table.findChild(contentsOf(getInode()), new_name)
+        != InodeTable.NONE) {
+      return;
     }
+    FileSystem.invalidateCachedPath(content.getPath());
+    content.setName(new_name);
+    FileSystem.invalidateCachedPath(content.getPath());
   }
 
 
   /**
-   * Create a copy of this Folder
+   * Create a copy of this Folder. Nothing below the folder is copied until it
+   * is used or the original is changed.
    */
   public Folder clone() {
     // create a new folder for the clone
     Folder clone = new Folder(this.getPath(), this.getName());
+    // a copy of a copy reads from the same original
+    int source = table.getCowSource(getInode());
+    if (source == InodeTable.NONE) {
+      source = contentsOf(getInode());
+    }
+    if (table.getChildCount(source) > 0) {
+      table.addPendingCopy(clone.getInode(), source);
+      pending_count++;
+    }
+    return clone;
+  }
 
-    // add all the content
-    for (Content next : list_contents) {
-      try {
-        // add the content that is being cloned
-        clone.addContent(next.clone());
-      } catch (HasSameContentNameException e) {
+  /**
+   * Stop using the data held below this folder, called once the folder is
+   * removed from the file system for good. Copies still waiting to read from
+   * this folder copy its contents first.
+   */
+  void release() {
+    int folder = getInode();
+    if (!FileArena.inUse() && !FileSpiller.inUse() && !BlobStore.inUse()
+        && FileCompressor.getActive() == null
+        && FileSpiller.getActive() == null) {
+      // no data is kept in an arena, a spill file or the store, or waits to
+      // be compressed or spilled, so the nodes below are freed later
+      table.bury(folder);
+      return;
+    }
+    detachCopies(folder);
+    int child = table.getFirstChild(folder);
+    while (child != InodeTable.NONE) {
+      int next = table.getNextSibling(child);
+      Content content = table.transientView(child);
+      table.removeChild(child);
+      content.release();
+      child = next;
+    }
+    super.release();
+  }
+
+  /**
+   * Make the copies waiting on the folder copy its contents, and stop the
+   * folder from waiting on its own original, before its inode is freed
+   *
+   * @param folder The inode of the folder
+   */
+  static void detachCopies(int folder) {
+    if (table.getCowSource(folder) != InodeTable.NONE) {
+      // nothing was copied, so the original does not have to wait for it
+      table.removePendingCopy(folder);
+      pending_count--;
+    }
+    // copying the contents removes the copy from the list
+    int copy = table.getPendingCopy(folder);
+    while (copy != InodeTable.NONE) {
+      copyContents(copy);
+      copy = table.getPendingCopy(folder);
+    }
+  }
+
+  /**
+   * Return true iff this folder was read from a mapped image and its
+   * contents are not read from the image yet
+   *
+   * @return true if the contents are not read yet, false otherwise
+   */
+  public boolean isMapped() {
+    return table.getMappedRecord(getInode()) != InodeTable.NONE;
+  }
+
+  /**
+   * Return the inode of the folder holding the contents of the given folder,
+   * without copying them. The contents are read first if they are still in
+   * a mapped image.
+   *
+   * @param folder The inode of the folder
+   * @return The inode of the folder itself, or of its original if it is a
+   *         copy that has not copied its contents yet
+   */
+  static int contentsOf(int folder) {
+    if (table.hasMapped()
+        && table.getMappedRecord(folder) != InodeTable.NONE) {
+      mapContents(folder);
+    }
+    int source = table.getCowSource(folder);
+    return source == InodeTable.NONE ? folder : source;
+  }
+
+  /**
+   * Return true iff this folder is a copy whose contents are still read from
+   * the original
+   *
+   * @return true if the contents are not copied yet, false otherwise
+   */
+  public boolean isCopyPending() {
+    return table.getCowSource(getInode()) != InodeTable.NONE;
+  }
+
+  /**
+   * Make a folder read back from a checkpoint a copy that has not copied the
+   * contents of its original yet, as it was when the checkpoint was written
+   *
+   * @param copy The inode of the copy
+   * @param source The inode of the original
+   */
+  static void readFrom(int copy, int source) {
+    if (table.getChildCount(source) > 0) {
+      table.addPendingCopy(copy, source);
+      pending_count++;
+    }
+  }
+
+  /**
+   * Read the contents of a folder from its mapped image. Folders read wait
+   * in turn, and the data of files stays in the image.
+   *
+   * @param folder The inode of the folder
+   */
+  private static void mapContents(int folder) {
+    MappedImage image = table.getMappedImage(folder);
+    int record = table.getMappedRecord(folder);
+    table.clearMapped(folder);
+    try {
+      int count = image.getChildCount(record);
+      int first = count == 0 ? 0 : image.getFirstChild(record);
+      for (int child = first; child < first + count; child++) {
+        table.addChild(folder, mapNode(image, child).getInode());
       }
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage(), e);
     }
-    return clone;
+  }
+
+  /**
+   * Create a node for a record of a mapped image, a folder does not read
+   * its contents yet
+   *
+   * @param image The image
+   * @param record The number of the record of the node
+   * @return The node, not in any folder
+   * @throws IOException If the image is damaged
+   */
+  static Content mapNode(MappedImage image, int record) throws IOException {
+    String name = image.getName(record);
+    switch (image.getKind(record)) {
+      case InodeTable.FOLDER:
+        Folder folder = new Folder(null, name);
+        table.setMapped(folder.getInode(), image, record);
+        return folder;
+      case InodeTable.FILE:
+        return new File(null, name, image.getData(record));
+      case InodeTable.CONTENT:
+        return new Content(null, name, InodeTable.CONTENT);
+      default:
+        throw new IOException("Error: The image is damaged");
+    }
+  }
 
+  /**
+   * Copy the contents of the original into the copy that it does not hold
+   * yet. Files share their data with the original, and folders are copies
+   * that wait in turn.
+   *
+   * @param folder The inode of the copy
+   */
+  private static void copyContents(int folder) {
+    int source = table.getCowSource(folder);
+    table.removePendingCopy(folder);
+    pending_count--;
+    for (int child = table.getFirstChild(source); child != InodeTable.NONE;
+        child = table.getNextSibling(child)) {
+      // a content looked up by name was copied already
+      if (table.findSameName(folder, child) == InodeTable.NONE) {
+        Content copy = table.transientView(child).clone();
+        table.addChild(folder, copy.getInode());
+      }
+    }
+  }
+
+  /**
+   * Make the copies that are waiting on the folder of the given content or
+   * on any folder above it, from the root down, so none of them sees the
+   * change about to be made to the content. The folder and the folders above
+   * it copy their own contents too, so the change is made to the copy.
+   *
+   * @param content The content about to be changed
+   */
+  static void prepareWrite(Content content) {
+    if (pending_count == 0 || content == null) {
+      return;
+    }
+    Folder folder =
+        content instanceof Folder ? (Folder) content : content.getParent();
+    if (folder != null) {
+      prepareWrite(folder.getParent());
+      int inode = folder.getInode();
+      if (table.getCowSource(inode) != InodeTable.NONE) {
+        copyContents(inode);
+      }
+      // copying the contents removes the copy from the list
+      int copy = table.getPendingCopy(inode);
+      while (copy != InodeTable.NONE) {
+        copyContents(copy);
+        copy = table.getPendingCopy(inode);
+      }
+    }
   }
 
 
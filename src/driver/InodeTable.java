@@ -0,0 +1,1299 @@
+package driver;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps every node of the file system in arrays indexed by its inode number,
+ * instead of in objects of its own. For each node the table keeps its kind,
+ * its parent, its name, the links to its first child and to its siblings,
+ * and the data of a file. Content, Folder and File objects are views that
+ * only hold the inode number, so a node costs a few dozen bytes, and views
+ * can be created and dropped freely. A name is kept as its id in the
+ * NameDictionary, so children are found by comparing ids. A large folder
+ * finds its children through an open addressing table of their inodes, and
+ * a folder listed once keeps its children in alphabetical order as they are
+ * added, removed and renamed.
+ *
+ * Each node also gets an id no other node of this run gets, kept by the
+ * checkpoints written of it, and the table marks the nodes changed since
+ * the last checkpoint as dirty: a new node, a file whose data changed, and a
+ * folder whose contents or their names changed.
+ *
+ * The table keeps one view of each node, held weakly, and hands out the same
+ * view while it is used. The inode of a node removed for good is put on a
+ * free list and used again once its view is collected, each reuse changing
+ * the generation of the inode. Until then the node keeps its name, the path
+ * it was removed from and the data of a file, and can be added to a folder
+ * again. The nodes
+ * below a removed folder that hold nothing to free are freed one folder at
+ * a time when new nodes need inodes, so removing a large folder does not
+ * walk it at once.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class InodeTable {
+
+  /**
+   * Kind of an inode that is free
+   */
+  static final byte FREE = 0;
+
+  /**
+   * Kind of a node that is neither a folder nor a file
+   */
+  static final byte CONTENT = 1;
+
+  /**
+   * Kind of a folder
+   */
+  static final byte FOLDER = 2;
+
+  /**
+   * Kind of a file
+   */
+  static final byte FILE = 3;
+
+  /**
+   * Inode number standing for no node
+   */
+  static final int NONE = -1;
+
+  /**
+   * Number of bytes the arrays take for each inode
+   */
+  public static final int BYTES_PER_INODE = 53;
+
+  /**
+   * Largest number of children of a folder that are found by following the
+   * links, larger folders keep an index of their children by name
+   */
+  private static final int SMALL_LIMIT = 8;
+
+  /**
+   * Number of inodes the table starts with
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The table used by all nodes
+   */
+  private static final InodeTable table = new InodeTable();
+
+  /**
+   * The view of a node kept by the table, which does not keep the view from
+   * being collected
+   */
+  private static class ViewRef extends WeakReference<Content> {
+    /**
+     * The inode of the node
+     */
+    private final int inode;
+
+    private ViewRef(Content view, int inode, ReferenceQueue<Content> queue) {
+      super(view, queue);
+      this.inode = inode;
+    }
+  }
+
+  /**
+   * Kind of each node
+   */
+  private byte[] kinds;
+
+  /**
+   * Number of times each inode was freed
+   */
+  private int[] generations;
+
+  /**
+   * Inode of the folder holding each node, NONE if it is not in a folder
+   */
+  private int[] parents;
+
+  /**
+   * Id of the name of each node in the name dictionary
+   */
+  private int[] name_ids;
+
+  /**
+   * Inode of the first child of each folder
+   */
+  private int[] first_children;
+
+  /**
+   * Inode of the next node in the same folder, or of the next free inode
+   */
+  private int[] next_siblings;
+
+  /**
+   * Inode of the previous node in the same folder
+   */
+  private int[] prev_siblings;
+
+  /**
+   * Number of children of each folder
+   */
+  private int[] child_counts;
+
+  /**
+   * Data of each file
+   */
+  private FileData[] data;
+
+  /**
+   * Id of each node
+   */
+  private long[] ids;
+
+  /**
+   * The view handed out of each node, null if none was
+   */
+  private ViewRef[] views;
+
+  /**
+   * The views collected since the table last looked
+   */
+  private final ReferenceQueue<Content> collected =
+      new ReferenceQueue<Content>();
+
+  /**
+   * The nodes removed for good that are not freed while their view is used
+   */
+  private BitSet retired;
+
+  /**
+   * The folders removed for good that wait in the dead folders
+   */
+  private BitSet buried;
+
+  /**
+   * Id of the next node
+   */
+  private long next_id;
+
+  /**
+   * The nodes changed since the last checkpoint
+   */
+  private BitSet dirty;
+
+  /**
+   * Number of inodes handed out at least once
+   */
+  private int top;
+
+  /**
+   * First inode of the free list
+   */
+  private int free_head;
+
+  /**
+   * Number of inodes in use
+   */
+  private int live_count;
+
+  /**
+   * Folders removed for good whose nodes are not freed yet
+   */
+  private int[] dead;
+
+  /**
+   * Number of folders waiting to be freed
+   */
+  private int dead_count;
+
+  /**
+   * Whether a removed folder is being freed
+   */
+  private boolean reclaiming;
+
+  /**
+   * The path of each node not in a folder, as it was given or as it was
+   * when the node was taken out of its folder
+   */
+  private HashMap<Integer, String> loose_paths;
+
+  /**
+   * The dictionary of the names of all nodes
+   */
+  private final NameDictionary dictionary = NameDictionary.getDictionary();
+
+  /**
+   * The children of each large folder, in an open addressing table found by
+   * the id of their name, whose length is a power of two at least twice the
+   * number of children. Null for a small folder.
+   */
+  private int[][] child_slots;
+
+  /**
+   * The children of each folder listed so far, in alphabetical order, kept
+   * in order as children are added, removed and renamed. Only as many as
+   * the folder has children are used. Null if the folder was not listed.
+   */
+  private int[][] sorted_children;
+
+  /**
+   * The folder each copy takes its contents from, for copies that have not
+   * copied them yet
+   */
+  private HashMap<Integer, Integer> cow_sources;
+
+  /**
+   * The copies of each folder that have not copied its contents yet
+   */
+  private HashMap<Integer, ArrayList<Integer>> pending_copies;
+
+  /**
+   * The image each folder gets its contents from, for folders read from a
+   * mapped image whose contents are not read yet
+   */
+  private HashMap<Integer, MappedImage> mapped_images;
+
+  /**
+   * The record in its image of each folder whose contents are not read yet
+   */
+  private HashMap<Integer, Integer> mapped_records;
+
+  /**
+   * Default Constructor
+   */
+  private InodeTable() {
+    kinds = new byte[INITIAL_CAPACITY];
+    generations = new int[INITIAL_CAPACITY];
+    parents = new int[INITIAL_CAPACITY];
+    name_ids = new int[INITIAL_CAPACITY];
+    first_children = new int[INITIAL_CAPACITY];
+    next_siblings = new int[INITIAL_CAPACITY];
+    prev_siblings = new int[INITIAL_CAPACITY];
+    child_counts = new int[INITIAL_CAPACITY];
+    data = new FileData[INITIAL_CAPACITY];
+    ids = new long[INITIAL_CAPACITY];
+    views = new ViewRef[INITIAL_CAPACITY];
+    retired = new BitSet();
+    buried = new BitSet();
+    dirty = new BitSet(INITIAL_CAPACITY);
+    free_head = NONE;
+    dead = new int[16];
+    loose_paths = new HashMap<Integer, String>();
+    child_slots = new int[INITIAL_CAPACITY][];
+    sorted_children = new int[INITIAL_CAPACITY][];
+    cow_sources = new HashMap<Integer, Integer>();
+    pending_copies = new HashMap<Integer, ArrayList<Integer>>();
+    mapped_images = new HashMap<Integer, MappedImage>();
+    mapped_records = new HashMap<Integer, Integer>();
+  }
+
+  /**
+   * Return the table used by all nodes
+   *
+   * @return The table
+   */
+  public static InodeTable getTable() {
+    return table;
+  }
+
+  /**
+   * Hand out an inode for a new node that is not in a folder
+   *
+   * @param kind The kind of the node
+   * @param name The name of the node
+   * @param path The path of the node
+   * @return The inode of the node
+   */
+  int allocate(byte kind, String name, String path) {
+    freeCollected();
+    if (free_head == NONE && dead_count > 0 && !reclaiming) {
+      reclaim();
+    }
+    int inode;
+    if (free_head != NONE) {
+      inode = free_head;
+      free_head = next_siblings[inode];
+    } else {
+      if (top == kinds.length) {
+        grow();
+      }
+      inode = top++;
+    }
+    kinds[inode] = kind;
+    name_ids[inode] = dictionary.intern(name);
+    parents[inode] = NONE;
+    first_children[inode] = NONE;
+    next_siblings[inode] = NONE;
+    prev_siblings[inode] = NONE;
+    child_counts[inode] = 0;
+    data[inode] = null;
+    ids[inode] = next_id++;
+    dirty.set(inode);
+    if (path != null) {
+      loose_paths.put(inode, path);
+    }
+    live_count++;
+    return inode;
+  }
+
+  /**
+   * Give the inode back, the node must not be in a folder. While the view of
+   * the node is used, the inode is only given back once it is collected, and
+   * the data of a file is released only then.
+   *
+   * @param inode The inode of the node
+   */
+  void free(int inode) {
+    if (views[inode] != null && views[inode].get() != null) {
+      retired.set(inode);
+      // the node is no longer in the file system, so it is not written
+      dirty.clear(inode);
+      return;
+    }
+    views[inode] = null;
+    retired.clear(inode);
+    kinds[inode] = FREE;
+    generations[inode]++;
+    dictionary.release(name_ids[inode]);
+    name_ids[inode] = NameDictionary.NONE;
+    if (data[inode] != null) {
+      data[inode].release();
+    }
+    data[inode] = null;
+    first_children[inode] = NONE;
+    child_counts[inode] = 0;
+    loose_paths.remove(inode);
+    child_slots[inode] = null;
+    sorted_children[inode] = null;
+    clearMapped(inode);
+    dirty.clear(inode);
+    next_siblings[inode] = free_head;
+    free_head = inode;
+    live_count--;
+  }
+
+  /**
+   * Free the nodes below the folder later, when new nodes need inodes
+   *
+   * @param folder The inode of a folder removed for good
+   */
+  void bury(int folder) {
+    buried.set(folder);
+    if (dead_count == dead.length) {
+      dead = Arrays.copyOf(dead, dead_count * 2);
+    }
+    dead[dead_count++] = folder;
+  }
+
+  /**
+   * Free the last folder removed for good and its children, the folders in
+   * it wait their turn
+   */
+  private void reclaim() {
+    reclaiming = true;
+    try {
+      int folder = dead[--dead_count];
+      if (!buried.get(folder)) {
+        // the folder was added back, with all of its contents
+        return;
+      }
+      buried.clear(folder);
+      dropIndex(folder);
+      // copies still reading from the folder copy its contents first
+      Folder.detachCopies(folder);
+      int child = first_children[folder];
+      while (child != NONE) {
+        int next = next_siblings[child];
+        // the children are no longer below anything in the file system,
+        // a view still used keeps their path
+        loose_paths.put(child, getPath(child));
+        parents[child] = NONE;
+        if (kinds[child] == FOLDER) {
+          bury(child);
+        } else {
+          free(child);
+        }
+        child = next;
+      }
+      first_children[folder] = NONE;
+      child_counts[folder] = 0;
+      free(folder);
+    } finally {
+      reclaiming = false;
+    }
+  }
+
+  /**
+   * Give back the inodes of the nodes removed for good whose views were
+   * collected
+   */
+  private void freeCollected() {
+    Reference<? extends Content> next = collected.poll();
+    while (next != null) {
+      int inode = ((ViewRef) next).inode;
+      // a newer view of the node may have been made since
+      if (views[inode] == next) {
+        views[inode] = null;
+        if (retired.get(inode)) {
+          free(inode);
+        }
+      }
+      next = collected.poll();
+    }
+  }
+
+  /**
+   * Make each array hold half as many inodes again
+   */
+  private void grow() {
+    int capacity = kinds.length + (kinds.length >> 1);
+    kinds = Arrays.copyOf(kinds, capacity);
+    generations = Arrays.copyOf(generations, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    name_ids = Arrays.copyOf(name_ids, capacity);
+    first_children = Arrays.copyOf(first_children, capacity);
+    next_siblings = Arrays.copyOf(next_siblings, capacity);
+    prev_siblings = Arrays.copyOf(prev_siblings, capacity);
+    child_counts = Arrays.copyOf(child_counts, capacity);
+    data = Arrays.copyOf(data, capacity);
+    ids = Arrays.copyOf(ids, capacity);
+    views = Arrays.copyOf(views, capacity);
+    child_slots = Arrays.copyOf(child_slots, capacity);
+    sorted_children = Arrays.copyOf(sorted_children, capacity);
+  }
+
+  /**
+   * Return the view of the node, the same one while it is used
+   *
+   * @param inode The inode of the node
+   * @return A Folder, a File or a Content viewing the node
+   */
+  Content view(int inode) {
+    Content view = views[inode] == null ? null : views[inode].get();
+    if (view == null) {
+      view = transientView(inode);
+      register(inode, view);
+    }
+    return view;
+  }
+
+  /**
+   * Keep the view of a new node, so it is handed out again while it is used
+   *
+   * @param inode The inode of the node
+   * @param view The view
+   */
+  void register(int inode, Content view) {
+    views[inode] = new ViewRef(view, inode, collected);
+  }
+
+  /**
+   * Return a view of the node that the table does not keep, so it does not
+   * keep the node from being freed. It is only used to release or copy the
+   * node, and never handed out.
+   *
+   * @param inode The inode of the node
+   * @return A Folder, a File or a Content viewing the node
+   */
+  Content transientView(int inode) {
+    switch (kinds[inode]) {
+      case FOLDER:
+        return new Folder(inode, generations[inode]);
+      case FILE:
+        return new File(inode, generations[inode]);
+      default:
+        return new Content(inode, generations[inode]);
+    }
+  }
+
+  /**
+   * Return the kind of the node
+   *
+   * @param inode The inode of the node
+   * @return FOLDER, FILE or CONTENT
+   */
+  byte getKind(int inode) {
+    return kinds[inode];
+  }
+
+  /**
+   * Return the number of times the inode was freed
+   *
+   * @param inode The inode
+   * @return The generation of the inode
+   */
+  int getGeneration(int inode) {
+    return generations[inode];
+  }
+
+  /**
+   * Return true iff the inode still holds the node a view was made for
+   *
+   * @param inode The inode of the node
+   * @param generation The generation of the inode when the view was made
+   * @return true if the node was not freed, false otherwise
+   */
+  boolean isLive(int inode, int generation) {
+    return inode >= 0 && generations[inode] == generation
+        && kinds[inode] != FREE;
+  }
+
+  /**
+   * Return the name of the node
+   *
+   * @param inode The inode of the node
+   * @return The name
+   */
+  String getName(int inode) {
+    return dictionary.getName(name_ids[inode]);
+  }
+
+  /**
+   * Change the name of the node, the folder holding it finds it by its new
+   * name from now on
+   *
+   * @param inode The inode of the node
+   * @param name The new name
+   */
+  void rename(int inode, String name) {
+    int folder = parents[inode];
+    int old_id = name_ids[inode];
+    if (folder != NONE) {
+      // the node is found and listed by its old name until now
+      unindexChild(folder, inode);
+      unsortChild(folder, inode);
+    }
+    name_ids[inode] = dictionary.intern(name);
+    dictionary.release(old_id);
+    if (folder != NONE) {
+      indexChild(folder, inode);
+      sortChild(folder, inode);
+      // the folder lists the names of its contents
+      dirty.set(folder);
+    }
+  }
+
+  /**
+   * Return the inode of the folder holding the node
+   *
+   * @param inode The inode of the node
+   * @return The inode of the parent, NONE if it is not in a folder
+   */
+  int getParent(int inode) {
+    return parents[inode];
+  }
+
+  /**
+   * Return the full path of the node, worked out from the folders above it
+   * and the path of the top one
+   *
+   * @param inode The inode of the node
+   * @return The path of the node
+   */
+  String getPath(int inode) {
+    if (parents[inode] == NONE) {
+      return loose_paths.get(inode);
+    }
+    // the nodes from this one up to the one that is not in a folder
+    int[] chain = new int[8];
+    int depth = 0;
+    int at = inode;
+    while (parents[at] != NONE) {
+      if (depth == chain.length) {
+        chain = Arrays.copyOf(chain, depth * 2);
+      }
+      chain[depth++] = at;
+      at = parents[at];
+    }
+    String top_path = loose_paths.get(at);
+    StringBuilder path = new StringBuilder(top_path == null ? "" : top_path);
+    while (depth > 0) {
+      if (path.length() == 0 || path.charAt(path.length() - 1) != '/') {
+        path.append('/');
+      }
+      path.append(dictionary.getName(name_ids[chain[--depth]]));
+    }
+    return path.toString();
+  }
+
+  /**
+   * Set the path of a node that is not in a folder
+   *
+   * @param inode The inode of the node
+   * @param path The path
+   */
+  void setLoosePath(int inode, String path) {
+    loose_paths.put(inode, path);
+  }
+
+  /**
+   * Return the data of the file
+   *
+   * @param inode The inode of the file
+   * @return The data
+   */
+  FileData getData(int inode) {
+    return data[inode];
+  }
+
+  /**
+   * Set the data of the file
+   *
+   * @param inode The inode of the file
+   * @param new_data The data
+   */
+  void setData(int inode, FileData new_data) {
+    data[inode] = new_data;
+    dirty.set(inode);
+  }
+
+  /**
+   * Return the id of the node, no other node of this run has it
+   *
+   * @param inode The inode of the node
+   * @return The id
+   */
+  long getId(int inode) {
+    return ids[inode];
+  }
+
+  /**
+   * Give the node the id it had in a checkpoint it is read from, the ids
+   * handed out from now on are larger
+   *
+   * @param inode The inode of the node
+   * @param id The id
+   */
+  void setId(int inode, long id) {
+    ids[inode] = id;
+    if (id >= next_id) {
+      next_id = id + 1;
+    }
+  }
+
+  /**
+   * Return the id the next node gets
+   *
+   * @return The id
+   */
+  long getNextId() {
+    return next_id;
+  }
+
+  /**
+   * Make the ids handed out from now on at least the given id
+   *
+   * @param id The id
+   */
+  void skipIds(long id) {
+    if (id > next_id) {
+      next_id = id;
+    }
+  }
+
+  /**
+   * Mark the node as changed since the last checkpoint
+   *
+   * @param inode The inode of the node
+   */
+  void markDirty(int inode) {
+    dirty.set(inode);
+  }
+
+  /**
+   * Mark every node still in use as changed, so the next checkpoint holds
+   * them all
+   */
+  void markAllDirty() {
+    dirty.set(0, top);
+    // a node removed whose view is still used is not written
+    dirty.andNot(retired);
+  }
+
+  /**
+   * Return the nodes changed since the last checkpoint, and mark them all
+   * clean
+   *
+   * @return The inodes of the nodes, in increasing order
+   */
+  int[] takeDirty() {
+    int[] inodes = dirty.stream().toArray();
+    dirty.clear();
+    return inodes;
+  }
+
+  /**
+   * Return the number of nodes changed since the last checkpoint
+   *
+   * @return Number of nodes
+   */
+  public int getDirtyCount() {
+    return dirty.cardinality();
+  }
+
+  /**
+   * Return the number of children of the folder
+   *
+   * @param folder The inode of the folder
+   * @return Number of children
+   */
+  int getChildCount(int folder) {
+    return child_counts[folder];
+  }
+
+  /**
+   * Return the inode of the first child of the folder, in no given order
+   *
+   * @param folder The inode of the folder
+   * @return The inode of the child, NONE if the folder has none
+   */
+  int getFirstChild(int folder) {
+    return first_children[folder];
+  }
+
+  /**
+   * Return the inode of the next child of the same folder
+   *
+   * @param inode The inode of a child
+   * @return The inode of the next child, NONE if it is the last one
+   */
+  int getNextSibling(int inode) {
+    return next_siblings[inode];
+  }
+
+  /**
+   * Return the child of the folder with the given name
+   *
+   * @param folder The inode of the folder
+   * @param name The name of the child
+   * @return The inode of the child, NONE if there is none
+   */
+  int findChild(int folder, String name) {
+    int id = dictionary.find(name);
+    if (id == NameDictionary.NONE) {
+      // no node at all has the name
+      return NONE;
+    }
+    return findChild(folder, id);
+  }
+
+  /**
+   * Return the child of the folder with the same name as the given node
+   *
+   * @param folder The inode of the folder
+   * @param node The inode of the node, in any folder
+   * @return The inode of the child, NONE if there is none
+   */
+  int findSameName(int folder, int node) {
+    return findChild(folder, name_ids[node]);
+  }
+
+  /**
+   * Return the child of the folder with the name of the given id
+   *
+   * @param folder The inode of the folder
+   * @param id The id of the name of the child
+   * @return The inode of the child, NONE if there is none
+   */
+  private int findChild(int folder, int id) {
+    int[] slots = child_slots[folder];
+    if (slots != null) {
+      int mask = slots.length - 1;
+      for (int at = slot(id, mask); slots[at] != NONE; at = (at + 1) & mask) {
+        if (name_ids[slots[at]] == id) {
+          return slots[at];
+        }
+      }
+      return NONE;
+    }
+    for (int child = first_children[folder]; child != NONE;
+        child = next_siblings[child]) {
+      if (name_ids[child] == id) {
+        return child;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Return the child of the folder at the given position in alphabetical
+   * order
+   *
+   * @param folder The inode of the folder
+   * @param position The position of the child
+   * @return The inode of the child
+   */
+  int getSortedChild(int folder, int position) {
+    if (position < 0 || position >= child_counts[folder]) {
+      throw new IndexOutOfBoundsException("Index: " + position);
+    }
+    int[] children = sorted_children[folder];
+    if (children == null) {
+      children = sortChildren(folder);
+      sorted_children[folder] = children;
+    }
+    return children[position];
+  }
+
+  /**
+   * Return the children of the folder in alphabetical order
+   *
+   * @param folder The inode of the folder
+   * @return The inodes of the children
+   */
+  private int[] sortChildren(int folder) {
+    int count = child_counts[folder];
+    int[] inodes = new int[count];
+    String[] names = new String[count];
+    int at = 0;
+    for (int child = first_children[folder]; child != NONE;
+        child = next_siblings[child]) {
+      inodes[at] = child;
+      names[at++] = dictionary.getName(name_ids[child]);
+    }
+    mergeSort(inodes, names, new int[count], new String[count], 0, count);
+    return inodes;
+  }
+
+  /**
+   * Sort a range of inodes by their names, the names being sorted along
+   *
+   * @param inodes The inodes
+   * @param names The name of each inode
+   * @param inode_room Room for the inodes while they are merged
+   * @param name_room Room for the names while they are merged
+   * @param start Index of the first inode of the range
+   * @param end Index after the last inode of the range
+   */
+  private static void mergeSort(int[] inodes, String[] names,
+      int[] inode_room, String[] name_room, int start, int end) {
+    if (end - start < 2) {
+      return;
+    }
+    int middle = (start + end) >>> 1;
+    mergeSort(inodes, names, inode_room, name_room, start, middle);
+    mergeSort(inodes, names, inode_room, name_room, middle, end);
+    if (names[middle - 1].compareTo(names[middle]) <= 0) {
+      // the two halves are already in order
+      return;
+    }
+    System.arraycopy(inodes, start, inode_room, start, end - start);
+    System.arraycopy(names, start, name_room, start, end - start);
+    int left = start;
+    int right = middle;
+    for (int at = start; at < end; at++) {
+      if (right == end || (left < middle
+          && name_room[left].compareTo(name_room[right]) <= 0)) {
+        inodes[at] = inode_room[left];
+        names[at] = name_room[left++];
+      } else {
+        inodes[at] = inode_room[right];
+        names[at] = name_room[right++];
+      }
+    }
+  }
+
+  /**
+   * Add the node to the folder, it is not added if another child already
+   * has the same name
+   *
+   * @param folder The inode of the folder
+   * @param child The inode of the node, taken out of its folder first
+   * @return true if the node is added, false otherwise
+   */
+  boolean addChild(int folder, int child) {
+    int id = name_ids[child];
+    if (findChild(folder, id) != NONE) {
+      return false;
+    }
+    if (retired.get(child) || buried.get(child)) {
+      // a node removed for good is added back through its view
+      retired.clear(child);
+      buried.clear(child);
+      dirty.set(child);
+    }
+    if (parents[child] != NONE) {
+      removeChild(child);
+    }
+    parents[child] = folder;
+    loose_paths.remove(child);
+    // the new child is linked first, the order is only worked out to list
+    int first = first_children[folder];
+    next_siblings[child] = first;
+    prev_siblings[child] = NONE;
+    if (first != NONE) {
+      prev_siblings[first] = child;
+    }
+    first_children[folder] = child;
+    child_counts[folder]++;
+    if (child_counts[folder] == SMALL_LIMIT + 1) {
+      buildIndex(folder);
+    } else {
+      indexChild(folder, child);
+    }
+    sortChild(folder, child);
+    dirty.set(folder);
+    return true;
+  }
+
+  /**
+   * Take the node out of the folder holding it, it keeps the path it had
+   *
+   * @param child The inode of the node
+   */
+  void removeChild(int child) {
+    int folder = parents[child];
+    if (folder == NONE) {
+      return;
+    }
+    loose_paths.put(child, getPath(child));
+    unindexChild(folder, child);
+    unsortChild(folder, child);
+    int next = next_siblings[child];
+    int prev = prev_siblings[child];
+    if (prev == NONE) {
+      first_children[folder] = next;
+    } else {
+      next_siblings[prev] = next;
+    }
+    if (next != NONE) {
+      prev_siblings[next] = prev;
+    }
+    next_siblings[child] = NONE;
+    prev_siblings[child] = NONE;
+    parents[child] = NONE;
+    if (--child_counts[folder] == SMALL_LIMIT) {
+      dropIndex(folder);
+    }
+    dirty.set(folder);
+  }
+
+  /**
+   * Index the children of the folder by name, in a table twice as large as
+   * the number of children
+   *
+   * @param folder The inode of the folder
+   */
+  private void buildIndex(int folder) {
+    int[] slots = new int[Integer.highestOneBit(child_counts[folder] * 2 - 1)
+        << 1];
+    Arrays.fill(slots, NONE);
+    int mask = slots.length - 1;
+    for (int child = first_children[folder]; child != NONE;
+        child = next_siblings[child]) {
+      int at = slot(name_ids[child], mask);
+      while (slots[at] != NONE) {
+        at = (at + 1) & mask;
+      }
+      slots[at] = child;
+    }
+    child_slots[folder] = slots;
+  }
+
+  /**
+   * Stop indexing the children of the folder by name
+   *
+   * @param folder The inode of the folder
+   */
+  private void dropIndex(int folder) {
+    child_slots[folder] = null;
+  }
+
+  /**
+   * Add a child of the folder to its index by name, if it has one. The
+   * index grows once it is half full.
+   *
+   * @param folder The inode of the folder
+   * @param child The inode of the child, linked to the folder
+   */
+  private void indexChild(int folder, int child) {
+    int[] slots = child_slots[folder];
+    if (slots == null) {
+      return;
+    }
+    if (child_counts[folder] * 2 > slots.length) {
+      buildIndex(folder);
+      return;
+    }
+    int mask = slots.length - 1;
+    int at = slot(name_ids[child], mask);
+    while (slots[at] != NONE) {
+      at = (at + 1) & mask;
+    }
+    slots[at] = child;
+  }
+
+  /**
+   * Take a child of the folder out of its index by name, if it has one. The
+   * children after it that belong closer to their slot are moved back, so
+   * no slot is marked as removed.
+   *
+   * @param folder The inode of the folder
+   * @param child The inode of the child, still found by its name
+   */
+  private void unindexChild(int folder, int child) {
+    int[] slots = child_slots[folder];
+    if (slots == null) {
+      return;
+    }
+    int mask = slots.length - 1;
+    int at = slot(name_ids[child], mask);
+    while (slots[at] != child) {
+      at = (at + 1) & mask;
+    }
+    for (int next = (at + 1) & mask; slots[next] != NONE;
+        next = (next + 1) & mask) {
+      int home = slot(name_ids[slots[next]], mask);
+      if (((next - home) & mask) >= ((next - at) & mask)) {
+        slots[at] = slots[next];
+        at = next;
+      }
+    }
+    slots[at] = NONE;
+  }
+
+  /**
+   * Return the slot a name is looked for first in an index by name
+   *
+   * @param id The id of the name
+   * @param mask The length of the index less one
+   * @return The slot
+   */
+  private static int slot(int id, int mask) {
+    int hash = id * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Put a child added to the folder, or renamed in it, in its place in the
+   * alphabetical order of the folder, if the folder keeps one
+   *
+   * @param folder The inode of the folder
+   * @param child The inode of the child, counted in the folder
+   */
+  private void sortChild(int folder, int child) {
+    int[] children = sorted_children[folder];
+    if (children == null) {
+      return;
+    }
+    int count = child_counts[folder] - 1;
+    if (count == children.length) {
+      children = Arrays.copyOf(children, Math.max(8, count * 2));
+      sorted_children[folder] = children;
+    }
+    int at = sortedPosition(children, count, getName(child));
+    System.arraycopy(children, at, children, at + 1, count - at);
+    children[at] = child;
+  }
+
+  /**
+   * Take a child of the folder out of the alphabetical order of the folder,
+   * if the folder keeps one
+   *
+   * @param folder The inode of the folder
+   * @param child The inode of the child, still counted in the folder
+   */
+  private void unsortChild(int folder, int child) {
+    int[] children = sorted_children[folder];
+    if (children == null) {
+      return;
+    }
+    int count = child_counts[folder];
+    int at = sortedPosition(children, count, getName(child));
+    System.arraycopy(children, at + 1, children, at, count - at - 1);
+  }
+
+  /**
+   * Return the position of a name in the children of a folder in
+   * alphabetical order
+   *
+   * @param children The children in alphabetical order
+   * @param count Number of children
+   * @param name The name
+   * @return The position of the child with the name, or where it would be
+   */
+  private int sortedPosition(int[] children, int count, String name) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getName(children[middle]).compareTo(name) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Return the folder the copy takes its contents from
+   *
+   * @param folder The inode of the copy
+   * @return The inode of the original, NONE if the contents are copied
+   */
+  int getCowSource(int folder) {
+    Integer source = cow_sources.get(folder);
+    return source == null ? NONE : source;
+  }
+
+  /**
+   * Make the copy take its contents from the original until they are copied
+   *
+   * @param copy The inode of the copy
+   * @param source The inode of the original
+   */
+  void addPendingCopy(int copy, int source) {
+    cow_sources.put(copy, source);
+    ArrayList<Integer> copies = pending_copies.get(source);
+    if (copies == null) {
+      copies = new ArrayList<Integer>();
+      pending_copies.put(source, copies);
+    }
+    copies.add(copy);
+  }
+
+  /**
+   * Stop the copy from taking its contents from its original
+   *
+   * @param copy The inode of the copy
+   */
+  void removePendingCopy(int copy) {
+    Integer source = cow_sources.remove(copy);
+    if (source != null) {
+      ArrayList<Integer> copies = pending_copies.get(source);
+      copies.remove(Integer.valueOf(copy));
+      if (copies.isEmpty()) {
+        pending_copies.remove(source);
+      }
+    }
+  }
+
+  /**
+   * Return the copies of the folder that have not copied its contents yet
+   *
+   * @param source The inode of the original
+   * @return The inodes of the copies, empty if there is none
+   */
+  List<Integer> getPendingCopies(int source) {
+    ArrayList<Integer> copies = pending_copies.get(source);
+    return copies == null ? Collections.<Integer>emptyList() : copies;
+  }
+
+  /**
+   * Return the last copy of the folder that has not copied its contents yet
+   *
+   * @param source The inode of the original
+   * @return The inode of the copy, NONE if there is none
+   */
+  int getPendingCopy(int source) {
+    ArrayList<Integer> copies = pending_copies.get(source);
+    return copies == null ? NONE : copies.get(copies.size() - 1);
+  }
+
+  /**
+   * Make the folder get its contents from a record of a mapped image the
+   * first time they are used
+   *
+   * @param folder The inode of the folder
+   * @param image The image
+   * @param record The number of the record of the folder in the image
+   */
+  void setMapped(int folder, MappedImage image, int record) {
+    mapped_images.put(folder, image);
+    mapped_records.put(folder, record);
+  }
+
+  /**
+   * Return the image the folder gets its contents from
+   *
+   * @param folder The inode of the folder
+   * @return The image, null if the contents were read
+   */
+  MappedImage getMappedImage(int folder) {
+    return mapped_images.get(folder);
+  }
+
+  /**
+   * Return the record of the folder in the image it gets its contents from
+   *
+   * @param folder The inode of the folder
+   * @return The number of the record, NONE if the contents were read
+   */
+  int getMappedRecord(int folder) {
+    Integer record = mapped_records.get(folder);
+    return record == null ? NONE : record;
+  }
+
+  /**
+   * Stop the folder from getting its contents from an image
+   *
+   * @param folder The inode of the folder
+   */
+  void clearMapped(int folder) {
+    if (mapped_images.remove(folder) != null) {
+      mapped_records.remove(folder);
+    }
+  }
+
+  /**
+   * Return true iff some folder still gets its contents from an image
+   *
+   * @return true if a folder's contents are not read yet, false otherwise
+   */
+  boolean hasMapped() {
+    return !mapped_images.isEmpty();
+  }
+
+  /**
+   * Return the number of folders whose contents are not read from their
+   * image yet
+   *
+   * @return Number of folders
+   */
+  public int getMappedCount() {
+    return mapped_images.size();
+  }
+
+  /**
+   * Return the number of nodes in use, the nodes removed for good are
+   * counted until their views are collected
+   *
+   * @return Number of inodes in use
+   */
+  public int getLiveCount() {
+    freeCollected();
+    return live_count;
+  }
+
+  /**
+   * Return the number of inodes the arrays can hold
+   *
+   * @return Number of inodes
+   */
+  public int getCapacity() {
+    return kinds.length;
+  }
+
+  /**
+   * Return the number of removed folders whose nodes are not freed yet
+   *
+   * @return Number of folders
+   */
+  public int getDeadCount() {
+    return dead_count;
+  }
+
+  /**
+   * Return the number of bytes the arrays take
+   *
+   * @return Number of bytes
+   */
+  public long getMemoryBytes() {
+    return (long) kinds.length * BYTES_PER_INODE;
+  }
+}
@@ -29,6 +29,10 @@
 // *********************************************************
 package driver;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * A java program that simulates the UNIX shell
  * 
@@ -48,7 +52,136 @@ public class JShell {
   private static String command;
   private static String[][] formatted_cmd;
 
+  /**
+   * The journal given with the --journal option, null if there is none
+   */
+  private static Path journal_path = null;
+
+  /**
+   * The durability given with the --journal option
+   */
+  private static Journal.Durability durability = Journal.Durability.GROUP;
+
+  /**
+   * Turn spilling on with the --spill DIR BUDGET_BYTES [lru|largest] option
+   * starting at the given index
+   * 
+   * @param args The arguments JShell was started with
+   * @param i Index of the --spill option
+   * @return Index of the last argument of the option
+   */
+  private static int enableSpill(String[] args, int i) {
+    FileSpiller.Policy policy = FileSpiller.Policy.LRU;
+    int last = i + 2;
+    if (i + 3 < args.length && !args[i + 3].startsWith("--")) {
+      last = i + 3;
+    }
+    try {
+      if (last == i + 3) {
+        policy = FileSpiller.Policy.valueOf(args[last].toUpperCase());
+      }
+      FileSpiller.enable(Paths.get(args[i + 1]), Long.parseLong(args[i + 2]),
+          policy);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Usage: --spill DIR BUDGET_BYTES [lru|largest]");
+    } catch (IOException e) {
+      System.out.println("Error: Cannot create the spill directory");
+    }
+    return last;
+  }
+
+  /**
+   * Read the --journal PATH [async|group|sync] option starting at the given
+   * index, the journal is turned on once every option is read
+   * 
+   * @param args The arguments JShell was started with
+   * @param i Index of the --journal option
+   * @return Index of the last argument of the option
+   */
+  private static int readJournal(String[] args, int i) {
+    int last = i + 1;
+    if (i + 2 < args.length && !args[i + 2].startsWith("--")) {
+      last = i + 2;
+    }
+    try {
+      if (last == i + 2) {
+        durability = Journal.Durability.valueOf(args[last].toUpperCase());
+      }
+      journal_path = Paths.get(args[i + 1]);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Usage: --journal PATH [async|group|sync]");
+    }
+    return last;
+  }
+
+  /**
+   * Turn the journal on, replaying the changes in it that are not in a
+   * checkpoint
+   */
+  private static void enableJournal() {
+    try {
+      Journal journal = Journal.enable(journal_path, durability, fileSys);
+      if (journal.getFailedCount() > 0) {
+        System.out.println("Error: " + journal.getFailedCount()
+            + " changes in the journal could not be made again");
+      }
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
+  }
+
+  /**
+   * Turn checkpointing on with the --checkpoint DIR SECONDS option starting
+   * at the given index, reading the tree back from the checkpoints already
+   * in the directory
+   * 
+   * @param args The arguments JShell was started with
+   * @param i Index of the --checkpoint option
+   */
+  private static void enableCheckpoint(String[] args, int i) {
+    try {
+      Checkpointer.enable(Paths.get(args[i + 1]),
+          Long.parseLong(args[i + 2]) * 1000, fileSys);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Usage: --checkpoint DIR SECONDS");
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
+  }
+
   public static void main(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--offheap")) {
+        // keep the data of files outside of the heap
+        FileArena.enable(FileArena.DEFAULT_SLAB_SIZE);
+      } else if (args[i].equals("--compress") && i + 2 < args.length) {
+        // compress the data of files left alone for some seconds, or larger
+        // than some bytes
+        try {
+          FileCompressor.enable(Long.parseLong(args[i + 1]) * 1000,
+              Long.parseLong(args[i + 2]));
+        } catch (NumberFormatException e) {
+          System.out.println("Usage: --compress IDLE_SECONDS SIZE_BYTES");
+        }
+        i += 2;
+      } else if (args[i].equals("--spill") && i + 2 < args.length) {
+        // write the data of files to a directory once there is too much of
+        // it in memory
+        i = enableSpill(args, i);
+      } else if (args[i].equals("--journal") && i + 1 < args.length) {
+        // record every change, and make the changes already recorded again
+        i = readJournal(args, i);
+      } else if (args[i].equals("--checkpoint") && i + 2 < args.length) {
+        // write the changes to a directory once in a while, and read the
+        // tree back from it
+        enableCheckpoint(args, i);
+        i += 2;
+      }
+    }
+    // the journal only holds the changes after the last checkpoint
+    if (journal_path != null) {
+      enableJournal();
+    }
     // Keep the JShell running
     while (!exit) {
       // get an input from the user
@@ -70,5 +203,17 @@ public class JShell {
         }
       }
     }
+    // write the last changes to a checkpoint, and the changes still
+    // waiting in the journal
+    try {
+      Checkpointer.disable(true);
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
+    try {
+      Journal.disable();
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
   }
 }
@@ -0,0 +1,929 @@
+package driver;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import exception.HasSameContentNameException;
+import exception.IncorrectContentTypeException;
+import exception.InvalidNameException;
+import exception.InvalidPathException;
+
+/**
+ * A write-ahead journal of the changes made to a file system. Every change,
+ * a new folder or file, a move, a copy, new data for a file, is written to
+ * the journal as a small binary record before the command that made it
+ * returns, so the file system can be built again by replaying the journal
+ * when JShell starts after a crash.
+ *
+ * A record is its length, a CRC32 checksum and its bytes: a kind, and the
+ * paths and data the change needs, each string as its length and its UTF-8
+ * bytes. Replaying stops at the first record that is cut short or whose
+ * checksum does not match, and the journal is cut there.
+ *
+ * Records are written to disk and synced by a writer of their own in the
+ * background, all the records waiting at once with a single sync, so a
+ * command making many changes waits for one sync at most. How long a
+ * command waits depends on the durability of the journal.
+ *
+ * The records are numbered, the journal starting with the number of its
+ * first record. Once a checkpoint is written, the records it holds are cut
+ * from the journal, the records made while it was written are kept, and
+ * replaying skips the records a checkpoint already holds, see Checkpointer.
+ *
+ * Journaling is off unless it is turned on.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class Journal {
+
+  /**
+   * How long a change waits before the command that made it returns
+   */
+  public enum Durability {
+    /**
+     * Nothing waits, the changes of the last moments can be lost in a crash
+     */
+    ASYNC,
+    /**
+     * A command returns once its changes are synced, with one sync for all
+     * of them
+     */
+    GROUP,
+    /**
+     * Each change is synced on its own before the next one is made
+     */
+    SYNC
+  }
+
+  /**
+   * The first four bytes of a journal, "JSJL"
+   */
+  static final int MAGIC = 0x4A534A4C;
+
+  /**
+   * The version of the format of the records
+   */
+  static final int VERSION = 3;
+
+  /**
+   * Number of bytes before the first record
+   */
+  static final int HEADER_SIZE = 16;
+
+  /**
+   * Kinds of records
+   */
+  static final byte MAKE_DIRECTORY = 1;
+  static final byte MAKE_FILE = 2;
+  static final byte MOVE = 3;
+  static final byte COPY = 4;
+  static final byte WRITE = 5;
+  static final byte APPEND = 6;
+  static final byte CLEAR = 7;
+  static final byte LOAD = 8;
+
+  /**
+   * Message of the error raised once the journal cannot be written
+   */
+  private static final String WRITE_FAILED =
+      "Error: Cannot write the journal, changes are no longer recorded";
+
+  /**
+   * The journal in use, null if journaling is off
+   */
+  private static Journal active = null;
+
+  /**
+   * The path of the journal on disk
+   */
+  private final Path path;
+
+  /**
+   * The channel of the journal on disk, replaced when the journal is cut
+   */
+  private FileChannel channel;
+
+  /**
+   * How long a change waits before the command that made it returns
+   */
+  private final Durability durability;
+
+  /**
+   * The records not handed to the writer yet
+   */
+  private ByteArrayOutputStream pending;
+
+  /**
+   * The bytes of the record being made
+   */
+  private final ByteArrayOutputStream record;
+
+  /**
+   * Writes the bytes of the record being made
+   */
+  private final DataOutputStream record_out;
+
+  /**
+   * Checksum of the record being made
+   */
+  private final CRC32 checksum;
+
+  /**
+   * The thread writing and syncing records in the background
+   */
+  private final Thread writer;
+
+  /**
+   * Number of records made
+   */
+  private long made_count;
+
+  /**
+   * Number of the first record in the journal
+   */
+  private long first_position;
+
+  /**
+   * Number of the next record
+   */
+  private long position;
+
+  /**
+   * Number of records handed to the writer
+   */
+  private long handed_count;
+
+  /**
+   * Number of records written and synced
+   */
+  private long synced_count;
+
+  /**
+   * Number of syncs
+   */
+  private long sync_count;
+
+  /**
+   * Number of bytes in the journal
+   */
+  private long journal_bytes;
+
+  /**
+   * Number of bytes in the journal once the records made so far are written
+   */
+  private long made_bytes;
+
+  /**
+   * Number of records replayed when the journal was opened
+   */
+  private long replayed_count;
+
+  /**
+   * Number of records that could not be replayed
+   */
+  private long failed_count;
+
+  /**
+   * The error raised by the writer, null if it has not failed
+   */
+  private IOException failure;
+
+  /**
+   * true once the journal is closed
+   */
+  private boolean closed;
+
+  /**
+   * Default Constructor
+   *
+   * @param path The path of the journal on disk
+   * @param channel The channel of the journal on disk, past its last record
+   * @param durability How long a change waits
+   */
+  private Journal(Path path, FileChannel channel, Durability durability) {
+    this.path = path;
+    this.channel = channel;
+    this.durability = durability;
+    pending = new ByteArrayOutputStream();
+    record = new ByteArrayOutputStream();
+    record_out = new DataOutputStream(record);
+    checksum = new CRC32();
+    writer = new Thread(new Runnable() {
+      public void run() {
+        writeRecords();
+      }
+    }, "journal-writer");
+    writer.setDaemon(true);
+  }
+
+  /**
+   * Turn journaling on. The changes already in the journal are replayed on
+   * the file system first, then the changes made from now on are added to
+   * it.
+   *
+   * @param path The path of the journal on disk, created if it does not
+   *        exist
+   * @param durability How long a change waits
+   * @param fileSys The file system the changes are replayed on
+   * @return The journal
+   * @throws IOException If the journal cannot be opened or is not a journal
+   */
+  public static Journal enable(Path path, Durability durability,
+      FileSystem fileSys) throws IOException {
+    disable();
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    Journal journal = new Journal(path, channel, durability);
+    try {
+      journal.replay(fileSys);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    journal.writer.start();
+    active = journal;
+    return journal;
+  }
+
+  /**
+   * Turn journaling off, the records made so far are written and synced
+   * first
+   *
+   * @throws IOException If the records cannot be written
+   */
+  public static void disable() throws IOException {
+    Journal journal = active;
+    active = null;
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  /**
+   * Return the journal in use
+   *
+   * @return The journal, null if journaling is off
+   */
+  public static Journal getActive() {
+    return active;
+  }
+
+  /**
+   * Record a new folder
+   *
+   * @param path The full path of the folder
+   */
+  static void recordMakeDirectory(String path) {
+    if (active != null) {
+      active.begin(MAKE_DIRECTORY).putString(path).end();
+    }
+  }
+
+  /**
+   * Record a new empty file
+   *
+   * @param path The full path of the file
+   */
+  static void recordMakeFile(String path) {
+    if (active != null) {
+      active.begin(MAKE_FILE).putString(path).end();
+    }
+  }
+
+  /**
+   * Record a content moved into a folder under a new name
+   *
+   * @param path The full path of the content before it is moved
+   * @param folder The full path of the folder it is moved into
+   * @param name The name of the content once it is moved
+   */
+  static void recordMove(String path, String folder, String name) {
+    if (active != null) {
+      active.begin(MOVE).putString(path).putString(folder).putString(name)
+          .end();
+    }
+  }
+
+  /**
+   * Record a content copied into a folder
+   *
+   * @param path The full path of the content copied
+   * @param folder The full path of the folder the copy is added to
+   */
+  static void recordCopy(String path, String folder) {
+    if (active != null) {
+      active.begin(COPY).putString(path).putString(folder).end();
+    }
+  }
+
+  /**
+   * Record the data a file was overwritten with
+   *
+   * @param file The file, once its data is written
+   */
+  public static void recordWrite(File file) {
+    if (active != null) {
+      active.begin(WRITE).putString(file.getPath())
+          .putString(file.getCharset().name()).putBytes(file.getBytes())
+          .end();
+    }
+  }
+
+  /**
+   * Record the text added to the end of a file
+   *
+   * @param file The file
+   * @param text The text added
+   */
+  static void recordAppend(File file, String text) {
+    if (active != null) {
+      active.begin(APPEND).putString(file.getPath()).putString(text).end();
+    }
+  }
+
+  /**
+   * Record a folder whose contents are all removed
+   *
+   * @param folder The folder
+   */
+  static void recordClear(Folder folder) {
+    if (active != null) {
+      active.begin(CLEAR).putString(folder.getPath()).end();
+    }
+  }
+
+  /**
+   * Record the tree of the file system replaced with an image. The image
+   * is read again when the journal is replayed, so its size and checksum
+   * are recorded too, and replaying fails if the image on disk is no longer
+   * the one that was loaded.
+   *
+   * @param path The path of the image on disk
+   * @param size The size of the image in bytes
+   * @param sum The checksum of the image, see imageChecksum
+   */
+  static void recordLoad(Path path, long size, long sum) {
+    if (active != null) {
+      active.begin(LOAD).putString(path.toAbsolutePath().toString())
+          .putLong(size).putLong(sum).end();
+    }
+  }
+
+  /**
+   * Return the CRC32 checksum of the bytes of an image on disk
+   *
+   * @param path The path of the image
+   * @return The checksum
+   * @throws IOException If the image cannot be read
+   */
+  static long imageChecksum(Path path) throws IOException {
+    CRC32 sum = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        sum.update(buffer);
+        buffer.clear();
+      }
+    }
+    return sum.getValue();
+  }
+
+  /**
+   * Wait until the changes made by a command are as durable as the journal
+   * asks for, called once the command is done
+   *
+   * @throws IOException If the journal cannot be written, journaling is
+   *         turned off
+   */
+  public static void commit() throws IOException {
+    Journal journal = active;
+    if (journal != null) {
+      try {
+        journal.handOver(journal.durability != Durability.ASYNC);
+      } catch (IOException e) {
+        active = null;
+        journal.close();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Start a new record
+   *
+   * @param kind The kind of the record
+   * @return This journal
+   */
+  private Journal begin(byte kind) {
+    record.reset();
+    record.write(kind);
+    return this;
+  }
+
+  /**
+   * Add a string to the record being made
+   *
+   * @param text The string
+   * @return This journal
+   */
+  private Journal putString(String text) {
+    return putBytes(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Add a number to the record being made
+   *
+   * @param number The number
+   * @return This journal
+   */
+  private Journal putLong(long number) {
+    try {
+      record_out.writeLong(number);
+    } catch (IOException e) {
+      // the record is kept in memory
+      throw new IllegalStateException(e);
+    }
+    return this;
+  }
+
+  /**
+   * Add bytes to the record being made
+   *
+   * @param bytes The bytes
+   * @return This journal
+   */
+  private Journal putBytes(byte[] bytes) {
+    try {
+      record_out.writeInt(bytes.length);
+      record_out.write(bytes);
+    } catch (IOException e) {
+      // the record is kept in memory
+      throw new IllegalStateException(e);
+    }
+    return this;
+  }
+
+  /**
+   * Add the record being made to the records waiting for the writer, and
+   * wait for it to be synced if each change is synced on its own
+   */
+  private void end() {
+    checksum.reset();
+    checksum.update(record.toByteArray(), 0, record.size());
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      DataOutputStream out = new DataOutputStream(pending);
+      try {
+        out.writeInt(record.size());
+        out.writeInt((int) checksum.getValue());
+        record.writeTo(out);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      made_count++;
+      position++;
+      made_bytes += 8 + record.size();
+    }
+    if (durability == Durability.SYNC) {
+      try {
+        handOver(true);
+      } catch (IOException e) {
+        // raised again when the command is done
+      }
+    }
+  }
+
+  /**
+   * Hand the records made so far to the writer
+   *
+   * @param wait true to wait until they are synced
+   * @throws IOException If the writer has failed
+   */
+  private synchronized void handOver(boolean wait) throws IOException {
+    if (handed_count < made_count) {
+      handed_count = made_count;
+      notifyAll();
+    }
+    while (wait && failure == null && synced_count < handed_count) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    if (failure != null) {
+      throw new IOException(WRITE_FAILED, failure);
+    }
+  }
+
+  /**
+   * Write and sync the records handed over, all those waiting at once,
+   * until the journal is closed
+   */
+  private void writeRecords() {
+    while (true) {
+      ByteArrayOutputStream batch;
+      long count;
+      FileChannel target;
+      synchronized (this) {
+        while (!closed && handed_count == synced_count) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (handed_count == synced_count) {
+          return;
+        }
+        batch = pending;
+        count = handed_count;
+        target = channel;
+        pending = new ByteArrayOutputStream();
+      }
+      try {
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+        while (bytes.hasRemaining()) {
+          target.write(bytes);
+        }
+        target.force(false);
+      } catch (IOException e) {
+        synchronized (this) {
+          failure = e;
+          notifyAll();
+        }
+        return;
+      }
+      synchronized (this) {
+        synced_count = count;
+        sync_count++;
+        journal_bytes += batch.size();
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Write and sync the records made so far, then close the journal
+   *
+   * @throws IOException If the records cannot be written
+   */
+  private void close() throws IOException {
+    IOException error = null;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      handed_count = made_count;
+      closed = true;
+      notifyAll();
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      if (failure != null) {
+        error = new IOException(WRITE_FAILED, failure);
+      }
+    }
+    channel.close();
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Replay the records of the journal on the file system, and cut the
+   * journal after the last whole record
+   *
+   * @param fileSys The file system
+   * @throws IOException If the journal cannot be read or is not a journal
+   */
+  private void replay(FileSystem fileSys) throws IOException {
+    // the records the checkpoint read holds are not made again
+    Checkpointer checkpointer = Checkpointer.getActive();
+    long covered =
+        checkpointer == null ? 0 : checkpointer.getJournalPosition();
+    long size = channel.size();
+    if (size == 0) {
+      writeHeader(covered);
+      return;
+    }
+    channel.position(0);
+    // the stream is not closed, it would close the channel
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+    long good = HEADER_SIZE;
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Error: The file is not a JShell journal");
+      }
+      if (in.readInt() != VERSION) {
+        throw new IOException("Error: Unsupported journal version");
+      }
+      first_position = in.readLong();
+      position = first_position;
+      while (good < size) {
+        int length = in.readInt();
+        int sum = in.readInt();
+        if (length < 1 || length > size - good - 8) {
+          break;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        checksum.reset();
+        checksum.update(bytes, 0, length);
+        if ((int) checksum.getValue() != sum) {
+          break;
+        }
+        if (position >= covered) {
+          checkImage(bytes);
+          apply(fileSys, bytes);
+        }
+        position++;
+        good += 8 + length;
+      }
+    } catch (EOFException e) {
+      if (good == HEADER_SIZE && size < HEADER_SIZE) {
+        throw new IOException("Error: The file is not a JShell journal");
+      }
+      // the last record was cut short by a crash
+    }
+    // a record cut short is dropped, new records follow the last whole one
+    channel.truncate(good);
+    channel.position(good);
+    journal_bytes = good;
+    made_bytes = good;
+  }
+
+  /**
+   * Write the header of an empty journal and sync it
+   *
+   * @param first Number of the first record
+   * @throws IOException If the header cannot be written
+   */
+  private void writeHeader(long first) throws IOException {
+    ByteBuffer header = header(first);
+    while (header.hasRemaining()) {
+      channel.write(header, header.position());
+    }
+    channel.position(HEADER_SIZE);
+    channel.force(false);
+    first_position = first;
+    position = first;
+    journal_bytes = HEADER_SIZE;
+    made_bytes = HEADER_SIZE;
+  }
+
+  /**
+   * Return the header of a journal
+   *
+   * @param first Number of the first record
+   * @return The bytes of the header
+   */
+  private static ByteBuffer header(long first) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC).putInt(VERSION).putLong(first).flip();
+    return header;
+  }
+
+  /**
+   * Cut the records a checkpoint holds from the journal. The records made
+   * after them are copied to a new journal with a new header, which then
+   * replaces the journal, so a crash meanwhile leaves one or the other.
+   *
+   * @param first Number of the first record the checkpoint does not hold
+   * @param offset Position of that record in the journal, see getMadeBytes
+   * @throws IOException If the journal cannot be written
+   */
+  synchronized void compact(long first, long offset) throws IOException {
+    // the records made so far are written first, the writer then waits
+    handOver(true);
+    if (closed || first <= first_position) {
+      return;
+    }
+    Path written = path.resolveSibling(path.getFileName() + ".tmp");
+    long size = channel.size();
+    try (FileChannel copy = FileChannel.open(written,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = header(first);
+      while (header.hasRemaining()) {
+        copy.write(header);
+      }
+      for (long at = offset; at < size;) {
+        at += channel.transferTo(at, size - at, copy);
+      }
+      copy.force(false);
+    } catch (IOException e) {
+      Files.deleteIfExists(written);
+      throw e;
+    }
+    Files.move(written, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    channel.close();
+    channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    channel.position(channel.size());
+    long cut = offset - HEADER_SIZE;
+    journal_bytes -= cut;
+    made_bytes -= cut;
+    first_position = first;
+  }
+
+  /**
+   * Check the image a record loads is still the one that was loaded, the
+   * tree would be another one otherwise and the records after it could not
+   * be made on it
+   *
+   * @param bytes The bytes of the record
+   * @throws IOException If the image is no longer the one that was loaded
+   */
+  private static void checkImage(byte[] bytes) throws IOException {
+    if (bytes[0] != LOAD) {
+      return;
+    }
+    ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+    Path image = Paths.get(getString(in));
+    long size = in.getLong();
+    long sum = in.getLong();
+    if (!Files.isRegularFile(image) || Files.size(image) != size
+        || imageChecksum(image) != sum) {
+      throw new IOException("Error: The image " + image
+          + " changed since it was loaded, the journal cannot be replayed");
+    }
+  }
+
+  /**
+   * Make the change of a record on the file system
+   *
+   * @param fileSys The file system
+   * @param bytes The bytes of the record
+   */
+  private void apply(FileSystem fileSys, byte[] bytes) {
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    try {
+      byte kind = in.get();
+      switch (kind) {
+        case MAKE_DIRECTORY:
+          fileSys.makeDirectory(getString(in));
+          break;
+        case MAKE_FILE:
+          fileSys.makeFile(getString(in));
+          break;
+        case MOVE:
+          Content moved = fileSys.getPathContent(getString(in));
+          Folder folder = fileSys.getFolder(getString(in));
+          fileSys.moveContent(moved, folder, getString(in));
+          break;
+        case COPY:
+          Content copied = fileSys.getPathContent(getString(in));
+          fileSys.copyContent(copied, fileSys.getFolder(getString(in)));
+          break;
+        case WRITE:
+          File written = fileSys.getFile(getString(in));
+          Charset charset = Charset.forName(getString(in));
+          written.overwriteData(getBytes(in), charset);
+          break;
+        case APPEND:
+          fileSys.getFile(getString(in)).appendData(getString(in));
+          break;
+        case CLEAR:
+          fileSys.getFolder(getString(in)).removeAllContents();
+          break;
+        case LOAD:
+          FileSystemImage.load(fileSys, getString(in));
+          break;
+        default:
+          failed_count++;
+          return;
+      }
+      replayed_count++;
+    } catch (InvalidNameException | InvalidPathException
+        | HasSameContentNameException | IncorrectContentTypeException
+        | IOException | RuntimeException e) {
+      // the change cannot be made again, the others still are
+      failed_count++;
+    }
+  }
+
+  /**
+   * Read a string of a record
+   *
+   * @param in The bytes of the record
+   * @return The string
+   */
+  private static String getString(ByteBuffer in) {
+    return new String(getBytes(in), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Read bytes of a record
+   *
+   * @param in The bytes of the record
+   * @return The bytes
+   */
+  private static byte[] getBytes(ByteBuffer in) {
+    byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Return how long a change waits before the command that made it returns
+   *
+   * @return The durability
+   */
+  public Durability getDurability() {
+    return durability;
+  }
+
+  /**
+   * Return the number of records made since the journal was opened
+   *
+   * @return Number of records
+   */
+  public synchronized long getRecordCount() {
+    return made_count;
+  }
+
+  /**
+   * Return the number of the next record, the records before it are in
+   * the journal or in a checkpoint
+   *
+   * @return Number of the next record
+   */
+  public synchronized long getPosition() {
+    return position;
+  }
+
+  /**
+   * Return the number of bytes the journal holds once the records made so
+   * far are written, the position of the next record in it
+   *
+   * @return Number of bytes
+   */
+  public synchronized long getMadeBytes() {
+    return made_bytes;
+  }
+
+  /**
+   * Return the number of syncs since the journal was opened
+   *
+   * @return Number of syncs
+   */
+  public synchronized long getSyncCount() {
+    return sync_count;
+  }
+
+  /**
+   * Return the number of bytes in the journal on disk
+   *
+   * @return Number of bytes
+   */
+  public synchronized long getJournalBytes() {
+    return journal_bytes;
+  }
+
+  /**
+   * Return the number of records replayed when the journal was opened
+   *
+   * @return Number of records
+   */
+  public long getReplayedCount() {
+    return replayed_count;
+  }
+
+  /**
+   * Return the number of records that could not be replayed when the
+   * journal was opened
+   *
+   * @return Number of records
+   */
+  public long getFailedCount() {
+    return failed_count;
+  }
+}
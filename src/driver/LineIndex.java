@@ -0,0 +1,281 @@
+package driver;
+
+import java.util.Arrays;
+
+/**
+ * Finds the lines of the data of a file without reading all of it. The index
+ * remembers where every STRIDE-th line starts, and is built as far as it is
+ * needed the first time a line is asked for. Bytes added to the end of the
+ * data are indexed as they are added, so the index never reads the data from
+ * the start again.
+ *
+ * A line ends at a new line character, and a last line without one is a line
+ * as well. The last lines of the data are found by reading the data
+ * backwards from its end, so they are found without reading the rest of it.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class LineIndex {
+
+  /**
+   * Number of lines between two lines whose start is kept
+   */
+  static final int STRIDE = 64;
+
+  /**
+   * The new line byte
+   */
+  private static final byte NEW_LINE = '\n';
+
+  /**
+   * The data indexed
+   */
+  private final FileData data;
+
+  /**
+   * Index in the data of the start of every STRIDE-th line
+   */
+  private long[] marks;
+
+  /**
+   * Number of marks kept
+   */
+  private int mark_count;
+
+  /**
+   * Number of new lines found so far
+   */
+  private long new_lines;
+
+  /**
+   * Number of bytes from the start of the data searched for new lines
+   */
+  private long scanned;
+
+  /**
+   * The lines of data whose new line is not a single byte, null if the new
+   * lines are found in the bytes or the lines were not split yet
+   */
+  private String[] split;
+
+  /**
+   * Whether the new line is not a single byte in the charset of the data
+   */
+  private final boolean by_text;
+
+  /**
+   * Default Constructor
+   *
+   * @param data The data indexed
+   */
+  public LineIndex(FileData data) {
+    this.data = data;
+    marks = new long[4];
+    // the first line starts at the start of the data
+    mark_count = 1;
+    by_text = !Arrays.equals("\n".getBytes(data.getCharset()),
+        new byte[] {NEW_LINE});
+  }
+
+  /**
+   * Return the number of lines in the data, reading all of it the first
+   * time
+   *
+   * @return Number of lines
+   */
+  public long getLineCount() {
+    if (by_text) {
+      return splitLines().length;
+    }
+    scanTo(Long.MAX_VALUE);
+    long length = data.length();
+    if (length > 0 && data.byteAt(length - 1) != NEW_LINE) {
+      // the last line has no new line
+      return new_lines + 1;
+    }
+    return new_lines;
+  }
+
+  /**
+   * Return true iff all of the data was searched for new lines
+   *
+   * @return true if the index covers the whole data, false otherwise
+   */
+  public boolean isComplete() {
+    return by_text || scanned == data.length();
+  }
+
+  /**
+   * Return the lines from the first line to the one before the last line,
+   * counted from 0, with a new line between two lines. Lines past the end of
+   * the data are left out.
+   *
+   * @param from Number of the first line
+   * @param to Number of the line after the last line
+   * @return The lines
+   */
+  public String getLines(long from, long to) {
+    if (from >= to) {
+      return "";
+    }
+    if (by_text) {
+      String[] lines = splitLines();
+      int end = (int) Math.min(to, lines.length);
+      if (from >= end) {
+        return "";
+      }
+      return String.join("\n", Arrays.copyOfRange(lines, (int) from, end));
+    }
+    long start = lineStart(from);
+    long end = lineStart(to);
+    return text(start, end);
+  }
+
+  /**
+   * Return the last lines of the data, with a new line between two lines.
+   * Unless the index already covers the whole data, the lines are found by
+   * reading the data backwards from its end.
+   *
+   * @param count Number of lines
+   * @return The lines
+   */
+  public String getLastLines(long count) {
+    if (count <= 0) {
+      return "";
+    }
+    if (isComplete()) {
+      long total = getLineCount();
+      return getLines(Math.max(0, total - count), total);
+    }
+    long length = data.length();
+    long end = length;
+    if (data.byteAt(end - 1) == NEW_LINE) {
+      // the new line of the last line does not start another line
+      end--;
+    }
+    long start = 0;
+    long found = 0;
+    while (end > 0 && found < count) {
+      long window_start = Math.max(0, end - FileDataReader.WINDOW_SIZE);
+      byte[] window = data.getBytes(window_start, end);
+      int at = window.length - 1;
+      while (at >= 0 && found < count) {
+        if (window[at] == NEW_LINE && ++found == count) {
+          start = window_start + at + 1;
+        }
+        at--;
+      }
+      end = window_start;
+    }
+    return text(start, length);
+  }
+
+  /**
+   * Index bytes added to the end of the data, if the index reached the end
+   * of the data before they were added
+   *
+   * @param added The bytes added
+   * @param at Index in the data of the first byte added
+   */
+  void appended(byte[] added, long at) {
+    split = null;
+    if (!by_text && scanned == at) {
+      scan(added, at);
+    }
+  }
+
+  /**
+   * Return the index of the start of the line, or the length of the data if
+   * the data has fewer lines
+   *
+   * @param line Number of the line, counted from 0
+   * @return Index in the data where the line starts
+   */
+  private long lineStart(long line) {
+    scanTo(line);
+    if (line > new_lines) {
+      return data.length();
+    }
+    long start = marks[(int) (line / STRIDE)];
+    long skipped = 0;
+    long wanted = line % STRIDE;
+    // go past the new lines between the mark and the line
+    while (skipped < wanted) {
+      byte[] window = data.getBytes(start,
+          Math.min(data.length(), start + FileDataReader.WINDOW_SIZE));
+      int at = 0;
+      while (at < window.length && skipped < wanted) {
+        if (window[at++] == NEW_LINE) {
+          skipped++;
+        }
+      }
+      start += at;
+    }
+    return start;
+  }
+
+  /**
+   * Search the data for new lines until the given number of them is found
+   * or the whole data is searched
+   *
+   * @param wanted Number of new lines wanted
+   */
+  private void scanTo(long wanted) {
+    long length = data.length();
+    while (new_lines < wanted && scanned < length) {
+      scan(data.getBytes(scanned,
+          Math.min(length, scanned + FileDataReader.WINDOW_SIZE)), scanned);
+    }
+  }
+
+  /**
+   * Search the bytes for new lines, and keep the start of every STRIDE-th
+   * line
+   *
+   * @param bytes The bytes, which come right after the bytes searched
+   * @param at Index in the data of the first of the bytes
+   */
+  private void scan(byte[] bytes, long at) {
+    for (int i = 0; i < bytes.length; i++) {
+      if (bytes[i] == NEW_LINE && ++new_lines % STRIDE == 0) {
+        if (mark_count == marks.length) {
+          marks = Arrays.copyOf(marks, mark_count * 2);
+        }
+        marks[mark_count++] = at + i + 1;
+      }
+    }
+    scanned = at + bytes.length;
+  }
+
+  /**
+   * Return the bytes from start to end as text, without the new line at the
+   * end
+   *
+   * @param start Index of the first byte
+   * @param end Index after the last byte
+   * @return The text
+   */
+  private String text(long start, long end) {
+    if (end > start && data.byteAt(end - 1) == NEW_LINE) {
+      end--;
+    }
+    return new String(data.getBytes(start, end), data.getCharset());
+  }
+
+  /**
+   * Return the lines of data whose new line is not a single byte
+   *
+   * @return The lines
+   */
+  private String[] splitLines() {
+    if (split == null) {
+      String text = data.toString();
+      if (text.endsWith("\n")) {
+        text = text.substring(0, text.length() - 1);
+      }
+      split = text.isEmpty() ? new String[0] : text.split("\n", -1);
+    }
+    return split;
+  }
+}
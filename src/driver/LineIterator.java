@@ -0,0 +1,153 @@
+package driver;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Goes through the lines of the data of a file, one line at a time, reading
+ * the data a window of bytes at a time. The lines are the same as the ones
+ * split from getData at each new line character: empty lines at the end are
+ * left out, and empty data has one empty line.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class LineIterator implements Iterator<String> {
+
+  /**
+   * The new line byte
+   */
+  private static final byte NEW_LINE = '\n';
+
+  /**
+   * The data read
+   */
+  private FileData data;
+
+  /**
+   * Index in the data after the last line
+   */
+  private long limit;
+
+  /**
+   * Index in the data of the start of the next line, more than limit once
+   * there are no lines left
+   */
+  private long position;
+
+  /**
+   * The bytes read last from the data
+   */
+  private byte[] window;
+
+  /**
+   * Index in the data of the first byte of the window
+   */
+  private long window_start;
+
+  /**
+   * The lines of data whose new line is not a single byte, null if the new
+   * lines are found in the bytes
+   */
+  private String[] split;
+
+  /**
+   * Default Constructor
+   *
+   * @param data The data read
+   */
+  public LineIterator(FileData data) {
+    this.data = data;
+    window = new byte[0];
+    if (!Arrays.equals("\n".getBytes(data.getCharset()),
+        new byte[] {NEW_LINE})) {
+      // the new line is not one byte in this charset
+      split = data.toString().split("\n");
+      return;
+    }
+    limit = data.length();
+    // empty lines at the end are left out
+    while (limit > 0 && data.byteAt(limit - 1) == NEW_LINE) {
+      limit--;
+    }
+    if (limit == 0 && data.length() > 0) {
+      position = 1;
+    }
+  }
+
+  /**
+   * Return true iff there is another line
+   *
+   * @return true if there is another line, false otherwise
+   */
+  public boolean hasNext() {
+    if (split != null) {
+      return position < split.length;
+    }
+    return position <= limit;
+  }
+
+  /**
+   * Return the next line, without its new line character
+   *
+   * @return The next line
+   */
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    if (split != null) {
+      return split[(int) position++];
+    }
+    long end = findNewLine(position);
+    String line = new String(read(position, end), data.getCharset());
+    position = end + 1;
+    return line;
+  }
+
+  /**
+   * Return the index of the next new line from the given index, or the
+   * limit if there is none before it
+   *
+   * @param from Index to search from
+   * @return Index of the new line
+   */
+  private long findNewLine(long from) {
+    for (long at = from; at < limit; at++) {
+      if (at >= window_start + window.length) {
+        moveWindow(at);
+      }
+      if (window[(int) (at - window_start)] == NEW_LINE) {
+        return at;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * Return the bytes from start to end, from the window when they are in it
+   *
+   * @param start Index of the first byte
+   * @param end Index after the last byte
+   * @return The bytes
+   */
+  private byte[] read(long start, long end) {
+    if (start >= window_start && end <= window_start + window.length) {
+      return Arrays.copyOfRange(window, (int) (start - window_start),
+          (int) (end - window_start));
+    }
+    return data.getBytes(start, end);
+  }
+
+  /**
+   * Read the window of bytes starting at the given index
+   *
+   * @param from Index of the first byte of the window
+   */
+  private void moveWindow(long from) {
+    window_start = from;
+    window = data.getBytes(from,
+        Math.min(limit, from + FileDataReader.WINDOW_SIZE));
+  }
+}
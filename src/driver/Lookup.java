@@ -0,0 +1,105 @@
+package driver;
+
+/**
+ * The result of looking up a path in the FileSystem without throwing an
+ * exception: the content found, and the status of the lookup. A result never
+ * changes, so a later lookup does not change what an earlier one found.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class Lookup {
+
+  /**
+   * The result of a lookup of a path that does not exist, shared as it holds
+   * no content
+   */
+  static final Lookup NOT_FOUND = new Lookup(null, LookupStatus.NOT_FOUND);
+
+  /**
+   * The result of a lookup of a file at a path that holds a folder
+   */
+  static final Lookup NOT_A_FILE = new Lookup(null, LookupStatus.NOT_A_FILE);
+
+  /**
+   * The result of a lookup of a folder at a path that holds a file
+   */
+  static final Lookup NOT_A_FOLDER =
+      new Lookup(null, LookupStatus.NOT_A_FOLDER);
+
+  /**
+   * The content found, null if none of the wanted type was found
+   */
+  private final Content content;
+
+  /**
+   * The status of the lookup
+   */
+  private final LookupStatus status;
+
+  /**
+   * Default Constructor
+   *
+   * @param content The content found, null if none was found
+   * @param status The status of the lookup
+   */
+  private Lookup(Content content, LookupStatus status) {
+    this.content = content;
+    this.status = status;
+  }
+
+  /**
+   * Return the result of a lookup that found the content
+   *
+   * @param content The content found
+   * @return The result
+   */
+  static Lookup found(Content content) {
+    return new Lookup(content, LookupStatus.FOUND);
+  }
+
+  /**
+   * Return the status of the lookup
+   *
+   * @return The status
+   */
+  public LookupStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Return true iff a content of the wanted type was found
+   *
+   * @return true if it was found, false otherwise
+   */
+  public boolean isFound() {
+    return status == LookupStatus.FOUND;
+  }
+
+  /**
+   * Return the content found
+   *
+   * @return The content, null if none of the wanted type was found
+   */
+  public Content getContent() {
+    return content;
+  }
+
+  /**
+   * Return the file found by a lookup of a file
+   *
+   * @return The file, null if no file was found
+   */
+  public File getFile() {
+    return content instanceof File ? (File) content : null;
+  }
+
+  /**
+   * Return the folder found by a lookup of a folder
+   *
+   * @return The folder, null if no folder was found
+   */
+  public Folder getFolder() {
+    return content instanceof Folder ? (Folder) content : null;
+  }
+}
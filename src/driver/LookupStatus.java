@@ -0,0 +1,27 @@
+package driver;
+
+/**
+ * The result of looking up a path in the FileSystem without throwing an
+ * exception.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public enum LookupStatus {
+  /**
+   * A content of the wanted type is at the path
+   */
+  FOUND,
+  /**
+   * Nothing is at the path
+   */
+  NOT_FOUND,
+  /**
+   * A content is at the path but it is not a File
+   */
+  NOT_A_FILE,
+  /**
+   * A content is at the path but it is not a Folder
+   */
+  NOT_A_FOLDER
+}
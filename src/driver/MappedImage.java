@@ -0,0 +1,329 @@
+package driver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * An indexed image of a file system, mapped into memory with
+ * FileChannel.map and read in place. Nothing of the image is read when it is
+ * opened but its header and the checksum of its index, so opening a large
+ * image takes about as long as opening a small one, and processes opening
+ * the same image share its pages in the page cache of the system.
+ *
+ * The image starts with a header, followed by a record of a fixed size for
+ * each node, the names, and the data of the files. The records are in
+ * breadth first order from the root, so the contents of a folder are next
+ * to each other, in alphabetical order. All positions in the image are
+ * counted from its start, so the image can be mapped anywhere.
+ *
+ * A folder read from an image gets its contents from the image the first
+ * time they are used, one folder at a time, and the data of its files stays
+ * in the mapped image until it is changed. The image itself is never
+ * written, changes are only made to the nodes in the inode table.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class MappedImage {
+
+  /**
+   * The version of the format of an indexed image
+   */
+  static final int VERSION = 2;
+
+  /**
+   * Number of bytes of the header
+   */
+  static final int HEADER_SIZE = 64;
+
+  /**
+   * Number of bytes of the record of a node
+   */
+  static final int RECORD_SIZE = 32;
+
+  /**
+   * Number of bytes mapped together, the data of a file that fits in one
+   * segment is never split over two
+   */
+  static final long SEGMENT_SIZE = 1L << 30;
+
+  /**
+   * Position in the header of the number of nodes
+   */
+  static final int NODE_COUNT_AT = 8;
+
+  /**
+   * Position in the header of the number of names
+   */
+  static final int NAME_COUNT_AT = 12;
+
+  /**
+   * Position in the header of the position of the names
+   */
+  static final int NAMES_AT = 16;
+
+  /**
+   * Position in the header of the position of the data of the files
+   */
+  static final int DATA_AT = 24;
+
+  /**
+   * Position in the header of the checksum of the records and the names
+   */
+  static final int CHECKSUM_AT = 32;
+
+  /**
+   * Position in the header of the length of the image
+   */
+  static final int LENGTH_AT = 40;
+
+  /**
+   * Message of the error raised for an image that cannot be read
+   */
+  private static final String DAMAGED = "Error: The image is damaged";
+
+  /**
+   * The channel of the image, kept open to map data that is split over two
+   * segments
+   */
+  private final FileChannel channel;
+
+  /**
+   * The whole image, mapped a segment at a time
+   */
+  private final MappedByteBuffer[] segments;
+
+  /**
+   * Number of nodes in the image
+   */
+  private final int node_count;
+
+  /**
+   * Number of names in the image
+   */
+  private final int name_count;
+
+  /**
+   * Position of the names
+   */
+  private final long names_at;
+
+  /**
+   * The names read from the image so far, by their number
+   */
+  private final String[] names;
+
+  /**
+   * Map an image and check its header and the checksum of its index
+   *
+   * @param channel The channel of the image, read from its start
+   * @throws IOException If the image cannot be mapped or is damaged
+   */
+  MappedImage(FileChannel channel) throws IOException {
+    this.channel = channel;
+    long size = channel.size();
+    if (size < HEADER_SIZE) {
+      throw new IOException(DAMAGED);
+    }
+    int count = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+    segments = new MappedByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      long start = i * SEGMENT_SIZE;
+      segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+          Math.min(SEGMENT_SIZE, size - start));
+    }
+    node_count = getInt(NODE_COUNT_AT);
+    name_count = getInt(NAME_COUNT_AT);
+    names_at = getLong(NAMES_AT);
+    long data_at = getLong(DATA_AT);
+    if (getLong(LENGTH_AT) != size || node_count < 1 || name_count < 0
+        || names_at != HEADER_SIZE + (long) node_count * RECORD_SIZE
+        || names_at + 4L * (name_count + 1) > data_at || data_at > size) {
+      throw new IOException(DAMAGED);
+    }
+    // the records and the names are checked, the data is only read when it
+    // is used
+    CRC32 checksum = new CRC32();
+    for (long at = HEADER_SIZE; at < data_at;) {
+      ByteBuffer segment = segments[(int) (at / SEGMENT_SIZE)].duplicate();
+      segment.position((int) (at % SEGMENT_SIZE));
+      int count_checked =
+          (int) Math.min(segment.remaining(), data_at - at);
+      segment.limit(segment.position() + count_checked);
+      checksum.update(segment);
+      at += count_checked;
+    }
+    if (checksum.getValue() != getLong(CHECKSUM_AT)) {
+      throw new IOException("Error: The checksum of the image does not "
+          + "match, the image is damaged");
+    }
+    names = new String[name_count];
+  }
+
+  /**
+   * Return the number of nodes in the image
+   *
+   * @return Number of nodes
+   */
+  int getNodeCount() {
+    return node_count;
+  }
+
+  /**
+   * Return the kind of the node
+   *
+   * @param record The number of the record of the node
+   * @return FOLDER, FILE or CONTENT
+   */
+  byte getKind(int record) {
+    return getByte(recordAt(record));
+  }
+
+  /**
+   * Return the name of the node
+   *
+   * @param record The number of the record of the node
+   * @return The name
+   * @throws IOException If the image is damaged
+   */
+  String getName(int record) throws IOException {
+    return name(getInt(recordAt(record) + 4));
+  }
+
+  /**
+   * Return the number of contents of the folder
+   *
+   * @param record The number of the record of the folder
+   * @return Number of contents
+   */
+  int getChildCount(int record) {
+    return getInt(recordAt(record) + 8);
+  }
+
+  /**
+   * Return the record of the first content of the folder, the others follow
+   * it
+   *
+   * @param record The number of the record of the folder
+   * @return The number of the record of the first content
+   * @throws IOException If the image is damaged
+   */
+  int getFirstChild(int record) throws IOException {
+    int first = getInt(recordAt(record) + 12);
+    if (first <= record || first + (long) getChildCount(record) > node_count) {
+      throw new IOException(DAMAGED);
+    }
+    return first;
+  }
+
+  /**
+   * Return the data of the file, read in place from the mapped image
+   *
+   * @param record The number of the record of the file
+   * @return The data
+   * @throws IOException If the image is damaged
+   */
+  FileData getData(int record) throws IOException {
+    long at = recordAt(record);
+    Charset charset;
+    try {
+      charset = Charset.forName(name(getInt(at + 8)));
+    } catch (IllegalArgumentException e) {
+      throw new IOException(DAMAGED);
+    }
+    long start = getLong(at + 16);
+    long length = getLong(at + 24);
+    long size = channel.size();
+    if (start < 0 || length < 0 || length > Integer.MAX_VALUE
+        || start + length > size) {
+      throw new IOException(DAMAGED);
+    }
+    ByteBuffer data;
+    if (length == 0) {
+      data = ByteBuffer.allocate(0);
+    } else if (start / SEGMENT_SIZE == (start + length - 1) / SEGMENT_SIZE) {
+      data = segments[(int) (start / SEGMENT_SIZE)].duplicate();
+      data.position((int) (start % SEGMENT_SIZE));
+      data.limit(data.position() + (int) length);
+      data = data.slice();
+    } else {
+      // the data is split over two segments, map it on its own
+      data = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+    return new FileData(data.asReadOnlyBuffer(), charset);
+  }
+
+  /**
+   * Return the name with the given number
+   *
+   * @param number The number of the name
+   * @return The name
+   * @throws IOException If the image is damaged
+   */
+  private String name(int number) throws IOException {
+    if (number < 0 || number >= name_count) {
+      throw new IOException(DAMAGED);
+    }
+    if (names[number] == null) {
+      long start = getInt(names_at + 4L * number) & 0xffffffffL;
+      long end = getInt(names_at + 4L * (number + 1)) & 0xffffffffL;
+      long first = names_at + 4L * (name_count + 1);
+      if (start > end || first + end > channel.size()) {
+        throw new IOException(DAMAGED);
+      }
+      byte[] bytes = new byte[(int) (end - start)];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = getByte(first + start + i);
+      }
+      names[number] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return names[number];
+  }
+
+  /**
+   * Return the position of the record of a node
+   *
+   * @param record The number of the record
+   * @return The position of the record
+   */
+  private long recordAt(int record) {
+    return HEADER_SIZE + (long) record * RECORD_SIZE;
+  }
+
+  /**
+   * Return the byte at the given position
+   *
+   * @param at The position
+   * @return The byte
+   */
+  private byte getByte(long at) {
+    return segments[(int) (at / SEGMENT_SIZE)].get((int) (at % SEGMENT_SIZE));
+  }
+
+  /**
+   * Return the int at the given position, which is a multiple of 4
+   *
+   * @param at The position
+   * @return The int
+   */
+  private int getInt(long at) {
+    return segments[(int) (at / SEGMENT_SIZE)]
+        .getInt((int) (at % SEGMENT_SIZE));
+  }
+
+  /**
+   * Return the long at the given position, which is a multiple of 8
+   *
+   * @param at The position
+   * @return The long
+   */
+  private long getLong(long at) {
+    return segments[(int) (at / SEGMENT_SIZE)]
+        .getLong((int) (at % SEGMENT_SIZE));
+  }
+}
@@ -0,0 +1,171 @@
+package driver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Gives each distinct name of a node an int id, so the inode table keeps an
+ * id for each node instead of a name of its own. Nodes with the same name
+ * share one id and one string, so the memory taken by names grows with the
+ * number of distinct names and not with the number of nodes.
+ *
+ * Each id counts the nodes using it, and an id no node uses any more is
+ * given back and used again for another name.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class NameDictionary {
+
+  /**
+   * Id standing for no name
+   */
+  static final int NONE = -1;
+
+  /**
+   * Number of ids the dictionary starts with
+   */
+  private static final int INITIAL_CAPACITY = 256;
+
+  /**
+   * The dictionary used by all nodes
+   */
+  private static final NameDictionary dictionary = new NameDictionary();
+
+  /**
+   * The name of each id, null if the id is free
+   */
+  private String[] names;
+
+  /**
+   * Number of nodes using each id
+   */
+  private int[] references;
+
+  /**
+   * The id of each name in use
+   */
+  private HashMap<String, Integer> ids;
+
+  /**
+   * Ids no node uses any more
+   */
+  private int[] free_ids;
+
+  /**
+   * Number of free ids
+   */
+  private int free_count;
+
+  /**
+   * Number of ids handed out at least once
+   */
+  private int top;
+
+  /**
+   * Default Constructor
+   */
+  private NameDictionary() {
+    names = new String[INITIAL_CAPACITY];
+    references = new int[INITIAL_CAPACITY];
+    ids = new HashMap<String, Integer>(INITIAL_CAPACITY * 2);
+    free_ids = new int[16];
+  }
+
+  /**
+   * Return the dictionary used by all nodes
+   *
+   * @return The dictionary
+   */
+  public static NameDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Return the id of the name for a node that uses it from now on, giving
+   * the name an id first if no node uses it yet
+   *
+   * @param name The name
+   * @return The id of the name
+   */
+  int intern(String name) {
+    Integer found = ids.get(name);
+    int id;
+    if (found != null) {
+      id = found;
+    } else {
+      if (free_count > 0) {
+        id = free_ids[--free_count];
+      } else {
+        if (top == names.length) {
+          names = Arrays.copyOf(names, top * 2);
+          references = Arrays.copyOf(references, top * 2);
+        }
+        id = top++;
+      }
+      names[id] = name;
+      ids.put(name, id);
+    }
+    references[id]++;
+    return id;
+  }
+
+  /**
+   * Return the id of the name without using it, so a name no node has is
+   * told apart without comparing it to any node
+   *
+   * @param name The name
+   * @return The id of the name, NONE if no node uses it
+   */
+  int find(String name) {
+    Integer found = ids.get(name);
+    return found == null ? NONE : found;
+  }
+
+  /**
+   * Stop a node from using the id, the id is given back once no node uses
+   * it
+   *
+   * @param id The id of the name
+   */
+  void release(int id) {
+    if (--references[id] == 0) {
+      ids.remove(names[id]);
+      names[id] = null;
+      if (free_count == free_ids.length) {
+        free_ids = Arrays.copyOf(free_ids, free_count * 2);
+      }
+      free_ids[free_count++] = id;
+    }
+  }
+
+  /**
+   * Return the name of the id
+   *
+   * @param id The id of the name
+   * @return The name
+   */
+  String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * Return the number of distinct names in use
+   *
+   * @return Number of names
+   */
+  public int getNameCount() {
+    return ids.size();
+  }
+
+  /**
+   * Return the number of nodes using the name
+   *
+   * @param name The name
+   * @return Number of nodes, 0 if no node uses it
+   */
+  public int getReferenceCount(String name) {
+    Integer found = ids.get(name);
+    return found == null ? 0 : references[found];
+  }
+}
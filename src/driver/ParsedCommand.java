@@ -0,0 +1,153 @@
+package driver;
+
+/**
+ * The keywords of one user input, stored as the positions where each keyword
+ * starts and ends in the input instead of as separate strings. One instance
+ * is reused for every input, so reading a command does not create a string
+ * for a keyword until it is asked for.
+ *
+ * @author Haosen Xu
+ *
+ */
+public class ParsedCommand {
+
+  /**
+   * The user input the keywords are found in
+   */
+  private String input;
+
+  /**
+   * Index of the first character of each keyword
+   */
+  private int[] starts;
+
+  /**
+   * Index after the last character of each keyword
+   */
+  private int[] ends;
+
+  /**
+   * Whether each keyword was surrounded by double quotations
+   */
+  private boolean[] quoted;
+
+  /**
+   * Number of keywords found
+   */
+  private int size;
+
+  /**
+   * Default Constructor
+   */
+  public ParsedCommand() {
+    starts = new int[8];
+    ends = new int[8];
+    quoted = new boolean[8];
+    size = 0;
+  }
+
+  /**
+   * Remove all keywords and start reading a new input
+   *
+   * @param input The string representing user's input into the JShell
+   */
+  void reset(String input) {
+    this.input = input;
+    size = 0;
+  }
+
+  /**
+   * Add the keyword found between start and end of the input
+   *
+   * @param start Index of the first character of the keyword
+   * @param end Index after the last character of the keyword
+   * @param isQuoted Whether the keyword was surrounded by double quotations
+   */
+  void add(int start, int end, boolean isQuoted) {
+    if (size == starts.length) {
+      int[] bigger_starts = new int[size * 2];
+      int[] bigger_ends = new int[size * 2];
+      boolean[] bigger_quoted = new boolean[size * 2];
+      System.arraycopy(starts, 0, bigger_starts, 0, size);
+      System.arraycopy(ends, 0, bigger_ends, 0, size);
+      System.arraycopy(quoted, 0, bigger_quoted, 0, size);
+      starts = bigger_starts;
+      ends = bigger_ends;
+      quoted = bigger_quoted;
+    }
+    starts[size] = start;
+    ends[size] = end;
+    quoted[size] = isQuoted;
+    size++;
+  }
+
+  /**
+   * Return the user input the keywords are found in
+   *
+   * @return The user input
+   */
+  public String getInput() {
+    return input;
+  }
+
+  /**
+   * Return the number of keywords
+   *
+   * @return Number of keywords
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return the index in the input where the keyword starts
+   *
+   * @param position Position of the keyword
+   * @return Index of the first character of the keyword
+   */
+  public int getStart(int position) {
+    return starts[position];
+  }
+
+  /**
+   * Return the index in the input where the keyword ends
+   *
+   * @param position Position of the keyword
+   * @return Index after the last character of the keyword
+   */
+  public int getEnd(int position) {
+    return ends[position];
+  }
+
+  /**
+   * Return true iff the keyword was surrounded by double quotations
+   *
+   * @param position Position of the keyword
+   * @return true if the keyword was quoted, false otherwise
+   */
+  public boolean isQuoted(int position) {
+    return quoted[position];
+  }
+
+  /**
+   * Return true iff the keyword is exactly the given text
+   *
+   * @param position Position of the keyword
+   * @param text The text to compare with
+   * @return true if the keyword equals the text, false otherwise
+   */
+  public boolean matches(int position, String text) {
+    return ends[position] - starts[position] == text.length()
+        && input.regionMatches(starts[position], text, 0, text.length());
+  }
+
+  /**
+   * Return the keyword as a string
+   *
+   * @param position Position of the keyword
+   * @return The keyword
+   */
+  public String get(int position) {
+    return input.substring(starts[position], ends[position]);
+  }
+}
@@ -0,0 +1,236 @@
+package driver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded cache from full paths to the contents found at them. Paths where
+ * nothing was found are cached too, get gives null for them as for a path
+ * that is not cached, and contains tells the two apart. A path is only cached
+ * while its parent path is cached, so removing a path also removes everything
+ * cached below it.
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class PathCache {
+
+  /**
+   * The directory indicator
+   */
+  private static final String SLASH = "/";
+
+  /**
+   * A cached path
+   */
+  private static class Entry {
+    /**
+     * The full path
+     */
+    private String path;
+    /**
+     * The content at the path, null if there is none
+     */
+    private Content content;
+    /**
+     * The entry of the parent path, null for paths directly under root
+     */
+    private Entry parent;
+    /**
+     * The entries of the cached paths directly under this one
+     */
+    private ArrayList<Entry> children;
+
+    private Entry(String path, Content content, Entry parent) {
+      this.path = path;
+      this.content = content;
+      this.parent = parent;
+    }
+  }
+
+  /**
+   * Maximum number of paths cached
+   */
+  private final int capacity;
+
+  /**
+   * The cached paths, from least to most recently used
+   */
+  private LinkedHashMap<String, Entry> entries;
+
+  /**
+   * Number of lookups that were found in the cache
+   */
+  private long hits;
+
+  /**
+   * Number of lookups that were not found in the cache
+   */
+  private long misses;
+
+  /**
+   * Default Constructor
+   *
+   * @param capacity Maximum number of paths cached
+   */
+  public PathCache(int capacity) {
+    this.capacity = capacity;
+    entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  }
+
+  /**
+   * Return the cached content at the given path and count the lookup as a hit
+   * or a miss
+   *
+   * @param path Full path
+   * @return The content, or null if the path is cached as having no content
+   *         or is not cached
+   */
+  public Content get(String path) {
+    Entry entry = entries.get(path);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.content;
+  }
+
+  /**
+   * Return the cached content at the given path without counting the lookup
+   *
+   * @param path Full path
+   * @return The content, or null if the path is cached as having no content
+   *         or is not cached
+   */
+  public Content peek(String path) {
+    Entry entry = entries.get(path);
+    return entry == null ? null : entry.content;
+  }
+
+  /**
+   * Return true iff the given path is cached, with or without a content
+   *
+   * @param path Full path
+   * @return true if the path is cached, false otherwise
+   */
+  public boolean contains(String path) {
+    return entries.containsKey(path);
+  }
+
+  /**
+   * Cache the content at the given path. Nothing is cached if the parent path
+   * is not cached.
+   *
+   * @param path Full path
+   * @param content The content at the path, null if there is none
+   */
+  public void put(String path, Content content) {
+    Entry parent = null;
+    int slash = path.lastIndexOf(SLASH);
+    if (slash > 0) {
+      parent = entries.get(path.substring(0, slash));
+      if (parent == null) {
+        return;
+      }
+    }
+    // drop what was cached below an old entry for the same path
+    invalidate(path);
+    Entry entry = new Entry(path, content, parent);
+    if (parent != null) {
+      if (parent.children == null) {
+        parent.children = new ArrayList<Entry>();
+      }
+      parent.children.add(entry);
+    }
+    entries.put(path, entry);
+    if (entries.size() > capacity) {
+      evict();
+    }
+  }
+
+  /**
+   * Remove the given path and every path cached below it
+   *
+   * @param path Full path
+   */
+  public void invalidate(String path) {
+    if (path.equals(SLASH)) {
+      clear();
+      return;
+    }
+    Entry entry = entries.get(path);
+    if (entry != null) {
+      if (entry.parent != null) {
+        entry.parent.children.remove(entry);
+      }
+      remove(entry);
+    }
+  }
+
+  /**
+   * Remove every cached path
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Return the number of paths cached
+   *
+   * @return Number of paths cached
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Return the number of lookups that were found in the cache
+   *
+   * @return Number of hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Return the number of lookups that were not found in the cache
+   *
+   * @return Number of misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Remove an entry and all entries below it from the cache
+   *
+   * @param entry The entry to be removed
+   */
+  private void remove(Entry entry) {
+    entries.remove(entry.path);
+    if (entry.children != null) {
+      for (Entry child : entry.children) {
+        remove(child);
+      }
+    }
+  }
+
+  /**
+   * Remove the least recently used path that has nothing cached below it
+   */
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry.children == null || entry.children.isEmpty()) {
+        iterator.remove();
+        if (entry.parent != null) {
+          entry.parent.children.remove(entry);
+        }
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package driver;
+
+/**
+ * Turns a path typed by the user into a full path in one pass. The path is
+ * split into names, '.' and '..' are resolved against a stack of the names
+ * seen so far. The file system is only asked for a content where the
+ * answer matters, at a '..' or a trailing slash, and it resolves the path
+ * through its path cache, so a path typed again is checked without walking
+ * the folders. Only the part of the path not yet known to exist is checked,
+ * so '..' after a content that does not exist gives an invalid path.
+ *
+ * @author Haosen Xu
+ *
+ */
+public class PathNormalizer {
+
+  /**
+   * The path returned when a path cannot be normalized
+   */
+  public static final String INVALID_PATH = "Invalid path";
+
+  /**
+   * The string of all characters a name cannot have
+   */
+  public static final String INVALID_CHAR = "/!@$&*()?:[]\"<>'`|={}\\,;";
+
+  /**
+   * Table of the characters a name cannot have, indexed by character
+   */
+  private static final boolean[] INVALID_CHAR_TABLE = new boolean[128];
+
+  static {
+    for (int i = 0; i < INVALID_CHAR.length(); i++) {
+      INVALID_CHAR_TABLE[INVALID_CHAR.charAt(i)] = true;
+    }
+  }
+
+  /**
+   * The directory indicator
+   */
+  private static final char SLASH = '/';
+
+  /**
+   * The full path of the root directory
+   */
+  private static final String ROOT = "/";
+
+  /**
+   * Instance of FileSystem
+   */
+  private FileSystem fileSys;
+
+  /**
+   * The full path being built
+   */
+  private StringBuilder normalized;
+
+  /**
+   * Length of the full path before each name on the stack
+   */
+  private int[] stack;
+
+  /**
+   * Number of names on the stack
+   */
+  private int depth;
+
+  /**
+   * Number of names on the stack whose full path is known to exist
+   */
+  private int known;
+
+  /**
+   * Default Constructor
+   *
+   * @param fs An instance of FileSystem
+   */
+  public PathNormalizer(FileSystem fs) {
+    fileSys = fs;
+    normalized = new StringBuilder();
+    stack = new int[16];
+  }
+
+  /**
+   * Return true iff the name is not empty and has no invalid characters
+   *
+   * @param name The name to be checked
+   * @return true if the name is valid, false otherwise
+   */
+  public static boolean isValidName(String name) {
+    return isValidName(name, 0, name.length());
+  }
+
+  /**
+   * Return true iff the part of the string from start to end is not empty
+   * and has no invalid characters
+   *
+   * @param text The string holding the name
+   * @param start Index of the first character of the name
+   * @param end Index after the last character of the name
+   * @return true if the name is valid, false otherwise
+   */
+  public static boolean isValidName(String text, int start, int end) {
+    if (start >= end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char next = text.charAt(i);
+      if (next < INVALID_CHAR_TABLE.length && INVALID_CHAR_TABLE[next]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the full path of the given path, with '.' and '..' resolved and
+   * repeated slashes removed. A trailing slash is kept only if the path is
+   * not a folder, so that it is not found.
+   *
+   * @param path The path typed by the user, full or relative
+   * @param currPath The current working directory
+   * @return The full path, or INVALID_PATH if '..' follows a content that
+   *         does not exist
+   */
+  public String normalize(String path, String currPath) {
+    return normalize(path, 0, path.length(), currPath);
+  }
+
+  /**
+   * Return the full path of the path typed between start and end of the
+   * given text, so that a path can be read from a user input in place
+   *
+   * @param text The string holding the path typed by the user
+   * @param start Index of the first character of the path
+   * @param end Index after the last character of the path
+   * @param currPath The current working directory
+   * @return The full path, or INVALID_PATH if '..' follows a content that
+   *         does not exist
+   */
+  public String normalize(String text, int start, int end, String currPath) {
+    normalized.setLength(0);
+    depth = 0;
+    int i = start;
+    if (start >= end || text.charAt(start) != SLASH) {
+      // a relative path starts from the current working directory
+      if (!currPath.equals(ROOT)) {
+        for (int j = 0; j < currPath.length(); j++) {
+          if (currPath.charAt(j) == SLASH) {
+            push(j);
+          }
+        }
+        normalized.append(currPath);
+      }
+    }
+    // the root and the current working directory exist
+    known = depth;
+
+    boolean trailing_slash = false;
+    while (i < end) {
+      // find the next name
+      int name_end = i;
+      while (name_end < end && text.charAt(name_end) != SLASH) {
+        name_end++;
+      }
+      int length = name_end - i;
+      if (length == 0 || (length == 1 && text.charAt(i) == '.')) {
+        // an empty name or '.' stays in the same place
+      } else if (length == 2 && text.charAt(i) == '.'
+          && text.charAt(i + 1) == '.') {
+        // the content being left must exist, and then so do its parents
+        if (depth > known) {
+          if (fileSys.resolve(normalized.toString()) == null) {
+            return INVALID_PATH;
+          }
+          known = depth;
+        }
+        // go up to the parent, the root is its own parent
+        if (depth > 0) {
+          normalized.setLength(stack[--depth]);
+          known = Math.min(known, depth);
+        }
+      } else {
+        push(normalized.length());
+        normalized.append(SLASH).append(text, i, name_end);
+      }
+      trailing_slash = name_end == end - 1;
+      i = name_end + 1;
+    }
+
+    if (normalized.length() == 0) {
+      return ROOT;
+    }
+    String full = normalized.toString();
+    if (trailing_slash && !(fileSys.resolve(full) instanceof Folder)) {
+      return full + SLASH;
+    }
+    return full;
+  }
+
+  /**
+   * Push the length of the full path before a name onto the stack
+   *
+   * @param length Length of the full path before the name
+   */
+  private void push(int length) {
+    if (depth == stack.length) {
+      int[] bigger = new int[stack.length * 2];
+      System.arraycopy(stack, 0, bigger, 0, stack.length);
+      stack = bigger;
+    }
+    stack[depth++] = length;
+  }
+}
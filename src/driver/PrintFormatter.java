@@ -9,7 +9,10 @@ package driver;
  */
 
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Prints the text content inside a file
@@ -19,11 +22,22 @@ import java.util.ArrayList;
 
 public class PrintFormatter {
 
+  /**
+   * Number of characters read from a file at a time
+   */
+  private static final int WINDOW_SIZE = 8192;
+
   /**
    * The formatted output string to be printed to user
    */
   private String output;
 
+  /**
+   * Text appended to the output since it was last read, so appending many
+   * times does not copy the whole output each time
+   */
+  private StringBuilder appended;
+
   /**
    * Default Constructor for PrintFormatter class
    * 
@@ -39,6 +53,10 @@ public class PrintFormatter {
    * @return output - a string
    */
   public String getOutput() {
+    if (appended != null) {
+      output = appended.toString();
+      appended = null;
+    }
     return output;
   }
 
@@ -50,6 +68,7 @@ public class PrintFormatter {
    */
   public void setOutput(String output) {
     this.output = output;
+    appended = null;
   }
 
   /**
@@ -58,10 +77,13 @@ public class PrintFormatter {
    * @param text - input string
    */
   public void appendOutput(String text) {
-    if (this.output == null){
-      this.output = "";
+    if (appended == null) {
+      appended = new StringBuilder();
+      if (output != null) {
+        appended.append(output);
+      }
     }
-    this.output = output.concat(text);
+    appended.append(text);
   }
 
   /**
@@ -69,7 +91,7 @@ public class PrintFormatter {
    * 
    */
   public void printOutput() {
-    System.out.println(output);
+    System.out.println(getOutput());
   }
 
 
@@ -108,36 +130,32 @@ public class PrintFormatter {
   public void setLsContents(ArrayList<Content> pathContent) {
 
     // Initialize the string that stores the output
-    String contentString = "";
+    StringBuilder contentString = new StringBuilder();
 
     // Loop thorough all given content
     for (Content directory : pathContent) {
 
       // If the content is a file then sets output to be its name
       if (directory instanceof File) {
-        contentString += directory.getName();
+        contentString.append(directory.getName());
       }
 
       // Otherwise if it is a directory sets output to be in the format:
       // directory1: content1 content2 content3
       else if (directory instanceof Folder) {
-        contentString += directory.getName() + ":";
-
-        ArrayList<Content> contents = ((Folder) directory).getAllContents();
-
-        for (Content item : contents) {
-          contentString += "  " + item.toString();
-        }
+        appendFolderContents(contentString, (Folder) directory);
       }
-      contentString += "\n";
+      contentString.append("\n");
     }
 
     // Remove any extra new lines from the output
-    while (contentString.endsWith("\n")) {
-      contentString = contentString.substring(0, contentString.length() - 1);
+    int length = contentString.length();
+    while (length > 0 && contentString.charAt(length - 1) == '\n') {
+      length--;
     }
-    if (contentString.equals("") == false) {
-      setOutput(contentString);
+    if (length != 0) {
+      contentString.setLength(length);
+      setOutput(contentString.toString());
     }
   }
 
@@ -150,30 +168,40 @@ public class PrintFormatter {
   public void setRecLsContents(ArrayList<Content> pathContent) {
 
     // Initialize the string that stores the output
-    String contentString = "";
+    StringBuilder contentString = new StringBuilder();
 
     // Loop thorough all given content
     for (Content directory : pathContent) {
 
       // If the content is a file then sets output to be its name
       if (directory instanceof File) {
-        contentString += directory.getName();
+        contentString.append(directory.getName());
       }
 
       // Otherwise if it is a directory sets output to be in the format:
       // directory1: content1 content2 content3
       else if (directory instanceof Folder) {
-        contentString += directory.getName() + ":";
-
-        ArrayList<Content> contents = ((Folder) directory).getAllContents();
-
-        for (Content item : contents) {
-          contentString += "  " + item.toString();
-        }
+        appendFolderContents(contentString, (Folder) directory);
       }
     }
     // Append into output
-    appendOutput(contentString + "\n");
+    appendOutput(contentString.append("\n").toString());
+  }
+
+  /**
+   * Appends a directory in the format: directory1: content1 content2
+   * 
+   * @param contentString - the string being built
+   * @param directory - the directory to be listed
+   */
+  private void appendFolderContents(StringBuilder contentString,
+      Folder directory) {
+    contentString.append(directory.getName()).append(":");
+
+    // Read the contents without copying them
+    for (Content item : directory.getContents()) {
+      contentString.append("  ").append(item.toString());
+    }
   }
 
 
@@ -184,22 +212,20 @@ public class PrintFormatter {
    */
   public void setLsNoParams(Content currDir) {
 
-    // Initialize the string that stores the output
-    String contentString = "";
-
-    // Store contents of the directory in an array list
-    ArrayList<Content> contents = ((Folder) currDir).getAllContents();
+    // Read the contents of the directory without copying them
+    List<Content> contents = ((Folder) currDir).getContents();
 
     // If the are contents to print, print the names of each one in a new line
     if (contents.size() != 0) {
+      StringBuilder contentString = new StringBuilder();
       for (Content item : contents) {
-        contentString += item.toString() + ("\n");
+        contentString.append(item.toString()).append("\n");
       }
 
       // Remove the extra new line
-      contentString = contentString.substring(0, contentString.length() - 1);
+      contentString.setLength(contentString.length() - 1);
 
-      setOutput(contentString);
+      setOutput(contentString.toString());
       // printOutput();
     }
   }
@@ -233,21 +259,40 @@ public class PrintFormatter {
    */
   public void setCatFiles(ArrayList<File> files) {
 
-    // Initialize the string that stores the output
-    String catString = "";
+    // Initialize the builder that stores the output
+    StringBuilder catString = new StringBuilder();
 
     // Add the text content of each file to the output with separation
-    // three blank lines between each text content
-    for (File fileData : files) {
-      catString += fileData.getData() + "\n\n\n";
+    // three blank lines between each text content, reading each file a
+    // window at a time instead of as one string
+    for (int i = 0; i < files.size(); i++) {
+      if (i > 0) {
+        catString.append("\n\n\n");
+      }
+      appendText(catString, files.get(i));
     }
 
-    // Remove extra blank lines
-    if(catString.length() >= 3)
-    catString = catString.substring(0, catString.length() - 3);
+    setOutput(catString.toString());
 
-    setOutput(catString);
+  }
 
+  /**
+   * Add the text content of a file to the end of a builder
+   * 
+   * @param text The builder the text content is added to
+   * @param dataFile The file read
+   */
+  private void appendText(StringBuilder text, File dataFile) {
+    char[] window = new char[WINDOW_SIZE];
+    try (Reader reader = dataFile.openReader()) {
+      int count;
+      while ((count = reader.read(window)) != -1) {
+        text.append(window, 0, count);
+      }
+    } catch (IOException e) {
+      // the reader is only closed once it is done
+      throw new IllegalStateException(e);
+    }
   }
 
   /**
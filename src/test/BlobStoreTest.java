@@ -0,0 +1,130 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.BlobStore;
+import driver.File;
+import driver.FileData;
+
+/**
+ * Test methods of BlobStore class and file data kept in it
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class BlobStoreTest {
+
+  /**
+   * The store used by all files
+   */
+  private BlobStore store;
+
+  /**
+   * Number of blobs in the store before the test
+   */
+  private int blobs;
+
+  /**
+   * Number of bytes saved before the test
+   */
+  private long saved;
+
+  /**
+   * Data large enough to be kept in the store
+   */
+  private String text;
+
+  /**
+   * Setup before each test cases
+   */
+  @Before
+  public void setUp() {
+    store = BlobStore.getStore();
+    blobs = store.getBlobCount();
+    saved = store.getSavedBytes();
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      builder.append((char) ('a' + i % 26));
+    }
+    text = builder.toString();
+  }
+
+  /**
+   * Test files holding the same data share one blob
+   */
+  @Test
+  public void testDeduplicate() {
+    File first = new File("/first", "first", text);
+    File second = new File("/second", "second", text);
+    assertEquals(blobs + 1, store.getBlobCount());
+    assertEquals(saved + 100, store.getSavedBytes());
+    assertEquals(text, first.getData());
+    assertEquals(text, second.getData());
+    first.overwriteData("");
+    second.overwriteData("");
+    assertEquals(blobs, store.getBlobCount());
+    assertEquals(saved, store.getSavedBytes());
+  }
+
+  /**
+   * Test bytes written by curl share a blob with the same text written by a
+   * command
+   */
+  @Test
+  public void testDeduplicateBytes() {
+    FileData written = new FileData(text);
+    FileData downloaded = new FileData(
+        text.getBytes(StandardCharsets.US_ASCII), StandardCharsets.US_ASCII);
+    assertEquals(blobs + 1, store.getBlobCount());
+    assertEquals(text, downloaded.toString());
+    written.release();
+    downloaded.release();
+  }
+
+  /**
+   * Test small data is not kept in the store
+   */
+  @Test
+  public void testSmallData() {
+    FileData data = new FileData("small");
+    FileData same = new FileData("small");
+    assertEquals(blobs, store.getBlobCount());
+    data.release();
+    same.release();
+  }
+
+  /**
+   * Test a file stops sharing its blob once it is appended to
+   */
+  @Test
+  public void testDetachOnAppend() {
+    File first = new File("/first", "first", text);
+    File second = first.clone();
+    assertEquals(saved + 100, store.getSavedBytes());
+    second.appendData("!");
+    assertEquals(saved, store.getSavedBytes());
+    assertEquals(text, first.getData());
+    assertEquals(text + "!", second.getData());
+    first.overwriteData("");
+    assertEquals(blobs, store.getBlobCount());
+  }
+
+  /**
+   * Test data written again with the same content joins its blob again
+   */
+  @Test
+  public void testOverwriteSameData() {
+    File first = new File("/first", "first", text);
+    File second = new File("/second", "second", "other");
+    second.overwriteData(text);
+    assertEquals(blobs + 1, store.getBlobCount());
+    assertEquals(saved + 100, store.getSavedBytes());
+    first.overwriteData("");
+    second.overwriteData("");
+  }
+}
@@ -0,0 +1,354 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.Checkpointer;
+import driver.ContentEditor;
+import driver.FileSpiller;
+import driver.FileSystem;
+import driver.FileSystemImage;
+import driver.Folder;
+import driver.Journal;
+
+/**
+ * Test methods of Checkpointer class
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class CheckpointerTest {
+  private FileSystem fs;
+  private ContentEditor editor;
+  private Path directory;
+
+  /**
+   * Number of milliseconds between two checkpoints, long enough for none to
+   * be written unless a test asks for it
+   */
+  private static final long INTERVAL = 3600 * 1000;
+
+  /**
+   * Setup before each test cases
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    fs = FileSystem.createNewFileSystem();
+    editor = new ContentEditor();
+    directory = Files.createTempDirectory("jshell-checkpoints");
+    fs.makeDirectory("/dir1");
+    fs.makeFile("/dir1/file1");
+    fs.getFile("/dir1/file1").overwriteData("text");
+  }
+
+  /**
+   * Turn checkpointing and the journal off, reset the file system and delete
+   * the checkpoints after each test
+   *
+   * @throws Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    Checkpointer.disable(false);
+    Journal.disable();
+    fs.reset();
+    try (DirectoryStream<Path> listed = Files.newDirectoryStream(directory)) {
+      for (Path next : listed) {
+        Files.delete(next);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  /**
+   * Turn checkpointing off, empty the file system and turn checkpointing on
+   * again, as if JShell was started again
+   *
+   * @return The new checkpointer
+   * @throws IOException
+   */
+  private Checkpointer restart() throws IOException {
+    Checkpointer.disable(false);
+    fs.reset();
+    return Checkpointer.enable(directory, INTERVAL, fs);
+  }
+
+  /**
+   * Return the number of checkpoints in the directory
+   *
+   * @return Number of checkpoints
+   * @throws IOException
+   */
+  private int countFiles() throws IOException {
+    int count = 0;
+    try (DirectoryStream<Path> listed =
+        Files.newDirectoryStream(directory, "*.jsck")) {
+      for (Path next : listed) {
+        count += next.toString().endsWith(".jsck") ? 1 : 0;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Test the tree is read back from the checkpoints
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRecover() throws Exception {
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    assertEquals(3, checkpointer.checkpoint());
+    fs.makeDirectory("/dir2");
+    fs.moveContent(fs.getPathContent("/dir1/file1"), fs.getFolder("/dir2"),
+        "moved");
+    checkpointer.checkpoint();
+    checkpointer = restart();
+    assertEquals(4, checkpointer.getRecoveredNodes());
+    assertEquals("text", fs.getFile("/dir2/moved").getData());
+    assertFalse(fs.pathExist("/dir1/file1"));
+  }
+
+  /**
+   * Test a checkpoint after the first only holds the nodes changed
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testIncremental() throws Exception {
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    for (int i = 0; i < 20; i++) {
+      fs.makeFile("/dir1/other" + i);
+    }
+    assertEquals(23, checkpointer.checkpoint());
+    editor.appendContents(fs.getFile("/dir1/file1"), "more");
+    // only the file changed
+    assertEquals(1, checkpointer.checkpoint());
+    fs.moveContent(fs.getPathContent("/dir1/other3"), fs.getFolder("/dir1"),
+        "renamed");
+    // only the folder holding the name
+    assertEquals(1, checkpointer.checkpoint());
+    assertEquals(0, checkpointer.checkpoint());
+    restart();
+    assertEquals("text\nmore", fs.getFile("/dir1/file1").getData());
+    assertTrue(fs.pathExist("/dir1/renamed"));
+    assertFalse(fs.pathExist("/dir1/other3"));
+  }
+
+  /**
+   * Test checkpoints are merged into a full one in the background, and the
+   * merged checkpoints are deleted
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testMerge() throws Exception {
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    for (int i = 0; i <= Checkpointer.MERGE_COUNT; i++) {
+      fs.makeDirectory("/dir" + (i + 2));
+      checkpointer.checkpoint();
+    }
+    // waits for the merge
+    Checkpointer.disable(false);
+    assertEquals(1, checkpointer.getMergeCount());
+    assertEquals(1, checkpointer.getChainLength());
+    assertEquals(1, countFiles());
+    checkpointer = restart();
+    assertEquals(Checkpointer.MERGE_COUNT + 4,
+        checkpointer.getRecoveredNodes());
+    assertTrue(fs.pathExist("/dir" + (Checkpointer.MERGE_COUNT + 2)));
+    assertEquals("text", fs.getFile("/dir1/file1").getData());
+  }
+
+  /**
+   * Test the journal is cut back after a checkpoint, and only the changes
+   * after the last checkpoint are replayed
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testJournalCompacted() throws Exception {
+    Path journal_path = directory.resolve("journal.jsjl");
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    Journal journal =
+        Journal.enable(journal_path, Journal.Durability.GROUP, fs);
+    editor.appendContents(fs.getFile("/dir1/file1"), "line 2");
+    Journal.commit();
+    checkpointer.checkpoint();
+    assertEquals(journal.getJournalBytes(), Files.size(journal_path));
+    editor.appendContents(fs.getFile("/dir1/file1"), "line 3");
+    Journal.commit();
+    // JShell stops without a last checkpoint
+    Journal.disable();
+    restart();
+    journal = Journal.enable(journal_path, Journal.Durability.GROUP, fs);
+    assertEquals(1, journal.getReplayedCount());
+    assertEquals("text\nline 2\nline 3", fs.getFile("/dir1/file1").getData());
+  }
+
+  /**
+   * Test a checkpoint written in the background holds the tree as it was
+   * when it started, and the changes made meanwhile are kept in the journal
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testBackground() throws Exception {
+    Path journal_path = directory.resolve("journal.jsjl");
+    Checkpointer checkpointer = Checkpointer.enable(directory, 0, fs);
+    Journal journal =
+        Journal.enable(journal_path, Journal.Durability.GROUP, fs);
+    checkpointer.checkpoint();
+    editor.appendContents(fs.getFile("/dir1/file1"), "line 2");
+    Journal.commit();
+    // freezes the file and writes it in the background
+    checkpointer.tick();
+    assertTrue(checkpointer.isWriting());
+    editor.appendContents(fs.getFile("/dir1/file1"), "line 3");
+    fs.makeDirectory("/dir2");
+    Journal.commit();
+    checkpointer.await();
+    assertFalse(checkpointer.isWriting());
+    assertEquals(1, checkpointer.getLastNodes());
+    assertEquals(3, journal.getRecordCount());
+    // JShell stops without a last checkpoint
+    Journal.disable();
+    restart();
+    assertEquals("text\nline 2", fs.getFile("/dir1/file1").getData());
+    assertFalse(fs.pathExist("/dir2"));
+    journal = Journal.enable(journal_path, Journal.Durability.GROUP, fs);
+    assertEquals(2, journal.getReplayedCount());
+    assertEquals("text\nline 2\nline 3", fs.getFile("/dir1/file1").getData());
+    assertTrue(fs.pathExist("/dir2"));
+  }
+
+  /**
+   * Test a copy that has not copied its contents yet is written with them
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCopyWritten() throws Exception {
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    checkpointer.checkpoint();
+    fs.makeDirectory("/copies");
+    fs.copyContent(fs.getPathContent("/dir1"), fs.getFolder("/copies"));
+    checkpointer.checkpoint();
+    // freezing the copy does not copy anything
+    assertTrue(((Folder) fs.getPathContent("/copies/dir1")).isCopyPending());
+    restart();
+    assertTrue(((Folder) fs.getPathContent("/copies/dir1")).isCopyPending());
+    assertEquals("text", fs.getFile("/copies/dir1/file1").getData());
+    assertEquals("text", fs.getFile("/dir1/file1").getData());
+  }
+
+  /**
+   * Test a copy is read back after its original was removed from the tree
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCopyOfRemovedWritten() throws Exception {
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    fs.makeDirectory("/copies");
+    fs.copyContent(fs.getPathContent("/dir1"), fs.getFolder("/copies"));
+    fs.getFolder("/").removeContent("dir1");
+    assertTrue(((Folder) fs.getPathContent("/copies/dir1")).isCopyPending());
+    checkpointer.checkpoint();
+    // the checkpoints are merged without losing the original
+    for (int i = 0; i < Checkpointer.MERGE_COUNT; i++) {
+      fs.makeDirectory("/dir" + (i + 2));
+      checkpointer.checkpoint();
+    }
+    Checkpointer.disable(false);
+    assertEquals(1, checkpointer.getMergeCount());
+    restart();
+    assertFalse(fs.pathExist("/dir1"));
+    assertEquals("text", fs.getFile("/copies/dir1/file1").getData());
+  }
+
+  /**
+   * Test a folder still in a mapped image is written from the image,
+   * without reading it into the tree
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testMappedWritten() throws Exception {
+    Path image = directory.resolve("image.jshm");
+    fs.makeDirectory("/dir1/dir2");
+    fs.makeFile("/dir1/dir2/file2");
+    fs.getFile("/dir1/dir2/file2").overwriteData("mapped");
+    FileSystemImage.saveMapped(fs, image.toString());
+    fs.reset();
+    FileSystemImage.load(fs, image.toString());
+    Folder mapped = fs.getFolder("/dir1");
+    assertTrue(mapped.isMapped());
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, INTERVAL, fs);
+    checkpointer.checkpoint();
+    assertTrue(mapped.isMapped());
+    restart();
+    assertEquals("mapped", fs.getFile("/dir1/dir2/file2").getData());
+    assertEquals("text", fs.getFile("/dir1/file1").getData());
+    // the ids kept for the image are not given to new nodes
+    fs.makeFile("/dir1/dir2/file3");
+    Checkpointer.getActive().checkpoint();
+    restart();
+    assertEquals("mapped", fs.getFile("/dir1/dir2/file2").getData());
+    assertTrue(fs.pathExist("/dir1/dir2/file3"));
+  }
+
+  /**
+   * Test spilled data is written from its spill file without reading it
+   * back, and the spill file is kept until the checkpoint is written
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testSpilledWritten() throws Exception {
+    Path spilled = Files.createTempDirectory("jshell-spill");
+    try {
+      FileSpiller.enable(spilled, 0, FileSpiller.Policy.LRU);
+      FileSpiller spiller = FileSpiller.getActive();
+      fs.getFile("/dir1/file1").overwriteData("spilled");
+      spiller.sweep();
+      assertEquals(1, spiller.getDiskFiles());
+      Checkpointer checkpointer = Checkpointer.enable(directory, 0, fs);
+      checkpointer.tick();
+      assertTrue(checkpointer.isWriting());
+      assertEquals(0, spiller.getReadCount());
+      // reading the data back keeps the spill file for the checkpoint
+      assertEquals("spilled", fs.getFile("/dir1/file1").getData());
+      assertEquals(1, spiller.getDiskFiles());
+      checkpointer.await();
+      assertEquals(0, spiller.getDiskFiles());
+      restart();
+      assertEquals("spilled", fs.getFile("/dir1/file1").getData());
+    } finally {
+      FileSpiller.disable();
+      try (DirectoryStream<Path> listed = Files.newDirectoryStream(spilled)) {
+        for (Path next : listed) {
+          Files.delete(next);
+        }
+      }
+      Files.delete(spilled);
+    }
+  }
+}
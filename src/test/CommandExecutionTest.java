@@ -680,8 +680,10 @@ public class CommandExecutionTest {
         + "To get documentation for any command,\n"
         + "type man CMD, where CMD is the name of a command.";
     final String COM_LIST = "List of commands:\n" + "!\n" + "cat\n" + "cd\n"
-        + "cp\n" + "curl\n" + "echo\n" + "exit\n" + "grep\n" + "history\n"
-        + "ls\n" + "man\n" + "mkdir\n" + "mv\n" + "popd\n" + "pushd\n" + "pwd";
+        + "cp\n" + "curl\n" + "df\n" + "echo\n" + "exit\n" + "grep\n"
+        + "head\n" + "history\n" + "lines\n" + "load\n" + "ls\n" + "man\n"
+        + "mkdir\n" + "mv\n" + "popd\n" + "pushd\n" + "pwd\n" + "save\n"
+        + "status\n" + "tail";
     assertEquals(MAN_MAN + "\n----\n" + COM_LIST, format.getOutput());
 
     // check if recall works with man
@@ -789,7 +791,10 @@ public class CommandExecutionTest {
     commandArgs[2] = "/newFileName";
     execution.execute(executeArgs);
     assertEquals("newFileName",
-        fileSys.getPathContent("/abc/newFileName").getName());
+        fileSys.getPathContent("/newFileName").getName());
+    assertEquals("/newFileName",
+        fileSys.getPathContent("/newFileName").getPath());
+    assertFalse(fileSys.pathExist("/abc/file1"));
   }
 
   /**
@@ -820,7 +820,79 @@ public class CommandInterpreterTest {
     }
   }
 
+  /**
+   * Test interpretCommand with grep command printing line numbers
+   */
+  @Test
+  public void testInterpretCommandGrepWithLineNumbers() {
 
+    // Get String array from Command interpreter
+    actual = ciTest.interpretCommand("grep -R -n regex path1");
 
-}
+    expected = new String[][] {{"grep", "-R", "-n", "regex", "/path1"},
+        {"", ""}};
+    assertArrayEquals(expected[0], actual[0]);
+    assertArrayEquals(expected[1], actual[1]);
+  }
+
+  /**
+   * Test interpretCommand with head and lines, whose numbers are not paths
+   */
+  @Test
+  public void testInterpretCommandLineCommands() {
+
+    // Get String array from Command interpreter
+    actual = ciTest.interpretCommand("head -n 5 file1");
+    assertArrayEquals(new String[] {"head", "-n", "5", "/file1"}, actual[0]);
+
+    actual = ciTest.interpretCommand("tail file1");
+    assertArrayEquals(new String[] {"tail", "/file1"}, actual[0]);
+
+    actual = ciTest.interpretCommand("lines 2 4 file1");
+    assertArrayEquals(new String[] {"lines", "2", "4", "/file1"}, actual[0]);
+  }
+
+  /**
+   * Test interpretCommand with echo where the text is a redirection symbol
+   */
+  @Test
+  public void testInterpretCommandEchoQuotedRedirect() {
+
+    // Get String array from Command interpreter
+    actual = ciTest.interpretCommand("echo \">>\" file1");
 
+    // A quoted redirection symbol is only text
+    expected = new String[][] {{"echo", ">>", "file1"}, {"", ""}};
+    assertArrayEquals(expected[0], actual[0]);
+    assertArrayEquals(expected[1], actual[1]);
+  }
+
+  /**
+   * Test interpretCommand with "!" alone, which is not a recall command
+   */
+  @Test
+  public void testInterpretCommandRecallWithoutNumber() {
+
+    // Get String array from Command interpreter
+    actual = ciTest.interpretCommand("!");
+
+    expected = new String[][] {{"invalid"}, {"", ""}};
+    assertArrayEquals(expected[0], actual[0]);
+    assertArrayEquals(expected[1], actual[1]);
+  }
+
+  /**
+   * Test interpretCommand with an empty input
+   */
+  @Test
+  public void testInterpretCommandEmpty() {
+
+    // Get String array from Command interpreter
+    actual = ciTest.interpretCommand("   ");
+
+    expected = new String[][] {{"invalid"}, {"", ""}};
+    assertArrayEquals(expected[0], actual[0]);
+    assertArrayEquals(expected[1], actual[1]);
+  }
+
+}
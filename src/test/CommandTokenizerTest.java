@@ -0,0 +1,113 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.CommandTokenizer;
+import driver.ParsedCommand;
+
+/**
+ * Test methods of CommandTokenizer class
+ * 
+ * @author Haosen Xu
+ *
+ */
+public class CommandTokenizerTest {
+
+  /**
+   * Instantiate CommandTokenizer
+   */
+  private CommandTokenizer tokenizer;
+
+  /**
+   * Instantiate ParsedCommand
+   */
+  private ParsedCommand parsed;
+
+  /**
+   * Before each test case
+   */
+  @Before
+  public void setUp() {
+    tokenizer = new CommandTokenizer();
+    parsed = new ParsedCommand();
+  }
+
+  /**
+   * Return all keywords found by the tokenizer
+   * 
+   * @return The keywords
+   */
+  private String[] keywords() {
+    String[] keywords = new String[parsed.size()];
+    for (int i = 0; i < keywords.length; i++) {
+      keywords[i] = parsed.get(i);
+    }
+    return keywords;
+  }
+
+  /**
+   * Test keywords are split by spaces
+   */
+  @Test
+  public void testTokenize() {
+    assertTrue(tokenizer.tokenize("  mkdir   a  b >>   c ", parsed));
+    assertArrayEquals(new String[] {"mkdir", "a", "b", ">>", "c"}, keywords());
+    assertFalse(parsed.isQuoted(0));
+    assertTrue(parsed.matches(3, ">>"));
+    assertFalse(parsed.matches(3, ">"));
+  }
+
+  /**
+   * Test an input with only white space has no keywords
+   */
+  @Test
+  public void testTokenizeEmpty() {
+    assertTrue(tokenizer.tokenize(" \t ", parsed));
+    assertEquals(0, parsed.size());
+  }
+
+  /**
+   * Test the text of echo is one keyword kept as typed
+   */
+  @Test
+  public void testTokenizeEcho() {
+    assertTrue(tokenizer.tokenize("echo  \"a  \"b\" c\"  > file", parsed));
+    assertArrayEquals(new String[] {"echo", "a  \"b\" c", ">", "file"},
+        keywords());
+    assertTrue(parsed.isQuoted(1));
+    assertFalse(parsed.isQuoted(2));
+  }
+
+  /**
+   * Test echo without two double quotations is rejected
+   */
+  @Test
+  public void testTokenizeEchoWithoutQuotes() {
+    assertFalse(tokenizer.tokenize("echo \"hello", parsed));
+    assertFalse(tokenizer.tokenize("echo hello", parsed));
+  }
+
+  /**
+   * Test quotes are not special outside of echo
+   */
+  @Test
+  public void testTokenizeQuotesWithoutEcho() {
+    assertTrue(tokenizer.tokenize("grep \"a b\" /file", parsed));
+    assertArrayEquals(new String[] {"grep", "\"a", "b\"", "/file"},
+        keywords());
+  }
+
+  /**
+   * Test the same ParsedCommand is reused for another input
+   */
+  @Test
+  public void testTokenizeReuse() {
+    tokenizer.tokenize("cat a b c d e f g h i j", parsed);
+    assertEquals(11, parsed.size());
+    tokenizer.tokenize("pwd", parsed);
+    assertArrayEquals(new String[] {"pwd"}, keywords());
+  }
+}
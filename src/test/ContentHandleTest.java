@@ -0,0 +1,135 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.ContentHandle;
+import driver.FileSystem;
+import exception.HasSameContentNameException;
+import exception.IncorrectContentTypeException;
+import exception.InvalidNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of ContentHandle class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class ContentHandleTest {
+
+  /**
+   * Instantiate FileSystem
+   */
+  private FileSystem fs;
+
+  /**
+   * Before each test case
+   * 
+   * @throws InvalidNameException
+   * @throws InvalidPathException
+   * @throws HasSameContentNameException
+   */
+  @Before
+  public void setUp() throws InvalidNameException, InvalidPathException,
+      HasSameContentNameException {
+    fs = FileSystem.createNewFileSystem();
+    fs.makeDirectory("/dir");
+    fs.makeDirectory("/other");
+    fs.makeFile("/dir/file").overwriteData("hello");
+  }
+
+  /**
+   * After each test case
+   */
+  @After
+  public void tearDown() {
+    fs.reset();
+  }
+
+  /**
+   * Test reading and appending through a handle
+   * 
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  @Test
+  public void testReadAndAppend()
+      throws InvalidPathException, IncorrectContentTypeException {
+    ContentHandle handle = fs.open("/dir/file");
+    assertTrue(handle.isFile());
+    assertEquals("hello", handle.read());
+    handle.append(" world");
+    assertEquals("hello world", fs.getFile("/dir/file").getData());
+    handle.write("bye");
+    assertEquals("bye", handle.read());
+  }
+
+  /**
+   * Test listing a folder and opening its contents by name
+   * 
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  @Test
+  public void testListAndOpen()
+      throws InvalidPathException, IncorrectContentTypeException {
+    ContentHandle dir = fs.open("/dir");
+    assertTrue(dir.isFolder());
+    assertEquals(1, dir.list().size());
+    assertEquals("hello", dir.open("file").read());
+  }
+
+  /**
+   * Test a handle follows its content when it is renamed and moved
+   * 
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   * @throws HasSameContentNameException
+   * @throws InvalidNameException
+   */
+  @Test
+  public void testHandleAfterMove() throws InvalidPathException,
+      IncorrectContentTypeException, HasSameContentNameException,
+      InvalidNameException {
+    ContentHandle handle = fs.open("/dir/file");
+    fs.moveContent(fs.getPathContent("/dir/file"), fs.getFolder("/other"),
+        "renamed");
+    assertTrue(handle.isValid());
+    assertEquals("/other/renamed", handle.getPath());
+    assertEquals("hello", handle.read());
+  }
+
+  /**
+   * Test a handle is no longer valid once its content is removed
+   * 
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  @Test
+  public void testHandleAfterRemove()
+      throws InvalidPathException, IncorrectContentTypeException {
+    ContentHandle handle = fs.open("/dir/file");
+    fs.getFolder("/").removeContent("dir");
+    assertFalse(handle.isValid());
+    try {
+      handle.read();
+      fail("a removed file should not be read");
+    } catch (InvalidPathException e) {
+    }
+  }
+
+  /**
+   * Test reading a folder is an incorrect content type
+   * 
+   * @throws InvalidPathException
+   */
+  @Test(expected = IncorrectContentTypeException.class)
+  public void testReadFolder()
+      throws InvalidPathException, IncorrectContentTypeException {
+    fs.open("/dir").read();
+  }
+}
@@ -9,6 +9,7 @@ package test;
 
 import driver.Content;
 import driver.Folder;
+import exception.HasSameContentNameException;
 
 import static org.junit.Assert.*;
 
@@ -72,7 +73,8 @@ public class ContentTest {
   }
 
   /**
-   * Test equals
+   * Test equals, two contents are equal when they are views of the same
+   * node, whatever their names
    */
   @Test
   public void testEquals() {
@@ -80,9 +82,37 @@ public class ContentTest {
     testContent1 = new Content("/home", "TestContent");
     testContent2 = new Content("/home", "NewTestContent");
 
-    // Tests if the Content names are the same
-    assertTrue(testContent.equals(testContent1));
+    // Tests a content only equals itself, even with the same name
+    assertTrue(testContent.equals(testContent));
+    assertFalse(testContent.equals(testContent1));
     assertFalse(testContent.equals(testContent2));
+    assertEquals(testContent.getName(), testContent1.getName());
+
+  }
+
+  /**
+   * Test getPath and getParent of contents inside folders
+   * 
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testPathFromParent() throws HasSameContentNameException {
+
+    Folder root = new Folder("/", "/");
+    Folder home = new Folder("/home", "home");
+    root.addContent(home);
+    home.addContent(testContent);
+
+    // The path is worked out from the folders holding the content
+    assertEquals(home, testContent.getParent());
+    assertEquals("/home/TestContent", testContent.getPath());
+
+    // Renaming a folder changes the path of everything inside it
+    home.changeName("user");
+    assertEquals("/user", home.getPath());
+    assertEquals("/user/TestContent", testContent.getPath());
+    assertEquals(home, root.getContent("user"));
+    assertEquals(null, root.getContent("home"));
 
   }
 
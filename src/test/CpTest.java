@@ -184,5 +184,57 @@ public class CpTest {
     cpTest.executeCommand();
   }
 
+  /**
+   * test a copied folder is not changed when the original is changed, and
+   * the original is not changed when the copy is changed
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testCpCopyOnWrite() throws Exception {
+    fs.makeDirectory("/copyme/sub");
+    fs.makeFile("/copyme/sub/deep");
+    fs.getFile("/copyme/sub/deep").overwriteData("original");
+
+    // Set param
+    param = new String[] {"/copyme", "/test"};
+    cpTest.setParam(param);
+
+    // Execute cp command
+    cpTest.executeCommand();
+
+    // change the original deep below the copy
+    fs.getFile("/copyme/sub/deep").overwriteData("changed original");
+    fs.makeFile("/copyme/sub/added");
+    assertEquals("original", fs.getFile("/test/copyme/sub/deep").getData());
+    assertFalse(fs.pathExist("/test/copyme/sub/added"));
+
+    // change the copy
+    fs.getFile("/test/copyme/sub/deep").overwriteData("changed copy");
+    fs.getFolder("/test/copyme").removeContent("sub");
+    assertEquals("changed original",
+        fs.getFile("/copyme/sub/deep").getData());
+    assertTrue(fs.pathExist("/copyme/sub/added"));
+    assertFalse(fs.pathExist("/test/copyme/sub"));
+  }
+
+  /**
+   * test a copy of a copy keeps the contents of the first original
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testCpOfCopy() throws Exception {
+    fs.makeFile("/copyme/file");
+    fs.getFile("/copyme/file").overwriteData("data");
+    cpTest.setParam(new String[] {"/copyme", "/test"});
+    cpTest.executeCommand();
+    cpTest.setParam(new String[] {"/test/copyme", "/test/test1"});
+    cpTest.executeCommand();
+
+    fs.getFile("/copyme/file").overwriteData("new data");
+    assertEquals("data", fs.getFile("/test/copyme/file").getData());
+    assertEquals("data", fs.getFile("/test/test1/copyme/file").getData());
+  }
 
 }
@@ -0,0 +1,171 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import commands.Df;
+import driver.BlobStore;
+import driver.FileArena;
+import driver.FileCompressor;
+import driver.FileData;
+import driver.FileSpiller;
+import driver.InodeTable;
+import driver.NameDictionary;
+import driver.PrintFormatter;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * Test the methods of Df
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class DfTest {
+  private PrintFormatter format;
+  private Df df;
+
+  /**
+   * Setup before each test cases
+   */
+  @Before
+  public void setUp() {
+    format = new PrintFormatter();
+    df = new Df(format);
+    df.setParam(new String[] {});
+  }
+
+  /**
+   * Turn the arena, compression and spilling off after each test
+   */
+  @After
+  public void tearDown() {
+    FileArena.disable();
+    FileCompressor.disable();
+    FileSpiller.disable();
+  }
+
+  /**
+   * Test df when the data of files is kept on the heap
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testArenaOff() throws InvalidNumberOfArgument {
+    df.executeCommand();
+    assertTrue(format.getOutput().startsWith("Off-heap arena: off\n"
+        + "Compression: off\n" + "Spilling: off\n" + "Deduplication: "));
+  }
+
+  /**
+   * Test df reports the use of the arena
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testArenaOn() throws InvalidNumberOfArgument {
+    FileArena.enable(1024);
+    new FileData("12345678");
+    df.executeCommand();
+    assertTrue(format.getOutput().startsWith("Off-heap arena: on\n"
+        + "Slabs: 1 x 1024 bytes\n"
+        + "Reserved: 1024 bytes\n" + "Used: 64 bytes in 1 blocks\n"
+        + "Data: 8 bytes\n" + "Free: 0 bytes\n"
+        + "Internal fragmentation: 87.5%\n"
+        + "External fragmentation: 0.0%\n" + "Compression: off\n"));
+  }
+
+  /**
+   * Test df reports how well the data of files is compressed
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testCompression() throws InvalidNumberOfArgument {
+    FileCompressor.enable(0, 0);
+    FileData data = new FileData("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+    FileCompressor.getActive().sweep();
+    data.toString();
+    df.executeCommand();
+    assertTrue(format.getOutput().startsWith("Off-heap arena: off\n"
+        + "Compression: on\n" + "Compressed: 1 files, 40 bytes in "));
+    assertTrue(format.getOutput().contains("Cache hits: 0 of 1 reads (0.0%)"));
+  }
+
+  /**
+   * Test df reports the data spilled to disk
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws IOException
+   */
+  @Test
+  public void testSpilling() throws InvalidNumberOfArgument, IOException {
+    Path directory = Files.createTempDirectory("spill");
+    FileSpiller.enable(directory, 10, FileSpiller.Policy.LRU);
+    FileData data = new FileData("01234567890123456789");
+    FileSpiller.getActive().sweep();
+    df.executeCommand();
+    assertTrue(format.getOutput().contains("Spilling: on, to " + directory
+        + "\n" + "Memory: 0 of 10 bytes, lru spilled first\n"
+        + "On disk: 1 files, 20 bytes\n"
+        + "Written: 20 bytes, read back: 0 times, 0 bytes, failed: 0\n"));
+    data.release();
+    Files.delete(directory);
+  }
+
+  /**
+   * Test df reports the bytes saved by keeping identical data once
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testDeduplication() throws InvalidNumberOfArgument {
+    BlobStore store = BlobStore.getStore();
+    int blobs = store.getBlobCount();
+    long files = store.getReferenceCount();
+    long saved = store.getSavedBytes();
+    String text = "0123456789abcdef0123456789abcdef"
+        + "0123456789abcdef0123456789abcdef";
+    FileData first = new FileData(text);
+    FileData second = new FileData(text);
+    df.executeCommand();
+    assertTrue(format.getOutput()
+        .contains("\nDeduplication: " + (blobs + 1) + " blobs for "
+            + (files + 2) + " files, " + (saved + 64) + " bytes saved\n"));
+    first.release();
+    second.release();
+  }
+
+  /**
+   * Test df reports the inodes in use and the distinct names of the nodes
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testInodes() throws InvalidNumberOfArgument {
+    InodeTable table = InodeTable.getTable();
+    df.executeCommand();
+    assertTrue(format.getOutput()
+        .endsWith("\nInodes: " + table.getLiveCount() + " in use of "
+            + table.getCapacity() + ", " + table.getMemoryBytes()
+            + " bytes, " + NameDictionary.getDictionary().getNameCount()
+            + " distinct names"));
+  }
+
+  /**
+   * Test df with too many parameters
+   * 
+   * @throws InvalidNumberOfArgument
+   */
+  @Test(expected = InvalidNumberOfArgument.class)
+  public void testTooManyParam() throws InvalidNumberOfArgument {
+    df.setParam(new String[] {"extra"});
+    df.executeCommand();
+  }
+}
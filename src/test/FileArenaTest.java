@@ -0,0 +1,274 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.File;
+import driver.FileArena;
+import driver.FileData;
+import driver.Folder;
+import driver.InodeTable;
+import exception.HasSameContentNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of FileArena class and file data kept in it
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileArenaTest {
+
+  /**
+   * The arena the data of files is kept in
+   */
+  private FileArena arena;
+
+  /**
+   * Turn the arena on with small slabs before each test
+   */
+  @Before
+  public void setUp() {
+    FileArena.enable(1024);
+    arena = FileArena.getActive();
+  }
+
+  /**
+   * Turn the arena off after each test
+   */
+  @After
+  public void tearDown() {
+    FileArena.disable();
+  }
+
+  /**
+   * Test data is written to the arena and read back
+   */
+  @Test
+  public void testWriteToArena() {
+    FileData data = new FileData("hello");
+    assertTrue(data.isInArena());
+    assertEquals("hello", data.toString());
+    assertArrayEquals("ell".getBytes(), data.getBytes(1, 4));
+    assertEquals(1, arena.getSlabCount());
+    assertEquals(1, arena.getBlockCount());
+    assertEquals(64, arena.getUsedBytes());
+    assertEquals(5, arena.getDataBytes());
+  }
+
+  /**
+   * Test empty data is not written to the arena until it is appended to
+   */
+  @Test
+  public void testAppendToEmpty() {
+    FileData data = new FileData("");
+    assertFalse(data.isInArena());
+    data.append("abc");
+    assertTrue(data.isInArena());
+    assertEquals("abc", data.toString());
+  }
+
+  /**
+   * Test appended data moves into larger blocks
+   */
+  @Test
+  public void testAppendGrows() {
+    FileData data = new FileData("a");
+    StringBuilder expected = new StringBuilder("a");
+    for (int i = 0; i < 100; i++) {
+      data.append("bc");
+      expected.append("bc");
+    }
+    assertEquals(expected.toString(), data.toString());
+    assertEquals(1, arena.getBlockCount());
+    assertEquals(256, arena.getUsedBytes());
+    assertEquals(201, arena.getDataBytes());
+  }
+
+  /**
+   * Test data larger than a slab gets a buffer of its own
+   */
+  @Test
+  public void testLargeData() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append((char) ('a' + i % 26));
+    }
+    FileData data = new FileData(text.toString());
+    assertEquals(text.toString(), data.toString());
+    assertEquals(0, arena.getSlabCount());
+    assertEquals(2000, arena.getReservedBytes());
+    data.release();
+    assertEquals(0, arena.getReservedBytes());
+  }
+
+  /**
+   * Test a freed block is handed out again
+   */
+  @Test
+  public void testFreedBlockIsReused() {
+    FileData first = new FileData("first");
+    first.release();
+    assertEquals(0, arena.getUsedBytes());
+    assertEquals(64, arena.getFreeBytes());
+    FileData second = new FileData("second");
+    assertEquals(64, arena.getUsedBytes());
+    assertEquals(0, arena.getFreeBytes());
+    assertEquals("second", second.toString());
+  }
+
+  /**
+   * Test a freed block is merged with its buddy once both are free
+   */
+  @Test
+  public void testBuddiesMerge() {
+    FileData first = new FileData("first");
+    FileData second = new FileData("second");
+    first.release();
+    second.release();
+    assertEquals(128, arena.getFreeBytes());
+    // the merged block holds data needing 128 bytes
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      text.append('a');
+    }
+    FileData large = new FileData(text.toString());
+    assertEquals(128, arena.getUsedBytes());
+    assertEquals(0, arena.getFreeBytes());
+    assertEquals(text.toString(), large.toString());
+  }
+
+  /**
+   * Test a larger free block is split when no block of the size is free
+   */
+  @Test
+  public void testLargerBlockSplit() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      text.append('a');
+    }
+    FileData large = new FileData(text.toString());
+    FileData small = new FileData("small");
+    large.release();
+    assertEquals(128, arena.getFreeBytes());
+    FileData other = new FileData("other");
+    // one half is handed out, the other is free
+    assertEquals(128, arena.getUsedBytes());
+    assertEquals(64, arena.getFreeBytes());
+    assertEquals("small", small.toString());
+    assertEquals("other", other.toString());
+  }
+
+  /**
+   * Test released data cannot be read
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testReadReleased() {
+    FileData data = new FileData("gone");
+    data.release();
+    data.toString();
+  }
+
+  /**
+   * Test copies share a block until one of them is appended to
+   */
+  @Test
+  public void testShare() {
+    FileData data = new FileData("abc");
+    FileData copy = data.share();
+    assertEquals(1, arena.getBlockCount());
+    copy.append("d");
+    assertEquals(2, arena.getBlockCount());
+    assertEquals("abc", data.toString());
+    assertEquals("abcd", copy.toString());
+    // the block is only freed once no copy uses it
+    FileData other = data.share();
+    data.release();
+    assertEquals(2, arena.getBlockCount());
+    assertEquals("abc", other.toString());
+    other.release();
+    assertEquals(1, arena.getBlockCount());
+  }
+
+  /**
+   * Test the block of a file is freed when it is overwritten
+   */
+  @Test
+  public void testOverwriteFrees() {
+    File file = new File("/file", "file", "old data");
+    assertEquals(1, arena.getBlockCount());
+    file.overwriteData("new data");
+    assertEquals(1, arena.getBlockCount());
+    assertEquals(64, arena.getFreeBytes());
+    assertEquals("new data", file.getData());
+  }
+
+  /**
+   * Test the blocks of files are freed when they are removed
+   * 
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemoveFrees()
+      throws InvalidPathException, HasSameContentNameException {
+    Folder folder = new Folder("/folder", "folder");
+    Folder inner = new Folder("/folder/inner", "inner");
+    folder.addContent(inner);
+    folder.addContent(new File("/folder/a", "a", "a data"));
+    inner.addContent(new File("/folder/inner/b", "b", "b data"));
+    assertEquals(2, arena.getBlockCount());
+    folder.removeContent("inner");
+    // a block is given back once the view of its file is collected
+    for (int i = 0; i < 100 && arena.getBlockCount() > 1; i++) {
+      System.gc();
+      InodeTable.getTable().getLiveCount();
+    }
+    assertEquals(1, arena.getBlockCount());
+    folder.removeAllContents();
+    for (int i = 0; i < 100 && arena.getBlockCount() > 0; i++) {
+      System.gc();
+      InodeTable.getTable().getLiveCount();
+    }
+    assertEquals(0, arena.getBlockCount());
+  }
+
+  /**
+   * Test removing a folder keeps the data of its lazy copies
+   * 
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemoveCopiedFolder()
+      throws InvalidPathException, HasSameContentNameException {
+    Folder parent = new Folder("/", "/");
+    Folder folder = new Folder("/folder", "folder");
+    parent.addContent(folder);
+    folder.addContent(new File("/folder/a", "a", "a data"));
+    Folder copy = folder.clone();
+    parent.removeContent("folder");
+    assertEquals("a data", ((File) copy.getContent("a")).getData());
+    assertEquals(1, arena.getBlockCount());
+  }
+
+  /**
+   * Test the fragmentation reported
+   */
+  @Test
+  public void testFragmentation() {
+    assertEquals(0, arena.getInternalFragmentation(), 0.001);
+    assertEquals(0, arena.getExternalFragmentation(), 0.001);
+    // 8 bytes of data in a block of 64 bytes
+    FileData data = new FileData("12345678");
+    assertEquals(87.5, arena.getInternalFragmentation(), 0.001);
+    FileData other = new FileData("abcdefgh");
+    data.release();
+    // one free block of 64 bytes in a slab of 1024 bytes
+    assertEquals(6.25, arena.getExternalFragmentation(), 0.001);
+    other.release();
+  }
+}
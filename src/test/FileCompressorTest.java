@@ -0,0 +1,198 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.File;
+import driver.FileCompressor;
+import driver.FileData;
+import driver.Folder;
+import driver.InodeTable;
+import exception.HasSameContentNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of FileCompressor class and file data compressed by it
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileCompressorTest {
+
+  /**
+   * The compressor in use
+   */
+  private FileCompressor compressor;
+
+  /**
+   * Return a text that compresses well
+   * 
+   * @param lines Number of lines in the text
+   * @return The text
+   */
+  private String lines(int lines) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      text.append("line number ").append(i % 10).append('\n');
+    }
+    return text.toString();
+  }
+
+  /**
+   * Compress data as soon as it is left alone, if it has 1000 bytes or more
+   */
+  @Before
+  public void setUp() {
+    FileCompressor.enable(0, 1000);
+    compressor = FileCompressor.getActive();
+  }
+
+  /**
+   * Turn compression off after each test
+   */
+  @After
+  public void tearDown() {
+    FileCompressor.disable();
+  }
+
+  /**
+   * Test cold data is compressed and read back
+   */
+  @Test
+  public void testCompress() {
+    String text = lines(100);
+    FileData data = new FileData(text);
+    assertFalse(data.isCompressed());
+    compressor.sweep();
+    assertTrue(data.isCompressed());
+    assertEquals(text.length(), data.length());
+    assertEquals(text, data.toString());
+    assertEquals('l', data.byteAt(0));
+    assertEquals(1, compressor.getCompressedCount());
+    assertEquals(text.length(), compressor.getOriginalBytes());
+    assertTrue(compressor.getCompressedBytes() < text.length());
+    assertTrue(compressor.getRatio() < 100);
+  }
+
+  /**
+   * Test data that is used is not compressed before it is idle
+   */
+  @Test
+  public void testIdle() {
+    FileCompressor.enable(60000, Long.MAX_VALUE);
+    compressor = FileCompressor.getActive();
+    FileData data = new FileData(lines(100));
+    compressor.sweep();
+    assertFalse(data.isCompressed());
+  }
+
+  /**
+   * Test data larger than the threshold is compressed even if it is used
+   */
+  @Test
+  public void testSizeThreshold() {
+    FileCompressor.enable(60000, 1000);
+    compressor = FileCompressor.getActive();
+    FileData small = new FileData(lines(10));
+    FileData large = new FileData(lines(100));
+    compressor.sweep();
+    assertFalse(small.isCompressed());
+    assertTrue(large.isCompressed());
+  }
+
+  /**
+   * Test data that does not get smaller is not compressed
+   */
+  @Test
+  public void testIncompressible() {
+    FileData data = new FileData("abc");
+    compressor.sweep();
+    assertFalse(data.isCompressed());
+    assertEquals(0, compressor.getCompressedCount());
+  }
+
+  /**
+   * Test reading compressed data again is served by the cache
+   */
+  @Test
+  public void testCache() {
+    String text = lines(100);
+    FileData data = new FileData(text);
+    compressor.sweep();
+    assertEquals(text, data.toString());
+    assertEquals(text, data.toString());
+    assertEquals(2, compressor.getReads());
+    assertEquals(1, compressor.getCacheHits());
+    assertEquals(50, compressor.getHitRate(), 0.001);
+  }
+
+  /**
+   * Test appending to compressed data decompresses it for good
+   */
+  @Test
+  public void testAppend() {
+    String text = lines(100);
+    File file = new File("/file", "file", text);
+    compressor.sweep();
+    file.appendData("end");
+    assertEquals(text + "end", file.getData());
+    assertEquals(0, compressor.getCompressedCount());
+    assertEquals(0, compressor.getOriginalBytes());
+    // it is compressed again once it is cold
+    compressor.sweep();
+    assertEquals(1, compressor.getCompressedCount());
+    assertEquals(text + "end", file.getData());
+  }
+
+  /**
+   * Test removing a file forgets its compressed data
+   * 
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemove()
+      throws InvalidPathException, HasSameContentNameException {
+    Folder folder = new Folder("/folder", "folder");
+    folder.addContent(new File("/folder/file", "file", lines(100)));
+    compressor.sweep();
+    assertEquals(1, compressor.getCompressedCount());
+    folder.removeContent("file");
+    // the data is forgotten once the view of the file is collected
+    for (int i = 0; i < 100 && compressor.getCompressedCount() > 0; i++) {
+      System.gc();
+      InodeTable.getTable().getLiveCount();
+    }
+    assertEquals(0, compressor.getCompressedCount());
+  }
+
+  /**
+   * Test a copy of compressed data reads the same data
+   */
+  @Test
+  public void testShare() {
+    String text = lines(100);
+    File file = new File("/file", "file", text);
+    compressor.sweep();
+    File copy = file.clone();
+    copy.appendData("copy");
+    assertEquals(text, file.getData());
+    assertEquals(text + "copy", copy.getData());
+  }
+
+  /**
+   * Test overwriting compressed data forgets it
+   */
+  @Test
+  public void testOverwrite() {
+    File file = new File("/file", "file", lines(100));
+    compressor.sweep();
+    file.overwriteData("new");
+    assertEquals(0, compressor.getCompressedCount());
+    assertEquals(0, compressor.getCompressedBytes());
+    assertEquals("new", file.getData());
+  }
+}
@@ -0,0 +1,100 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import driver.FileData;
+import driver.FileDataReader;
+
+/**
+ * Test methods of FileDataReader class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileDataReaderTest {
+
+  /**
+   * Return all text read by the reader, a few characters at a time
+   * 
+   * @param reader The reader
+   * @param size Number of characters read at a time
+   * @return The text read
+   * @throws IOException
+   */
+  private String readAll(Reader reader, int size) throws IOException {
+    StringBuilder text = new StringBuilder();
+    char[] buffer = new char[size];
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      text.append(buffer, 0, count);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Test reading Latin-1 data
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testRead() throws IOException {
+    FileData data = new FileData("caf\u00e9\nline");
+    assertEquals("caf\u00e9\nline", readAll(new FileDataReader(data), 3));
+  }
+
+  /**
+   * Test reading empty data
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testReadEmpty() throws IOException {
+    assertEquals(-1, new FileDataReader(new FileData("")).read());
+  }
+
+  /**
+   * Test characters of many bytes cut by the end of a window
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testCharactersAcrossWindows() throws IOException {
+    StringBuilder text = new StringBuilder("a");
+    for (int i = 0; i < 10000; i++) {
+      text.append("\u20ac\ud83d\ude00");
+    }
+    FileData data = new FileData(text.toString());
+    assertEquals(text.toString(), readAll(new FileDataReader(data), 1));
+    assertEquals(text.toString(), readAll(new FileDataReader(data), 5000));
+  }
+
+  /**
+   * Test bytes that are not valid in the charset read as getData reads them
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testMalformed() throws IOException {
+    byte[] bytes = {'a', (byte) 0xC3, 'b', (byte) 0xFF};
+    FileData data = new FileData(bytes, StandardCharsets.UTF_8);
+    assertEquals(data.toString(), readAll(new FileDataReader(data), 10));
+  }
+
+  /**
+   * Test reading after the reader is closed
+   * 
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testReadClosed() throws IOException {
+    Reader reader = new FileDataReader(new FileData("text"));
+    reader.close();
+    reader.read();
+  }
+}
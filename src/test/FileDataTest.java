@@ -0,0 +1,149 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import driver.FileData;
+
+/**
+ * Test methods of FileData class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileDataTest {
+
+  /**
+   * Return a string of the given length made of repeated digits
+   * 
+   * @param length Length of the string
+   * @return The string
+   */
+  private String digits(int length) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      text.append((char) ('0' + i % 10));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Test data written whole
+   */
+  @Test
+  public void testFileData() {
+    FileData data = new FileData("hello");
+    assertEquals(5, data.length());
+    assertEquals('e', data.byteAt(1));
+    assertArrayEquals("ell".getBytes(), data.getBytes(1, 4));
+    assertEquals("hello", data.toString());
+  }
+
+  /**
+   * Test appending many times, across chunks
+   */
+  @Test
+  public void testAppend() {
+    FileData data = new FileData("start");
+    StringBuilder expected = new StringBuilder("start");
+    String added = digits(1000);
+    for (int i = 0; i < 50; i++) {
+      data.append(added);
+      expected.append(added);
+    }
+    assertEquals(expected.length(), data.length());
+    assertEquals(expected.toString(), data.toString());
+    assertEquals(expected.charAt(8195), data.byteAt(8195));
+    assertArrayEquals(expected.substring(8000, 17000).getBytes(),
+        data.getBytes(8000, 17000));
+  }
+
+  /**
+   * Test appending one long string
+   */
+  @Test
+  public void testAppendLong() {
+    FileData data = new FileData("");
+    String added = digits(20000);
+    data.append(added);
+    data.append("!");
+    assertEquals(added + "!", data.toString());
+  }
+
+  /**
+   * Test a shared copy does not see what is appended to the original, and
+   * the original does not see what is appended to the copy
+   */
+  @Test
+  public void testShare() {
+    FileData data = new FileData("");
+    data.append(digits(10000));
+    FileData copy = data.share();
+    data.append("original");
+    copy.append("copy");
+    assertEquals(digits(10000) + "original", data.toString());
+    assertEquals(digits(10000) + "copy", copy.toString());
+  }
+
+  /**
+   * Test reading past the end of the data
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testByteAtOutOfBounds() {
+    FileData data = new FileData("");
+    data.append("abc");
+    data.byteAt(3);
+  }
+
+  /**
+   * Test Latin-1 text takes one byte per character
+   */
+  @Test
+  public void testLatin1() {
+    FileData data = new FileData("caf\u00e9");
+    assertEquals(StandardCharsets.ISO_8859_1, data.getCharset());
+    assertEquals(4, data.length());
+    assertEquals((byte) 0xE9, data.byteAt(3));
+    assertEquals("caf\u00e9", data.toString());
+  }
+
+  /**
+   * Test text outside of Latin-1 is kept in UTF-8
+   */
+  @Test
+  public void testUtf8() {
+    FileData data = new FileData("\u20ac1");
+    assertEquals(StandardCharsets.UTF_8, data.getCharset());
+    assertEquals(4, data.length());
+    assertEquals("\u20ac1", data.toString());
+  }
+
+  /**
+   * Test appending text Latin-1 does not have turns the data into UTF-8
+   */
+  @Test
+  public void testAppendOutsideCharset() {
+    FileData data = new FileData("caf\u00e9");
+    data.append(" \u20ac");
+    assertEquals(StandardCharsets.UTF_8, data.getCharset());
+    assertEquals(9, data.length());
+    assertEquals("caf\u00e9 \u20ac", data.toString());
+  }
+
+  /**
+   * Test bytes are kept exactly as they are, and read with their charset
+   */
+  @Test
+  public void testBytes() {
+    byte[] bytes = {'a', '\r', '\n', (byte) 0xC3, (byte) 0xA9, 0};
+    FileData data = new FileData(bytes.clone(), StandardCharsets.UTF_8);
+    assertEquals(6, data.length());
+    assertArrayEquals(bytes, data.getBytes(0, 6));
+    assertEquals("a\r\n\u00e9\u0000", data.toString());
+    data.append("!");
+    assertEquals("a\r\n\u00e9\u0000!", data.toString());
+  }
+}
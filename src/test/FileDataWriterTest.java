@@ -0,0 +1,79 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.File;
+import driver.FileDataWriter;
+
+/**
+ * Test methods of FileDataWriter class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileDataWriterTest {
+
+  /**
+   * The file written to
+   */
+  private File file;
+
+  /**
+   * Setup before each test cases
+   */
+  @Before
+  public void setUp() {
+    file = new File("/file", "file", "start");
+  }
+
+  /**
+   * Test text is added to the end of the file once it is flushed
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testWrite() throws IOException {
+    Writer writer = new FileDataWriter(file);
+    writer.write(" middle");
+    writer.write(new char[] {' ', 'e', 'n', 'd'});
+    assertEquals("start", file.getData());
+    writer.close();
+    assertEquals("start middle end", file.getData());
+  }
+
+  /**
+   * Test writing more than the buffer holds, with a character of two chars
+   * cut by the end of the buffer
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testWriteLong() throws IOException {
+    StringBuilder text = new StringBuilder("x");
+    for (int i = 0; i < 10000; i++) {
+      text.append("\ud83d\ude00");
+    }
+    Writer writer = file.openWriter();
+    writer.write(text.toString());
+    writer.close();
+    assertEquals("start" + text, file.getData());
+  }
+
+  /**
+   * Test writing after the writer is closed
+   * 
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testWriteClosed() throws IOException {
+    Writer writer = new FileDataWriter(file);
+    writer.close();
+    writer.write("late");
+  }
+}
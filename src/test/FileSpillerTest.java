@@ -0,0 +1,202 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.File;
+import driver.FileCompressor;
+import driver.FileData;
+import driver.FileSpiller;
+import driver.Folder;
+import driver.InodeTable;
+import exception.HasSameContentNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of FileSpiller class and file data spilled by it
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileSpillerTest {
+
+  /**
+   * The directory the data is spilled to
+   */
+  private Path directory;
+
+  /**
+   * The spiller in use
+   */
+  private FileSpiller spiller;
+
+  /**
+   * Return a string of the given length made of repeated digits
+   * 
+   * @param length Length of the string
+   * @return The string
+   */
+  private String digits(int length) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      text.append((char) ('0' + i % 10));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Spill data once more than 100 bytes are kept in memory
+   * 
+   * @throws IOException
+   */
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("spill");
+    FileSpiller.enable(directory, 100, FileSpiller.Policy.LRU);
+    spiller = FileSpiller.getActive();
+  }
+
+  /**
+   * Turn spilling off and remove the spill directory after each test
+   * 
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    FileSpiller.disable();
+    FileCompressor.disable();
+    Files.delete(directory);
+  }
+
+  /**
+   * Test data under the budget is kept in memory
+   */
+  @Test
+  public void testUnderBudget() {
+    FileData data = new FileData(digits(60));
+    spiller.sweep();
+    assertFalse(data.isSpilled());
+    assertEquals(60, spiller.getMemoryBytes());
+    data.release();
+    assertEquals(0, spiller.getMemoryBytes());
+  }
+
+  /**
+   * Test the data used the longest time ago is spilled and read back
+   */
+  @Test
+  public void testSpillLeastRecentlyUsed() {
+    File first = new File("/first", "first", digits(60));
+    File second = new File("/second", "second", digits(50));
+    first.getData();
+    spiller.sweep();
+    assertFalse(first.getData().isEmpty());
+    assertEquals(1, spiller.getDiskFiles());
+    assertEquals(50, spiller.getDiskBytes());
+    assertEquals(60, spiller.getMemoryBytes());
+    // reading the spilled data brings it back
+    assertEquals(digits(50), second.getData());
+    assertEquals(0, spiller.getDiskFiles());
+    assertEquals(1, spiller.getReadCount());
+    assertEquals(50, spiller.getReadBytes());
+    first.overwriteData("");
+    second.overwriteData("");
+  }
+
+  /**
+   * Test the largest data is spilled first
+   * 
+   * @throws IOException
+   */
+  @Test
+  public void testSpillLargest() throws IOException {
+    FileSpiller.enable(directory, 100, FileSpiller.Policy.LARGEST);
+    spiller = FileSpiller.getActive();
+    FileData small = new FileData(digits(40));
+    FileData large = new FileData(digits(70));
+    small.toString();
+    spiller.sweep();
+    assertFalse(small.isSpilled());
+    assertTrue(large.isSpilled());
+    small.release();
+    large.release();
+    assertEquals(0, spiller.getDiskFiles());
+  }
+
+  /**
+   * Test appending to spilled data reads it back first
+   */
+  @Test
+  public void testAppendToSpilled() {
+    File file = new File("/file", "file", digits(150));
+    spiller.sweep();
+    file.appendData("!");
+    assertEquals(digits(150) + "!", file.getData());
+    assertEquals(0, spiller.getDiskFiles());
+    file.overwriteData("");
+  }
+
+  /**
+   * Test removing a spilled file deletes its spill file
+   * 
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemoveSpilled()
+      throws InvalidPathException, HasSameContentNameException {
+    Folder folder = new Folder("/folder", "folder");
+    folder.addContent(new File("/folder/file", "file", digits(150)));
+    spiller.sweep();
+    assertEquals(1, spiller.getDiskFiles());
+    folder.removeContent("file");
+    // the spill file is deleted once the view of the file is collected
+    for (int i = 0; i < 100 && spiller.getDiskFiles() > 0; i++) {
+      System.gc();
+      InodeTable.getTable().getLiveCount();
+    }
+    assertEquals(0, spiller.getDiskFiles());
+    assertEquals(0, spiller.getDiskBytes());
+  }
+
+  /**
+   * Test copies of a folder keep the data spilled from the original
+   * 
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemoveCopiedFolder()
+      throws InvalidPathException, HasSameContentNameException {
+    Folder parent = new Folder("/", "/");
+    Folder folder = new Folder("/folder", "folder");
+    parent.addContent(folder);
+    folder.addContent(new File("/folder/file", "file", digits(150)));
+    spiller.sweep();
+    Folder copy = folder.clone();
+    parent.removeContent("folder");
+    assertEquals(digits(150), ((File) copy.getContent("file")).getData());
+    ((File) copy.getContent("file")).overwriteData("");
+  }
+
+  /**
+   * Test compressed data counts with its compressed size
+   */
+  @Test
+  public void testCompressedSize() {
+    FileCompressor.enable(0, 0);
+    FileData data = new FileData(digits(1000));
+    assertEquals(1000, spiller.getMemoryBytes());
+    FileCompressor.getActive().sweep();
+    assertTrue(data.isCompressed());
+    assertTrue(spiller.getMemoryBytes() < 100);
+    data.release();
+  }
+}
@@ -0,0 +1,173 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.Content;
+import driver.File;
+import driver.FileSystem;
+import driver.FileSystemImage;
+import driver.Folder;
+
+/**
+ * Test methods of FileSystemImage class
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileSystemImageTest {
+  private FileSystem fs;
+  private Path image;
+
+  /**
+   * Setup before each test cases
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    fs = FileSystem.createNewFileSystem();
+    image = Files.createTempFile("jshell", ".jshi");
+    fs.makeDirectory("/dir1");
+    fs.makeDirectory("/dir1/dir2");
+    fs.makeFile("/dir1/dir2/file1");
+    fs.getFile("/dir1/dir2/file1").overwriteData("some text\nmore text");
+    fs.makeFile("/file2");
+    fs.getFile("/file2").overwriteData(new byte[] {0, 1, (byte) 0xff, '\r'},
+        StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reset the file system and delete the image after each test
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    fs.reset();
+    Files.deleteIfExists(image);
+  }
+
+  /**
+   * Test a saved tree is read back with its folders, names and data
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    assertEquals(5, FileSystemImage.save(fs, image.toString()));
+    fs.reset();
+    assertFalse(fs.pathExist("/dir1"));
+    assertEquals(5, FileSystemImage.load(fs, image.toString()));
+    assertEquals("some text\nmore text",
+        fs.getFile("/dir1/dir2/file1").getData());
+    File binary = fs.getFile("/file2");
+    assertArrayEquals(new byte[] {0, 1, (byte) 0xff, '\r'},
+        binary.getBytes());
+    assertEquals(StandardCharsets.UTF_8, binary.getCharset());
+    assertEquals("/", fs.getCurrPath());
+  }
+
+  /**
+   * Test a folder copy whose contents are not copied yet is saved with the
+   * contents of its original
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testSavePendingCopy() throws Exception {
+    Content copy = fs.createCopy(fs.getFolder("/dir1"));
+    copy.changeName("copy");
+    fs.getFolder("/").addContent(copy);
+    assertTrue(((Folder) copy).isCopyPending());
+    FileSystemImage.save(fs, image.toString());
+    FileSystemImage.load(fs, image.toString());
+    assertEquals("some text\nmore text",
+        fs.getFile("/copy/dir2/file1").getData());
+  }
+
+  /**
+   * Test an image whose bytes were changed is not read, and the file system
+   * is left as it is
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testDamagedImage() throws Exception {
+    FileSystemImage.save(fs, image.toString());
+    byte[] bytes = Files.readAllBytes(image);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(image, bytes);
+    fs.makeDirectory("/kept");
+    try {
+      FileSystemImage.load(fs, image.toString());
+      fail("A damaged image was read");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Error:"));
+    }
+    assertTrue(fs.pathExist("/kept"));
+  }
+
+  /**
+   * Test a file that is not an image is not read
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testNotAnImage() throws Exception {
+    Files.write(image, "not an image".getBytes(StandardCharsets.UTF_8));
+    try {
+      FileSystemImage.load(fs, image.toString());
+      fail("A file that is not an image was read");
+    } catch (IOException e) {
+      assertEquals("Error: The file is not a JShell image", e.getMessage());
+    }
+  }
+
+  /**
+   * Test an image written by a later version is not read
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testUnsupportedVersion() throws Exception {
+    FileSystemImage.save(fs, image.toString());
+    byte[] bytes = Files.readAllBytes(image);
+    bytes[7] = 99;
+    Files.write(image, bytes);
+    try {
+      FileSystemImage.load(fs, image.toString());
+      fail("An image of another version was read");
+    } catch (IOException e) {
+      assertEquals("Error: Unsupported image version 99", e.getMessage());
+    }
+  }
+
+  /**
+   * Test an image cut short is not read
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testTruncatedImage() throws Exception {
+    FileSystemImage.save(fs, image.toString());
+    byte[] bytes = Files.readAllBytes(image);
+    Files.write(image, Arrays.copyOf(bytes, bytes.length - 3));
+    try {
+      FileSystemImage.load(fs, image.toString());
+      fail("A truncated image was read");
+    } catch (IOException e) {
+      assertEquals("Error: The image ends too early", e.getMessage());
+    }
+    assertTrue(fs.pathExist("/dir1/dir2/file1"));
+  }
+}
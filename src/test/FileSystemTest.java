@@ -1,6 +1,7 @@
 package test;
 
 import driver.Content;
+import driver.DirectoryStack;
 
 /**
  * Tests the methods and behaviour of FileSystem Class
@@ -11,6 +12,8 @@ import driver.Content;
 import driver.File;
 import driver.FileSystem;
 import driver.Folder;
+import driver.Lookup;
+import driver.LookupStatus;
 import exception.HasSameContentNameException;
 import exception.IncorrectContentTypeException;
 import exception.InvalidNameException;
@@ -495,4 +498,155 @@ public class FileSystemTest {
 
   }
 
+  /**
+   * Test the path cache answers repeated lookups and forgets removed paths
+   * 
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   * @throws InvalidNameException
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testPathCache() throws InvalidPathException,
+      IncorrectContentTypeException, InvalidNameException,
+      HasSameContentNameException {
+
+    String path = "/testFolder1/testFolder2/testFolder3/testFile4";
+    testFS.getFile(path);
+    long hits = testFS.getPathCacheHits();
+
+    // the second lookup of the same path is a hit
+    testFS.getFile(path);
+    assertEquals(hits + 1, testFS.getPathCacheHits());
+
+    // a path cached as missing is found once it is created
+    assertFalse(testFS.pathExist("/testFolder5/newFolder"));
+    testFS.makeDirectory("/testFolder5/newFolder");
+    assertTrue(testFS.pathExist("/testFolder5/newFolder"));
+
+    // a removed path is no longer found
+    testFS.getFolder("/testFolder5").removeContent("newFolder");
+    assertFalse(testFS.pathExist("/testFolder5/newFolder"));
+
+  }
+
+  /**
+   * Test a lookup that finds what it wants returns it with the found status
+   */
+  @Test
+  public void testLookupFound() {
+    Lookup found = testFS.lookup("/testFile1");
+    assertEquals(LookupStatus.FOUND, found.getStatus());
+    assertTrue(found.isFound());
+    assertEquals("testFile1", found.getContent().getName());
+
+    found = testFS.lookupFolder("/testFolder1/testFolder2");
+    assertEquals(LookupStatus.FOUND, found.getStatus());
+    assertEquals("testFolder2", found.getFolder().getName());
+
+    found = testFS.lookupFile("/testFolder1/testFile2");
+    assertEquals(LookupStatus.FOUND, found.getStatus());
+    assertEquals("testFile2", found.getFile().getName());
+  }
+
+  /**
+   * Test a lookup of a path that does not exist returns no content
+   */
+  @Test
+  public void testLookupNotFound() {
+    Lookup found = testFS.lookup("/noSuchFile");
+    assertEquals(LookupStatus.NOT_FOUND, found.getStatus());
+    assertFalse(found.isFound());
+    assertNull(found.getContent());
+
+    assertEquals(LookupStatus.NOT_FOUND,
+        testFS.lookupFile("/noSuchFolder/testFile1").getStatus());
+    assertEquals(LookupStatus.NOT_FOUND,
+        testFS.lookupFolder("/noSuchFolder").getStatus());
+  }
+
+  /**
+   * Test a lookup of a file at a path that holds a folder
+   */
+  @Test
+  public void testLookupNotAFile() {
+    Lookup found = testFS.lookupFile("/testFolder1");
+    assertEquals(LookupStatus.NOT_A_FILE, found.getStatus());
+    assertFalse(found.isFound());
+    assertNull(found.getFile());
+    assertNull(found.getContent());
+  }
+
+  /**
+   * Test a lookup of a folder at a path that holds a file
+   */
+  @Test
+  public void testLookupNotAFolder() {
+    Lookup found = testFS.lookupFolder("/testFile1");
+    assertEquals(LookupStatus.NOT_A_FOLDER, found.getStatus());
+    assertFalse(found.isFound());
+    assertNull(found.getFolder());
+    assertNull(found.getContent());
+  }
+
+  /**
+   * Test the result of a lookup is not changed by a later lookup
+   */
+  @Test
+  public void testLookupKept() {
+    Lookup first = testFS.lookupFolder("/testFile1");
+    Lookup second = testFS.lookupFile("/testFile1");
+    assertEquals(LookupStatus.NOT_A_FOLDER, first.getStatus());
+    assertEquals(LookupStatus.FOUND, second.getStatus());
+    assertEquals("testFile1", second.getFile().getName());
+  }
+
+  /**
+   * Test the error of a failed lookup is thrown with the shared exceptions,
+   * which have no stack trace, and nothing is thrown for a found one
+   * 
+   * @throws IncorrectContentTypeException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRaiseLookupError()
+      throws IncorrectContentTypeException, InvalidPathException {
+    testFS.raiseLookupError(testFS.lookupFile("/testFile1"));
+
+    try {
+      testFS.raiseLookupError(testFS.lookupFile("/noSuchFile"));
+      fail("the missing path should have been reported");
+    } catch (InvalidPathException e) {
+      assertEquals(0, e.getStackTrace().length);
+    }
+
+    try {
+      testFS.raiseLookupError(testFS.lookupFolder("/testFile1"));
+      fail("the file should have been reported");
+    } catch (IncorrectContentTypeException | InvalidPathException e) {
+      assertTrue(e instanceof IncorrectContentTypeException);
+    }
+
+    try {
+      testFS.raiseLookupError(testFS.lookupFile("/testFolder1"));
+      fail("the folder should have been reported");
+    } catch (IncorrectContentTypeException | InvalidPathException e) {
+      assertTrue(e instanceof IncorrectContentTypeException);
+    }
+  }
+
+  /**
+   * Test reset empties the directory stack, its folders are not in the new
+   * tree
+   */
+  @Test
+  public void testResetClearsDirectoryStack() {
+    DirectoryStack stack = new DirectoryStack();
+    testFS.setDirectoryStack(stack);
+    stack.pushd(testFS.getCurrFolder());
+    testFS.reset();
+    assertTrue(stack.isEmpty());
+    testFS.setDirectoryStack(null);
+  }
+
 }
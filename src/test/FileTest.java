@@ -6,6 +6,8 @@ package test;
  * @author Kevin Bato
  */
 
+import java.nio.charset.StandardCharsets;
+
 import driver.File;
 import driver.Folder;
 
@@ -60,6 +62,44 @@ public class FileTest {
 
   }
   
+  /**
+   * Test appendData
+   */
+  @Test
+  public void testAppendData() {
+    testFile.overwriteData("Testing");
+    testFile.appendData("!");
+    testFile.appendData("!");
+    // Check for new data and length in testFile
+    assertEquals("Testing!!", testFile.getData());
+    assertEquals(9, testFile.getLength());
+  }
+
+  /**
+   * Test overwriting with bytes keeps them as they are
+   */
+  @Test
+  public void testOverwriteBytes() {
+    byte[] bytes = {'l', 'i', 'n', 'e', '\r', '\n'};
+    testFile.overwriteData(bytes.clone(), StandardCharsets.US_ASCII);
+    assertArrayEquals(bytes, testFile.getBytes());
+    assertEquals(StandardCharsets.US_ASCII, testFile.getCharset());
+    assertEquals("line\r\n", testFile.getData());
+    assertEquals(6, testFile.getLength());
+  }
+
+  /**
+   * Test appending to a clone does not change the original
+   */
+  @Test
+  public void testAppendToClone() {
+    testFile.appendData("data");
+    File actualFile = testFile.clone();
+    actualFile.appendData(" of the clone");
+    assertEquals("data", testFile.getData());
+    assertEquals("data of the clone", actualFile.getData());
+  }
+
   /**
    * Test clone
    */
@@ -0,0 +1,59 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import driver.FileData;
+import driver.FileText;
+
+/**
+ * Test methods of FileText class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class FileTextTest {
+
+  /**
+   * Test the view reads the characters of the data
+   */
+  @Test
+  public void testView() {
+    FileData data = new FileData("caf\u00e9 au lait");
+    FileText text = new FileText(data, 0, data.length());
+    assertEquals(12, text.length());
+    assertEquals('\u00e9', text.charAt(3));
+    assertEquals("au", text.subSequence(5, 7).toString());
+    assertEquals("caf\u00e9 au lait", text.toString());
+  }
+
+  /**
+   * Test reading characters far apart in large data
+   */
+  @Test
+  public void testLargeData() {
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 30000; i++) {
+      expected.append((char) ('a' + i % 26));
+    }
+    FileData data = new FileData("");
+    data.append(expected.toString());
+    FileText text = new FileText(data, 0, data.length());
+    for (int i = 29999; i >= 0; i -= 997) {
+      assertEquals(expected.charAt(i), text.charAt(i));
+    }
+    assertTrue(Pattern.compile("abc").matcher(text).find(20000));
+  }
+
+  /**
+   * Test reading past the end of the view
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testOutOfBounds() {
+    FileData data = new FileData("abcdef");
+    new FileText(data, 1, 3).charAt(2);
+  }
+}
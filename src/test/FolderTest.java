@@ -8,8 +8,10 @@ package test;
 
 
 import java.util.ArrayList;
+import java.util.List;
 
 import driver.Content;
+import driver.File;
 import driver.Folder;
 import exception.HasSameContentNameException;
 import exception.InvalidPathException;
@@ -176,6 +178,88 @@ public class FolderTest {
     assertEquals(testFolder1.getPath(), actualFolder.getPath());
     
   }
-  
-  
+
+  /**
+   * Test a clone copies its contents only when it is changed, and a content
+   * looked up by name is copied alone
+   * 
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testCloneIsLazy() throws HasSameContentNameException {
+    testFolder1.addContent(new File("/", "file", "data"));
+    testFolder1.addContent(new File("/", "other", "more"));
+    Folder clone = testFolder1.clone();
+    assertTrue(clone.isCopyPending());
+
+    // listing the clone reads the original
+    assertEquals(2, clone.getContentCount());
+    assertEquals("file", clone.getContents().get(0).getName());
+    assertTrue(clone.isCopyPending());
+
+    // the content looked up is copied, not shared, the rest still waits
+    Content copy = clone.getContent("file");
+    assertTrue(clone.isCopyPending());
+    assertNotSame(testFolder1.getContent("file"), copy);
+    assertEquals(clone, copy.getParent());
+    assertEquals(copy, clone.getContents().get(0));
+    assertEquals("data", ((File) copy).getData());
+
+    // a change copies the rest of the level
+    clone.addContent(new File("/", "new", ""));
+    assertFalse(clone.isCopyPending());
+    assertEquals(3, clone.getContentCount());
+    assertEquals(copy, clone.getContent("file"));
+    assertEquals(clone, clone.getContent("other").getParent());
+    assertEquals(2, testFolder1.getContentCount());
+  }
+
+  /**
+   * Test getContents returns a read only view that follows changes
+   * 
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testGetContents() throws HasSameContentNameException {
+
+    List<Content> contents = ROOT.getContents();
+    assertEquals(0, contents.size());
+
+    // The view follows contents added after it was returned
+    ROOT.addContent(testFolder1);
+    ROOT.addContent(testFolder);
+    assertEquals(2, ROOT.getContentCount());
+    assertEquals(testFolder, contents.get(0));
+    assertEquals(testFolder1, contents.get(1));
+
+  }
+
+  /**
+   * Test getContents cannot be used to change the folder
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetContentsReadOnly() {
+
+    ROOT.getContents().add(testFolder);
+
+  }
+
+  /**
+   * Test removeAllContents
+   * 
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testRemoveAllContents() throws HasSameContentNameException {
+
+    ROOT.addContent(testFolder);
+    ROOT.addContent(testFolder1);
+    ROOT.removeAllContents();
+
+    assertEquals(0, ROOT.getContentCount());
+    assertEquals(null, ROOT.getContent("home"));
+    assertEquals(null, testFolder.getParent());
+
+  }
+
 }
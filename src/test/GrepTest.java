@@ -168,4 +168,46 @@ public class GrepTest {
     grepTest.executeCommand();
 
   }
+
+  /**
+   * test Grep execute command printing line numbers
+   * 
+   * @throws IncorrectContentTypeException
+   * @throws InvalidPathException
+   * @throws InvalidRegexException
+   */
+  @Test
+  public void testGrepWithLineNumbers() throws InvalidRegexException,
+      InvalidPathException, IncorrectContentTypeException {
+    fs.getFile("/testFile").overwriteData("hello\nbye\nhello again");
+
+    // Set param
+    param = new String[] {"-n", "hello.*", "/testFile"};
+    grepTest.setParam(param);
+
+    // execute grep
+    grepTest.executeCommand();
+    assertEquals("1:hello\n3:hello again", pf.getOutput());
+  }
+
+  /**
+   * test Grep execute command with recursion printing line numbers
+   * 
+   * @throws IncorrectContentTypeException
+   * @throws InvalidPathException
+   * @throws InvalidRegexException
+   */
+  @Test
+  public void testGrepWithRecAndLineNumbers() throws InvalidRegexException,
+      InvalidPathException, IncorrectContentTypeException {
+    fs.getFile("/test/testFile1").overwriteData("a\nhi");
+
+    // Set param
+    param = new String[] {"-R", "-n", "hi", "/test"};
+    grepTest.setParam(param);
+
+    // execute grep
+    grepTest.executeCommand();
+    assertEquals("/test/testFile1: 2:hi", pf.getOutput());
+  }
 }
@@ -0,0 +1,184 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import commands.Head;
+import commands.Lines;
+import commands.Tail;
+import driver.FileSystem;
+import driver.PrintFormatter;
+import exception.IncorrectContentTypeException;
+import exception.InvalidNumberOfArgument;
+import exception.InvalidPathException;
+
+/**
+ * Test the methods of Head, and of Tail and Lines which print other lines
+ * the same way
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class HeadTest {
+  private FileSystem fs;
+  private PrintFormatter format;
+
+  /**
+   * Setup before each test cases
+   * 
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    fs = FileSystem.createNewFileSystem();
+    format = new PrintFormatter();
+    fs.makeFile("/file1");
+    StringBuilder text = new StringBuilder();
+    for (int i = 1; i <= 20; i++) {
+      text.append("line ").append(i).append('\n');
+    }
+    fs.getFile("/file1").overwriteData(text.toString());
+    fs.makeDirectory("/dir1");
+  }
+
+  /**
+   * Reset the file system after each test
+   */
+  @After
+  public void tearDown() {
+    fs.reset();
+  }
+
+  /**
+   * Test head prints the first 10 lines when no number is given
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testHeadDefault() throws Exception {
+    Head head = new Head(fs, format);
+    head.setParam(new String[] {"/file1"});
+    head.executeCommand();
+    assertTrue(format.getOutput().startsWith("line 1\nline 2\n"));
+    assertTrue(format.getOutput().endsWith("\nline 10"));
+  }
+
+  /**
+   * Test head with the number of lines given
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testHeadCount() throws Exception {
+    Head head = new Head(fs, format);
+    head.setParam(new String[] {"-n", "2", "/file1"});
+    head.executeCommand();
+    assertEquals("line 1\nline 2", format.getOutput());
+  }
+
+  /**
+   * Test tail with the number of lines given
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testTailCount() throws Exception {
+    Tail tail = new Tail(fs, format);
+    tail.setParam(new String[] {"-n", "3", "/file1"});
+    tail.executeCommand();
+    assertEquals("line 18\nline 19\nline 20", format.getOutput());
+  }
+
+  /**
+   * Test tail prints the whole file when it has fewer lines
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testTailShortFile() throws Exception {
+    fs.getFile("/file1").overwriteData("only");
+    Tail tail = new Tail(fs, format);
+    tail.setParam(new String[] {"/file1"});
+    tail.executeCommand();
+    assertEquals("only", format.getOutput());
+  }
+
+  /**
+   * Test lines prints the lines of the range, counted from 1
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testLines() throws Exception {
+    Lines lines = new Lines(fs, format);
+    lines.setParam(new String[] {"4", "6", "/file1"});
+    lines.executeCommand();
+    assertEquals("line 4\nline 5\nline 6", format.getOutput());
+    lines.setParam(new String[] {"19", "40", "/file1"});
+    lines.executeCommand();
+    assertEquals("line 19\nline 20", format.getOutput());
+  }
+
+  /**
+   * Test lines with a line number of 0
+   * 
+   * @throws Exception
+   */
+  @Test(expected = NumberFormatException.class)
+  public void testLinesFromZero() throws Exception {
+    Lines lines = new Lines(fs, format);
+    lines.setParam(new String[] {"0", "2", "/file1"});
+    lines.executeCommand();
+  }
+
+  /**
+   * Test head with a number of lines that is not a number
+   * 
+   * @throws Exception
+   */
+  @Test(expected = NumberFormatException.class)
+  public void testHeadInvalidCount() throws Exception {
+    Head head = new Head(fs, format);
+    head.setParam(new String[] {"-n", "x", "/file1"});
+    head.executeCommand();
+  }
+
+  /**
+   * Test head with too many parameters
+   * 
+   * @throws Exception
+   */
+  @Test(expected = InvalidNumberOfArgument.class)
+  public void testHeadTooManyParameters() throws Exception {
+    Head head = new Head(fs, format);
+    head.setParam(new String[] {"/file1", "/file1"});
+    head.executeCommand();
+  }
+
+  /**
+   * Test head on a folder
+   * 
+   * @throws Exception
+   */
+  @Test(expected = IncorrectContentTypeException.class)
+  public void testHeadFolder() throws Exception {
+    Head head = new Head(fs, format);
+    head.setParam(new String[] {"/dir1"});
+    head.executeCommand();
+  }
+
+  /**
+   * Test tail on a path that does not exist
+   * 
+   * @throws Exception
+   */
+  @Test(expected = InvalidPathException.class)
+  public void testTailInvalidPath() throws Exception {
+    Tail tail = new Tail(fs, format);
+    tail.setParam(new String[] {"/file2"});
+    tail.executeCommand();
+  }
+}
@@ -0,0 +1,294 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import driver.Content;
+import driver.FileArena;
+import driver.File;
+import driver.Folder;
+import driver.InodeTable;
+import exception.HasSameContentNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of InodeTable class, through the views that use it
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class InodeTableTest {
+
+  /**
+   * The table used by all nodes
+   */
+  private final InodeTable table = InodeTable.getTable();
+
+  /**
+   * Test a removed file gives its inode back once its view is collected, and
+   * a new node uses it again
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testInodeReused()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    int live = table.getLiveCount();
+    folder.addContent(new File("/", "file", "data"));
+    assertEquals(live + 1, table.getLiveCount());
+    folder.removeContent("file");
+    // other removed nodes may be freed as well
+    for (int i = 0; i < 100 && table.getLiveCount() > live; i++) {
+      System.gc();
+    }
+    assertTrue(table.getLiveCount() <= live);
+    int capacity = table.getCapacity();
+    new File("/", "other", "data");
+    assertEquals(capacity, table.getCapacity());
+  }
+
+  /**
+   * Test a view of a removed node can still be used, and the node can be
+   * added back, as its inode is not used again while the view is
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemovedViewKept()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    Folder home = new Folder("/home", "home");
+    folder.addContent(home);
+    folder.removeContent("home");
+    Folder other = new Folder("/home", "home");
+    assertFalse(home.equals((Object) other));
+    assertEquals("home", home.getName());
+    assertEquals("/home", home.getPath());
+    assertNull(home.getParent());
+    folder.addContent(home);
+    assertEquals(home, folder.getContent("home"));
+    assertEquals(folder, home.getParent());
+  }
+
+  /**
+   * Test the table hands out the same view of a node while it is used
+   *
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testSameView() throws HasSameContentNameException {
+    Folder folder = new Folder("/", "/");
+    Folder home = new Folder("/home", "home");
+    folder.addContent(home);
+    assertSame(home, folder.getContent("home"));
+    assertSame(folder, home.getParent());
+  }
+
+  /**
+   * Test views made at different times of the same node are equal
+   *
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testViewsEqual() throws HasSameContentNameException {
+    Folder folder = new Folder("/", "/");
+    Folder home = new Folder("/home", "home");
+    folder.addContent(home);
+    assertEquals(home, folder.getContent("home"));
+    assertEquals(folder, folder.getContent("home").getParent());
+    assertEquals("/home", folder.getContent("home").getPath());
+  }
+
+  /**
+   * Test a folder with many children finds them by name, lists them in
+   * order, and keeps finding them after some are renamed and removed
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testLargeFolder()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    for (int i = 99; i >= 0; i--) {
+      String name = String.format("file%02d", i);
+      folder.addContent(new File("/" + name, name, name));
+    }
+    assertEquals(100, folder.getContentCount());
+    assertEquals("file42", ((File) folder.getContent("file42")).getData());
+    List<Content> contents = folder.getContents();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(String.format("file%02d", i), contents.get(i).getName());
+    }
+    folder.getContent("file00").changeName("zzz");
+    assertNull(folder.getContent("file00"));
+    assertEquals("zzz", contents.get(99).getName());
+    for (int i = 1; i < 98; i++) {
+      folder.removeContent(String.format("file%02d", i));
+    }
+    assertEquals(3, folder.getContentCount());
+    assertEquals("file98", contents.get(0).getName());
+    assertEquals("file99", folder.getContent("file99").getName());
+    assertNull(folder.getContent("file50"));
+  }
+
+  /**
+   * Test a listed folder keeps finding its children by name and listing
+   * them in order through many changes
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testIndexAndOrderKept()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    List<Content> contents = folder.getContents();
+    TreeSet<String> expected = new TreeSet<String>();
+    Random random = new Random(19);
+    for (int i = 0; i < 3000; i++) {
+      String name = "n" + random.nextInt(300);
+      int action = random.nextInt(3);
+      if (action == 0 && !expected.contains(name)) {
+        folder.addContent(new Content("/", name));
+        expected.add(name);
+      } else if (action == 1 && expected.contains(name)) {
+        folder.removeContent(name);
+        expected.remove(name);
+      } else if (action == 2 && expected.contains(name)) {
+        String renamed = "r" + random.nextInt(300);
+        if (!expected.contains(renamed)) {
+          folder.getContent(name).changeName(renamed);
+          expected.remove(name);
+          expected.add(renamed);
+        }
+      }
+      if (i % 100 == 0) {
+        // the order is kept once it was listed
+        assertEquals(expected.size(), contents.size());
+        if (!expected.isEmpty()) {
+          assertEquals(expected.first(), contents.get(0).getName());
+        }
+      }
+    }
+    int position = 0;
+    for (String name : expected) {
+      assertEquals(name, contents.get(position++).getName());
+      assertEquals(name, folder.getContent(name).getName());
+    }
+    for (int i = 0; i < 300; i++) {
+      assertEquals(expected.contains("n" + i),
+          folder.getContent("n" + i) != null);
+    }
+  }
+
+  /**
+   * Test a folder filled before it is first listed is listed in order
+   *
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testFirstListingSorted() throws HasSameContentNameException {
+    Folder folder = new Folder("/", "/");
+    TreeSet<String> expected = new TreeSet<String>();
+    Random random = new Random(8);
+    while (expected.size() < 500) {
+      String name = "n" + random.nextInt(100000);
+      if (expected.add(name)) {
+        folder.addContent(new Content("/", name));
+      }
+    }
+    List<Content> contents = folder.getContents();
+    int position = 0;
+    for (String name : expected) {
+      assertEquals(name, contents.get(position++).getName());
+    }
+  }
+
+  /**
+   * Test the children of a removed folder are taken out of it, at the latest
+   * when new nodes need inodes
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemovedFolderFreed()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    Folder home = new Folder("/home", "home");
+    folder.addContent(home);
+    File file = new File("/home/a", "a", "a");
+    home.addContent(file);
+    home.addContent(new Folder("/home/b", "b"));
+    folder.removeContent("home");
+    // make nodes until the free inodes run out and the removed ones are used
+    for (int i = 0; table.getDeadCount() > 0; i++) {
+      assertTrue(i < table.getCapacity());
+      new Content("/", "c");
+    }
+    assertNull(file.getParent());
+    assertEquals("/home/a", file.getPath());
+    assertEquals("a", file.getData());
+    assertEquals(0, home.getContentCount());
+  }
+
+  /**
+   * Test the data of a removed file kept in the arena can still be read
+   * while its view is used
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemovedFileDataKept()
+      throws HasSameContentNameException, InvalidPathException {
+    FileArena.enable(1024);
+    try {
+      Folder folder = new Folder("/", "/");
+      File file = new File("/a", "a", "kept");
+      folder.addContent(file);
+      assertEquals(1, FileArena.getActive().getBlockCount());
+      folder.removeContent("a");
+      // the block is given back only once the view is collected
+      assertEquals(1, FileArena.getActive().getBlockCount());
+      assertEquals("kept", file.getData());
+      assertEquals("/a", file.getPath());
+    } finally {
+      FileArena.disable();
+    }
+  }
+
+  /**
+   * Test a removed folder added back before its nodes are freed is not freed
+   * later
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testRemovedFolderAddedBack()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    Folder home = new Folder("/home", "home");
+    folder.addContent(home);
+    home.addContent(new File("/home/a", "a", "a"));
+    folder.removeContent("home");
+    folder.addContent(home);
+    for (int i = 0; table.getDeadCount() > 0; i++) {
+      assertTrue(i < table.getCapacity());
+      new Content("/", "c");
+    }
+    assertSame(home, folder.getContent("home"));
+    assertEquals(folder, home.getParent());
+    assertEquals("/home", home.getPath());
+  }
+}
@@ -0,0 +1,193 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.ContentEditor;
+import driver.FileSystem;
+import driver.FileSystemImage;
+import driver.Journal;
+
+/**
+ * Test methods of Journal class
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class JournalTest {
+  private FileSystem fs;
+  private ContentEditor editor;
+  private Path path;
+
+  /**
+   * Setup before each test cases
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    fs = FileSystem.createNewFileSystem();
+    editor = new ContentEditor();
+    path = Files.createTempFile("jshell", ".jsjl");
+    Files.delete(path);
+  }
+
+  /**
+   * Turn the journal off, reset the file system and delete the journal after
+   * each test
+   *
+   * @throws Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    Journal.disable();
+    fs.reset();
+    Files.deleteIfExists(path);
+  }
+
+  /**
+   * Test the changes in the journal are made again on an empty file system
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testReplay() throws Exception {
+    Journal.enable(path, Journal.Durability.GROUP, fs);
+    fs.makeDirectory("/dir1");
+    fs.makeDirectory("/dir2");
+    fs.makeFile("/dir1/file1");
+    editor.appendContents(fs.getFile("/dir1/file1"), "line 1");
+    editor.appendContents(fs.getFile("/dir1/file1"), "line 2");
+    fs.copyContent(fs.getPathContent("/dir1"), fs.getFolder("/dir2"));
+    fs.moveContent(fs.getPathContent("/dir1/file1"), fs.getFolder("/"),
+        "moved");
+    editor.deleteAllContents(fs.getFile("/moved"));
+    Journal.commit();
+    Journal.disable();
+    fs.reset();
+    Journal journal = Journal.enable(path, Journal.Durability.GROUP, fs);
+    assertEquals(8, journal.getReplayedCount());
+    assertEquals(0, journal.getFailedCount());
+    assertEquals("", fs.getFile("/moved").getData());
+    assertEquals("line 1\nline 2", fs.getFile("/dir2/dir1/file1").getData());
+    assertFalse(fs.pathExist("/dir1/file1"));
+  }
+
+  /**
+   * Test the changes of a command are synced together, unless each change
+   * is synced on its own
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testGroupCommit() throws Exception {
+    Journal journal = Journal.enable(path, Journal.Durability.GROUP, fs);
+    fs.makeDirectory("/a");
+    fs.makeDirectory("/b");
+    fs.makeDirectory("/c");
+    Journal.commit();
+    assertEquals(3, journal.getRecordCount());
+    assertEquals(1, journal.getSyncCount());
+    Journal.disable();
+    fs.reset();
+    journal = Journal.enable(path, Journal.Durability.SYNC, fs);
+    fs.makeDirectory("/d");
+    fs.makeDirectory("/e");
+    Journal.commit();
+    assertEquals(2, journal.getSyncCount());
+    assertTrue(fs.pathExist("/c"));
+  }
+
+  /**
+   * Test a record cut short by a crash is dropped, and new records follow
+   * the last whole one
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRecordCutShort() throws Exception {
+    Journal.enable(path, Journal.Durability.GROUP, fs);
+    fs.makeDirectory("/dir1");
+    Journal.disable();
+    long size = Files.size(path);
+    Files.write(path, new byte[] {0, 0, 0, 40, 1, 2},
+        StandardOpenOption.APPEND);
+    fs.reset();
+    Journal journal = Journal.enable(path, Journal.Durability.GROUP, fs);
+    assertEquals(1, journal.getReplayedCount());
+    assertEquals(size, Files.size(path));
+    fs.makeDirectory("/dir2");
+    Journal.disable();
+    fs.reset();
+    journal = Journal.enable(path, Journal.Durability.GROUP, fs);
+    assertEquals(2, journal.getReplayedCount());
+    assertTrue(fs.pathExist("/dir2"));
+  }
+
+  /**
+   * Test an image loaded is loaded again when the journal is replayed, and
+   * the replay fails once the image on disk is another one
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testLoadReplayed() throws Exception {
+    Path image = Files.createTempFile("jshell", ".jsfs");
+    try {
+      fs.makeDirectory("/saved");
+      FileSystemImage.save(fs, image.toString());
+      fs.reset();
+      Journal.enable(path, Journal.Durability.GROUP, fs);
+      FileSystemImage.load(fs, image.toString());
+      fs.makeDirectory("/saved/after");
+      Journal.commit();
+      Journal.disable();
+      fs.reset();
+      Journal journal = Journal.enable(path, Journal.Durability.GROUP, fs);
+      assertEquals(2, journal.getReplayedCount());
+      assertTrue(fs.pathExist("/saved/after"));
+      Journal.disable();
+      // another image is saved over the one loaded
+      fs.reset();
+      fs.makeDirectory("/other");
+      FileSystemImage.save(fs, image.toString());
+      fs.reset();
+      try {
+        Journal.enable(path, Journal.Durability.GROUP, fs);
+        fail("The journal was replayed on another image");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().endsWith(
+            " changed since it was loaded, the journal cannot be replayed"));
+      }
+      assertNull(Journal.getActive());
+      assertFalse(fs.pathExist("/other"));
+    } finally {
+      Files.deleteIfExists(image);
+    }
+  }
+
+  /**
+   * Test a file that is not a journal is not replayed
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testNotJournal() throws Exception {
+    Files.write(path, "not a journal".getBytes());
+    try {
+      Journal.enable(path, Journal.Durability.GROUP, fs);
+      fail("A file that is not a journal was replayed");
+    } catch (IOException e) {
+      assertEquals("Error: The file is not a JShell journal", e.getMessage());
+    }
+    assertNull(Journal.getActive());
+  }
+}
@@ -0,0 +1,134 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import driver.FileData;
+import driver.LineIndex;
+
+/**
+ * Test methods of LineIndex class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class LineIndexTest {
+
+  /**
+   * Return data with the given number of numbered lines
+   * 
+   * @param count Number of lines
+   * @return The data, each line ending with a new line
+   */
+  private FileData numbered(int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      text.append("line ").append(i).append('\n');
+    }
+    return new FileData(text.toString());
+  }
+
+  /**
+   * Test the number of lines, with and without a new line at the end
+   */
+  @Test
+  public void testLineCount() {
+    assertEquals(0, new FileData("").getLineIndex().getLineCount());
+    assertEquals(1, new FileData("one").getLineIndex().getLineCount());
+    assertEquals(1, new FileData("one\n").getLineIndex().getLineCount());
+    assertEquals(2, new FileData("one\ntwo").getLineIndex().getLineCount());
+    assertEquals(3, new FileData("one\n\n\n").getLineIndex().getLineCount());
+    assertEquals(1000, numbered(1000).getLineIndex().getLineCount());
+  }
+
+  /**
+   * Test getting ranges of lines, past the lines kept by the index as well
+   */
+  @Test
+  public void testGetLines() {
+    LineIndex index = numbered(1000).getLineIndex();
+    assertEquals("line 0\nline 1", index.getLines(0, 2));
+    assertEquals("line 64", index.getLines(64, 65));
+    assertEquals("line 130\nline 131\nline 132", index.getLines(130, 133));
+    assertEquals("line 999", index.getLines(999, 5000));
+    assertEquals("", index.getLines(1000, 1001));
+    assertEquals("", index.getLines(5, 5));
+  }
+
+  /**
+   * Test the index is only built as far as it is needed
+   */
+  @Test
+  public void testLazy() {
+    LineIndex index = numbered(10000).getLineIndex();
+    assertFalse(index.isComplete());
+    assertEquals("line 3", index.getLines(3, 4));
+    assertFalse(index.isComplete());
+    assertEquals(10000, index.getLineCount());
+    assertTrue(index.isComplete());
+  }
+
+  /**
+   * Test the last lines are found without building the index
+   */
+  @Test
+  public void testLastLines() {
+    LineIndex index = numbered(10000).getLineIndex();
+    assertEquals("line 9998\nline 9999", index.getLastLines(2));
+    assertFalse(index.isComplete());
+    assertEquals("no new line", new FileData("a\nno new line")
+        .getLineIndex().getLastLines(1));
+    assertEquals("a\n", new FileData("a\n\n").getLineIndex().getLastLines(5));
+    assertEquals("", new FileData("").getLineIndex().getLastLines(5));
+    assertEquals("", numbered(3).getLineIndex().getLastLines(0));
+    // once the index is complete, it finds the last lines
+    index.getLineCount();
+    assertEquals("line 9999", index.getLastLines(1));
+  }
+
+  /**
+   * Test the index is kept up to date as the data is appended to
+   */
+  @Test
+  public void testAppend() {
+    FileData data = new FileData("one\ntwo");
+    LineIndex index = data.getLineIndex();
+    assertEquals(2, index.getLineCount());
+    data.append("\nthree\n");
+    assertEquals(3, index.getLineCount());
+    assertEquals("two\nthree", index.getLines(1, 3));
+    for (int i = 0; i < 200; i++) {
+      data.append("more " + i + "\n");
+    }
+    assertEquals(203, index.getLineCount());
+    assertEquals("more 100", index.getLines(103, 104));
+  }
+
+  /**
+   * Test the index is built again when the data is turned into UTF-8
+   */
+  @Test
+  public void testAppendOtherCharset() {
+    FileData data = new FileData("caf\u00e9\none");
+    assertEquals(2, data.getLineIndex().getLineCount());
+    data.append("\n\u20ac");
+    assertEquals(StandardCharsets.UTF_8, data.getCharset());
+    assertEquals("one\n\u20ac", data.getLineIndex().getLines(1, 3));
+  }
+
+  /**
+   * Test lines of data whose new line is not a single byte
+   */
+  @Test
+  public void testWideCharset() {
+    FileData data = new FileData("one\ntwo\nthree\n"
+        .getBytes(StandardCharsets.UTF_16BE), StandardCharsets.UTF_16BE);
+    LineIndex index = data.getLineIndex();
+    assertEquals(3, index.getLineCount());
+    assertEquals("two", index.getLines(1, 2));
+    assertEquals("two\nthree", index.getLastLines(2));
+  }
+}
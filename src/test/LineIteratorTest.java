@@ -0,0 +1,86 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import driver.FileData;
+import driver.LineIterator;
+
+/**
+ * Test methods of LineIterator class
+ * 
+ * @author Sin Chi Chiu
+ *
+ */
+public class LineIteratorTest {
+
+  /**
+   * Return all lines of the data
+   * 
+   * @param data The data
+   * @return The lines
+   */
+  private String[] lines(FileData data) {
+    ArrayList<String> lines = new ArrayList<String>();
+    LineIterator iterator = new LineIterator(data);
+    while (iterator.hasNext()) {
+      lines.add(iterator.next());
+    }
+    return lines.toArray(new String[0]);
+  }
+
+  /**
+   * Test the lines are the same as the ones split from the whole data
+   */
+  @Test
+  public void testSameAsSplit() {
+    String[] texts = {"", "one", "one\ntwo", "one\n", "one\n\n\n", "\n",
+        "\n\n", "\none", "one\n\ntwo", "one\r\ntwo\r\n", "caf\u00e9\n\u20ac"};
+    for (String text : texts) {
+      assertArrayEquals(text, text.split("\n"), lines(new FileData(text)));
+    }
+  }
+
+  /**
+   * Test lines longer than a window and lines across windows
+   */
+  @Test
+  public void testLongLines() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      text.append("line ").append(i).append('\n');
+    }
+    for (int i = 0; i < 20000; i++) {
+      text.append((char) ('a' + i % 26));
+    }
+    FileData data = new FileData("");
+    data.append(text.toString());
+    assertArrayEquals(text.toString().split("\n"), lines(data));
+  }
+
+  /**
+   * Test data whose new line is more than one byte
+   */
+  @Test
+  public void testWideCharset() {
+    String text = "one\ntwo\n";
+    FileData data = new FileData(text.getBytes(StandardCharsets.UTF_16),
+        StandardCharsets.UTF_16);
+    assertEquals(Arrays.asList("one", "two"), Arrays.asList(lines(data)));
+  }
+
+  /**
+   * Test reading past the last line
+   */
+  @Test(expected = NoSuchElementException.class)
+  public void testNoMoreLines() {
+    LineIterator iterator = new LineIterator(new FileData("\n"));
+    iterator.next();
+  }
+}
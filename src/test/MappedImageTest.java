@@ -0,0 +1,187 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.Content;
+import driver.FileSystem;
+import driver.FileSystemImage;
+import driver.Folder;
+import driver.InodeTable;
+
+/**
+ * Test methods of MappedImage class, through indexed images written and
+ * loaded by FileSystemImage
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class MappedImageTest {
+  private FileSystem fs;
+  private Path image;
+
+  /**
+   * Setup before each test cases
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    fs = FileSystem.createNewFileSystem();
+    image = Files.createTempFile("jshell", ".jshm");
+    fs.makeDirectory("/dir1");
+    fs.makeDirectory("/dir1/dir2");
+    fs.makeDirectory("/dir1/dir2/dir3");
+    fs.makeFile("/dir1/dir2/file1");
+    fs.getFile("/dir1/dir2/file1").overwriteData("line 1\nline 2\n");
+    fs.makeFile("/dir1/empty");
+    fs.makeFile("/b");
+    fs.makeFile("/a");
+    fs.getFile("/a").overwriteData(new byte[] {(byte) 0xc3, (byte) 0xa9},
+        StandardCharsets.UTF_8);
+    FileSystemImage.saveMapped(fs, image.toString());
+    fs.reset();
+  }
+
+  /**
+   * Reset the file system and delete the image after each test
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    fs.reset();
+    Files.deleteIfExists(image);
+  }
+
+  /**
+   * Test a mapped image gives back the tree, its names and its data
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testLoad() throws Exception {
+    assertEquals(8, FileSystemImage.load(fs, image.toString()));
+    assertEquals("line 1\nline 2\n",
+        fs.getFile("/dir1/dir2/file1").getData());
+    assertEquals("\u00e9", fs.getFile("/a").getData());
+    assertEquals(StandardCharsets.UTF_8, fs.getFile("/a").getCharset());
+    assertEquals(0, fs.getFile("/dir1/empty").getLength());
+    assertTrue(fs.pathExist("/dir1/dir2/dir3"));
+    assertEquals("/", fs.getCurrPath());
+  }
+
+  /**
+   * Test folders are read from the image only when they are first used
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testFoldersReadWhenUsed() throws Exception {
+    FileSystemImage.load(fs, image.toString());
+    assertTrue(InodeTable.getTable().getMappedCount() > 0);
+    Folder dir1 = fs.getFolder("/dir1");
+    assertTrue(dir1.isMapped());
+    assertEquals(2, dir1.getContentCount());
+    assertFalse(dir1.isMapped());
+    assertTrue(((Folder) dir1.getContent("dir2")).isMapped());
+  }
+
+  /**
+   * Test the contents of a folder read from the image are in alphabetical
+   * order
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testContentsInOrder() throws Exception {
+    FileSystemImage.load(fs, image.toString());
+    List<Content> contents = fs.getFolder("/").getContents();
+    assertEquals(3, contents.size());
+    assertEquals("a", contents.get(0).getName());
+    assertEquals("b", contents.get(1).getName());
+    assertEquals("dir1", contents.get(2).getName());
+  }
+
+  /**
+   * Test changes are kept in memory, and the image is not changed
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testChangesKeptInMemory() throws Exception {
+    FileSystemImage.load(fs, image.toString());
+    fs.getFile("/dir1/dir2/file1").appendData("line 3\n");
+    fs.getFolder("/dir1").removeContent("dir2");
+    fs.makeDirectory("/dir1/new");
+    assertFalse(fs.pathExist("/dir1/dir2"));
+    FileSystemImage.load(fs, image.toString());
+    assertEquals("line 1\nline 2\n",
+        fs.getFile("/dir1/dir2/file1").getData());
+    assertFalse(fs.pathExist("/dir1/new"));
+  }
+
+  /**
+   * Test a copy of a folder not read yet holds its contents
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCopyFolderNotRead() throws Exception {
+    FileSystemImage.load(fs, image.toString());
+    Folder dir2 = (Folder) fs.getFolder("/dir1").getContent("dir2");
+    assertTrue(dir2.isMapped());
+    Content copy = fs.createCopy(dir2);
+    copy.changeName("copy");
+    fs.getFolder("/").addContent(copy);
+    assertEquals("line 1\nline 2\n", fs.getFile("/copy/file1").getData());
+  }
+
+  /**
+   * Test an image can be written over the image in use, which keeps being
+   * read as it was
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testSaveOverImageInUse() throws Exception {
+    FileSystemImage.load(fs, image.toString());
+    fs.getFile("/dir1/dir2/file1").overwriteData("changed");
+    FileSystemImage.saveMapped(fs, image.toString());
+    assertEquals("\u00e9", fs.getFile("/a").getData());
+    FileSystemImage.save(fs, image.toString());
+    FileSystemImage.load(fs, image.toString());
+    assertEquals("changed", fs.getFile("/dir1/dir2/file1").getData());
+    assertEquals("\u00e9", fs.getFile("/a").getData());
+  }
+
+  /**
+   * Test an image whose index was changed is not loaded
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testDamagedIndex() throws Exception {
+    byte[] bytes = Files.readAllBytes(image);
+    bytes[70] ^= 1;
+    Files.write(image, bytes);
+    fs.makeDirectory("/kept");
+    try {
+      FileSystemImage.load(fs, image.toString());
+      fail("A damaged image was loaded");
+    } catch (IOException e) {
+      assertEquals("Error: The checksum of the image does not match, the "
+          + "image is damaged", e.getMessage());
+    }
+    assertTrue(fs.pathExist("/kept"));
+  }
+}
@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import commands.Mv;
+import driver.Content;
 import driver.FileSystem;
 import exception.HasSameContentNameException;
 import exception.IncorrectContentTypeException;
@@ -242,5 +243,64 @@ public class MvTest {
     mvTest.executeCommand();
   }
 
+  /**
+   * test Mv execute command moves a folder with everything inside it, and
+   * renames a folder in another directory
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws IncorrectContentTypeException
+   * @throws InvalidPathException
+   * @throws HasSameContentNameException
+   * @throws InvalidNameException
+   */
+  @Test
+  public void testMvWithSubContents() throws HasSameContentNameException,
+      InvalidPathException, IncorrectContentTypeException,
+      InvalidNumberOfArgument, InvalidNameException {
+
+    Content moved = fs.getPathContent("/test");
+
+    // Move a folder holding other contents
+    param = new String[] {"/test", "/moveme"};
+    mvTest.setParam(param);
+    mvTest.executeCommand();
+
+    // The same folder is moved, and the paths inside it follow
+    assertEquals(moved, fs.getPathContent("/moveme/test"));
+    assertEquals("/moveme/test/test1",
+        fs.getPathContent("/moveme/test/test1").getPath());
+    assertFalse(fs.pathExist("/test"));
+
+    // Rename it into the root
+    param = new String[] {"/moveme/test", "/renamed"};
+    mvTest.setParam(param);
+    mvTest.executeCommand();
+
+    assertEquals(moved, fs.getPathContent("/renamed"));
+    assertEquals("/renamed/test1",
+        fs.getPathContent("/renamed/test1").getPath());
+    assertFalse(fs.pathExist("/moveme/test"));
+  }
+
+  /**
+   * test Mv execute command to move a folder into a folder inside it
+   * 
+   * @throws InvalidNumberOfArgument
+   * @throws IncorrectContentTypeException
+   * @throws InvalidPathException
+   * @throws HasSameContentNameException
+   */
+  @Test(expected = InvalidPathException.class)
+  public void testMvIntoSubDirectory()
+      throws HasSameContentNameException, InvalidPathException,
+      IncorrectContentTypeException, InvalidNumberOfArgument {
+
+    // Set params
+    param = new String[] {"/test", "/test/test1"};
+    mvTest.setParam(param);
+
+    // execute mv command
+    mvTest.executeCommand();
+  }
 
 }
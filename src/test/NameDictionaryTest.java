@@ -0,0 +1,93 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import driver.Content;
+import driver.File;
+import driver.Folder;
+import driver.InodeTable;
+import driver.NameDictionary;
+import exception.HasSameContentNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of NameDictionary class, through the nodes that use it
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class NameDictionaryTest {
+
+  /**
+   * The dictionary used by all nodes
+   */
+  private final NameDictionary dictionary = NameDictionary.getDictionary();
+
+  /**
+   * Test nodes with the same name share one name
+   */
+  @Test
+  public void testSameNameShared() {
+    int names = dictionary.getNameCount();
+    for (int i = 0; i < 10; i++) {
+      new Folder("/shared-name", "shared-name");
+    }
+    assertEquals(names + 1, dictionary.getNameCount());
+    assertTrue(dictionary.getReferenceCount("shared-name") >= 10);
+  }
+
+  /**
+   * Test a name is given back once no node uses it, that is once the view of
+   * the removed node is collected
+   *
+   * @throws HasSameContentNameException
+   * @throws InvalidPathException
+   */
+  @Test
+  public void testNameReleased()
+      throws HasSameContentNameException, InvalidPathException {
+    Folder folder = new Folder("/", "/");
+    folder.addContent(new File("/only-once", "only-once", "data"));
+    assertEquals(1, dictionary.getReferenceCount("only-once"));
+    folder.removeContent("only-once");
+    // counting the nodes in use frees the nodes whose views were collected
+    for (int i = 0; i < 100
+        && dictionary.getReferenceCount("only-once") > 0; i++) {
+      System.gc();
+      InodeTable.getTable().getLiveCount();
+    }
+    assertEquals(0, dictionary.getReferenceCount("only-once"));
+  }
+
+  /**
+   * Test a renamed node uses its new name, and is found by it
+   *
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testRename() throws HasSameContentNameException {
+    Folder folder = new Folder("/", "/");
+    Content file = new File("/before-rename", "before-rename", "data");
+    folder.addContent(file);
+    file.changeName("after-rename");
+    assertEquals(0, dictionary.getReferenceCount("before-rename"));
+    assertEquals(1, dictionary.getReferenceCount("after-rename"));
+    assertEquals(file, folder.getContent("after-rename"));
+    assertNull(folder.getContent("before-rename"));
+  }
+
+  /**
+   * Test a name no node has is not found in a folder
+   *
+   * @throws HasSameContentNameException
+   */
+  @Test
+  public void testUnknownName() throws HasSameContentNameException {
+    Folder folder = new Folder("/", "/");
+    folder.addContent(new Folder("/known", "known"));
+    assertEquals(0, dictionary.getReferenceCount("never-used"));
+    assertNull(folder.getContent("never-used"));
+  }
+}
@@ -0,0 +1,108 @@
+package test;
+
+/**
+ * Tests the methods and behaviour of PathCache Class
+ * 
+ * @author Sin Chi Chiu
+ */
+
+import driver.File;
+import driver.Folder;
+import driver.PathCache;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PathCacheTest {
+
+  // Declaration Variables
+
+  public PathCache testCache;
+  public Folder testFolder;
+  public File testFile;
+
+  /**
+   * Before each test case, create a new PathCache
+   */
+  @Before
+  public void setUp() {
+
+    testCache = new PathCache(4);
+    testFolder = new Folder("/a", "a");
+    testFile = new File("/a/b", "b", "");
+
+  }
+
+  /**
+   * Test put and get, with hits and misses counted
+   */
+  @Test
+  public void testPutAndGet() {
+
+    assertEquals(null, testCache.get("/a"));
+    testCache.put("/a", testFolder);
+    testCache.put("/a/b", testFile);
+    testCache.put("/a/c", null);
+
+    assertEquals(testFolder, testCache.get("/a"));
+    assertEquals(testFile, testCache.get("/a/b"));
+    // A path with no content is cached too, and counted as a hit
+    assertEquals(null, testCache.get("/a/c"));
+    assertTrue(testCache.contains("/a/c"));
+    assertFalse(testCache.contains("/a/d"));
+
+    assertEquals(3, testCache.getHits());
+    assertEquals(1, testCache.getMisses());
+
+  }
+
+  /**
+   * Test a path is not cached when its parent path is not cached
+   */
+  @Test
+  public void testPutWithoutParent() {
+
+    testCache.put("/a/b", testFile);
+    assertFalse(testCache.contains("/a/b"));
+    assertEquals(0, testCache.size());
+
+  }
+
+  /**
+   * Test invalidate removes the path and all paths below it
+   */
+  @Test
+  public void testInvalidate() {
+
+    testCache.put("/a", testFolder);
+    testCache.put("/a/b", testFile);
+    testCache.put("/ab", null);
+
+    testCache.invalidate("/a");
+    assertFalse(testCache.contains("/a"));
+    assertFalse(testCache.contains("/a/b"));
+    // A path only starting with the same characters stays
+    assertTrue(testCache.contains("/ab"));
+    assertEquals(null, testCache.peek("/ab"));
+
+  }
+
+  /**
+   * Test the cache does not grow over its capacity
+   */
+  @Test
+  public void testCapacity() {
+
+    testCache.put("/a", testFolder);
+    for (int i = 0; i < 10; i++) {
+      testCache.put("/a/f" + i, null);
+    }
+    assertEquals(4, testCache.size());
+    // The parent path is kept while paths below it are cached
+    assertEquals(testFolder, testCache.peek("/a"));
+
+  }
+
+}
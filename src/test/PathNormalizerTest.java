@@ -0,0 +1,134 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import driver.FileSystem;
+import driver.PathNormalizer;
+import exception.HasSameContentNameException;
+import exception.IncorrectContentTypeException;
+import exception.InvalidNameException;
+import exception.InvalidPathException;
+
+/**
+ * Test methods of PathNormalizer class
+ * 
+ * @author Haosen Xu
+ *
+ */
+public class PathNormalizerTest {
+
+  /**
+   * Instantiate FileSystem
+   */
+  private FileSystem fs;
+
+  /**
+   * Instantiate PathNormalizer
+   */
+  private PathNormalizer normalizer;
+
+  /**
+   * Before each test case
+   * 
+   * @throws InvalidNameException
+   * @throws InvalidPathException
+   * @throws HasSameContentNameException
+   */
+  @Before
+  public void setUp() throws InvalidNameException, InvalidPathException,
+      HasSameContentNameException {
+    fs = FileSystem.createNewFileSystem();
+    normalizer = new PathNormalizer(fs);
+    fs.makeDirectory("/a");
+    fs.makeDirectory("/a/b");
+    fs.makeFile("/a/f");
+  }
+
+  /**
+   * After each test case
+   */
+  @After
+  public void tearDown() {
+    // Reset FileSystem
+    fs.reset();
+  }
+
+  /**
+   * Test normalize with relative paths
+   */
+  @Test
+  public void testRelativePath() {
+    assertEquals("/a/b", normalizer.normalize("b", "/a"));
+    assertEquals("/a", normalizer.normalize("a", "/"));
+    assertEquals("/a", normalizer.normalize("..", "/a/b"));
+    assertEquals("/a", normalizer.normalize(".", "/a"));
+  }
+
+  /**
+   * Test normalize with '.', '..' and repeated slashes
+   */
+  @Test
+  public void testDots() {
+    assertEquals("/a/b", normalizer.normalize("/a/./b/.", "/"));
+    assertEquals("/", normalizer.normalize("/a/b/../..", "/"));
+    assertEquals("/a", normalizer.normalize("/../a", "/"));
+    assertEquals("/a/b", normalizer.normalize("/a//b/", "/"));
+    assertEquals("/a", normalizer.normalize("/a/f/..", "/"));
+  }
+
+  /**
+   * Test normalize with paths that do not exist
+   */
+  @Test
+  public void testMissingPath() {
+    // '..' after a content that does not exist
+    assertEquals(PathNormalizer.INVALID_PATH,
+        normalizer.normalize("/x/../a", "/"));
+    // a file followed by a slash is kept so that it is not a folder
+    assertEquals("/a/f/", normalizer.normalize("/a/f/", "/"));
+    // a new name is only joined to the path
+    assertEquals("/a/new", normalizer.normalize("new", "/a"));
+    // nothing is below a file, or below a name with invalid characters
+    assertEquals(PathNormalizer.INVALID_PATH,
+        normalizer.normalize("/a/f/x/..", "/"));
+    assertEquals(PathNormalizer.INVALID_PATH,
+        normalizer.normalize("/a/b!/..", "/"));
+  }
+
+  /**
+   * Test normalize looks up the contents through the path cache of the file
+   * system, and sees a content removed after it was cached
+   * 
+   * @throws InvalidPathException
+   * @throws IncorrectContentTypeException
+   */
+  @Test
+  public void testUsesPathCache()
+      throws IncorrectContentTypeException, InvalidPathException {
+    assertEquals("/a", normalizer.normalize("/a/b/..", "/"));
+    long hits = fs.getPathCacheHits();
+    assertEquals("/a", normalizer.normalize("/a/b/..", "/"));
+    assertEquals(hits + 1, fs.getPathCacheHits());
+
+    fs.getFolder("/a").removeContent("b");
+    assertEquals(PathNormalizer.INVALID_PATH,
+        normalizer.normalize("/a/b/..", "/"));
+  }
+
+  /**
+   * Test isValidName
+   */
+  @Test
+  public void testIsValidName() {
+    assertTrue(PathNormalizer.isValidName("file.txt"));
+    assertFalse(PathNormalizer.isValidName(""));
+    assertFalse(PathNormalizer.isValidName("ab!"));
+    assertFalse(PathNormalizer.isValidName("!ab"));
+    assertFalse(PathNormalizer.isValidName("a/b"));
+  }
+
+}
@@ -0,0 +1,137 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import commands.Load;
+import commands.Save;
+import driver.FileSystem;
+import exception.InvalidImageException;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * Test the methods of Save, and of Load which reads what Save writes
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class SaveTest {
+  private FileSystem fs;
+  private Save save;
+  private Load load;
+  private Path image;
+
+  /**
+   * Setup before each test cases
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    fs = FileSystem.createNewFileSystem();
+    save = new Save(fs);
+    load = new Load(fs);
+    image = Files.createTempFile("jshell", ".jshi");
+    fs.makeDirectory("/dir1");
+    fs.makeFile("/dir1/file1");
+    fs.getFile("/dir1/file1").overwriteData("text");
+  }
+
+  /**
+   * Reset the file system and delete the image after each test
+   *
+   * @throws Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    fs.reset();
+    Files.deleteIfExists(image);
+  }
+
+  /**
+   * Test load gives back the file system written by save
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testSaveThenLoad() throws Exception {
+    save.setParam(new String[] {image.toString()});
+    save.executeCommand();
+    fs.changeDirectory("/dir1");
+    fs.getFolder("/").removeContent("dir1");
+    load.setParam(new String[] {image.toString()});
+    load.executeCommand();
+    assertEquals("text", fs.getFile("/dir1/file1").getData());
+    assertEquals("/", fs.getCurrPath());
+  }
+
+  /**
+   * Test load reads an indexed image written by save -m
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testSaveMappedThenLoad() throws Exception {
+    save.setParam(new String[] {"-m", image.toString()});
+    save.executeCommand();
+    fs.reset();
+    load.setParam(new String[] {image.toString()});
+    load.executeCommand();
+    assertTrue(fs.getFolder("/dir1").isMapped());
+    assertEquals("text", fs.getFile("/dir1/file1").getData());
+  }
+
+  /**
+   * Test load of a file that does not exist
+   *
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testLoadMissingImage() throws InvalidNumberOfArgument {
+    String missing = image.toString() + ".missing";
+    load.setParam(new String[] {missing});
+    try {
+      load.executeCommand();
+      fail("A missing image was read");
+    } catch (InvalidImageException e) {
+      assertEquals("Error: Cannot read the image " + missing, e.getMessage());
+    }
+    assertTrue(fs.pathExist("/dir1/file1"));
+  }
+
+  /**
+   * Test save to a folder that does not exist
+   *
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testSaveMissingFolder() throws InvalidNumberOfArgument {
+    String missing = image.toString() + ".missing/image";
+    save.setParam(new String[] {missing});
+    try {
+      save.executeCommand();
+      fail("An image was written to a missing folder");
+    } catch (InvalidImageException e) {
+      assertEquals("Error: Cannot write the image " + missing,
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Test save with no path
+   *
+   * @throws InvalidImageException
+   */
+  @Test(expected = InvalidNumberOfArgument.class)
+  public void testSaveNoPath()
+      throws InvalidNumberOfArgument, InvalidImageException {
+    save.setParam(new String[] {});
+    save.executeCommand();
+  }
+}
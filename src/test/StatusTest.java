@@ -0,0 +1,133 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import commands.Status;
+import driver.Checkpointer;
+import driver.FileSystem;
+import driver.Journal;
+import driver.PrintFormatter;
+import exception.InvalidNumberOfArgument;
+
+/**
+ * Test the methods of Status
+ *
+ * @author Sin Chi Chiu
+ *
+ */
+public class StatusTest {
+  private PrintFormatter format;
+  private Status status;
+  private FileSystem fs;
+  private Path directory;
+
+  /**
+   * Setup before each test cases
+   *
+   * @throws IOException
+   */
+  @Before
+  public void setUp() throws IOException {
+    format = new PrintFormatter();
+    status = new Status(format);
+    status.setParam(new String[] {});
+    fs = FileSystem.createNewFileSystem();
+    directory = Files.createTempDirectory("jshell-status");
+  }
+
+  /**
+   * Turn checkpointing and the journal off and delete the checkpoints after
+   * each test
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    Checkpointer.disable(false);
+    Journal.disable();
+    fs.reset();
+    try (DirectoryStream<Path> listed = Files.newDirectoryStream(directory)) {
+      for (Path next : listed) {
+        Files.delete(next);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  /**
+   * Test status when checkpointing and the journal are off
+   *
+   * @throws InvalidNumberOfArgument
+   */
+  @Test
+  public void testOff() throws InvalidNumberOfArgument {
+    status.executeCommand();
+    assertEquals("Checkpointing: off\n" + "Journal: off", format.getOutput());
+  }
+
+  /**
+   * Test status reports the last checkpoint written and the journal
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCheckpoint() throws Exception {
+    Checkpointer checkpointer =
+        Checkpointer.enable(directory, 60 * 1000, fs);
+    Journal.enable(directory.resolve("journal.jsjl"),
+        Journal.Durability.GROUP, fs);
+    status.executeCommand();
+    assertTrue(format.getOutput().startsWith("Checkpointing: on, to "
+        + directory + ", every 60 s\n" + "Writing: none\n"
+        + "Last checkpoint: none\n"));
+    fs.makeDirectory("/dir1");
+    checkpointer.checkpoint();
+    status.executeCommand();
+    assertTrue(format.getOutput().contains("\nLast checkpoint: 1, 2 nodes, "
+        + checkpointer.getLastBytes() + " bytes in "));
+    assertTrue(format.getOutput().endsWith(
+        "\nCheckpoints: 1 written, 0 merges, 1 to read back\n"
+            + "Journal: on, group, 1 records made, 16 bytes kept"));
+  }
+
+  /**
+   * Test status reports the checkpoint being written in the background
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriting() throws Exception {
+    Checkpointer checkpointer = Checkpointer.enable(directory, 0, fs);
+    fs.makeFile("/file1");
+    fs.getFile("/file1").overwriteData("text");
+    checkpointer.tick();
+    status.executeCommand();
+    assertTrue(format.getOutput().contains(
+        "\nWriting: checkpoint 1, "));
+    assertTrue(format.getOutput().contains(" of 2 nodes, "));
+    assertTrue(format.getOutput().contains(", 4 bytes of files frozen, "));
+    checkpointer.await();
+    status.executeCommand();
+    assertTrue(format.getOutput().contains("\nWriting: none\n"));
+  }
+
+  /**
+   * Test status with too many parameters
+   *
+   * @throws InvalidNumberOfArgument
+   */
+  @Test(expected = InvalidNumberOfArgument.class)
+  public void testTooManyParam() throws InvalidNumberOfArgument {
+    status.setParam(new String[] {"extra"});
+    status.executeCommand();
+  }
+}